@@ -5,8 +5,9 @@ import com.dw.study.ApiIdepotent.service.TokenServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.method.HandlerMethod;
-import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.lang.reflect.Method;
@@ -19,7 +20,7 @@ import java.lang.reflect.Method;
  * @Version 1.0
  */
 @Component
-public class ApiIdempotentInterceptor implements HandlerInterceptor {
+public class ApiIdempotentInterceptor implements AsyncHandlerInterceptor {
 
 
     @Autowired
@@ -30,6 +31,10 @@ public class ApiIdempotentInterceptor implements HandlerInterceptor {
         if (!(handler instanceof HandlerMethod)) {
             return true;
         }
+        // @AsyncHandler 方法执行完成后的异步分派会再次经过拦截器，Token在首次请求时已经校验并删除，这里直接放行
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
         HandlerMethod handlerMethod = (HandlerMethod) handler;
         Method method = handlerMethod.getMethod();
         ApiIdempotent apiIdempotent = method.getAnnotation(ApiIdempotent.class);
@@ -0,0 +1,38 @@
+package com.dw.study.ApiIdepotent;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @Author dw
+ * @ClassName TokenProperties
+ * @Description 幂等Token配置，对应 application.yml 中的 api-idempotent.token
+ * @Date 2026/10/19 19:00
+ * @Version 1.0
+ */
+@Data
+@ConfigurationProperties(prefix = "api-idempotent.token")
+public class TokenProperties {
+
+    /**
+     * Token的有效期
+     */
+    private Duration ttl = Duration.ofSeconds(10000);
+
+    /**
+     * 每次写入 Redis 的最大Token数（一次管道往返）
+     */
+    private int maxBatchSize = 256;
+
+    /**
+     * 写入线程数
+     */
+    private int writerThreads = 2;
+
+    /**
+     * 等待Token写入 Redis 的最长时间，超时后创建Token失败
+     */
+    private Duration writeTimeout = Duration.ofSeconds(5);
+}
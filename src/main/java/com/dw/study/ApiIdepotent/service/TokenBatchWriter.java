@@ -0,0 +1,132 @@
+package com.dw.study.ApiIdepotent.service;
+
+import com.dw.study.ApiIdepotent.TokenProperties;
+import com.dw.study.utils.RedisUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * @Author dw
+ * @ClassName TokenBatchWriter
+ * @Description 合并写入Token：请求线程把Token放入队列后等待，写入线程一次取出队列中所有Token（最多 maxBatchSize 个）
+ * 通过管道写入 Redis 后统一唤醒。请求少时每批只有一个Token，和直接写入一样；突发请求时一次往返写入一批，
+ * 请求线程不会在逐个 SET 上排队
+ * @Date 2026/10/19 19:00
+ * @Version 1.0
+ */
+@Component
+public class TokenBatchWriter implements DisposableBean {
+
+    private final static Logger log = LoggerFactory.getLogger(TokenBatchWriter.class);
+
+    private final RedisUtils redisUtils;
+
+    private final TokenProperties properties;
+
+    private final BlockingQueue<PendingToken> queue = new LinkedBlockingQueue<>();
+
+    private final List<Thread> writers = new ArrayList<>();
+
+    private volatile boolean running = true;
+
+    public TokenBatchWriter(RedisUtils redisUtils, TokenProperties properties) {
+        this.redisUtils = redisUtils;
+        this.properties = properties;
+        for (int i = 0; i < Math.max(1, properties.getWriterThreads()); i++) {
+            Thread writer = new Thread(this::writeLoop, "token-writer-" + (i + 1));
+            writer.setDaemon(true);
+            writer.start();
+            writers.add(writer);
+        }
+    }
+
+    /**
+     * 保存Token，写入 Redis 后返回
+     *
+     * @param token
+     * @return true成功 false失败或超时
+     */
+    public boolean save(String token) {
+        PendingToken pending = new PendingToken(token);
+        queue.add(pending);
+        try {
+            return pending.result.get(properties.getWriteTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("Token写入失败: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void writeLoop() {
+        int maxBatchSize = Math.max(1, properties.getMaxBatchSize());
+        List<PendingToken> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                PendingToken first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingToken> batch) {
+        Map<String, Object> tokens = new HashMap<>(batch.size() * 4 / 3 + 1);
+        for (PendingToken pending : batch) {
+            tokens.put(pending.token, pending.token);
+        }
+        boolean success = redisUtils.multiSetWithExpire(tokens, properties.getTtl().getSeconds());
+        for (PendingToken pending : batch) {
+            pending.result.complete(success);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        for (Thread writer : writers) {
+            writer.interrupt();
+        }
+        PendingToken pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.complete(false);
+        }
+    }
+
+    /**
+     * 等待写入的Token
+     */
+    private static final class PendingToken {
+
+        private final String token;
+
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        private PendingToken(String token) {
+            this.token = token;
+        }
+    }
+}
@@ -7,7 +7,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.servlet.http.HttpServletRequest;
-import java.util.UUID;
 
 /**
  * @Author dw
@@ -22,10 +21,19 @@ public class TokenServiceImpl implements ITokenService {
     @Autowired
     RedisUtils redisUtils;
 
+    @Autowired
+    TokenGenerator tokenGenerator;
+
+    @Autowired
+    TokenBatchWriter tokenBatchWriter;
+
     @Override
     public String createToken() {
-        String token = UUID.randomUUID().toString().replaceAll("-", "");
-        redisUtils.set(token, token, 10000L);
+        String token = tokenGenerator.nextToken();
+        // 与其他请求的Token合并写入，有效期见 api-idempotent.token.ttl
+        if (!tokenBatchWriter.save(token)) {
+            throw new RuntimeException("Token保存失败");
+        }
         return token;
     }
 
@@ -40,19 +48,11 @@ public class TokenServiceImpl implements ITokenService {
                 throw new RuntimeException("没有获取到访问接口的Token字段");
             }
         }
-        // 检查redis中是否存在key，如果不存在说明之前该接口已经请求过了
-        if (!redisUtils.hasKey(token)) {
+        // Token的值就是Token本身，值相等时才删除，删除成功说明是第一次请求；
+        // 不能先 hasKey 再 del：两次往返之间其他线程可能已经删除了Token，只有删除的结果才能判断是否重复请求
+        if (!redisUtils.compareAndDelete(token, token)) {
             throw new RuntimeException("重复请求");
         }
-        // 效验成功，删除Token
-        boolean remove = redisUtils.del(token);
-        /**
-         * 这里要注意：不能单纯的直接删除token而不校验token是否删除成功，会出现并发安全问题
-         * 在多线程情况下，此时token还未被删除，继续向下执行
-         */
-        if (!remove) {
-            throw new RuntimeException("token delete fail");
-        }
         return true;
     }
 
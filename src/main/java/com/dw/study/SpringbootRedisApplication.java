@@ -2,12 +2,19 @@ package com.dw.study;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 @SpringBootApplication
+// 各模块的 *Properties 类通过扫描注册，不需要在配置类中逐个启用
+@ConfigurationPropertiesScan
 public class SpringbootRedisApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(SpringbootRedisApplication.class, args);
+        SpringApplication application = new SpringApplication(SpringbootRedisApplication.class);
+        // 记录启动各步骤的耗时（包括 redis.warmup.*），通过 /actuator/startup 查看
+        application.setApplicationStartup(new BufferingApplicationStartup(2048));
+        application.run(args);
     }
 
 }
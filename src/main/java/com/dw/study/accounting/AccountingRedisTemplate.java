@@ -0,0 +1,20 @@
+package com.dw.study.accounting;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * @Author dw
+ * @ClassName AccountingRedisTemplate
+ * @Description 访问Redis计入当前HTTP请求统计的 RedisTemplate（见 {@link RedisRequestAccounting}），
+ * 当前线程没有统计时与 RedisTemplate 完全相同
+ * @Date 2026/10/20 00:20
+ * @Version 1.0
+ */
+public class AccountingRedisTemplate extends RedisTemplate<String, Object> {
+
+    @Override
+    protected RedisConnection preProcessConnection(RedisConnection connection, boolean existingConnection) {
+        return RedisRequestAccounting.wrap(super.preProcessConnection(connection, existingConnection));
+    }
+}
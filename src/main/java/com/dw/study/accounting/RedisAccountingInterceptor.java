@@ -0,0 +1,114 @@
+package com.dw.study.accounting;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author dw
+ * @ClassName RedisAccountingInterceptor
+ * @Description 按HTTP请求统计Redis访问，用于发现一个请求中循环调用 RedisUtils 的 N+1 访问：
+ * 请求开始时按抽样比例决定是否统计，请求结束时按处理方法（Controller#method）记录监控指标
+ * http.redis.round.trips、http.redis.commands、http.redis.bytes、http.redis.time，往返次数超过预算时输出警告日志。
+ * 同时作为 CallableProcessingInterceptor，@AsyncHandler 方法在线程池中的Redis访问也计入请求；
+ * 开启 redis.auto-batch 后由合并线程发送的命令，以及不经过 RedisTemplate 的访问（StringRedisTemplate、SpringCache、Redisson分布式锁）不计入
+ * @Date 2026/10/20 00:20
+ * @Version 1.0
+ */
+@Component
+public class RedisAccountingInterceptor implements AsyncHandlerInterceptor, CallableProcessingInterceptor {
+
+    private final static Logger log = LoggerFactory.getLogger(RedisAccountingInterceptor.class);
+
+    private static final String ATTRIBUTE = RedisAccountingInterceptor.class.getName() + ".stats";
+
+    private final RedisAccountingProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    public RedisAccountingInterceptor(RedisAccountingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // 异步分派时继续使用第一次分派创建的统计
+        RedisRequestStats stats = (RedisRequestStats) request.getAttribute(ATTRIBUTE);
+        if (stats == null) {
+            if (!properties.isEnabled() || ThreadLocalRandom.current().nextDouble() >= properties.getSampleRate()) {
+                return true;
+            }
+            stats = new RedisRequestStats();
+            request.setAttribute(ATTRIBUTE, stats);
+        }
+        RedisRequestAccounting.bind(stats);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RedisRequestAccounting.bind(null);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RedisRequestAccounting.bind(null);
+        RedisRequestStats stats = (RedisRequestStats) request.getAttribute(ATTRIBUTE);
+        if (stats == null) {
+            return;
+        }
+        request.removeAttribute(ATTRIBUTE);
+        String handlerName = handlerName(handler);
+        DistributionSummary.builder("http.redis.round.trips").tag("handler", handlerName).register(meterRegistry)
+                .record(stats.getRoundTrips());
+        DistributionSummary.builder("http.redis.commands").tag("handler", handlerName).register(meterRegistry)
+                .record(stats.getCommands());
+        DistributionSummary.builder("http.redis.bytes").baseUnit("bytes").tag("handler", handlerName).tag("direction", "sent")
+                .register(meterRegistry).record(stats.getBytesSent());
+        DistributionSummary.builder("http.redis.bytes").baseUnit("bytes").tag("handler", handlerName).tag("direction", "received")
+                .register(meterRegistry).record(stats.getBytesReceived());
+        Timer.builder("http.redis.time").tag("handler", handlerName).register(meterRegistry)
+                .record(stats.getNanos(), TimeUnit.NANOSECONDS);
+        if (properties.getMaxRoundTrips() > 0 && stats.getRoundTrips() > properties.getMaxRoundTrips()) {
+            Counter.builder("http.redis.budget.exceeded").tag("handler", handlerName).register(meterRegistry).increment();
+            log.warn("{} {}（{}）访问Redis {}次往返、{}条命令，发送{}字节、接收{}字节，耗时{}ms，超过预算{}次往返",
+                    request.getMethod(), request.getRequestURI(), handlerName, stats.getRoundTrips(), stats.getCommands(),
+                    stats.getBytesSent(), stats.getBytesReceived(), TimeUnit.NANOSECONDS.toMillis(stats.getNanos()),
+                    properties.getMaxRoundTrips());
+        }
+    }
+
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+        RedisRequestAccounting.bind((RedisRequestStats) request.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST));
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        RedisRequestAccounting.bind(null);
+    }
+
+    private static String handlerName(Object handler) {
+        if (handler instanceof HandlerMethod) {
+            HandlerMethod handlerMethod = (HandlerMethod) handler;
+            return handlerMethod.getBeanType().getSimpleName() + "#" + handlerMethod.getMethod().getName();
+        }
+        return handler.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,31 @@
+package com.dw.study.accounting;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @Author dw
+ * @ClassName RedisAccountingProperties
+ * @Description 按HTTP请求统计Redis访问的配置，对应 application.yml 中的 redis.request-accounting
+ * @Date 2026/10/20 00:20
+ * @Version 1.0
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.request-accounting")
+public class RedisAccountingProperties {
+
+    /**
+     * 是否统计每个HTTP请求访问Redis的命令数、往返次数、字节数和耗时
+     */
+    private boolean enabled = true;
+
+    /**
+     * 抽样比例（0~1），默认只统计1%的请求，排查问题时可以临时调高到1.0；没有抽中的请求不做任何统计
+     */
+    private double sampleRate = 0.01;
+
+    /**
+     * 每个请求的往返次数预算，超过时输出警告日志并计入 http.redis.budget.exceeded，小于等于0不检查
+     */
+    private int maxRoundTrips = 20;
+}
@@ -0,0 +1,170 @@
+package com.dw.study.accounting;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * @Author dw
+ * @ClassName RedisRequestAccounting
+ * @Description 当前线程所属HTTP请求的Redis访问统计：{@link RedisAccountingInterceptor} 在请求开始时绑定，
+ * {@link AccountingRedisTemplate} 取得连接时用 {@link #wrap} 包装一层计数的代理。
+ * 单条命令计一次往返；管道、事务中的命令只计命令数，closePipeline/exec 计一次往返；字节数为参数和响应中 byte[] 的长度
+ * @Date 2026/10/20 00:20
+ * @Version 1.0
+ */
+public final class RedisRequestAccounting {
+
+    private static final ThreadLocal<RedisRequestStats> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 不访问Redis的连接方法
+     */
+    private static final Set<String> NON_COMMANDS = new HashSet<>(Arrays.asList("close", "isClosed", "getNativeConnection",
+            "isQueueing", "isPipelined", "openPipeline", "getSentinelConnection"));
+
+    private RedisRequestAccounting() {
+    }
+
+    /**
+     * 当前线程的统计
+     *
+     * @return 不在HTTP请求中或请求没有被抽中时返回null
+     */
+    public static RedisRequestStats current() {
+        return CURRENT.get();
+    }
+
+    static void bind(RedisRequestStats stats) {
+        if (stats == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(stats);
+        }
+    }
+
+    /**
+     * 在其他线程中执行调用方的Redis访问时（如 redis-guard 线程），访问计入调用方的统计
+     *
+     * @param stats 调用方线程的统计，可以为null
+     * @param call
+     * @return
+     */
+    public static <T> T callWith(RedisRequestStats stats, Supplier<T> call) {
+        RedisRequestStats previous = CURRENT.get();
+        if (stats == previous) {
+            return call.get();
+        }
+        bind(stats);
+        try {
+            return call.get();
+        } finally {
+            bind(previous);
+        }
+    }
+
+    /**
+     * 当前线程有统计时返回计数的连接代理，否则返回原连接
+     *
+     * @param connection
+     * @return
+     */
+    public static RedisConnection wrap(RedisConnection connection) {
+        RedisRequestStats stats = CURRENT.get();
+        if (stats == null || Proxy.isProxyClass(connection.getClass())
+                && Proxy.getInvocationHandler(connection) instanceof CountingHandler) {
+            return connection;
+        }
+        return (RedisConnection) proxy(connection, connection, stats);
+    }
+
+    private static Object proxy(Object target, RedisConnection connection, RedisRequestStats stats) {
+        Class<?>[] interfaces = ClassUtils.getAllInterfacesForClass(target.getClass(), RedisRequestAccounting.class.getClassLoader());
+        return Proxy.newProxyInstance(RedisRequestAccounting.class.getClassLoader(), interfaces,
+                new CountingHandler(target, connection, stats));
+    }
+
+    private static long sizeOf(Object value) {
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        }
+        long size = 0;
+        if (value instanceof Object[]) {
+            for (Object element : (Object[]) value) {
+                size += sizeOf(element);
+            }
+        } else if (value instanceof Collection) {
+            for (Object element : (Collection<?>) value) {
+                size += sizeOf(element);
+            }
+        } else if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += sizeOf(entry.getKey()) + sizeOf(entry.getValue());
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 连接以及 stringCommands() 等子命令接口共用的计数代理，是否处于管道、事务中以原连接为准
+     */
+    private static final class CountingHandler implements InvocationHandler {
+
+        private final Object target;
+
+        private final RedisConnection connection;
+
+        private final RedisRequestStats stats;
+
+        private CountingHandler(Object target, RedisConnection connection, RedisRequestStats stats) {
+            this.target = target;
+            this.connection = connection;
+            this.stats = stats;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (method.getDeclaringClass() == Object.class || NON_COMMANDS.contains(name)) {
+                return invokeTarget(method, args);
+            }
+            if (name.endsWith("Commands") && method.getParameterCount() == 0 && method.getReturnType().isInterface()) {
+                Object commands = invokeTarget(method, args);
+                return commands == null ? null : proxy(commands, connection, stats);
+            }
+            boolean submit = "closePipeline".equals(name) || "exec".equals(name);
+            if (!"closePipeline".equals(name)) {
+                stats.recordCommand(sizeOf(args));
+            }
+            if (!submit && (connection.isPipelined() || connection.isQueueing())) {
+                return invokeTarget(method, args);
+            }
+            long start = System.nanoTime();
+            Object result = null;
+            try {
+                result = invokeTarget(method, args);
+                return result;
+            } finally {
+                stats.recordRoundTrip(System.nanoTime() - start, sizeOf(result));
+            }
+        }
+
+        private Object invokeTarget(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.dw.study.accounting;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Author dw
+ * @ClassName RedisRequestStats
+ * @Description 一个HTTP请求访问Redis的统计，请求线程、redis-guard 线程、@AsyncHandler 线程池都可能写入
+ * @Date 2026/10/20 00:20
+ * @Version 1.0
+ */
+public class RedisRequestStats {
+
+    private final AtomicLong commands = new AtomicLong();
+
+    private final AtomicLong roundTrips = new AtomicLong();
+
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    /**
+     * 发送一条命令（管道、事务中的命令只计命令数，不计往返）
+     *
+     * @param bytes 参数的字节数
+     */
+    void recordCommand(long bytes) {
+        commands.incrementAndGet();
+        bytesSent.addAndGet(bytes);
+    }
+
+    /**
+     * 一次往返：单条命令，或管道、事务的提交
+     *
+     * @param elapsed 等待响应的时间（纳秒）
+     * @param bytes   响应的字节数
+     */
+    void recordRoundTrip(long elapsed, long bytes) {
+        roundTrips.incrementAndGet();
+        nanos.addAndGet(elapsed);
+        bytesReceived.addAndGet(bytes);
+    }
+
+    public long getCommands() {
+        return commands.get();
+    }
+
+    public long getRoundTrips() {
+        return roundTrips.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    public long getNanos() {
+        return nanos.get();
+    }
+}
@@ -0,0 +1,28 @@
+package com.dw.study.analytics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @Author dw
+ * @ClassName VisitorAnalyticsProperties
+ * @Description {@link VisitorAnalyticsService} 配置，对应 application.yml 中的 redis.analytics
+ * @Date 2026/10/19 21:30
+ * @Version 1.0
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.analytics")
+public class VisitorAnalyticsProperties {
+
+    /**
+     * key前缀
+     */
+    private String keyPrefix = "analytics";
+
+    /**
+     * 每天的UV、活跃用户、PV数据的保留时间，需要覆盖留存分析的最大间隔
+     */
+    private Duration keyTtl = Duration.ofDays(90);
+}
@@ -0,0 +1,268 @@
+package com.dw.study.analytics;
+
+import com.dw.study.utils.RedisScriptRegistry;
+import com.dw.study.utils.RedisUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.BitFieldSubCommands;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @Author dw
+ * @ClassName VisitorAnalyticsService
+ * @Description 基于 HyperLogLog 和 Bitmap 的访问统计，代替用 Set 保存每个访客：
+ * 每个页面每天的UV保存在一个 HyperLogLog（最多约12KB，误差约0.81%），
+ * 每天的活跃用户保存在一个按用户ID寻址的位图（1亿用户约12MB），用于日活和留存计算，
+ * 每个页面每天按小时的PV保存在一个位图中的24个32位计数器（BITFIELD，96字节）。
+ * 同一批访问的所有写入通过一次管道发送。
+ * key带有hash tag（同一页面的UV、所有日期的活跃用户分别在同一个slot），集群模式下也可以跨天合并统计
+ * @Date 2026/10/19 21:30
+ * @Version 1.0
+ */
+@Service
+public class VisitorAnalyticsService {
+
+    private final static Logger log = LoggerFactory.getLogger(VisitorAnalyticsService.class);
+
+    /**
+     * 位图中用户ID的上限（Redis位图最大 2^32 位）
+     */
+    private static final long MAX_USER_ID = (1L << 32) - 1;
+
+    private static final BitFieldSubCommands.BitFieldType PV_COUNTER = BitFieldSubCommands.BitFieldType.UINT_32;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final RedisUtils redisUtils;
+
+    private final RedisScriptRegistry scriptRegistry;
+
+    private final VisitorAnalyticsProperties properties;
+
+    public VisitorAnalyticsService(RedisTemplate<String, Object> redisTemplate, RedisUtils redisUtils,
+                                   RedisScriptRegistry scriptRegistry, VisitorAnalyticsProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.redisUtils = redisUtils;
+        this.scriptRegistry = scriptRegistry;
+        this.properties = properties;
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @param page   页面
+     * @param userId 用户ID，0 ~ 2^32-1
+     * @return true成功 false失败
+     */
+    public boolean recordVisit(String page, long userId) {
+        return recordVisits(Collections.singletonMap(page, Collections.singletonList(userId)));
+    }
+
+    /**
+     * 批量记录当前时刻的访问（如消费一批访问日志），所有页面的UV、PV和活跃用户在一次管道中写入
+     *
+     * @param visitsByPage 页面 -> 访问的用户ID（可以重复，每个ID计一次PV）
+     * @return true成功 false失败
+     */
+    public boolean recordVisits(Map<String, ? extends Collection<Long>> visitsByPage) {
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> activeUsers = new LinkedHashSet<>();
+        for (Collection<Long> userIds : visitsByPage.values()) {
+            for (Long userId : userIds) {
+                activeUsers.add(checkUserId(userId));
+            }
+        }
+        if (activeUsers.isEmpty()) {
+            return true;
+        }
+        try {
+            try {
+                writeVisits(visitsByPage, activeUsers, now);
+            } catch (Exception e) {
+                if (!isNoScript(e)) {
+                    throw e;
+                }
+                // Redis 重启或执行过 SCRIPT FLUSH：重新加载脚本后重试整批，
+                // 失败的只有 EVALSHA，其他命令（PFADD、SETBIT、EXPIRE）重复执行不影响结果
+                scriptRegistry.load();
+                writeVisits(visitsByPage, activeUsers, now);
+            }
+            return true;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 页面某一天的UV
+     *
+     * @param page 页面
+     * @param day  日期
+     * @return
+     */
+    public long dailyUv(String page, LocalDate day) {
+        return redisUtils.pfCount(uvKey(page, day));
+    }
+
+    /**
+     * 页面在一段日期内的UV（多天去重，不保存合并结果）
+     *
+     * @param page 页面
+     * @param from 开始日期
+     * @param to   结束日期（包含）
+     * @return
+     */
+    public long uv(String page, LocalDate from, LocalDate to) {
+        List<String> keys = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            keys.add(uvKey(page, day));
+        }
+        return keys.isEmpty() ? 0 : redisUtils.pfCount(keys.toArray(new String[0]));
+    }
+
+    /**
+     * 页面某一天每小时的PV
+     *
+     * @param page 页面
+     * @param day  日期
+     * @return 24个小时的PV
+     */
+    public List<Long> hourlyPageViews(String page, LocalDate day) {
+        List<Long> views = redisUtils.bitFieldGet(pvKey(page, day), PV_COUNTER, 0, 24);
+        return views == null ? Collections.emptyList() : views;
+    }
+
+    /**
+     * 某一天的活跃用户数（日活）
+     *
+     * @param day 日期
+     * @return
+     */
+    public long dailyActiveUsers(LocalDate day) {
+        return redisUtils.bitCount(activeKey(day));
+    }
+
+    /**
+     * 用户某一天是否活跃
+     *
+     * @param userId 用户ID
+     * @param day    日期
+     * @return
+     */
+    public boolean isActive(long userId, LocalDate day) {
+        return redisUtils.getBit(activeKey(day), checkUserId(userId));
+    }
+
+    /**
+     * 留存率：cohortDay 活跃的用户中，day 仍然活跃的比例（两天的位图 BITOP AND 后 BITCOUNT）。
+     * 通过 lua/bitop_and_count.lua 在一次调用中完成 BITOP、BITCOUNT 和删除临时key，同样日期的并发调用不会互相删除结果
+     *
+     * @param cohortDay 起始日期
+     * @param day       计算留存的日期，如 cohortDay 的次日、7日后
+     * @return 0 ~ 1，cohortDay 没有活跃用户时返回0
+     */
+    public double retention(LocalDate cohortDay, LocalDate day) {
+        long cohortSize = dailyActiveUsers(cohortDay);
+        if (cohortSize == 0) {
+            return 0;
+        }
+        String resultKey = activeKey(cohortDay) + ":retained:" + day.format(DateTimeFormatter.BASIC_ISO_DATE);
+        try {
+            Long retained = redisTemplate.execute(scriptRegistry.get("bitop_and_count", Long.class),
+                    Arrays.asList(resultKey, activeKey(cohortDay), activeKey(day)));
+            return retained == null ? 0 : (double) retained / cohortSize;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return 0;
+        }
+    }
+
+    private void writeVisits(Map<String, ? extends Collection<Long>> visitsByPage, Set<Long> activeUsers, LocalDateTime now) {
+        LocalDate day = now.toLocalDate();
+        // 与 RedisUtils#bitFieldIncrement 相同，通过脚本执行 BITFIELD（Redisson 的连接在管道中不支持 EVAL，只能使用 EVALSHA）
+        byte[] bitFieldSha = raw(scriptRegistry.get("bitfield", List.class).getSha1());
+        long ttl = properties.getKeyTtl().getSeconds();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<String, ? extends Collection<Long>> entry : visitsByPage.entrySet()) {
+                if (entry.getValue().isEmpty()) {
+                    continue;
+                }
+                byte[] uvKey = raw(uvKey(entry.getKey(), day));
+                connection.hyperLogLogCommands().pfAdd(uvKey, rawValues(entry.getValue()));
+                connection.keyCommands().expire(uvKey, ttl);
+                byte[] pvKey = raw(pvKey(entry.getKey(), day));
+                connection.scriptingCommands().evalSha(bitFieldSha, ReturnType.MULTI, 1, pvKey,
+                        raw("OVERFLOW"), raw("SAT"), raw("INCRBY"), raw(PV_COUNTER.asString()),
+                        raw("#" + now.getHour()), raw(String.valueOf(entry.getValue().size())));
+                connection.keyCommands().expire(pvKey, ttl);
+            }
+            writeActiveUsers(connection, raw(activeKey(day)), activeUsers, ttl);
+            return null;
+        });
+    }
+
+    private static boolean isNoScript(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void writeActiveUsers(RedisConnection connection, byte[] activeKey, Set<Long> userIds, long ttl) {
+        for (Long userId : userIds) {
+            connection.stringCommands().setBit(activeKey, userId, true);
+        }
+        connection.keyCommands().expire(activeKey, ttl);
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[][] rawValues(Collection<Long> userIds) {
+        RedisSerializer<Object> serializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        // 与 RedisUtils#pfAdd 使用相同的序列化方式
+        return new LinkedHashSet<>(userIds).stream().map(serializer::serialize).toArray(byte[][]::new);
+    }
+
+    private static long checkUserId(Long userId) {
+        if (userId == null || userId < 0 || userId > MAX_USER_ID) {
+            throw new IllegalArgumentException("用户ID超出位图范围: " + userId);
+        }
+        return userId;
+    }
+
+    private String uvKey(String page, LocalDate day) {
+        return properties.getKeyPrefix() + ":uv:{" + page + "}:" + day.format(DateTimeFormatter.BASIC_ISO_DATE);
+    }
+
+    private String pvKey(String page, LocalDate day) {
+        return properties.getKeyPrefix() + ":pv:{" + page + "}:" + day.format(DateTimeFormatter.BASIC_ISO_DATE);
+    }
+
+    private String activeKey(LocalDate day) {
+        return properties.getKeyPrefix() + ":{active}:" + day.format(DateTimeFormatter.BASIC_ISO_DATE);
+    }
+
+    private static byte[] raw(String arg) {
+        return arg.getBytes(StandardCharsets.UTF_8);
+    }
+}
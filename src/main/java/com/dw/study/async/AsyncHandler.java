@@ -0,0 +1,24 @@
+package com.dw.study.async;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * @Author dw
+ * @ClassName AsyncHandler
+ * @Description 标注在耗时的Controller方法上：方法在专用的有界线程池中执行（WebAsyncTask），
+ * 不再占用Tomcat请求线程，方法签名不需要改成 Callable
+ * @Date 2026/10/19 16:40
+ * @Version 1.0
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AsyncHandler {
+
+    /**
+     * 超时时间（毫秒），超时后返回503并中断执行线程，小于等于0时使用 async-handler.default-timeout
+     */
+    long timeout() default 0;
+}
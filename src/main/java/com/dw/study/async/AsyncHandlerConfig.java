@@ -0,0 +1,46 @@
+package com.dw.study.async;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * @Author dw
+ * @ClassName AsyncHandlerConfig
+ * @Description {@link AsyncHandler} 方法使用的有界线程池，并注册监控指标：
+ * async.handler.queue.depth（排队数）、async.handler.active（执行中）、async.handler.rejected（被拒绝次数）
+ * @Date 2026/10/19 16:45
+ * @Version 1.0
+ */
+@Configuration
+@Slf4j
+public class AsyncHandlerConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor asyncHandlerExecutor(AsyncHandlerProperties properties, MeterRegistry meterRegistry) {
+        Counter rejected = Counter.builder("async.handler.rejected").register(meterRegistry);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getCorePoolSize());
+        executor.setMaxPoolSize(properties.getMaxPoolSize());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("async-handler-");
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            new ThreadPoolExecutor.AbortPolicy().rejectedExecution(task, pool);
+        });
+        executor.initialize();
+        Gauge.builder("async.handler.queue.depth", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("async.handler.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .register(meterRegistry);
+        log.info("AsyncHandler线程池初始化完成, core: {}, max: {}, queue: {}",
+                properties.getCorePoolSize(), properties.getMaxPoolSize(), properties.getQueueCapacity());
+        return executor;
+    }
+}
@@ -0,0 +1,38 @@
+package com.dw.study.async;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @Author dw
+ * @ClassName AsyncHandlerProperties
+ * @Description {@link AsyncHandler} 线程池配置，对应 application.yml 中的 async-handler
+ * @Date 2026/10/19 16:42
+ * @Version 1.0
+ */
+@Data
+@ConfigurationProperties(prefix = "async-handler")
+public class AsyncHandlerProperties {
+
+    /**
+     * 核心线程数
+     */
+    private int corePoolSize = 50;
+
+    /**
+     * 最大线程数
+     */
+    private int maxPoolSize = 200;
+
+    /**
+     * 等待队列长度，队列满且线程数达到最大值后拒绝请求
+     */
+    private int queueCapacity = 1000;
+
+    /**
+     * 默认超时时间
+     */
+    private Duration defaultTimeout = Duration.ofSeconds(30);
+}
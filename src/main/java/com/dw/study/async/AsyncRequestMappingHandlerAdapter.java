@@ -0,0 +1,49 @@
+package com.dw.study.async;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod;
+
+import java.util.concurrent.Callable;
+
+/**
+ * @Author dw
+ * @ClassName AsyncRequestMappingHandlerAdapter
+ * @Description 对标注了 {@link AsyncHandler} 的方法：在请求线程中解析参数，然后把方法调用包装成 WebAsyncTask
+ * 交给有界线程池执行，请求线程立即释放；方法返回值在异步分派（ASYNC dispatch）中按原方法的返回类型处理
+ * @Date 2026/10/19 16:50
+ * @Version 1.0
+ */
+public class AsyncRequestMappingHandlerAdapter extends RequestMappingHandlerAdapter {
+
+    private final AsyncTaskExecutor executor;
+
+    private final long defaultTimeout;
+
+    public AsyncRequestMappingHandlerAdapter(AsyncTaskExecutor executor, long defaultTimeout) {
+        this.executor = executor;
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    @Override
+    protected ServletInvocableHandlerMethod createInvocableHandlerMethod(HandlerMethod handlerMethod) {
+        AsyncHandler asyncHandler = handlerMethod.getMethodAnnotation(AsyncHandler.class);
+        if (asyncHandler == null) {
+            return super.createInvocableHandlerMethod(handlerMethod);
+        }
+        long timeout = asyncHandler.timeout() > 0 ? asyncHandler.timeout() : defaultTimeout;
+        return new ServletInvocableHandlerMethod(handlerMethod) {
+            @Override
+            public Object invokeForRequest(NativeWebRequest request, ModelAndViewContainer mavContainer,
+                                           Object... providedArgs) throws Exception {
+                Object[] args = getMethodArgumentValues(request, mavContainer, providedArgs);
+                Callable<Object> callable = () -> doInvoke(args);
+                return new WebAsyncTask<>(timeout, executor, callable);
+            }
+        };
+    }
+}
@@ -0,0 +1,88 @@
+package com.dw.study.cache;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * @Author dw
+ * @ClassName CachePolicy
+ * @Description 单个缓存（cacheName）的缓存策略，未配置的字段继承 redis.cache.defaults 中的默认值
+ * @Date 2026/10/19 10:12
+ * @Version 1.0
+ */
+@Data
+public class CachePolicy {
+
+    /**
+     * 缓存过期时间
+     */
+    private Duration ttl;
+
+    /**
+     * 过期时间随机抖动的百分比（0~100），实际过期时间在 [ttl, ttl * (1 + jitterPercent/100)] 之间，
+     * 避免同一时间写入的缓存同时过期造成缓存雪崩
+     */
+    private Integer jitterPercent;
+
+    /**
+     * 单个缓存值的最大字节数（压缩后），超过则不写入缓存，小于等于0表示不限制
+     */
+    private Long maxValueSize;
+
+    /**
+     * 缓存值超过该字节数时进行压缩，小于等于0表示不压缩
+     */
+    private Integer compressThreshold;
+
+    /**
+     * 是否缓存空值（防止缓存穿透）
+     */
+    private Boolean cacheNullValues;
+
+    /**
+     * 空值的过期时间，一般远小于ttl
+     */
+    private Duration nullTtl;
+
+    /**
+     * 提前刷新比例（0~1）：读取缓存时剩余过期时间不超过 ttl * refreshAheadRatio，则在后台重新执行 @Cacheable 方法替换缓存，
+     * 热点数据在过期前就被刷新；0表示不提前刷新
+     */
+    private Double refreshAheadRatio;
+
+    /**
+     * 使用默认策略补全当前策略中未配置的字段
+     *
+     * @param defaults 默认策略
+     * @return 补全后的新策略
+     */
+    public CachePolicy mergeWith(CachePolicy defaults) {
+        CachePolicy merged = new CachePolicy();
+        merged.setTtl(ttl != null ? ttl : defaults.getTtl());
+        merged.setJitterPercent(jitterPercent != null ? jitterPercent : defaults.getJitterPercent());
+        merged.setMaxValueSize(maxValueSize != null ? maxValueSize : defaults.getMaxValueSize());
+        merged.setCompressThreshold(compressThreshold != null ? compressThreshold : defaults.getCompressThreshold());
+        merged.setCacheNullValues(cacheNullValues != null ? cacheNullValues : defaults.getCacheNullValues());
+        merged.setNullTtl(nullTtl != null ? nullTtl : defaults.getNullTtl());
+        merged.setRefreshAheadRatio(refreshAheadRatio != null ? refreshAheadRatio : defaults.getRefreshAheadRatio());
+        return merged;
+    }
+
+    /**
+     * 内置的兜底策略：600s，不抖动，不限制大小，不压缩，不缓存空值，不提前刷新
+     *
+     * @return
+     */
+    public static CachePolicy builtIn() {
+        CachePolicy policy = new CachePolicy();
+        policy.setTtl(Duration.ofSeconds(600));
+        policy.setJitterPercent(0);
+        policy.setMaxValueSize(0L);
+        policy.setCompressThreshold(0);
+        policy.setCacheNullValues(false);
+        policy.setNullTtl(Duration.ofSeconds(60));
+        policy.setRefreshAheadRatio(0.0);
+        return policy;
+    }
+}
@@ -0,0 +1,48 @@
+package com.dw.study.cache;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * @Author dw
+ * @ClassName CachePolicyEndpoint
+ * @Description 管理端点 /actuator/cachepolicies：查看、重新加载SpringCache的缓存策略，需要 ADMIN 角色（见 ManagementSecurityConfig）
+ * @Date 2026/10/20 11:40
+ * @Version 1.0
+ */
+@Component
+@Endpoint(id = "cachepolicies")
+public class CachePolicyEndpoint {
+
+    private final CachePolicyRegistry cachePolicyRegistry;
+
+    public CachePolicyEndpoint(CachePolicyRegistry cachePolicyRegistry) {
+        this.cachePolicyRegistry = cachePolicyRegistry;
+    }
+
+    /**
+     * GET：当前的定制化缓存策略
+     *
+     * @return
+     */
+    @ReadOperation
+    public Map<String, CachePolicy> policies() {
+        return cachePolicyRegistry.getPolicies();
+    }
+
+    /**
+     * POST：修改配置文件中的 redis.cache 后调用，不需要重启应用
+     *
+     * @return
+     * @throws IOException
+     */
+    @WriteOperation
+    public Map<String, CachePolicy> reload() throws IOException {
+        return cachePolicyRegistry.reload();
+    }
+}
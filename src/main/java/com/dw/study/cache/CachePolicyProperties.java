@@ -0,0 +1,54 @@
+package com.dw.study.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @Author dw
+ * @ClassName CachePolicyProperties
+ * @Description SpringCache 各个缓存的策略配置，对应 application.yml 中的 redis.cache
+ * @Date 2026/10/19 10:15
+ * @Version 1.0
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.cache")
+public class CachePolicyProperties {
+
+    /**
+     * 重新加载策略时读取的配置文件位置，需要指向可以修改的外部文件，如 file:./config/application.yml。
+     * 没有默认值：jar 包内的 classpath:application.yml 是只读的，重新读取它不会得到新的配置，未配置时重新加载直接报错
+     */
+    private String reloadLocation;
+
+    /**
+     * 默认策略，未单独配置的缓存使用该策略
+     */
+    private CachePolicy defaults = new CachePolicy();
+
+    /**
+     * 定制化的缓存策略，key为cacheName
+     */
+    private Map<String, CachePolicy> policies = new LinkedHashMap<>();
+
+    /**
+     * 提前刷新的后台线程池，修改后需要重启（重新加载策略不影响线程池）
+     */
+    private RefreshAhead refreshAhead = new RefreshAhead();
+
+    @Data
+    public static class RefreshAhead {
+
+        /**
+         * 执行提前刷新的线程数
+         */
+        private int threads = 4;
+
+        /**
+         * 等待执行的刷新任务上限，队列满时放弃本次刷新（缓存过期后由请求线程重新加载）
+         */
+        private int queueCapacity = 256;
+    }
+}
@@ -0,0 +1,164 @@
+package com.dw.study.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.PropertySourcesPlaceholdersResolver;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Author dw
+ * @ClassName CachePolicyRegistry
+ * @Description 缓存策略注册表：启动时从 application.yml 加载，运行期间可以重新加载而不需要重启应用。
+ * 重新加载时从当前的 Environment 绑定，只把 reload-location（必须配置，指向可以修改的外部文件）的配置文件替换为重新读取的内容，
+ * 命令行参数、环境变量、profile 配置文件等覆盖的值仍然生效。
+ * 写缓存时每次都从这里取最新的策略，所以重新加载后立即对新写入的缓存生效
+ * @Date 2026/10/19 10:20
+ * @Version 1.0
+ */
+@Component
+@Slf4j
+public class CachePolicyRegistry {
+
+    private static final String PREFIX = "redis.cache";
+
+    /**
+     * SpringBoot 加载的配置文件对应的属性源名称前缀
+     */
+    private static final String CONFIG_RESOURCE_PREFIX = "Config resource ";
+
+    private final ResourceLoader resourceLoader;
+
+    private final ConfigurableEnvironment environment;
+
+    private volatile String reloadLocation;
+
+    private volatile CachePolicy defaultPolicy;
+
+    private volatile Map<String, CachePolicy> policies;
+
+    public CachePolicyRegistry(CachePolicyProperties properties, ResourceLoader resourceLoader, ConfigurableEnvironment environment) {
+        this.resourceLoader = resourceLoader;
+        this.environment = environment;
+        apply(properties);
+    }
+
+    /**
+     * 获取缓存的策略，没有单独配置的缓存返回默认策略
+     *
+     * @param cacheName
+     * @return
+     */
+    public CachePolicy getPolicy(String cacheName) {
+        CachePolicy policy = policies.get(cacheName);
+        return policy != null ? policy : defaultPolicy;
+    }
+
+    /**
+     * 获取默认策略
+     *
+     * @return
+     */
+    public CachePolicy getDefaultPolicy() {
+        return defaultPolicy;
+    }
+
+    /**
+     * 获取所有定制化的缓存策略
+     *
+     * @return
+     */
+    public Map<String, CachePolicy> getPolicies() {
+        return policies;
+    }
+
+    /**
+     * 重新读取配置文件中的 redis.cache 配置并替换当前策略
+     *
+     * @return 重新加载后的定制化缓存策略
+     * @throws IOException           配置文件读取失败
+     * @throws IllegalStateException 没有配置 redis.cache.reload-location
+     */
+    public synchronized Map<String, CachePolicy> reload() throws IOException {
+        if (!StringUtils.hasText(reloadLocation)) {
+            throw new IllegalStateException("没有配置 redis.cache.reload-location，无法重新加载缓存策略，"
+                    + "请指向可以修改的外部配置文件，如 file:./config/application.yml");
+        }
+        Resource resource = resourceLoader.getResource(reloadLocation);
+        if (!resource.exists()) {
+            throw new FileNotFoundException("缓存策略配置文件不存在: " + reloadLocation);
+        }
+        List<PropertySource<?>> reloaded = new YamlPropertySourceLoader().load(reloadLocation, resource);
+        MutablePropertySources sources = withReloadedFile(resource, reloaded);
+        CachePolicyProperties properties = new Binder(ConfigurationPropertySources.from(sources),
+                new PropertySourcesPlaceholdersResolver(sources))
+                .bind(PREFIX, Bindable.of(CachePolicyProperties.class))
+                .orElseGet(CachePolicyProperties::new);
+        apply(properties);
+        log.info("缓存策略重新加载完成，location: {}, policies: {}", reloadLocation, policies.keySet());
+        return policies;
+    }
+
+    /**
+     * 当前 Environment 的属性源（不修改 Environment），其中启动时加载的同一个配置文件替换为重新读取的内容；
+     * reload-location 不是启动时加载的配置文件时，重新读取的内容优先于所有配置文件，低于命令行参数、环境变量等
+     */
+    private MutablePropertySources withReloadedFile(Resource resource, List<PropertySource<?>> reloaded) {
+        String description = "'" + resource.getDescription() + "'";
+        int position = -1;
+        int firstConfigFile = -1;
+        List<PropertySource<?>> merged = new ArrayList<>();
+        for (PropertySource<?> source : environment.getPropertySources()) {
+            if (ConfigurationPropertySources.isAttachedConfigurationPropertySource(source)) {
+                // 包装了所有属性源（包括启动时的配置文件），由 ConfigurationPropertySources.from 重新包装
+                continue;
+            }
+            if (source.getName().startsWith(CONFIG_RESOURCE_PREFIX)) {
+                if (firstConfigFile < 0) {
+                    firstConfigFile = merged.size();
+                }
+                if (source.getName().contains(description)) {
+                    if (position < 0) {
+                        position = merged.size();
+                    }
+                    continue;
+                }
+            }
+            merged.add(source);
+        }
+        if (position < 0) {
+            position = firstConfigFile < 0 ? merged.size() : firstConfigFile;
+        }
+        merged.addAll(position, reloaded);
+        MutablePropertySources sources = new MutablePropertySources();
+        merged.forEach(sources::addLast);
+        return sources;
+    }
+
+    private void apply(CachePolicyProperties properties) {
+        CachePolicy defaults = properties.getDefaults().mergeWith(CachePolicy.builtIn());
+        Map<String, CachePolicy> resolved = new LinkedHashMap<>();
+        for (Map.Entry<String, CachePolicy> entry : properties.getPolicies().entrySet()) {
+            resolved.put(entry.getKey(), entry.getValue().mergeWith(defaults));
+        }
+        this.reloadLocation = properties.getReloadLocation();
+        this.defaultPolicy = defaults;
+        this.policies = Collections.unmodifiableMap(resolved);
+    }
+}
@@ -0,0 +1,134 @@
+package com.dw.study.cache;
+
+import com.dw.study.serializer.ValueCompressor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.CacheStatisticsCollector;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @Author dw
+ * @ClassName PolicyAwareRedisCacheWriter
+ * @Description 按缓存策略写入的RedisCacheWriter：每次写入时根据 cacheName 从 {@link CachePolicyRegistry} 取最新策略，
+ * 计算带随机抖动的过期时间、空值使用短过期时间、超过阈值的值由 {@link ValueCompressor} 压缩、超过大小上限的值不写入缓存；
+ * 开启提前刷新的缓存读取时通过 {@link RefreshAheadCoordinator} 同时取剩余过期时间
+ * @Date 2026/10/19 10:30
+ * @Version 1.0
+ */
+@Slf4j
+public class PolicyAwareRedisCacheWriter implements RedisCacheWriter {
+
+    /**
+     * RedisCache 对空值的序列化结果，见 RedisCache#BINARY_NULL_VALUE
+     */
+    private static final byte[] BINARY_NULL_VALUE = RedisSerializer.java().serialize(NullValue.INSTANCE);
+
+    private final RedisCacheWriter delegate;
+
+    private final CachePolicyRegistry policyRegistry;
+
+    private final ValueCompressor compressor;
+
+    private final RefreshAheadCoordinator refreshAhead;
+
+    public PolicyAwareRedisCacheWriter(RedisCacheWriter delegate, CachePolicyRegistry policyRegistry, ValueCompressor compressor,
+                                       RefreshAheadCoordinator refreshAhead) {
+        this.delegate = delegate;
+        this.policyRegistry = policyRegistry;
+        this.compressor = compressor;
+        this.refreshAhead = refreshAhead;
+    }
+
+    @Override
+    public void put(String name, byte[] key, byte[] value, Duration ttl) {
+        CachePolicy policy = policyRegistry.getPolicy(name);
+        byte[] stored = prepareValue(name, policy, value);
+        if (stored != null) {
+            delegate.put(name, key, stored, resolveTtl(policy, value));
+        }
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key) {
+        CachePolicy policy = policyRegistry.getPolicy(name);
+        byte[] value = policy.getRefreshAheadRatio() > 0 ? refreshAhead.get(key, policy) : delegate.get(name, key);
+        return compressor.decompress(value);
+    }
+
+    @Override
+    public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+        CachePolicy policy = policyRegistry.getPolicy(name);
+        byte[] stored = prepareValue(name, policy, value);
+        if (stored == null) {
+            return null;
+        }
+        return compressor.decompress(delegate.putIfAbsent(name, key, stored, resolveTtl(policy, value)));
+    }
+
+    @Override
+    public void remove(String name, byte[] key) {
+        delegate.remove(name, key);
+    }
+
+    @Override
+    public void clean(String name, byte[] pattern) {
+        delegate.clean(name, pattern);
+    }
+
+    @Override
+    public void clearStatistics(String name) {
+        delegate.clearStatistics(name);
+    }
+
+    @Override
+    public RedisCacheWriter withStatisticsCollector(CacheStatisticsCollector cacheStatisticsCollector) {
+        return new PolicyAwareRedisCacheWriter(delegate.withStatisticsCollector(cacheStatisticsCollector), policyRegistry, compressor, refreshAhead);
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics(String cacheName) {
+        return delegate.getCacheStatistics(cacheName);
+    }
+
+    /**
+     * 根据策略处理待写入的值，返回null表示不写入缓存
+     */
+    private byte[] prepareValue(String name, CachePolicy policy, byte[] value) {
+        if (isNullValue(value)) {
+            return policy.getCacheNullValues() ? value : null;
+        }
+        byte[] stored = compressor.compress(value, policy.getCompressThreshold());
+        if (policy.getMaxValueSize() > 0 && stored.length > policy.getMaxValueSize()) {
+            log.warn("缓存值超过大小上限，不写入缓存，cacheName: {}, size: {}, maxValueSize: {}",
+                    name, stored.length, policy.getMaxValueSize());
+            return null;
+        }
+        return stored;
+    }
+
+    /**
+     * 计算过期时间：空值使用 nullTtl，其余使用 ttl 并加上 [0, jitterPercent%] 的随机抖动
+     */
+    private Duration resolveTtl(CachePolicy policy, byte[] value) {
+        if (isNullValue(value)) {
+            return policy.getNullTtl();
+        }
+        Duration ttl = policy.getTtl();
+        int jitterPercent = policy.getJitterPercent();
+        if (jitterPercent <= 0 || ttl.isZero() || ttl.isNegative()) {
+            return ttl;
+        }
+        long maxJitterMillis = ttl.toMillis() * jitterPercent / 100;
+        return ttl.plusMillis(ThreadLocalRandom.current().nextLong(maxJitterMillis + 1));
+    }
+
+    private static boolean isNullValue(byte[] value) {
+        return Arrays.equals(BINARY_NULL_VALUE, value);
+    }
+}
@@ -0,0 +1,99 @@
+package com.dw.study.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * @Author dw
+ * @ClassName RefreshAheadCache
+ * @Description 支持提前刷新的 Cache 包装：读取时把需要提前刷新的缓存项交给 {@link RefreshAheadCoordinator}，
+ * 刷新线程中正在刷新的缓存项按未命中处理，由缓存切面重新执行方法并写入
+ * @Date 2026/10/19 21:50
+ * @Version 1.0
+ */
+public class RefreshAheadCache implements Cache {
+
+    private final Cache delegate;
+
+    private final RefreshAheadCoordinator coordinator;
+
+    public RefreshAheadCache(Cache delegate, RefreshAheadCoordinator coordinator) {
+        this.delegate = delegate;
+        this.coordinator = coordinator;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        if (coordinator.isForcedMiss(getName(), key)) {
+            return null;
+        }
+        coordinator.beforeRead();
+        ValueWrapper value = delegate.get(key);
+        coordinator.afterRead(getName(), key);
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        if (coordinator.isForcedMiss(getName(), key)) {
+            T value;
+            try {
+                value = valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            delegate.put(key, value);
+            return value;
+        }
+        coordinator.beforeRead();
+        T value = delegate.get(key, valueLoader);
+        coordinator.afterRead(getName(), key);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+}
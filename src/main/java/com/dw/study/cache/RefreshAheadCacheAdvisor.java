@@ -0,0 +1,65 @@
+package com.dw.study.cache;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.StaticMethodMatcherPointcutAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.interceptor.CacheOperation;
+import org.springframework.cache.interceptor.CacheOperationSource;
+import org.springframework.cache.interceptor.CacheableOperation;
+import org.springframework.core.Ordered;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @Author dw
+ * @ClassName RefreshAheadCacheAdvisor
+ * @Description 包在 SpringCache 缓存切面外层（order 比 @EnableCaching 默认的 LOWEST_PRECEDENCE 小1）的切面，
+ * 只拦截带 @Cacheable 的方法，且方法的缓存开启了提前刷新时才交给 {@link RefreshAheadCoordinator} 处理
+ * @Date 2026/10/19 21:50
+ * @Version 1.0
+ */
+public class RefreshAheadCacheAdvisor extends StaticMethodMatcherPointcutAdvisor {
+
+    private static final long serialVersionUID = 1L;
+
+    private final CacheOperationSource cacheOperationSource;
+
+    /**
+     * 切面在普通Bean之前创建，延迟获取 RefreshAheadCoordinator，避免提前创建 RedisTemplate 等Bean
+     */
+    private final ObjectProvider<RefreshAheadCoordinator> coordinator;
+
+    public RefreshAheadCacheAdvisor(CacheOperationSource cacheOperationSource, ObjectProvider<RefreshAheadCoordinator> coordinator) {
+        this.cacheOperationSource = cacheOperationSource;
+        this.coordinator = coordinator;
+        setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        setAdvice((MethodInterceptor) invocation -> {
+            Object target = invocation.getThis();
+            List<String> cacheNames = cacheableNames(invocation.getMethod(), target != null ? AopUtils.getTargetClass(target) : null);
+            RefreshAheadCoordinator refreshAhead = this.coordinator.getObject();
+            return refreshAhead.isEnabled(cacheNames) ? refreshAhead.invoke(invocation) : invocation.proceed();
+        });
+    }
+
+    @Override
+    public boolean matches(Method method, Class<?> targetClass) {
+        return !cacheableNames(method, targetClass).isEmpty();
+    }
+
+    private List<String> cacheableNames(Method method, Class<?> targetClass) {
+        Collection<CacheOperation> operations = cacheOperationSource.getCacheOperations(method, targetClass);
+        List<String> cacheNames = new ArrayList<>();
+        if (operations != null) {
+            for (CacheOperation operation : operations) {
+                if (operation instanceof CacheableOperation) {
+                    cacheNames.addAll(operation.getCacheNames());
+                }
+            }
+        }
+        return cacheNames;
+    }
+}
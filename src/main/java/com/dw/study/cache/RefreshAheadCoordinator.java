@@ -0,0 +1,236 @@
+package com.dw.study.cache;
+
+import com.dw.study.utils.RedisScriptRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Author dw
+ * @ClassName RefreshAheadCoordinator
+ * @Description SpringCache 提前刷新（refresh-ahead）：开启了 refresh-ahead-ratio 的缓存读取时同时取剩余过期时间（lua/get_with_ttl.lua，一次往返），
+ * 命中且剩余时间不超过 ttl * refreshAheadRatio 时，在有界的后台线程池中重新执行这次 @Cacheable 调用，
+ * 执行时该缓存项按未命中处理，由缓存切面用同一个 key（keyGenerator 生成）写入新值，热点数据在过期前就被替换。
+ * 同一个缓存项同时只刷新一次，线程池队列满时放弃本次刷新。
+ * 监控指标：cache.refresh.ahead（tag cache、result：refreshed / failed / rejected）
+ * @Date 2026/10/19 21:50
+ * @Version 1.0
+ */
+@Component
+@Slf4j
+public class RefreshAheadCoordinator implements DisposableBean {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final RedisScriptRegistry scriptRegistry;
+
+    private final CachePolicyRegistry policyRegistry;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * 当前线程正在执行的 @Cacheable 调用中读到的、需要提前刷新的缓存项
+     */
+    private final ThreadLocal<List<CacheEntryKey>> pending = new ThreadLocal<>();
+
+    /**
+     * 当前线程最近一次读到的缓存项是否需要提前刷新（由 PolicyAwareRedisCacheWriter 设置，RefreshAheadCache 读取）
+     */
+    private final ThreadLocal<Boolean> due = new ThreadLocal<>();
+
+    /**
+     * 刷新线程中按未命中处理的缓存项
+     */
+    private final ThreadLocal<Set<CacheEntryKey>> forcedMisses = new ThreadLocal<>();
+
+    /**
+     * 正在刷新的缓存项
+     */
+    private final Set<CacheEntryKey> refreshing = ConcurrentHashMap.newKeySet();
+
+    public RefreshAheadCoordinator(RedisTemplate<String, Object> redisTemplate, RedisScriptRegistry scriptRegistry,
+                                   CachePolicyRegistry policyRegistry, CachePolicyProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.scriptRegistry = scriptRegistry;
+        this.policyRegistry = policyRegistry;
+        this.meterRegistry = meterRegistry;
+        CachePolicyProperties.RefreshAhead refreshAhead = properties.getRefreshAhead();
+        AtomicInteger index = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(refreshAhead.getThreads(), refreshAhead.getThreads(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, refreshAhead.getQueueCapacity())), r -> {
+            Thread thread = new Thread(r, "cache-refresh-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 是否有缓存开启了提前刷新
+     *
+     * @param cacheNames
+     * @return
+     */
+    public boolean isEnabled(Collection<String> cacheNames) {
+        for (String cacheName : cacheNames) {
+            if (policyRegistry.getPolicy(cacheName).getRefreshAheadRatio() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 执行 @Cacheable 方法调用，调用过程中读到需要提前刷新的缓存项时，在后台重新执行一次这个调用
+     *
+     * @param invocation 缓存切面外层的方法调用
+     * @return 方法（或缓存）的返回值
+     * @throws Throwable
+     */
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (!(invocation instanceof ProxyMethodInvocation)) {
+            return invocation.proceed();
+        }
+        // 必须在 proceed 之前复制，proceed 之后调用链的位置已经走到末尾
+        MethodInvocation refreshInvocation = ((ProxyMethodInvocation) invocation).invocableClone();
+        List<CacheEntryKey> previous = pending.get();
+        List<CacheEntryKey> current = new ArrayList<>(1);
+        pending.set(current);
+        try {
+            return invocation.proceed();
+        } finally {
+            if (previous == null) {
+                pending.remove();
+            } else {
+                pending.set(previous);
+            }
+            if (!current.isEmpty()) {
+                schedule(refreshInvocation, current);
+            }
+        }
+    }
+
+    /**
+     * 读取缓存值和剩余过期时间，需要提前刷新时做标记
+     *
+     * @param key    缓存的key
+     * @param policy 缓存策略
+     * @return 缓存值，不存在时返回null
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    byte[] get(byte[] key, CachePolicy policy) {
+        List<Object> result = redisTemplate.execute(scriptRegistry.get("get_with_ttl", List.class), RedisSerializer.byteArray(),
+                (RedisSerializer) RedisSerializer.byteArray(), Collections.singletonList(new String(key, StandardCharsets.UTF_8)));
+        if (result == null || result.isEmpty() || result.get(0) == null) {
+            return null;
+        }
+        long pttl = ((Number) result.get(1)).longValue();
+        if (pttl > 0 && pttl <= policy.getTtl().toMillis() * policy.getRefreshAheadRatio()) {
+            due.set(Boolean.TRUE);
+        }
+        return (byte[]) result.get(0);
+    }
+
+    /**
+     * 缓存读取之前调用，清除上一次读取的标记
+     */
+    void beforeRead() {
+        due.remove();
+    }
+
+    /**
+     * 缓存读取之后调用，读到的缓存项需要提前刷新时加入当前调用的待刷新列表
+     */
+    void afterRead(String cacheName, Object key) {
+        if (Boolean.TRUE.equals(due.get())) {
+            due.remove();
+            List<CacheEntryKey> entries = pending.get();
+            if (entries != null) {
+                entries.add(new CacheEntryKey(cacheName, key));
+            }
+        }
+    }
+
+    /**
+     * 刷新线程中正在刷新的缓存项按未命中处理
+     */
+    boolean isForcedMiss(String cacheName, Object key) {
+        Set<CacheEntryKey> entries = forcedMisses.get();
+        return entries != null && entries.contains(new CacheEntryKey(cacheName, key));
+    }
+
+    private void schedule(MethodInvocation invocation, List<CacheEntryKey> entries) {
+        Set<CacheEntryKey> claimed = new HashSet<>();
+        for (CacheEntryKey entry : entries) {
+            if (refreshing.add(entry)) {
+                claimed.add(entry);
+            }
+        }
+        if (claimed.isEmpty()) {
+            return;
+        }
+        try {
+            executor.execute(() -> refresh(invocation, claimed));
+        } catch (RejectedExecutionException e) {
+            refreshing.removeAll(claimed);
+            count(claimed, "rejected");
+            log.debug("提前刷新队列已满，放弃刷新: {}", claimed);
+        }
+    }
+
+    private void refresh(MethodInvocation invocation, Set<CacheEntryKey> entries) {
+        forcedMisses.set(entries);
+        try {
+            invocation.proceed();
+            count(entries, "refreshed");
+        } catch (Throwable e) {
+            count(entries, "failed");
+            log.warn("提前刷新缓存失败: {}, error: {}", entries, e.getMessage());
+        } finally {
+            forcedMisses.remove();
+            refreshing.removeAll(entries);
+        }
+    }
+
+    private void count(Set<CacheEntryKey> entries, String result) {
+        for (CacheEntryKey entry : entries) {
+            meterRegistry.counter("cache.refresh.ahead", "cache", entry.getCacheName(), "result", result).increment();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 缓存项：cacheName + 缓存切面生成的key
+     */
+    @Data
+    private static final class CacheEntryKey {
+        private final String cacheName;
+        private final Object key;
+    }
+}
@@ -0,0 +1,33 @@
+package com.dw.study.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.util.Map;
+
+/**
+ * @Author dw
+ * @ClassName RefreshAheadRedisCacheManager
+ * @Description 所有缓存都包装为 {@link RefreshAheadCache} 的 RedisCacheManager，是否提前刷新由缓存策略的 refresh-ahead-ratio 决定，
+ * 重新加载策略后立即生效
+ * @Date 2026/10/19 21:50
+ * @Version 1.0
+ */
+public class RefreshAheadRedisCacheManager extends RedisCacheManager {
+
+    private final RefreshAheadCoordinator coordinator;
+
+    public RefreshAheadRedisCacheManager(RedisCacheWriter cacheWriter, RedisCacheConfiguration defaultCacheConfiguration,
+                                         Map<String, RedisCacheConfiguration> initialCacheConfigurations,
+                                         RefreshAheadCoordinator coordinator) {
+        super(cacheWriter, defaultCacheConfiguration, initialCacheConfigurations);
+        this.coordinator = coordinator;
+    }
+
+    @Override
+    protected Cache decorateCache(Cache cache) {
+        return new RefreshAheadCache(super.decorateCache(cache), coordinator);
+    }
+}
@@ -0,0 +1,43 @@
+package com.dw.study.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @Author dw
+ * @ClassName AutoBatchProperties
+ * @Description RedisUtils 自动批量的配置，对应 application.yml 中的 redis.auto-batch
+ * @Date 2026/10/19 22:40
+ * @Version 1.0
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.auto-batch")
+public class AutoBatchProperties {
+
+    /**
+     * 是否把 get、set、hashGetOne 的单key调用合并为 MGET/管道发送，默认关闭
+     */
+    private boolean enabled = false;
+
+    /**
+     * 收到第一个调用后最多等待多久收集同一批的调用
+     */
+    private Duration window = Duration.ofMillis(1);
+
+    /**
+     * 每批最多合并的调用数，达到后立即发送
+     */
+    private int maxBatchSize = 128;
+
+    /**
+     * 发送批次的线程数，一个批次在等待Redis响应时其他线程可以继续发送下一批
+     */
+    private int threads = 2;
+
+    /**
+     * 等待合并的调用队列长度，队列满时调用方直接访问Redis
+     */
+    private int queueCapacity = 4096;
+}
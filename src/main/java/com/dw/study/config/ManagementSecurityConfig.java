@@ -0,0 +1,34 @@
+package com.dw.study.config;
+
+import com.dw.study.cache.CachePolicyEndpoint;
+import com.dw.study.introspection.RedisIntrospectionEndpoint;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+
+/**
+ * @Author dw
+ * @ClassName ManagementSecurityConfig
+ * @Description 管理端点的认证：会暴露key名、触发 SCAN、修改缓存策略等操作的端点需要 ADMIN 角色（HTTP Basic，
+ * 账号见 application.yml 的 spring.security.user），其他接口和 health、metrics 等端点不受影响。
+ * 只在 Servlet Web 应用中生效，非 Web 方式启动（如客户端压测）时没有需要保护的端点
+ * @Date 2026/10/20 11:10
+ * @Version 1.0
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ManagementSecurityConfig extends WebSecurityConfigurerAdapter {
+
+    public static final String ADMIN_ROLE = "ADMIN";
+
+    @Override
+    protected void configure(HttpSecurity http) throws Exception {
+        http.requestMatcher(EndpointRequest.to(RedisIntrospectionEndpoint.class, CachePolicyEndpoint.class))
+                .authorizeRequests().anyRequest().hasRole(ADMIN_ROLE)
+                .and().httpBasic()
+                // 只接受 HTTP Basic 认证的调用，不使用会话和表单
+                .and().csrf().disable();
+    }
+}
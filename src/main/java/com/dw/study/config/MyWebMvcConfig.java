@@ -2,10 +2,17 @@ package com.dw.study.config;
 
 
 import com.dw.study.ApiIdepotent.MyIntercepters.ApiIdempotentInterceptor;
+import com.dw.study.accounting.RedisAccountingInterceptor;
+import com.dw.study.async.AsyncHandlerProperties;
+import com.dw.study.async.AsyncRequestMappingHandlerAdapter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurationSupport;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
 
 
 /**
@@ -16,14 +23,46 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurationSupp
  * @Version 1.0
  */
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class MyWebMvcConfig extends WebMvcConfigurationSupport {
 
     @Autowired
     private ApiIdempotentInterceptor apiIdempotentInterceptor;
 
+    @Autowired
+    private RedisAccountingInterceptor redisAccountingInterceptor;
+
+    @Autowired
+    private ThreadPoolTaskExecutor asyncHandlerExecutor;
+
+    @Autowired
+    private AsyncHandlerProperties asyncHandlerProperties;
+
     @Override
     protected void addInterceptors(InterceptorRegistry registry) {
+        // 放在最前面，其他拦截器中的Redis访问也计入请求
+        registry.addInterceptor(redisAccountingInterceptor);
         registry.addInterceptor(apiIdempotentInterceptor);
         super.addInterceptors(registry);
     }
+
+    /**
+     * @AsyncHandler 方法在线程池中的Redis访问计入发起的请求
+     *
+     * @param configurer
+     */
+    @Override
+    protected void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(redisAccountingInterceptor);
+    }
+
+    /**
+     * 标注了 @AsyncHandler 的方法在专用线程池中异步执行
+     *
+     * @return
+     */
+    @Override
+    protected RequestMappingHandlerAdapter createRequestMappingHandlerAdapter() {
+        return new AsyncRequestMappingHandlerAdapter(asyncHandlerExecutor, asyncHandlerProperties.getDefaultTimeout().toMillis());
+    }
 }
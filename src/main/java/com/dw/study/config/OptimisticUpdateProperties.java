@@ -0,0 +1,33 @@
+package com.dw.study.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @Author dw
+ * @ClassName OptimisticUpdateProperties
+ * @Description RedisUtils.updateVersioned 乐观更新的重试配置，对应 application.yml 中的 redis.optimistic-update
+ * @Date 2026/10/19 23:10
+ * @Version 1.0
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.optimistic-update")
+public class OptimisticUpdateProperties {
+
+    /**
+     * 版本号冲突时最多尝试的次数（含第一次）
+     */
+    private int maxAttempts = 10;
+
+    /**
+     * 第一次冲突后的退避时间上限，之后每次翻倍，实际等待 0 到上限之间的随机时间
+     */
+    private Duration initialBackoff = Duration.ofMillis(1);
+
+    /**
+     * 退避时间上限的最大值
+     */
+    private Duration maxBackoff = Duration.ofMillis(50);
+}
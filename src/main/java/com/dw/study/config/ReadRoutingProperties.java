@@ -0,0 +1,47 @@
+package com.dw.study.config;
+
+import com.dw.study.utils.ReadPolicy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @Author dw
+ * @ClassName ReadRoutingProperties
+ * @Description RedisUtils 读操作的主从路由配置，对应 application.yml 中的 redis.read-routing。
+ * 只在 Lettuce 客户端 + 哨兵/集群模式下生效，其他情况全部读主节点
+ * @Date 2026/10/19 13:12
+ * @Version 1.0
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.read-routing")
+public class ReadRoutingProperties {
+
+    /**
+     * 是否开启从节点读
+     */
+    private boolean enabled = false;
+
+    /**
+     * 默认的读策略
+     */
+    private ReadPolicy defaultPolicy = ReadPolicy.MASTER_ONLY;
+
+    /**
+     * 按key前缀指定读策略（最长前缀优先），如 test: -> REPLICA_PREFERRED
+     */
+    private Map<String, ReadPolicy> prefixPolicies = new LinkedHashMap<>();
+
+    /**
+     * 从节点最大允许延迟（秒，取 INFO replication 中的 lag），超过后所有读回退到主节点
+     */
+    private long maxReplicaLagSeconds = 5;
+
+    /**
+     * 检查从节点延迟的间隔
+     */
+    private Duration lagCheckInterval = Duration.ofSeconds(1);
+}
@@ -0,0 +1,39 @@
+package com.dw.study.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @Author dw
+ * @ClassName RedisClientProperties
+ * @Description Redis客户端选择，对应 application.yml 中的 redis.client。
+ * RedisTemplate、RedisCacheManager 使用同一个 RedisConnectionFactory，连接地址、密码等统一读取 spring.redis 配置。
+ * 分布式锁（RedisLockUtil）不使用这个工厂：RLock、读写锁、许可信号量只有 Redisson 实现，
+ * lettuce 模式下第一次加锁时才创建 RedissonClient，使用它自己的连接
+ * @Date 2026/10/19 11:05
+ * @Version 1.0
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.client")
+public class RedisClientProperties {
+
+    /**
+     * 客户端类型
+     */
+    private ClientType type = ClientType.REDISSON;
+
+    public enum ClientType {
+        /**
+         * Lettuce 共享一个本地连接（线程安全，多路复用），连接池只在阻塞命令、事务时使用
+         */
+        LETTUCE_SHARED,
+        /**
+         * Lettuce 不共享连接，每次操作从 spring.redis.lettuce.pool 连接池中借用连接
+         */
+        LETTUCE_POOLED,
+        /**
+         * Redisson 连接，与分布式锁共用同一个 RedissonClient
+         */
+        REDISSON
+    }
+}
@@ -2,19 +2,43 @@ package com.dw.study.config;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.support.spring.FastJsonRedisSerializer;
+import com.dw.study.accounting.AccountingRedisTemplate;
+import com.dw.study.cache.CachePolicy;
+import com.dw.study.cache.CachePolicyRegistry;
+import com.dw.study.cache.PolicyAwareRedisCacheWriter;
+import com.dw.study.cache.RefreshAheadCacheAdvisor;
+import com.dw.study.cache.RefreshAheadCoordinator;
+import com.dw.study.cache.RefreshAheadRedisCacheManager;
+import com.dw.study.resilience.GuardedRedisTemplate;
+import com.dw.study.resilience.RedisGuard;
+import com.dw.study.resilience.RedisResilienceProperties;
+import com.dw.study.serializer.CompressingRedisSerializer;
+import com.dw.study.serializer.CompressionProperties;
+import com.dw.study.serializer.ValueCompressor;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
 import org.redisson.spring.data.connection.RedissonConnectionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.cache.annotation.CachingConfigurerSupport;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.CacheOperationSource;
 import org.springframework.cache.interceptor.KeyGenerator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.env.Environment;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.lang.reflect.Method;
@@ -38,23 +62,118 @@ import java.util.Map;
 public class RedisConfig extends CachingConfigurerSupport {
 
     /**
-     * 默认缓存到期时间
+     * 根据 redis.client.type 选择唯一的Redis连接工厂，RedisTemplate、RedisCacheManager 都使用这个工厂，
+     * 容器中存在该Bean后，Redisson 和 SpringBoot 自动配置的连接工厂都不会再创建
+     *
+     * @param clientProperties
+     * @param redisProperties
+     * @param redissonClient 分布式锁使用的客户端，redisson 模式下与连接工厂共用，其他模式下这里不创建
+     * @return
      */
-    private static final Integer DEFAULT_EXPIRE_TIME = 600;
+    @Bean
+    public RedisConnectionFactory redisConnectionFactory(RedisClientProperties clientProperties,
+                                                         RedisProperties redisProperties,
+                                                         ObjectProvider<RedissonClient> redissonClient) {
+        RedisClientProperties.ClientType type = clientProperties.getType();
+        log.info("Redis客户端类型: {}", type);
+        switch (type) {
+            case LETTUCE_SHARED:
+                return new RedisConnectionFactoryBuilder(redisProperties).lettuce(false);
+            case LETTUCE_POOLED:
+                RedisProperties.Pool pool = redisProperties.getLettuce().getPool();
+                if (pool != null) {
+                    log.info("Lettuce连接池 max-active: {}, max-idle: {}, min-idle: {}",
+                            pool.getMaxActive(), pool.getMaxIdle(), pool.getMinIdle());
+                }
+                return new RedisConnectionFactoryBuilder(redisProperties).lettuce(true);
+            case REDISSON:
+            default:
+                return new RedissonConnectionFactory(redissonClient.getObject());
+        }
+    }
+
+    /**
+     * redis.client.type 不是 redisson 时，Redisson 客户端只有分布式锁使用，把它改为延迟创建：
+     * 启动时不建立 Redisson 的连接池，第一次加锁时才创建
+     *
+     * @param environment
+     * @return
+     */
+    @Bean
+    public static BeanFactoryPostProcessor lazyRedissonClient(Environment environment) {
+        RedisClientProperties.ClientType type = Binder.get(environment)
+                .bind("redis.client.type", RedisClientProperties.ClientType.class)
+                .orElse(RedisClientProperties.ClientType.REDISSON);
+        return beanFactory -> {
+            if (type == RedisClientProperties.ClientType.REDISSON) {
+                return;
+            }
+            for (String name : beanFactory.getBeanNamesForType(RedissonClient.class, true, false)) {
+                beanFactory.getBeanDefinition(name).setLazyInit(true);
+            }
+        };
+    }
 
     /**
      * 设置Redis序列化方式，默认使用的JDKSerializer的序列化方式，效率低，这里我们使用 FastJsonRedisSerializer
+     * 开启 redis.resilience 时每次访问Redis都受截止时间、舱壁、熔断器保护；
+     * 序列化后超过 redis.compression.threshold 的值压缩后保存，读取时自动解压（关闭压缩后也能读取已压缩的值）
      *
      * @param redisConnectionFactory
+     * @param resilienceProperties
+     * @param redisGuard
+     * @param compressionProperties
+     * @param meterRegistry
      * @return
      */
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedissonConnectionFactory redisConnectionFactory) {
-        RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory,
+                                                       RedisResilienceProperties resilienceProperties,
+                                                       RedisGuard redisGuard,
+                                                       CompressionProperties compressionProperties,
+                                                       MeterRegistry meterRegistry) {
+        RedisSerializer<Object> valueSerializer = new CompressingRedisSerializer<>(new FastJsonRedisSerializer<>(Object.class),
+                new ValueCompressor("template", meterRegistry),
+                compressionProperties.isEnabled() ? compressionProperties.getThreshold() : 0);
+        if (resilienceProperties.isEnabled()) {
+            log.info("Redis调用截止时间: {}ms, 批量操作截止时间: {}ms, 最大并发调用数: {}",
+                    resilienceProperties.getDeadline().toMillis(), resilienceProperties.getBatchDeadline().toMillis(),
+                    resilienceProperties.getMaxConcurrentCalls());
+            return configureRedisTemplate(new GuardedRedisTemplate(redisGuard), redisConnectionFactory, valueSerializer);
+        }
+        return createRedisTemplate(redisConnectionFactory, valueSerializer);
+    }
+
+    /**
+     * 创建与 redisTemplate 序列化方式相同的 RedisTemplate，供从节点读、压测等使用其他连接工厂的场景复用，
+     * 访问计入当前HTTP请求的Redis统计
+     *
+     * @param redisConnectionFactory
+     * @return
+     */
+    public static RedisTemplate<String, Object> createRedisTemplate(RedisConnectionFactory redisConnectionFactory) {
+        return createRedisTemplate(redisConnectionFactory, new FastJsonRedisSerializer<>(Object.class));
+    }
+
+    /**
+     * 创建指定value序列化方式的 RedisTemplate，如从节点读需要与 redisTemplate 使用同一个（带压缩的）序列化方式
+     *
+     * @param redisConnectionFactory
+     * @param valueSerializer
+     * @return
+     */
+    public static RedisTemplate<String, Object> createRedisTemplate(RedisConnectionFactory redisConnectionFactory,
+                                                                    RedisSerializer<?> valueSerializer) {
+        return configureRedisTemplate(new AccountingRedisTemplate(), redisConnectionFactory, valueSerializer);
+    }
+
+    private static RedisTemplate<String, Object> configureRedisTemplate(RedisTemplate<String, Object> redisTemplate,
+                                                                        RedisConnectionFactory redisConnectionFactory,
+                                                                        RedisSerializer<?> valueSerializer) {
         // key序列化
         redisTemplate.setKeySerializer(new StringRedisSerializer());
         // value序列化
-        redisTemplate.setValueSerializer(new FastJsonRedisSerializer<>(Object.class));
+        redisTemplate.setValueSerializer(valueSerializer);
         // Hash key序列化
         redisTemplate.setHashKeySerializer(new StringRedisSerializer());
         // Hash value序列化
@@ -96,45 +215,66 @@ public class RedisConfig extends CachingConfigurerSupport {
 
     /**
      * 配置SpringCache基于方法级别的缓存的过期时间、key-value的序列化方式
+     * 过期时间、随机抖动、空值缓存、压缩、大小上限等策略在 application.yml 的 redis.cache 中配置，
+     * 由 PolicyAwareRedisCacheWriter 在写入时按 cacheName 读取最新策略，修改后可通过管理端点 POST /actuator/cachepolicies 重新加载；
+     * 配置了 refresh-ahead-ratio 的缓存在即将过期时由后台线程提前刷新
      *
      * @param connectionFactory
+     * @param cachePolicyRegistry
+     * @param meterRegistry
+     * @param refreshAheadCoordinator
      * @return
      */
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory, CachePolicyRegistry cachePolicyRegistry,
+                                          MeterRegistry meterRegistry, RefreshAheadCoordinator refreshAheadCoordinator) {
+        RedisCacheWriter cacheWriter = new PolicyAwareRedisCacheWriter(
+                RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory), cachePolicyRegistry,
+                new ValueCompressor("cache", meterRegistry), refreshAheadCoordinator);
         //设置特有的Redis配置
         Map<String, RedisCacheConfiguration> speCacheConfigurations = new HashMap<>();
-        //定制化的Cache为300s\400s\500s
-        speCacheConfigurations.put("cacheName1",redisCacheConfiguration(300));
-        speCacheConfigurations.put("cacheName2",redisCacheConfiguration(400));
-        speCacheConfigurations.put("cacheName3",redisCacheConfiguration(500));
-        //根据redis缓存配置和redis连接工厂生成redis缓存管理器
-        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
-                .cacheDefaults(redisCacheConfiguration(DEFAULT_EXPIRE_TIME)) // 默认缓存配置
-                .withInitialCacheConfigurations(speCacheConfigurations) // 定制化的缓存配置
-                .build();
+        for (Map.Entry<String, CachePolicy> entry : cachePolicyRegistry.getPolicies().entrySet()) {
+            speCacheConfigurations.put(entry.getKey(), redisCacheConfiguration(entry.getValue().getTtl()));
+        }
+        //根据redis缓存配置和缓存写入器生成redis缓存管理器
+        RedisCacheManager redisCacheManager = new RefreshAheadRedisCacheManager(cacheWriter,
+                redisCacheConfiguration(cachePolicyRegistry.getDefaultPolicy().getTtl()), // 默认缓存配置
+                speCacheConfigurations, // 定制化的缓存配置
+                refreshAheadCoordinator);
         log.debug("自定义RedisCacheManager加载完成");
         return redisCacheManager;
     }
 
+    /**
+     * 提前刷新切面：包在缓存切面外层，记录每次 @Cacheable 调用，读到即将过期的缓存时由 RefreshAheadCoordinator 在后台重新执行
+     *
+     * @param cacheOperationSource
+     * @param refreshAheadCoordinator
+     * @return
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static RefreshAheadCacheAdvisor refreshAheadCacheAdvisor(CacheOperationSource cacheOperationSource,
+                                                                    ObjectProvider<RefreshAheadCoordinator> refreshAheadCoordinator) {
+        return new RefreshAheadCacheAdvisor(cacheOperationSource, refreshAheadCoordinator);
+    }
+
     /**
      * RedisCacheConfiguration redis缓存配置
      *
-     * @param ttl 缓存过期时间
+     * @param ttl 缓存过期时间（实际写入时以缓存策略为准）
      * @return
      */
-    public RedisCacheConfiguration redisCacheConfiguration(Integer ttl) {
+    public RedisCacheConfiguration redisCacheConfiguration(Duration ttl) {
         //redis缓存配置
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                //缓存生存时间60秒
-                .entryTtl(Duration.ofSeconds(ttl))
+                .entryTtl(ttl)
                 // 配置Key序列化（解决乱码的问题）
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
                 // 配置Value序列化
                 .serializeValuesWith(RedisSerializationContext.SerializationPair
-                        .fromSerializer(new FastJsonRedisSerializer<>(Object.class)))
-                // 不缓存空值
-                .disableCachingNullValues();
+                        .fromSerializer(new FastJsonRedisSerializer<>(Object.class)));
+        // 允许空值，是否真正缓存空值由缓存策略 cache-null-values 决定
         return config;
     }
 
@@ -0,0 +1,126 @@
+package com.dw.study.config;
+
+import io.lettuce.core.ReadFrom;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisConfiguration;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisSentinelConfiguration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+import org.springframework.util.StringUtils;
+
+import java.util.HashSet;
+
+/**
+ * @Author dw
+ * @ClassName RedisConnectionFactoryBuilder
+ * @Description 根据 spring.redis 配置创建 Lettuce 连接工厂（单机、哨兵、集群），供 RedisConfig 和压测使用
+ * @Date 2026/10/19 11:10
+ * @Version 1.0
+ */
+public class RedisConnectionFactoryBuilder {
+
+    private final RedisProperties redisProperties;
+
+    public RedisConnectionFactoryBuilder(RedisProperties redisProperties) {
+        this.redisProperties = redisProperties;
+    }
+
+    /**
+     * 创建Lettuce连接工厂（未初始化，交给Spring容器或调用方执行 afterPropertiesSet）
+     *
+     * @param pooled true: 每次操作从连接池借用连接；false: 所有操作共享一个本地连接
+     * @return
+     */
+    public LettuceConnectionFactory lettuce(boolean pooled) {
+        return lettuce(pooled, null);
+    }
+
+    /**
+     * 创建指定读节点策略的Lettuce连接工厂，用于从节点读（哨兵、集群模式下生效）
+     *
+     * @param pooled   true: 每次操作从连接池借用连接；false: 所有操作共享一个本地连接
+     * @param readFrom 读节点策略，为null时只读主节点
+     * @return
+     */
+    public LettuceConnectionFactory lettuce(boolean pooled, ReadFrom readFrom) {
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(redisConfiguration(), clientConfiguration(pooled, readFrom));
+        // 默认共享本地连接时连接池几乎不会被使用，只有关闭共享后 spring.redis.lettuce.pool 才真正生效
+        factory.setShareNativeConnection(!pooled);
+        return factory;
+    }
+
+    /**
+     * 根据配置选择单机、哨兵或集群模式
+     *
+     * @return
+     */
+    public RedisConfiguration redisConfiguration() {
+        RedisProperties.Cluster cluster = redisProperties.getCluster();
+        if (cluster != null && !cluster.getNodes().isEmpty()) {
+            RedisClusterConfiguration config = new RedisClusterConfiguration(cluster.getNodes());
+            if (cluster.getMaxRedirects() != null) {
+                config.setMaxRedirects(cluster.getMaxRedirects());
+            }
+            config.setPassword(RedisPassword.of(redisProperties.getPassword()));
+            return config;
+        }
+        RedisProperties.Sentinel sentinel = redisProperties.getSentinel();
+        if (sentinel != null && !sentinel.getNodes().isEmpty()) {
+            RedisSentinelConfiguration config = new RedisSentinelConfiguration(sentinel.getMaster(), new HashSet<>(sentinel.getNodes()));
+            config.setDatabase(redisProperties.getDatabase());
+            config.setPassword(RedisPassword.of(redisProperties.getPassword()));
+            if (sentinel.getPassword() != null) {
+                config.setSentinelPassword(RedisPassword.of(sentinel.getPassword()));
+            }
+            return config;
+        }
+        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(redisProperties.getHost(), redisProperties.getPort());
+        config.setDatabase(redisProperties.getDatabase());
+        config.setPassword(RedisPassword.of(redisProperties.getPassword()));
+        return config;
+    }
+
+    private LettuceClientConfiguration clientConfiguration(boolean pooled, ReadFrom readFrom) {
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder builder = pooled
+                ? LettucePoolingClientConfiguration.builder().poolConfig(poolConfig(redisProperties.getLettuce().getPool()))
+                : LettuceClientConfiguration.builder();
+        if (redisProperties.getTimeout() != null) {
+            builder.commandTimeout(redisProperties.getTimeout());
+        }
+        if (redisProperties.getLettuce().getShutdownTimeout() != null) {
+            builder.shutdownTimeout(redisProperties.getLettuce().getShutdownTimeout());
+        }
+        if (StringUtils.hasText(redisProperties.getClientName())) {
+            builder.clientName(redisProperties.getClientName());
+        }
+        if (redisProperties.isSsl()) {
+            builder.useSsl();
+        }
+        if (readFrom != null) {
+            builder.readFrom(readFrom);
+        }
+        return builder.build();
+    }
+
+    private GenericObjectPoolConfig<?> poolConfig(RedisProperties.Pool pool) {
+        GenericObjectPoolConfig<?> config = new GenericObjectPoolConfig<>();
+        if (pool == null) {
+            return config;
+        }
+        config.setMaxTotal(pool.getMaxActive());
+        config.setMaxIdle(pool.getMaxIdle());
+        config.setMinIdle(pool.getMinIdle());
+        if (pool.getTimeBetweenEvictionRuns() != null) {
+            config.setTimeBetweenEvictionRunsMillis(pool.getTimeBetweenEvictionRuns().toMillis());
+        }
+        if (pool.getMaxWait() != null) {
+            config.setMaxWaitMillis(pool.getMaxWait().toMillis());
+        }
+        return config;
+    }
+}
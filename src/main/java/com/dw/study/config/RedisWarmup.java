@@ -0,0 +1,147 @@
+package com.dw.study.config;
+
+import com.dw.study.utils.RedisReadRouter;
+import com.dw.study.utils.RedisScriptRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.context.ApplicationStartupAware;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionCommands;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * @Author dw
+ * @ClassName RedisWarmup
+ * @Description 启动预热：所有单例创建完成后、Web服务开始接收请求前，依次建立主节点连接、
+ * 预先打开 lettuce-pooled 的连接池连接、从节点读连接，并把 lua 目录下的脚本加载到 Redis，
+ * 部署后的第一批请求不再承担建立连接、加载脚本的耗时。
+ * 每一步的耗时输出到日志、记录为监控指标 redis.warmup.time（tag component），并作为启动步骤 redis.warmup.* 出现在 /actuator/startup 中；
+ * 没有使用的 Redisson 客户端（redis.client.type 不是 redisson 时只有分布式锁使用）不预热，第一次加锁时才创建，见 RedisConfig#lazyRedissonClient
+ * @Date 2026/10/19 23:30
+ * @Version 1.0
+ */
+@Slf4j
+@Component
+public class RedisWarmup implements SmartInitializingSingleton, ApplicationStartupAware {
+
+    private final RedisWarmupProperties properties;
+
+    private final RedisClientProperties clientProperties;
+
+    private final RedisProperties redisProperties;
+
+    private final RedisConnectionFactory connectionFactory;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final RedisScriptRegistry scriptRegistry;
+
+    private final RedisReadRouter redisReadRouter;
+
+    private final MeterRegistry meterRegistry;
+
+    private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
+
+    public RedisWarmup(RedisWarmupProperties properties, RedisClientProperties clientProperties, RedisProperties redisProperties,
+                       RedisConnectionFactory connectionFactory, RedisTemplate<String, Object> redisTemplate,
+                       RedisScriptRegistry scriptRegistry, RedisReadRouter redisReadRouter, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.clientProperties = clientProperties;
+        this.redisProperties = redisProperties;
+        this.connectionFactory = connectionFactory;
+        this.redisTemplate = redisTemplate;
+        this.scriptRegistry = scriptRegistry;
+        this.redisReadRouter = redisReadRouter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void setApplicationStartup(ApplicationStartup applicationStartup) {
+        this.applicationStartup = applicationStartup;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!properties.isEnabled()) {
+            log.info("Redis启动预热已关闭，连接和Lua脚本在第一次使用时加载");
+            return;
+        }
+        long start = System.nanoTime();
+        Map<String, Long> timings = new LinkedHashMap<>();
+        step(timings, "connection", () -> {
+            redisTemplate.execute((RedisCallback<String>) RedisConnectionCommands::ping);
+            return "客户端类型: " + clientProperties.getType();
+        });
+        if (clientProperties.getType() == RedisClientProperties.ClientType.LETTUCE_POOLED) {
+            step(timings, "pool", () -> "已打开连接数: " + openPooledConnections());
+        }
+        step(timings, "replicas", () -> "从节点连接工厂数: " + redisReadRouter.warmUp());
+        step(timings, "scripts", () -> {
+            scriptRegistry.load();
+            return "已加载脚本: " + scriptRegistry.names();
+        });
+        log.info("Redis启动预热完成，总耗时 {}ms，各步骤耗时(ms): {}",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), timings);
+    }
+
+    /**
+     * 同时借出多个连接并各执行一次 PING，归还后连接留在连接池中
+     */
+    private int openPooledConnections() {
+        RedisProperties.Pool pool = redisProperties.getLettuce().getPool();
+        int target = properties.getConnections();
+        if (pool != null) {
+            target = Math.min(Math.max(target, pool.getMinIdle()), pool.getMaxIdle());
+        }
+        List<RedisConnection> connections = new ArrayList<>(target);
+        try {
+            for (int i = 0; i < target; i++) {
+                RedisConnection connection = connectionFactory.getConnection();
+                connections.add(connection);
+                connection.ping();
+            }
+        } finally {
+            for (RedisConnection connection : connections) {
+                connection.close();
+            }
+        }
+        return connections.size();
+    }
+
+    private void step(Map<String, Long> timings, String component, Supplier<String> action) {
+        StartupStep step = applicationStartup.start("redis.warmup." + component);
+        long start = System.nanoTime();
+        try {
+            String detail = action.get();
+            long elapsed = System.nanoTime() - start;
+            timings.put(component, TimeUnit.NANOSECONDS.toMillis(elapsed));
+            Timer.builder("redis.warmup.time").tag("component", component).register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            step.tag("detail", detail);
+            log.info("Redis预热 {} 完成，耗时 {}ms，{}", component, TimeUnit.NANOSECONDS.toMillis(elapsed), detail);
+        } catch (RuntimeException e) {
+            step.tag("error", String.valueOf(e.getMessage()));
+            if (properties.isFailOnError()) {
+                throw new IllegalStateException("Redis预热失败: " + component, e);
+            }
+            log.warn("Redis预热 {} 失败，第一次使用时再建立连接: {}", component, e.getMessage());
+        } finally {
+            step.end();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.dw.study.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @Author dw
+ * @ClassName RedisWarmupProperties
+ * @Description 启动预热配置，对应 application.yml 中的 redis.warmup
+ * @Date 2026/10/19 23:30
+ * @Version 1.0
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.warmup")
+public class RedisWarmupProperties {
+
+    /**
+     * 是否在启动时（Web服务开始接收请求前）预先建立连接、加载Lua脚本
+     */
+    private boolean enabled = true;
+
+    /**
+     * lettuce-pooled 模式下预先打开的连接数，不超过 spring.redis.lettuce.pool 的 max-idle
+     * （超过 max-idle 的连接归还后会被关闭），小于 min-idle 时按 min-idle
+     */
+    private int connections = 8;
+
+    /**
+     * 预热失败（如Redis不可用）时是否启动失败，默认只记录日志，第一次访问时再建立连接
+     */
+    private boolean failOnError = false;
+}
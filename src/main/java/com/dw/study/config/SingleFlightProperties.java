@@ -0,0 +1,27 @@
+package com.dw.study.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @Author dw
+ * @ClassName SingleFlightProperties
+ * @Description RedisUtils 相同key并发读合并的配置，对应 application.yml 中的 redis.single-flight
+ * @Date 2026/10/19 22:10
+ * @Version 1.0
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.single-flight")
+public class SingleFlightProperties {
+
+    /**
+     * 是否合并相同key的并发读（get、hashGetAll）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 是否给每个调用方（包括发送命令的第一个调用方）返回结果的副本（Map、List、JSONObject 等可变对象逐层复制），
+     * 关闭时所有调用方拿到同一个对象，调用方不能修改
+     */
+    private boolean defensiveCopy = false;
+}
@@ -2,6 +2,7 @@ package com.dw.study.controller;
 
 import com.dw.study.ApiIdepotent.ITokenService;
 import com.dw.study.ApiIdepotent.MyAnnotations.ApiIdempotent;
+import com.dw.study.async.AsyncHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -29,6 +30,7 @@ public class TestApiIdempotentController {
 
 
     @ApiIdempotent
+    @AsyncHandler
     @PostMapping("/testIdempotent")
     public String testIdempotent() {
         try {
@@ -1,5 +1,6 @@
 package com.dw.study.controller;
 
+import com.dw.study.async.AsyncHandler;
 import com.dw.study.utils.RedisLockUtil;
 import org.redisson.api.RLock;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +24,10 @@ public class TestRedisLocalController {
     private RedisLockUtil redisLockUtil;
     private static final  String key = UUID.randomUUID().toString();
 
+    /**
+     * 最多等待锁60s，持有锁10s，超时时间需要大于两者之和
+     */
+    @AsyncHandler(timeout = 75000)
     @RequestMapping("testLocal")
     public String testLocal() {
         System.out.println("开始获取锁。。。。。");
@@ -0,0 +1,48 @@
+package com.dw.study.delay;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @Author dw
+ * @ClassName DelayQueueProperties
+ * @Description {@link RedisDelayQueue} 配置，对应 application.yml 中的 redis.delay-queue
+ * @Date 2026/10/19 18:05
+ * @Version 1.0
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.delay-queue")
+public class DelayQueueProperties {
+
+    /**
+     * 每次领取（一次脚本调用）的最大任务数，脚本执行期间Redis不处理其他命令，不宜过大
+     */
+    private int claimBatchSize = 500;
+
+    /**
+     * 交给执行线程的每批任务数
+     */
+    private int handlerBatchSize = 50;
+
+    /**
+     * 没有领满一批时下次领取前的等待时间，也是任务触发的最大延迟
+     */
+    private Duration pollInterval = Duration.ofMillis(100);
+
+    /**
+     * 每个队列的执行线程数
+     */
+    private int workerThreads = 8;
+
+    /**
+     * 执行线程池的等待队列长度（批次数），队列满时由领取线程自己执行，领取随之放缓
+     */
+    private int workerQueueCapacity = 64;
+
+    /**
+     * 领取后的租约时间，超过该时间仍未确认（执行失败或进程退出）的任务会被再次领取
+     */
+    private Duration visibilityTimeout = Duration.ofSeconds(60);
+}
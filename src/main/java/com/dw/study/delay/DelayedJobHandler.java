@@ -0,0 +1,23 @@
+package com.dw.study.delay;
+
+import java.util.List;
+
+/**
+ * @Author dw
+ * @ClassName DelayedJobHandler
+ * @Description 到期任务的执行逻辑，正常返回后这批任务被确认；抛出异常时租约到期后重新执行（至少一次，需要保证幂等）
+ * @Date 2026/10/19 18:05
+ * @Version 1.0
+ */
+@FunctionalInterface
+public interface DelayedJobHandler {
+
+    /**
+     * 执行一批到期任务
+     *
+     * @param queue 队列名
+     * @param jobs  任务内容，按到期时间排序
+     * @throws Exception
+     */
+    void handle(String queue, List<String> jobs) throws Exception;
+}
@@ -0,0 +1,293 @@
+package com.dw.study.delay;
+
+import com.dw.study.utils.RedisScriptRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Author dw
+ * @ClassName RedisDelayQueue
+ * @Description 基于 ZSET 的延迟任务队列：delay:{队列名} 以执行时间为分数保存任务，
+ * 领取线程通过 Lua 脚本一次往返原子地取出一批到期任务并移入 delay:{队列名}:processing（分数为租约到期时间），
+ * 多个实例同时领取也不会重复；任务交给执行线程池，执行成功后从 processing 中删除，
+ * 失败或实例宕机的任务在租约到期后被再次领取。任务内容即 ZSET 成员，相同内容的任务会合并，需要时在内容中带上任务ID
+ * @Date 2026/10/19 18:05
+ * @Version 1.0
+ */
+@Component
+public class RedisDelayQueue implements DisposableBean {
+
+    private final static Logger log = LoggerFactory.getLogger(RedisDelayQueue.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final DelayQueueProperties properties;
+
+    @SuppressWarnings("rawtypes")
+    private final RedisScript<List> claimScript;
+
+    private final Map<String, DelayQueueWorker> workers = new ConcurrentHashMap<>();
+
+    public RedisDelayQueue(StringRedisTemplate stringRedisTemplate, DelayQueueProperties properties, RedisScriptRegistry scriptRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = properties;
+        this.claimScript = scriptRegistry.get("delay_queue_claim", List.class);
+    }
+
+    /**
+     * 添加延迟任务
+     *
+     * @param queue 队列名
+     * @param job   任务内容
+     * @param delay 延迟时间
+     * @return true成功 false失败
+     */
+    public boolean schedule(String queue, String job, Duration delay) {
+        return scheduleAt(queue, job, System.currentTimeMillis() + delay.toMillis());
+    }
+
+    /**
+     * 添加定时任务，任务已存在时更新执行时间
+     *
+     * @param queue      队列名
+     * @param job        任务内容
+     * @param dueMillis  执行时间（毫秒时间戳）
+     * @return true成功 false失败
+     */
+    public boolean scheduleAt(String queue, String job, long dueMillis) {
+        try {
+            stringRedisTemplate.opsForZSet().add(queueKey(queue), job, dueMillis);
+            return true;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 批量添加定时任务（一条 ZADD 命令）
+     *
+     * @param queue 队列名
+     * @param jobs  任务内容 -> 执行时间（毫秒时间戳）
+     * @return true成功 false失败
+     */
+    public boolean scheduleAll(String queue, Map<String, Long> jobs) {
+        if (jobs == null || jobs.isEmpty()) {
+            return true;
+        }
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>(jobs.size() * 4 / 3 + 1);
+        for (Map.Entry<String, Long> job : jobs.entrySet()) {
+            tuples.add(new DefaultTypedTuple<>(job.getKey(), job.getValue().doubleValue()));
+        }
+        try {
+            stringRedisTemplate.opsForZSet().add(queueKey(queue), tuples);
+            return true;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 取消尚未领取的任务
+     *
+     * @param queue 队列名
+     * @param job   任务内容
+     * @return true表示任务存在并已取消
+     */
+    public boolean cancel(String queue, String job) {
+        try {
+            Long removed = stringRedisTemplate.opsForZSet().remove(queueKey(queue), job);
+            return removed != null && removed > 0;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 等待执行的任务数（不含执行中的任务）
+     *
+     * @param queue 队列名
+     * @return
+     */
+    public long size(String queue) {
+        Long size = stringRedisTemplate.opsForZSet().zCard(queueKey(queue));
+        return size == null ? 0 : size;
+    }
+
+    /**
+     * 原子地领取一批到期任务（包括租约已过期的任务）
+     *
+     * @param queue 队列名
+     * @param max   最多领取个数
+     * @return 任务内容
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> claim(String queue, int max) {
+        long now = System.currentTimeMillis();
+        List<String> jobs = stringRedisTemplate.execute(claimScript, Arrays.asList(queueKey(queue), processingKey(queue)),
+                String.valueOf(now), String.valueOf(max), String.valueOf(now + properties.getVisibilityTimeout().toMillis()));
+        return jobs == null ? new ArrayList<>() : jobs;
+    }
+
+    /**
+     * 确认任务已执行完成
+     *
+     * @param queue 队列名
+     * @param jobs  任务内容
+     */
+    public void ack(String queue, List<String> jobs) {
+        stringRedisTemplate.opsForZSet().remove(processingKey(queue), jobs.toArray());
+    }
+
+    /**
+     * 启动队列的领取线程和执行线程池，同一个队列在一个进程内只能启动一次
+     *
+     * @param queue   队列名
+     * @param handler 执行逻辑
+     * @return
+     */
+    public synchronized DelayQueueWorker subscribe(String queue, DelayedJobHandler handler) {
+        if (workers.containsKey(queue)) {
+            throw new IllegalStateException("延迟队列 " + queue + " 已经启动");
+        }
+        DelayQueueWorker worker = new DelayQueueWorker(queue, handler);
+        workers.put(queue, worker);
+        worker.start();
+        return worker;
+    }
+
+    @Override
+    public void destroy() {
+        for (DelayQueueWorker worker : new ArrayList<>(workers.values())) {
+            worker.stop();
+        }
+    }
+
+    private static String queueKey(String queue) {
+        return "delay:{" + queue + "}";
+    }
+
+    private static String processingKey(String queue) {
+        return queueKey(queue) + ":processing";
+    }
+
+    /**
+     * 一个队列的领取线程和执行线程池
+     */
+    public final class DelayQueueWorker {
+
+        private final String queue;
+
+        private final DelayedJobHandler handler;
+
+        private final Thread poller;
+
+        private final ThreadPoolExecutor executor;
+
+        private volatile boolean running = true;
+
+        private DelayQueueWorker(String queue, DelayedJobHandler handler) {
+            this.queue = queue;
+            this.handler = handler;
+            this.poller = new Thread(this::poll, "redis-delay-" + queue + "-poller");
+            this.poller.setDaemon(true);
+            AtomicInteger index = new AtomicInteger();
+            int threads = Math.max(1, properties.getWorkerThreads());
+            // 等待队列满时由领取线程自己执行，领取自然放缓，已领取的任务不会堆积到租约过期
+            this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(Math.max(1, properties.getWorkerQueueCapacity())), r -> {
+                Thread thread = new Thread(r, "redis-delay-" + queue + "-" + index.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+
+        private void start() {
+            poller.start();
+            log.info("延迟队列{}启动，执行线程数: {}", queue, executor.getCorePoolSize());
+        }
+
+        /**
+         * 停止领取，等待已领取的任务执行完成
+         */
+        public void stop() {
+            running = false;
+            poller.interrupt();
+            try {
+                poller.join(5000);
+                executor.shutdown();
+                executor.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            workers.remove(queue, this);
+        }
+
+        public boolean isRunning() {
+            return running;
+        }
+
+        private void poll() {
+            int claimBatchSize = Math.max(1, properties.getClaimBatchSize());
+            int handlerBatchSize = Math.max(1, properties.getHandlerBatchSize());
+            while (running) {
+                int claimed = 0;
+                try {
+                    List<String> jobs = claim(queue, claimBatchSize);
+                    claimed = jobs.size();
+                    for (int from = 0; from < jobs.size() && running; from += handlerBatchSize) {
+                        List<String> batch = jobs.subList(from, Math.min(jobs.size(), from + handlerBatchSize));
+                        executor.execute(() -> execute(batch));
+                    }
+                } catch (Exception e) {
+                    if (!running) {
+                        break;
+                    }
+                    log.error("延迟队列{}领取任务失败: {}", queue, e.getMessage());
+                }
+                if (claimed < claimBatchSize) {
+                    try {
+                        Thread.sleep(properties.getPollInterval().toMillis());
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        private void execute(List<String> jobs) {
+            try {
+                handler.handle(queue, jobs);
+            } catch (Exception e) {
+                log.error("延迟队列{}执行失败，{}个任务在租约到期后重试: {}", queue, jobs.size(), e.getMessage());
+                return;
+            }
+            try {
+                ack(queue, jobs);
+            } catch (Exception e) {
+                log.error(e.getMessage());
+            }
+        }
+    }
+}
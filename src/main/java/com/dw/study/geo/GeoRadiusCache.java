@@ -0,0 +1,508 @@
+package com.dw.study.geo;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.geo.Circle;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * @Author dw
+ * @ClassName GeoRadiusCache
+ * @Description 附近坐标查询缓存：客户端相隔几米的位置反复查询附近的坐标时，把查询中心量化为 geohash 格子、查询半径向上取到半径档位，
+ * 以格子中心为圆心、档位半径加上格子中心到格子顶点的距离为半径向Redis查询一次（结果是格子内任意中心、档位内任意半径查询结果的超集），
+ * 缓存 redis.geo-cache.ttl；每个调用方按自己的中心在本地重新计算距离，过滤出半径内的坐标并按距离升序、COUNT 截取。
+ * RedisUtils.geoAdd、geoBatchAdd 写入坐标时删除覆盖写入位置或包含写入成员的缓存，其他写入（删除key、zRemove 等）删除这个key的全部缓存；
+ * 其他实例写入的坐标最多延迟 ttl 可见。每隔 ttl 清理一次过期的缓存，没有缓存的key不再保留。监控指标 redis.geo.cache.requests（tag result：hit、miss、bypass）
+ * @Date 2026/10/20 00:40
+ * @Version 1.0
+ */
+@Component
+public class GeoRadiusCache {
+
+    private final static Logger log = LoggerFactory.getLogger(GeoRadiusCache.class);
+
+    /**
+     * 与 Redis GEO 命令相同的地球半径（米），本地计算的距离与 GEORADIUS 返回的一致
+     */
+    private static final double EARTH_RADIUS = 6372797.560856;
+
+    /**
+     * Redis GEO 命令支持的纬度范围
+     */
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    /**
+     * Redis 以52位 geohash 保存坐标，返回的坐标与写入时有不到1米的误差，超集查询的半径多加1米
+     */
+    private static final double SLACK_METERS = 1;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private final GeoRadiusCacheProperties properties;
+
+    private final List<Integer> radiusBuckets;
+
+    private final int precision;
+
+    private final Map<String, KeyCache> keys = new ConcurrentHashMap<>();
+
+    /**
+     * 上次清理过期缓存的时间
+     */
+    private final AtomicLong lastSweep = new AtomicLong(System.currentTimeMillis());
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter bypassed;
+
+    public GeoRadiusCache(GeoRadiusCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        List<Integer> buckets = new ArrayList<>(properties.getRadiusBuckets());
+        Collections.sort(buckets);
+        this.radiusBuckets = buckets;
+        this.precision = Math.max(1, Math.min(12, properties.getPrecision()));
+        this.hits = Counter.builder("redis.geo.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("redis.geo.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.bypassed = Counter.builder("redis.geo.cache.requests").tag("result", "bypass").register(meterRegistry);
+    }
+
+    /**
+     * 查询以给定经纬度为中心、distance 米内的坐标，结果包含距离和坐标，按距离升序
+     *
+     * @param key       redis的key
+     * @param longitude 经度
+     * @param latitude  纬度
+     * @param distance  距离(单位：米)
+     * @param count     如果 count > 0 则最多返回count个坐标， 否则返回所有
+     * @param query     向Redis查询（GEORADIUS）
+     * @return
+     */
+    public GeoResults<RedisGeoCommands.GeoLocation<Object>> radius(String key, double longitude, double latitude,
+                                                                  Integer distance, Integer count,
+                                                                  BiFunction<Circle, RedisGeoCommands.GeoRadiusCommandArgs,
+                                                                          GeoResults<RedisGeoCommands.GeoLocation<Object>>> query) {
+        Integer bucket = properties.isEnabled() ? bucketFor(distance) : null;
+        if (bucket == null) {
+            return queryDirect(longitude, latitude, distance, count, query);
+        }
+        sweepExpired();
+        Cell cell = Cell.of(longitude, latitude, precision);
+        String cellKey = cell.hash + ":" + bucket;
+        KeyCache keyCache = keys.computeIfAbsent(key, k -> new KeyCache(properties.getMaxEntriesPerKey()));
+        Entry entry = keyCache.get(cellKey);
+        boolean hit = entry != null;
+        if (!hit) {
+            entry = keyCache.load(cellKey, () -> querySuperset(key, cell, bucket, query));
+        }
+        if (entry.truncated) {
+            return queryDirect(longitude, latitude, distance, count, query);
+        }
+        (hit ? hits : misses).increment();
+        return entry.filter(longitude, latitude, distance, count);
+    }
+
+    /**
+     * 写入坐标后调用：删除这个key中覆盖写入位置、或者结果中包含写入成员（成员移动了位置）的缓存，
+     * 写入前开始的查询结果不再放入缓存
+     *
+     * @param key     redis的key
+     * @param points  写入的坐标
+     * @param members 写入的成员
+     */
+    public void invalidate(String key, Collection<Point> points, Collection<?> members) {
+        KeyCache keyCache = keys.get(key);
+        if (keyCache != null && keyCache.invalidate(points, members)) {
+            keys.remove(key, keyCache);
+        }
+    }
+
+    /**
+     * 删除这个key的全部缓存，RedisUtils 写入、删除key时调用
+     *
+     * @param key redis的key
+     */
+    public void invalidate(String key) {
+        KeyCache keyCache = keys.remove(key);
+        if (keyCache != null) {
+            keyCache.clear();
+        }
+    }
+
+    /**
+     * 当前保存缓存的key数
+     */
+    int size() {
+        return keys.size();
+    }
+
+    /**
+     * 每隔 ttl 删除过期的缓存以及没有缓存的key，只查询过一次的key、格子不会一直留在内存中。
+     * 移除的 KeyCache 上进行中的查询结果放入已移除的对象中，之后的查询使用新的 KeyCache，不影响正确性
+     */
+    private void sweepExpired() {
+        long now = System.currentTimeMillis();
+        long last = lastSweep.get();
+        if (now - last < properties.getTtl().toMillis() || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        for (Map.Entry<String, KeyCache> entry : keys.entrySet()) {
+            if (entry.getValue().removeExpired(now)) {
+                keys.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private GeoResults<RedisGeoCommands.GeoLocation<Object>> queryDirect(double longitude, double latitude, Integer distance, Integer count,
+                                                                        BiFunction<Circle, RedisGeoCommands.GeoRadiusCommandArgs,
+                                                                                GeoResults<RedisGeoCommands.GeoLocation<Object>>> query) {
+        bypassed.increment();
+        Circle circle = new Circle(new Point(longitude, latitude), new Distance(distance, RedisGeoCommands.DistanceUnit.METERS));
+        RedisGeoCommands.GeoRadiusCommandArgs args = RedisGeoCommands.GeoRadiusCommandArgs
+                .newGeoRadiusArgs().includeDistance().includeCoordinates().sortAscending();
+        if (count != null && count > 0) {
+            args.limit(count);
+        }
+        return query.apply(circle, args);
+    }
+
+    private Entry querySuperset(String key, Cell cell, int bucket,
+                               BiFunction<Circle, RedisGeoCommands.GeoRadiusCommandArgs,
+                                       GeoResults<RedisGeoCommands.GeoLocation<Object>>> query) {
+        double radius = bucket + cell.halfDiagonal + SLACK_METERS;
+        Circle circle = new Circle(new Point(cell.longitude, cell.latitude), new Distance(radius, RedisGeoCommands.DistanceUnit.METERS));
+        // 多取一个，用来判断格子内的坐标是否超过 max-results
+        RedisGeoCommands.GeoRadiusCommandArgs args = RedisGeoCommands.GeoRadiusCommandArgs
+                .newGeoRadiusArgs().includeCoordinates().sortAscending().limit(properties.getMaxResults() + 1);
+        GeoResults<RedisGeoCommands.GeoLocation<Object>> results = query.apply(circle, args);
+        List<RedisGeoCommands.GeoLocation<Object>> locations = new ArrayList<>();
+        if (results != null) {
+            for (GeoResult<RedisGeoCommands.GeoLocation<Object>> result : results) {
+                locations.add(result.getContent());
+            }
+        }
+        boolean truncated = locations.size() > properties.getMaxResults();
+        if (truncated) {
+            log.debug("key: {} 格子 {} 半径 {}m 内的坐标超过 {} 个，这个格子的查询直接访问Redis",
+                    key, cell.hash, bucket, properties.getMaxResults());
+            locations = Collections.emptyList();
+        }
+        return new Entry(cell.longitude, cell.latitude, radius, locations, truncated,
+                System.currentTimeMillis() + properties.getTtl().toMillis());
+    }
+
+    /**
+     * 大于等于查询半径的最小档位，没有时（或半径无效时）返回null，不缓存
+     */
+    private Integer bucketFor(Integer distance) {
+        if (distance == null || distance <= 0) {
+            return null;
+        }
+        for (Integer bucket : radiusBuckets) {
+            if (bucket >= distance) {
+                return bucket;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 两个经纬度之间的距离（米），与 Redis 的 geohashGetDistance 相同的计算方式
+     */
+    static double distance(double longitude1, double latitude1, double longitude2, double latitude2) {
+        double lat1 = Math.toRadians(latitude1);
+        double lat2 = Math.toRadians(latitude2);
+        double u = Math.sin((lat2 - lat1) / 2);
+        double v = Math.sin(Math.toRadians(longitude2 - longitude1) / 2);
+        return 2.0 * EARTH_RADIUS * Math.asin(Math.sqrt(u * u + Math.cos(lat1) * Math.cos(lat2) * v * v));
+    }
+
+    /**
+     * 查询中心所在的 geohash 格子
+     */
+    private static final class Cell {
+
+        private final String hash;
+
+        /**
+         * 格子中心（纬度限制在 Redis 支持的范围内）
+         */
+        private final double longitude;
+
+        private final double latitude;
+
+        /**
+         * 格子中心到最远顶点的距离（米）
+         */
+        private final double halfDiagonal;
+
+        private Cell(String hash, double longitude, double latitude, double halfDiagonal) {
+            this.hash = hash;
+            this.longitude = longitude;
+            this.latitude = latitude;
+            this.halfDiagonal = halfDiagonal;
+        }
+
+        private static Cell of(double longitude, double latitude, int precision) {
+            double minLongitude = -180, maxLongitude = 180, minLatitude = -90, maxLatitude = 90;
+            StringBuilder hash = new StringBuilder(precision);
+            boolean evenBit = true;
+            int bits = 0;
+            int ch = 0;
+            while (hash.length() < precision) {
+                // geohash 从经度开始交替二分经度、纬度，每5位对应一个 base32 字符
+                if (evenBit) {
+                    double mid = (minLongitude + maxLongitude) / 2;
+                    if (longitude >= mid) {
+                        ch = ch << 1 | 1;
+                        minLongitude = mid;
+                    } else {
+                        ch <<= 1;
+                        maxLongitude = mid;
+                    }
+                } else {
+                    double mid = (minLatitude + maxLatitude) / 2;
+                    if (latitude >= mid) {
+                        ch = ch << 1 | 1;
+                        minLatitude = mid;
+                    } else {
+                        ch <<= 1;
+                        maxLatitude = mid;
+                    }
+                }
+                evenBit = !evenBit;
+                if (++bits == 5) {
+                    hash.append(BASE32[ch]);
+                    bits = 0;
+                    ch = 0;
+                }
+            }
+            double centerLongitude = (minLongitude + maxLongitude) / 2;
+            double centerLatitude = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, (minLatitude + maxLatitude) / 2));
+            double halfDiagonal = Math.max(
+                    Math.max(distance(centerLongitude, centerLatitude, minLongitude, minLatitude),
+                            distance(centerLongitude, centerLatitude, maxLongitude, minLatitude)),
+                    Math.max(distance(centerLongitude, centerLatitude, minLongitude, maxLatitude),
+                            distance(centerLongitude, centerLatitude, maxLongitude, maxLatitude)));
+            return new Cell(hash.toString(), centerLongitude, centerLatitude, halfDiagonal);
+        }
+    }
+
+    /**
+     * 一个格子、档位的超集查询结果
+     */
+    private static final class Entry {
+
+        private final double longitude;
+
+        private final double latitude;
+
+        private final double radius;
+
+        private final List<RedisGeoCommands.GeoLocation<Object>> locations;
+
+        private final Set<Object> members;
+
+        /**
+         * 坐标超过 max-results，没有保存结果，查询直接访问Redis
+         */
+        private final boolean truncated;
+
+        private final long expiresAt;
+
+        private Entry(double longitude, double latitude, double radius, List<RedisGeoCommands.GeoLocation<Object>> locations,
+                      boolean truncated, long expiresAt) {
+            this.longitude = longitude;
+            this.latitude = latitude;
+            this.radius = radius;
+            this.locations = locations;
+            this.truncated = truncated;
+            this.expiresAt = expiresAt;
+            this.members = new HashSet<>(locations.size() * 2);
+            for (RedisGeoCommands.GeoLocation<Object> location : locations) {
+                members.add(location.getName());
+            }
+        }
+
+        private boolean covers(Point point) {
+            return distance(longitude, latitude, point.getX(), point.getY()) <= radius;
+        }
+
+        private GeoResults<RedisGeoCommands.GeoLocation<Object>> filter(double longitude, double latitude, Integer distance, Integer count) {
+            List<GeoResult<RedisGeoCommands.GeoLocation<Object>>> matched = new ArrayList<>();
+            for (RedisGeoCommands.GeoLocation<Object> location : locations) {
+                double meters = distance(longitude, latitude, location.getPoint().getX(), location.getPoint().getY());
+                if (meters <= distance) {
+                    matched.add(new GeoResult<>(location, new Distance(meters, RedisGeoCommands.DistanceUnit.METERS)));
+                }
+            }
+            matched.sort(Comparator.comparingDouble(result -> result.getDistance().getValue()));
+            if (count != null && count > 0 && matched.size() > count) {
+                matched = new ArrayList<>(matched.subList(0, count));
+            }
+            return new GeoResults<>(matched, RedisGeoCommands.DistanceUnit.METERS);
+        }
+    }
+
+    /**
+     * 按访问顺序淘汰的网格结果，超过 maxEntries 时移除最久未访问的
+     */
+    private static final class LruEntries extends LinkedHashMap<String, Entry> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+
+        private LruEntries(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    }
+
+    /**
+     * 一个Redis key的缓存，按最近使用淘汰；generation 在每次写入时加一，写入前开始的查询结果不再放入缓存，
+     * 写入后开始的查询也不会加入写入前开始的查询
+     */
+    private static final class KeyCache {
+
+        private final LruEntries entries;
+
+        private final Map<String, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+
+        private long generation;
+
+        private KeyCache(int maxEntries) {
+            this.entries = new LruEntries(maxEntries);
+        }
+
+        private synchronized Entry get(String cellKey) {
+            Entry entry = entries.get(cellKey);
+            if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+                entries.remove(cellKey);
+                return null;
+            }
+            return entry;
+        }
+
+        private synchronized long generation() {
+            return generation;
+        }
+
+        /**
+         * 查询并放入缓存，同一个格子、档位同时只查询一次，同时到达的调用方共享结果
+         */
+        private Entry load(String cellKey, Supplier<Entry> query) {
+            long loadGeneration = generation();
+            String flightKey = cellKey + "#" + loadGeneration;
+            CompletableFuture<Entry> flight = new CompletableFuture<>();
+            CompletableFuture<Entry> existing = loading.putIfAbsent(flightKey, flight);
+            if (existing != null) {
+                try {
+                    return existing.join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+            try {
+                Entry entry = query.get();
+                synchronized (this) {
+                    if (generation == loadGeneration) {
+                        entries.put(cellKey, entry);
+                    }
+                }
+                flight.complete(entry);
+                return entry;
+            } catch (RuntimeException | Error e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                loading.remove(flightKey, flight);
+            }
+        }
+
+        /**
+         * @return 删除后没有缓存、也没有进行中的查询时返回true
+         */
+        private synchronized boolean invalidate(Collection<Point> points, Collection<?> members) {
+            generation++;
+            long now = System.currentTimeMillis();
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.expiresAt <= now || affects(entry, points, members)) {
+                    iterator.remove();
+                }
+            }
+            return isEmpty();
+        }
+
+        /**
+         * @return 删除后没有缓存、也没有进行中的查询时返回true
+         */
+        private synchronized boolean removeExpired(long now) {
+            entries.values().removeIf(entry -> entry.expiresAt <= now);
+            return isEmpty();
+        }
+
+        private boolean isEmpty() {
+            return entries.isEmpty() && loading.isEmpty();
+        }
+
+        private static boolean affects(Entry entry, Collection<Point> points, Collection<?> members) {
+            if (!CollectionUtils.isEmpty(points)) {
+                for (Point point : points) {
+                    if (entry.covers(point)) {
+                        return true;
+                    }
+                }
+            }
+            if (!CollectionUtils.isEmpty(members)) {
+                for (Object member : members) {
+                    if (entry.members.contains(member)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private synchronized void clear() {
+            generation++;
+            entries.clear();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.dw.study.geo;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @Author dw
+ * @ClassName GeoRadiusCacheProperties
+ * @Description 附近坐标查询缓存的配置，对应 application.yml 中的 redis.geo-cache
+ * @Date 2026/10/20 00:40
+ * @Version 1.0
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.geo-cache")
+public class GeoRadiusCacheProperties {
+
+    /**
+     * 是否缓存 RedisUtils.geoGetCoordinatesWithinRange（按经纬度查询）的结果
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存时间，其他实例写入的坐标最多延迟这么久可见
+     */
+    private Duration ttl = Duration.ofSeconds(2);
+
+    /**
+     * 中心点量化使用的 geohash 长度（1~12），7 对应约 153m x 153m 的格子
+     */
+    private int precision = 7;
+
+    /**
+     * 半径档位（米），查询半径向上取到最近的档位；超过最大档位的查询不缓存
+     */
+    private List<Integer> radiusBuckets = Arrays.asList(100, 200, 500, 1000, 2000, 5000, 10000);
+
+    /**
+     * 每个格子、档位缓存的最多坐标数，超过时这个格子、档位的查询直接访问Redis
+     */
+    private int maxResults = 1000;
+
+    /**
+     * 每个Redis key最多缓存的格子、档位数，超过后淘汰最久未使用的
+     */
+    private int maxEntriesPerKey = 1024;
+}
@@ -0,0 +1,167 @@
+package com.dw.study.introspection;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @Author dw
+ * @ClassName IntrospectionReport
+ * @Description {@link RedisIntrospectionService} 一次检查的结果：各节点的 INFO 指标、慢日志、按前缀统计的抽样内存占用和过期时间分布、大key
+ * @Date 2026/10/19 23:50
+ * @Version 1.0
+ */
+@Data
+public class IntrospectionReport {
+
+    /**
+     * 检查开始时间（毫秒时间戳）
+     */
+    private long startTime;
+
+    /**
+     * 检查耗时（毫秒）
+     */
+    private long durationMillis;
+
+    /**
+     * 所有节点的key总数（DBSIZE）
+     */
+    private long totalKeys;
+
+    /**
+     * 抽样统计的key数
+     */
+    private long sampledKeys;
+
+    /**
+     * 节点 -> INFO 中的主要指标和 Keyspace
+     */
+    private Map<String, Map<String, String>> info = new LinkedHashMap<>();
+
+    /**
+     * 各节点最新的慢日志
+     */
+    private List<SlowlogEntry> slowlog = new ArrayList<>();
+
+    /**
+     * key前缀（如 test:、缓存名::） -> 统计
+     */
+    private Map<String, PrefixStats> prefixes = new TreeMap<>();
+
+    /**
+     * 所有抽样key的剩余过期时间分布
+     */
+    private Map<String, Long> ttlDistribution = new LinkedHashMap<>();
+
+    /**
+     * 抽样key中超过阈值的大key个数
+     */
+    private long bigKeyCount;
+
+    /**
+     * 超过阈值的大key，按占用从大到小排列，最多保留 redis.introspection.max-big-keys 个
+     */
+    private List<BigKey> bigKeys = new ArrayList<>();
+
+    /**
+     * 检查过程中的错误，某一项出错不影响其他项
+     */
+    private List<String> errors = new ArrayList<>();
+
+    /**
+     * 一个前缀的抽样统计
+     */
+    @Data
+    public static class PrefixStats {
+
+        /**
+         * 抽样的key数
+         */
+        private long keys;
+
+        /**
+         * 抽样key的内存占用合计（字节）
+         */
+        private long memoryBytes;
+
+        /**
+         * 抽样key中最大的内存占用（字节）
+         */
+        private long maxBytes;
+
+        /**
+         * 按各节点 key总数/抽样数 放大后的内存占用估算（字节）
+         */
+        private long estimatedMemoryBytes;
+
+        /**
+         * 数据类型 -> key数
+         */
+        private Map<String, Long> types = new TreeMap<>();
+
+        /**
+         * 剩余过期时间分布
+         */
+        private Map<String, Long> ttl = new LinkedHashMap<>();
+    }
+
+    /**
+     * 一条慢日志
+     */
+    @Data
+    @AllArgsConstructor
+    public static class SlowlogEntry {
+
+        private String node;
+
+        private long id;
+
+        /**
+         * 执行时间（秒级时间戳）
+         */
+        private long timestamp;
+
+        /**
+         * 执行耗时（微秒）
+         */
+        private long durationMicros;
+
+        /**
+         * 命令名和参数个数，不包含参数值
+         */
+        private String command;
+    }
+
+    /**
+     * 一个大key
+     */
+    @Data
+    @AllArgsConstructor
+    public static class BigKey {
+
+        private String node;
+
+        /**
+         * key名，未开启 redis.introspection.show-key-names 时只有前缀和key的哈希值
+         */
+        private String key;
+
+        private String type;
+
+        /**
+         * MEMORY USAGE（字节）
+         */
+        private long bytes;
+
+        /**
+         * 剩余过期时间（毫秒），-1表示没有过期时间
+         */
+        private long ttlMillis;
+    }
+}
@@ -0,0 +1,46 @@
+package com.dw.study.introspection;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * @Author dw
+ * @ClassName RedisIntrospectionEndpoint
+ * @Description 管理端点 /actuator/redisintrospection：查看Redis服务端检查结果（INFO指标、慢日志、按前缀的内存占用和过期时间分布、大key），
+ * 需要 ADMIN 角色（见 ManagementSecurityConfig）
+ * @Date 2026/10/20 11:10
+ * @Version 1.0
+ */
+@Component
+@Endpoint(id = "redisintrospection")
+public class RedisIntrospectionEndpoint {
+
+    private final RedisIntrospectionService redisIntrospectionService;
+
+    public RedisIntrospectionEndpoint(RedisIntrospectionService redisIntrospectionService) {
+        this.redisIntrospectionService = redisIntrospectionService;
+    }
+
+    /**
+     * GET：上一次检查的结果，还没有检查过时手动执行一次
+     *
+     * @return
+     */
+    @ReadOperation
+    public IntrospectionReport report() {
+        IntrospectionReport report = redisIntrospectionService.getLastReport();
+        return report != null ? report : redisIntrospectionService.runOnDemand();
+    }
+
+    /**
+     * POST：手动执行一次检查，距离上一次手动执行不到 redis.introspection.min-run-interval 时返回上一次的结果
+     *
+     * @return
+     */
+    @WriteOperation
+    public IntrospectionReport run() {
+        return redisIntrospectionService.runOnDemand();
+    }
+}
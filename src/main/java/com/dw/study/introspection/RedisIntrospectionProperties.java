@@ -0,0 +1,83 @@
+package com.dw.study.introspection;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @Author dw
+ * @ClassName RedisIntrospectionProperties
+ * @Description {@link RedisIntrospectionService} 配置，对应 application.yml 中的 redis.introspection
+ * @Date 2026/10/19 23:50
+ * @Version 1.0
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.introspection")
+public class RedisIntrospectionProperties {
+
+    /**
+     * 是否定时执行检查，关闭后仍可以通过管理端点手动执行
+     */
+    private boolean enabled = true;
+
+    /**
+     * 通过管理端点手动执行检查的最小间隔，间隔内的请求返回上一次的结果
+     */
+    private Duration minRunInterval = Duration.ofMinutes(1);
+
+    /**
+     * 报告和日志中是否显示大key的完整key名，关闭时只显示前缀和key的哈希值
+     */
+    private boolean showKeyNames = false;
+
+    /**
+     * 两次检查之间的间隔
+     */
+    private Duration interval = Duration.ofMinutes(10);
+
+    /**
+     * 启动后第一次检查的延迟
+     */
+    private Duration initialDelay = Duration.ofMinutes(1);
+
+    /**
+     * 每次 SCAN 的 COUNT，也是每次统计内存占用的key数
+     */
+    private int scanCount = 100;
+
+    /**
+     * 每个节点最多抽样的key数
+     */
+    private int maxKeys = 1000;
+
+    /**
+     * 每批key统计完成后的停顿时间，避免检查占用过多的Redis处理时间
+     */
+    private Duration pause = Duration.ofMillis(20);
+
+    /**
+     * MEMORY USAGE 的 SAMPLES：hash、list 等类型抽样计算的元素个数，0表示计算全部元素
+     */
+    private int memorySamples = 5;
+
+    /**
+     * 大key阈值（字节）
+     */
+    private long bigKeyThreshold = 1024 * 1024;
+
+    /**
+     * 报告中最多保留的大key个数
+     */
+    private int maxBigKeys = 20;
+
+    /**
+     * 每个节点读取的慢日志条数
+     */
+    private int slowlogEntries = 32;
+
+    /**
+     * 最多统计的前缀个数，超过后的前缀合并为 (other)
+     */
+    private int maxPrefixes = 100;
+}
@@ -0,0 +1,495 @@
+package com.dw.study.introspection;
+
+import com.dw.study.utils.RedisClusterBatchExecutor;
+import com.dw.study.utils.RedisScriptRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * @Author dw
+ * @ClassName RedisIntrospectionService
+ * @Description 服务端检查：定时读取各主节点的 INFO 指标和慢日志（SLOWLOG），并用 SCAN 抽样key（不使用 KEYS），
+ * 通过 lua/key_stats.lua 一次往返取得一批key的类型、剩余过期时间和 MEMORY USAGE，按前缀（如 test:、缓存名::）统计内存占用和过期时间分布，找出超过阈值的大key。
+ * 每个节点最多抽样 max-keys 个key，每批之间停顿 pause，同一时间只有一个检查在执行，通过管理端点手动执行的间隔不小于 min-run-interval。
+ * 报告和日志中的慢日志只包含命令名和参数个数，大key默认只显示前缀和key的哈希值，不暴露参数值和完整的key名。
+ * 结果通过需要认证的管理端点 /actuator/redisintrospection 查看，新增的慢日志和大key输出警告日志，
+ * 监控指标：redis.introspection.time、redis.introspection.big.keys、redis.introspection.slowlog
+ * @Date 2026/10/19 23:50
+ * @Version 1.0
+ */
+@Service
+public class RedisIntrospectionService implements DisposableBean {
+
+    private final static Logger log = LoggerFactory.getLogger(RedisIntrospectionService.class);
+
+    private static final String NO_PREFIX = "(none)";
+
+    private static final String OTHER_PREFIX = "(other)";
+
+    /**
+     * 读取慢日志的脚本不访问key，集群模式下用key选择执行脚本的节点
+     */
+    private static final String ROUTING_KEY = "redis:introspection";
+
+    private static final int ROUTING_KEY_ATTEMPTS = 100000;
+
+    private static final String[] TTL_BUCKETS = {"no-ttl", "<1m", "1m-1h", "1h-1d", "1d-7d", ">=7d"};
+
+    /**
+     * 报告中保留的 INFO 指标，另外保留 Keyspace 中的 db*
+     */
+    private static final List<String> INFO_FIELDS = Arrays.asList("redis_version", "uptime_in_seconds", "connected_clients",
+            "blocked_clients", "used_memory", "used_memory_peak", "maxmemory", "maxmemory_policy", "mem_fragmentation_ratio",
+            "instantaneous_ops_per_sec", "total_commands_processed", "rejected_connections", "keyspace_hits", "keyspace_misses",
+            "expired_keys", "evicted_keys");
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RedisClusterBatchExecutor clusterBatchExecutor;
+
+    private final RedisIntrospectionProperties properties;
+
+    @SuppressWarnings("rawtypes")
+    private final RedisScript<List> keyStatsScript;
+
+    @SuppressWarnings("rawtypes")
+    private final RedisScript<List> slowlogScript;
+
+    private final Timer timer;
+
+    private final Counter slowlogCounter;
+
+    private final AtomicLong bigKeyCount = new AtomicLong();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * 上一次手动执行检查的时间（毫秒时间戳）
+     */
+    private final AtomicLong lastOnDemandRun = new AtomicLong();
+
+    /**
+     * 节点 -> 已经输出过的最新慢日志id
+     */
+    private final Map<String, Long> lastSlowlogIds = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler;
+
+    private volatile IntrospectionReport lastReport;
+
+    public RedisIntrospectionService(StringRedisTemplate stringRedisTemplate, RedisScriptRegistry scriptRegistry,
+                                     RedisClusterBatchExecutor clusterBatchExecutor, RedisIntrospectionProperties properties,
+                                     MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.clusterBatchExecutor = clusterBatchExecutor;
+        this.properties = properties;
+        this.keyStatsScript = scriptRegistry.get("key_stats", List.class);
+        this.slowlogScript = scriptRegistry.get("slowlog_tail", List.class);
+        this.timer = Timer.builder("redis.introspection.time").register(meterRegistry);
+        this.slowlogCounter = Counter.builder("redis.introspection.slowlog").register(meterRegistry);
+        Gauge.builder("redis.introspection.big.keys", bigKeyCount, AtomicLong::get).register(meterRegistry);
+        if (properties.isEnabled()) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "redis-introspection");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::runScheduled, properties.getInitialDelay().toMillis(),
+                    properties.getInterval().toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * 上一次检查的结果
+     *
+     * @return 还没有执行过检查时返回null
+     */
+    public IntrospectionReport getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * 手动执行一次检查（管理端点使用），距离上一次手动执行不到 min-run-interval 时不执行
+     *
+     * @return 检查结果，不执行或已有检查在执行时返回上一次的结果
+     */
+    public IntrospectionReport runOnDemand() {
+        long now = System.currentTimeMillis();
+        long last = lastOnDemandRun.get();
+        if ((last > 0 && now - last < properties.getMinRunInterval().toMillis()) || !lastOnDemandRun.compareAndSet(last, now)) {
+            log.info("距离上一次手动执行Redis服务端检查不到{}ms，返回上一次的结果", properties.getMinRunInterval().toMillis());
+            return lastReport;
+        }
+        return run();
+    }
+
+    /**
+     * 立即执行一次检查
+     *
+     * @return 检查结果，已有检查在执行时返回上一次的结果
+     */
+    public IntrospectionReport run() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Redis服务端检查正在执行，返回上一次的结果");
+            return lastReport;
+        }
+        try {
+            long start = System.nanoTime();
+            IntrospectionReport report = new IntrospectionReport();
+            report.setStartTime(System.currentTimeMillis());
+            for (String bucket : TTL_BUCKETS) {
+                report.getTtlDistribution().put(bucket, 0L);
+            }
+            RedisConnectionFactory connectionFactory = stringRedisTemplate.getRequiredConnectionFactory();
+            if (clusterBatchExecutor.isCluster()) {
+                try (RedisClusterConnection connection = connectionFactory.getClusterConnection()) {
+                    for (RedisClusterNode node : connection.clusterGetNodes()) {
+                        if (node.isMaster()) {
+                            inspect(report, node.asString(), routingKey(node), () -> connection.info(node),
+                                    () -> connection.dbSize(node), options -> connection.scan(node, options));
+                        }
+                    }
+                }
+            } else {
+                try (RedisConnection connection = connectionFactory.getConnection()) {
+                    inspect(report, "master", ROUTING_KEY, connection::info, connection::dbSize, connection::scan);
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            report.setDurationMillis(TimeUnit.NANOSECONDS.toMillis(elapsed));
+            timer.record(elapsed, TimeUnit.NANOSECONDS);
+            bigKeyCount.set(report.getBigKeyCount());
+            if (!report.getBigKeys().isEmpty()) {
+                IntrospectionReport.BigKey biggest = report.getBigKeys().get(0);
+                log.warn("Redis抽样发现{}个超过{}字节的大key，最大: {}（{}，{}字节）", report.getBigKeyCount(),
+                        properties.getBigKeyThreshold(), biggest.getKey(), biggest.getType(), biggest.getBytes());
+            }
+            log.info("Redis服务端检查完成，耗时{}ms，key总数{}，抽样{}个，前缀{}个，错误{}个", report.getDurationMillis(),
+                    report.getTotalKeys(), report.getSampledKeys(), report.getPrefixes().size(), report.getErrors().size());
+            lastReport = report;
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void runScheduled() {
+        try {
+            run();
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 检查一个节点，INFO、慢日志、抽样各自出错时记录到报告中，不影响其他项
+     */
+    private void inspect(IntrospectionReport report, String node, String routingKey, Supplier<Properties> info,
+                         Supplier<Long> dbSize, Function<ScanOptions, Cursor<byte[]>> scan) {
+        try {
+            report.getInfo().put(node, infoFields(info.get()));
+        } catch (Exception e) {
+            error(report, node, "INFO", e);
+        }
+        if (routingKey != null) {
+            try {
+                readSlowlog(report, node, routingKey);
+            } catch (Exception e) {
+                error(report, node, "SLOWLOG", e);
+            }
+        }
+        try {
+            Long keys = dbSize.get();
+            sampleKeys(report, node, keys == null ? 0 : keys, scan);
+        } catch (Exception e) {
+            error(report, node, "SCAN/MEMORY USAGE", e);
+        }
+    }
+
+    private static void error(IntrospectionReport report, String node, String item, Exception e) {
+        String message = node + " " + item + ": " + e.getMessage();
+        report.getErrors().add(message);
+        log.error(message);
+    }
+
+    private static Map<String, String> infoFields(Properties info) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (String name : INFO_FIELDS) {
+            String value = info.getProperty(name);
+            if (value != null) {
+                fields.put(name, value);
+            }
+        }
+        String hits = info.getProperty("keyspace_hits");
+        String misses = info.getProperty("keyspace_misses");
+        if (hits != null && misses != null) {
+            long total = Long.parseLong(hits) + Long.parseLong(misses);
+            fields.put("keyspace_hit_rate", total == 0 ? "0" : String.format("%.4f", Long.parseLong(hits) / (double) total));
+        }
+        for (String name : new TreeSet<>(info.stringPropertyNames())) {
+            if (name.matches("db\\d+")) {
+                fields.put(name, info.getProperty(name));
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * 读取最新的慢日志，id大于上一次输出过的记录输出警告日志（SLOWLOG RESET 或重启后id从0重新开始）
+     */
+    @SuppressWarnings("rawtypes")
+    private void readSlowlog(IntrospectionReport report, String node, String routingKey) {
+        List entries = stringRedisTemplate.execute(slowlogScript, Collections.singletonList(routingKey),
+                String.valueOf(properties.getSlowlogEntries()));
+        if (entries == null || entries.isEmpty()) {
+            return;
+        }
+        long lastId = lastSlowlogIds.getOrDefault(node, -1L);
+        if (((Number) ((List) entries.get(0)).get(0)).longValue() < lastId) {
+            lastId = -1;
+        }
+        long newest = lastId;
+        for (Object item : entries) {
+            List entry = (List) item;
+            IntrospectionReport.SlowlogEntry slowlogEntry = new IntrospectionReport.SlowlogEntry(node,
+                    ((Number) entry.get(0)).longValue(), ((Number) entry.get(1)).longValue(),
+                    ((Number) entry.get(2)).longValue(), commandName((List) entry.get(3)));
+            report.getSlowlog().add(slowlogEntry);
+            if (slowlogEntry.getId() > lastId) {
+                newest = Math.max(newest, slowlogEntry.getId());
+                slowlogCounter.increment();
+                log.warn("Redis慢日志 {} #{} 耗时{}us: {}", node, slowlogEntry.getId(), slowlogEntry.getDurationMicros(), slowlogEntry.getCommand());
+            }
+        }
+        lastSlowlogIds.put(node, newest);
+    }
+
+    /**
+     * 慢日志中的命令名和参数个数，参数可能包含key名和业务数据，不保留
+     */
+    @SuppressWarnings("rawtypes")
+    static String commandName(List args) {
+        if (args == null || args.isEmpty()) {
+            return "";
+        }
+        Object name = args.get(0);
+        String command = (name instanceof byte[] ? new String((byte[]) name, StandardCharsets.UTF_8) : String.valueOf(name))
+                .toUpperCase(Locale.ROOT);
+        return args.size() > 1 ? command + " <" + (args.size() - 1) + "个参数>" : command;
+    }
+
+    /**
+     * SCAN 抽样key，每 scan-count 个key执行一次 key_stats 脚本后停顿
+     */
+    private void sampleKeys(IntrospectionReport report, String node, long dbSize, Function<ScanOptions, Cursor<byte[]>> scan) throws IOException {
+        report.setTotalKeys(report.getTotalKeys() + dbSize);
+        List<KeySample> samples = new ArrayList<>();
+        List<String> batch = new ArrayList<>(properties.getScanCount());
+        try (Cursor<byte[]> cursor = scan.apply(ScanOptions.scanOptions().count(properties.getScanCount()).build())) {
+            while (cursor.hasNext() && samples.size() + batch.size() < properties.getMaxKeys()
+                    && !Thread.currentThread().isInterrupted()) {
+                batch.add(new String(cursor.next(), StandardCharsets.UTF_8));
+                if (batch.size() >= properties.getScanCount()) {
+                    measure(batch, samples);
+                    batch.clear();
+                    pause();
+                }
+            }
+        }
+        measure(batch, samples);
+        aggregate(report, node, samples, dbSize);
+    }
+
+    /**
+     * 一批key的类型、剩余过期时间、内存占用，集群模式下按slot分组执行
+     */
+    @SuppressWarnings("rawtypes")
+    private void measure(List<String> keys, List<KeySample> samples) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Map<Integer, List<String>> groups = new TreeMap<>();
+        if (clusterBatchExecutor.isCluster()) {
+            for (String key : keys) {
+                groups.computeIfAbsent(ClusterSlotHashUtil.calculateSlot(key), slot -> new ArrayList<>()).add(key);
+            }
+        } else {
+            groups.put(0, keys);
+        }
+        String memorySamples = String.valueOf(properties.getMemorySamples());
+        for (List<String> group : groups.values()) {
+            List stats = stringRedisTemplate.execute(keyStatsScript, group, memorySamples);
+            if (stats == null) {
+                continue;
+            }
+            for (int i = 0; i < group.size(); i++) {
+                List stat = (List) stats.get(i);
+                String type = String.valueOf(stat.get(0));
+                // SCAN 之后已被删除或过期
+                if (!"none".equals(type)) {
+                    samples.add(new KeySample(group.get(i), type, ((Number) stat.get(1)).longValue(), ((Number) stat.get(2)).longValue()));
+                }
+            }
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(properties.getPause().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 汇总一个节点的抽样结果，内存占用估算按该节点 key总数/抽样数 放大
+     */
+    private void aggregate(IntrospectionReport report, String node, List<KeySample> samples, long dbSize) {
+        report.setSampledKeys(report.getSampledKeys() + samples.size());
+        double scale = samples.isEmpty() ? 0 : Math.max(1.0, (double) dbSize / samples.size());
+        for (KeySample sample : samples) {
+            long bytes = Math.max(sample.bytes, 0);
+            String bucket = ttlBucket(sample.pttl);
+            report.getTtlDistribution().merge(bucket, 1L, Long::sum);
+            IntrospectionReport.PrefixStats stats = prefixStats(report, prefixOf(sample.key));
+            stats.setKeys(stats.getKeys() + 1);
+            stats.setMemoryBytes(stats.getMemoryBytes() + bytes);
+            stats.setMaxBytes(Math.max(stats.getMaxBytes(), bytes));
+            stats.setEstimatedMemoryBytes(stats.getEstimatedMemoryBytes() + Math.round(bytes * scale));
+            stats.getTypes().merge(sample.type, 1L, Long::sum);
+            stats.getTtl().merge(bucket, 1L, Long::sum);
+            if (bytes >= properties.getBigKeyThreshold()) {
+                report.setBigKeyCount(report.getBigKeyCount() + 1);
+                report.getBigKeys().add(new IntrospectionReport.BigKey(node, displayKey(sample.key), sample.type, bytes, sample.pttl));
+            }
+        }
+        List<IntrospectionReport.BigKey> bigKeys = report.getBigKeys();
+        bigKeys.sort(Comparator.comparingLong(IntrospectionReport.BigKey::getBytes).reversed());
+        if (bigKeys.size() > properties.getMaxBigKeys()) {
+            bigKeys.subList(properties.getMaxBigKeys(), bigKeys.size()).clear();
+        }
+    }
+
+    private IntrospectionReport.PrefixStats prefixStats(IntrospectionReport report, String prefix) {
+        Map<String, IntrospectionReport.PrefixStats> prefixes = report.getPrefixes();
+        String name = prefixes.containsKey(prefix) || prefixes.size() < properties.getMaxPrefixes() ? prefix : OTHER_PREFIX;
+        return prefixes.computeIfAbsent(name, key -> {
+            IntrospectionReport.PrefixStats stats = new IntrospectionReport.PrefixStats();
+            for (String bucket : TTL_BUCKETS) {
+                stats.getTtl().put(bucket, 0L);
+            }
+            return stats;
+        });
+    }
+
+    /**
+     * key的前缀：SpringCache 的key（缓存名::key）取到 ::，其他key取到第一个冒号
+     */
+    static String prefixOf(String key) {
+        int cacheSeparator = key.indexOf("::");
+        if (cacheSeparator > 0) {
+            return key.substring(0, cacheSeparator + 2);
+        }
+        int colon = key.indexOf(':');
+        return colon > 0 ? key.substring(0, colon + 1) : NO_PREFIX;
+    }
+
+    /**
+     * 报告和日志中显示的key名：未开启 show-key-names 时为前缀和key的哈希值，如 user:*#5f3a9c2e
+     */
+    String displayKey(String key) {
+        if (properties.isShowKeyNames()) {
+            return key;
+        }
+        String prefix = prefixOf(key);
+        return (NO_PREFIX.equals(prefix) ? "" : prefix) + "*#" + String.format("%08x", key.hashCode());
+    }
+
+    static String ttlBucket(long pttl) {
+        if (pttl < 0) {
+            return TTL_BUCKETS[0];
+        } else if (pttl < TimeUnit.MINUTES.toMillis(1)) {
+            return TTL_BUCKETS[1];
+        } else if (pttl < TimeUnit.HOURS.toMillis(1)) {
+            return TTL_BUCKETS[2];
+        } else if (pttl < TimeUnit.DAYS.toMillis(1)) {
+            return TTL_BUCKETS[3];
+        } else if (pttl < TimeUnit.DAYS.toMillis(7)) {
+            return TTL_BUCKETS[4];
+        }
+        return TTL_BUCKETS[5];
+    }
+
+    /**
+     * 一个属于该节点slot的key，节点没有slot时返回null
+     */
+    private static String routingKey(RedisClusterNode node) {
+        for (int i = 0; i < ROUTING_KEY_ATTEMPTS; i++) {
+            String key = ROUTING_KEY + ":{" + i + "}";
+            if (node.servesSlot(ClusterSlotHashUtil.calculateSlot(key))) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private static final class KeySample {
+        private final String key;
+        private final String type;
+        private final long pttl;
+        private final long bytes;
+
+        private KeySample(String key, String type, long pttl, long bytes) {
+            this.key = key;
+            this.type = type;
+            this.pttl = pttl;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.dw.study.leaderboard;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @Author dw
+ * @ClassName LeaderboardProperties
+ * @Description {@link LeaderboardService} 配置，对应 application.yml 中的 redis.leaderboard
+ * @Date 2026/10/19 18:40
+ * @Version 1.0
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.leaderboard")
+public class LeaderboardProperties {
+
+    /**
+     * 本地快照缓存的前K名，top(k) 中 k 不超过该值时读本地快照
+     */
+    private int topK = 100;
+
+    /**
+     * 本地快照的有效期，过期后由一个请求线程刷新，其他请求继续读旧快照
+     */
+    private Duration snapshotTtl = Duration.ofSeconds(1);
+
+    /**
+     * 每个排行榜最多保留的成员数，批量更新后裁掉排名靠后的成员，0表示不限制
+     */
+    private long maxSize = 0;
+}
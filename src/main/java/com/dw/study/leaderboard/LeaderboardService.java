@@ -0,0 +1,217 @@
+package com.dw.study.leaderboard;
+
+import com.dw.study.utils.RedisUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @Author dw
+ * @ClassName LeaderboardService
+ * @Description 基于 ZSET 的排行榜（分数从高到低）：批量更新通过管道一次发送，支持分页查询；
+ * 前K名在本地保存一份短期快照，热点的“前100名”请求不需要每次访问 Redis，快照最多落后 snapshotTtl
+ * @Date 2026/10/19 18:40
+ * @Version 1.0
+ */
+@Service
+public class LeaderboardService {
+
+    private final static Logger log = LoggerFactory.getLogger(LeaderboardService.class);
+
+    private final RedisUtils redisUtils;
+
+    private final LeaderboardProperties properties;
+
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    public LeaderboardService(RedisUtils redisUtils, LeaderboardProperties properties) {
+        this.redisUtils = redisUtils;
+        this.properties = properties;
+    }
+
+    /**
+     * 增加成员的分数
+     *
+     * @param board  排行榜名
+     * @param member 成员
+     * @param delta  增量
+     * @return 增加后的分数
+     */
+    public Double incrementScore(String board, String member, double delta) {
+        return redisUtils.zSetIncrementScore(boardKey(board), member, delta);
+    }
+
+    /**
+     * 批量增加分数（一次管道往返）
+     *
+     * @param board  排行榜名
+     * @param deltas 成员 -> 增量
+     * @return true成功 false失败
+     */
+    public boolean incrementScores(String board, Map<String, Double> deltas) {
+        List<Double> scores = redisUtils.zSetBatchIncrementScore(boardKey(board), new LinkedHashMap<>(deltas));
+        trim(board);
+        return deltas.isEmpty() || scores.size() == deltas.size();
+    }
+
+    /**
+     * 批量设置分数（一条ZADD命令）
+     *
+     * @param board  排行榜名
+     * @param scores 成员 -> 分数
+     * @return true成功 false失败
+     */
+    public boolean setScores(String board, Map<String, Double> scores) {
+        boolean success = redisUtils.zSetBatchAdd(boardKey(board), new LinkedHashMap<>(scores));
+        trim(board);
+        return success;
+    }
+
+    /**
+     * 移除成员
+     *
+     * @param board   排行榜名
+     * @param members 成员
+     */
+    public void remove(String board, String... members) {
+        redisUtils.zSetRemove(boardKey(board), (Object[]) members);
+    }
+
+    /**
+     * 前k名，k不超过 topK 时读本地快照
+     *
+     * @param board 排行榜名
+     * @param k
+     * @return
+     */
+    public List<RankEntry> top(String board, int k) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        if (k > properties.getTopK()) {
+            return range(board, 0, k - 1);
+        }
+        List<RankEntry> entries = snapshot(board).entries;
+        return entries.subList(0, Math.min(k, entries.size()));
+    }
+
+    /**
+     * 分页查询排名
+     *
+     * @param board    排行榜名
+     * @param pageNo   页码，从1开始
+     * @param pageSize 每页个数
+     * @return
+     */
+    public List<RankEntry> page(String board, int pageNo, int pageSize) {
+        if (pageNo < 1 || pageSize < 1) {
+            return Collections.emptyList();
+        }
+        long start = (long) (pageNo - 1) * pageSize;
+        return range(board, start, start + pageSize - 1);
+    }
+
+    /**
+     * 查询成员的排名和分数
+     *
+     * @param board  排行榜名
+     * @param member 成员
+     * @return 成员不在排行榜中时返回null
+     */
+    public RankEntry rankOf(String board, String member) {
+        String key = boardKey(board);
+        Long rank = redisUtils.zSetReverseRank(key, member);
+        if (rank == null) {
+            return null;
+        }
+        Double score = redisUtils.zSetScore(key, member);
+        return score == null ? null : new RankEntry(rank + 1, member, score);
+    }
+
+    /**
+     * 排行榜中的成员数
+     *
+     * @param board 排行榜名
+     * @return
+     */
+    public long size(String board) {
+        Long size = redisUtils.zSetSize(boardKey(board));
+        return size == null ? 0 : size;
+    }
+
+    private List<RankEntry> range(String board, long start, long end) {
+        Set<ZSetOperations.TypedTuple<Object>> tuples = redisUtils.zSetReverseRangeWithScores(boardKey(board), start, end);
+        if (tuples == null || tuples.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<RankEntry> entries = new ArrayList<>(tuples.size());
+        long rank = start;
+        for (ZSetOperations.TypedTuple<Object> tuple : tuples) {
+            Double score = tuple.getScore();
+            entries.add(new RankEntry(++rank, String.valueOf(tuple.getValue()), score == null ? 0 : score));
+        }
+        return entries;
+    }
+
+    /**
+     * 获取前K名快照：首次同步加载；过期后只有一个线程刷新，其他线程继续使用旧快照，避免同时访问 Redis
+     */
+    private Snapshot snapshot(String board) {
+        Snapshot snapshot = snapshots.get(board);
+        if (snapshot == null) {
+            return snapshots.computeIfAbsent(board, this::loadSnapshot);
+        }
+        if (System.nanoTime() - snapshot.loadedAt > properties.getSnapshotTtl().toNanos()
+                && snapshot.refreshing.compareAndSet(false, true)) {
+            try {
+                snapshot = loadSnapshot(board);
+                snapshots.put(board, snapshot);
+            } catch (Exception e) {
+                // 刷新失败继续使用旧快照，下一个请求再重试
+                log.error(e.getMessage());
+                snapshot.refreshing.set(false);
+            }
+        }
+        return snapshot;
+    }
+
+    private Snapshot loadSnapshot(String board) {
+        return new Snapshot(Collections.unmodifiableList(range(board, 0, properties.getTopK() - 1)));
+    }
+
+    private void trim(String board) {
+        if (properties.getMaxSize() > 0) {
+            redisUtils.zSetRemoveRange(boardKey(board), 0, -(properties.getMaxSize() + 1));
+        }
+    }
+
+    private static String boardKey(String board) {
+        return "leaderboard:" + board;
+    }
+
+    /**
+     * 本地前K名快照
+     */
+    private static final class Snapshot {
+
+        private final List<RankEntry> entries;
+
+        private final long loadedAt = System.nanoTime();
+
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Snapshot(List<RankEntry> entries) {
+            this.entries = entries;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.dw.study.leaderboard;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * @Author dw
+ * @ClassName RankEntry
+ * @Description 排行榜中的一项
+ * @Date 2026/10/19 18:40
+ * @Version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class RankEntry {
+
+    /**
+     * 排名，从1开始
+     */
+    private long rank;
+
+    /**
+     * 成员
+     */
+    private String member;
+
+    /**
+     * 分数
+     */
+    private double score;
+}
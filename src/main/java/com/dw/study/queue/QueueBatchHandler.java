@@ -0,0 +1,23 @@
+package com.dw.study.queue;
+
+import java.util.List;
+
+/**
+ * @Author dw
+ * @ClassName QueueBatchHandler
+ * @Description 队列消费逻辑，正常返回后这一批元素被确认，抛出异常时整批放回队列重新投递（至少一次，需要保证幂等）
+ * @Date 2026/10/19 17:10
+ * @Version 1.0
+ */
+@FunctionalInterface
+public interface QueueBatchHandler {
+
+    /**
+     * 处理一批元素
+     *
+     * @param queue   队列名
+     * @param payload 本批元素，按入队顺序，最多 batchSize 个
+     * @throws Exception
+     */
+    void handle(String queue, List<String> payload) throws Exception;
+}
@@ -0,0 +1,419 @@
+package com.dw.study.queue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Author dw
+ * @ClassName RedisWorkQueue
+ * @Description 基于 Redis list 的可靠工作队列（至少一次投递）。
+ * 生产者 LPUSH 到 queue:{name}；每个消费线程有自己的处理中列表 queue:{name}:processing:消费者ID，
+ * 元素通过 RPOPLPUSH/BRPOPLPUSH 原子地移入处理中列表，处理成功后 LREM 确认，失败则放回队列。
+ * 队列非空时一次管道往返最多取 batchSize 个元素，队列为空时用 BRPOPLPUSH 阻塞等待，不需要轮询。
+ * 存活的消费线程由定时任务按 heartbeatInterval 刷新心跳key（过期时间为可见性超时），与消费循环无关，
+ * 处理一批元素耗时较长时心跳不会过期；心跳过期（进程退出或长时间连不上Redis）的消费者的处理中元素由定时任务放回队列。
+ * 同一个队列的key使用相同的 hash tag，集群模式下位于同一个slot
+ * @Date 2026/10/19 17:10
+ * @Version 1.0
+ */
+@Component
+public class RedisWorkQueue implements DisposableBean {
+
+    private final static Logger log = LoggerFactory.getLogger(RedisWorkQueue.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RedisWorkQueueProperties properties;
+
+    /**
+     * 消费者ID前缀，pid@hostname
+     */
+    private final String instanceId = ManagementFactory.getRuntimeMXBean().getName();
+
+    private final AtomicInteger consumerIds = new AtomicInteger();
+
+    private final Map<String, QueueConsumer> consumers = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    public RedisWorkQueue(StringRedisTemplate stringRedisTemplate, RedisWorkQueueProperties properties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = properties;
+    }
+
+    /**
+     * 入队
+     *
+     * @param queue   队列名
+     * @param payload 元素内容
+     * @return true成功 false失败
+     */
+    public boolean push(String queue, String payload) {
+        try {
+            stringRedisTemplate.opsForList().leftPush(queueKey(queue), payload);
+            return true;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 批量入队（一条 LPUSH 命令），按集合顺序出队
+     *
+     * @param queue    队列名
+     * @param payloads 元素内容
+     * @return true成功 false失败
+     */
+    public boolean pushAll(String queue, Collection<String> payloads) {
+        if (payloads == null || payloads.isEmpty()) {
+            return true;
+        }
+        try {
+            stringRedisTemplate.opsForList().leftPushAll(queueKey(queue), payloads);
+            return true;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 待消费的元素个数（不含处理中的元素）
+     *
+     * @param queue 队列名
+     * @return
+     */
+    public long size(String queue) {
+        Long size = stringRedisTemplate.opsForList().size(queueKey(queue));
+        return size == null ? 0 : size;
+    }
+
+    /**
+     * 启动队列消费者，线程数为 redis.queue.consumer-threads
+     *
+     * @param queue   队列名
+     * @param handler 消费逻辑
+     * @return
+     */
+    public QueueConsumer subscribe(String queue, QueueBatchHandler handler) {
+        return subscribe(queue, handler, properties.getConsumerThreads());
+    }
+
+    /**
+     * 启动队列消费者，同一个队列在一个进程内只能启动一组消费者
+     *
+     * @param queue   队列名
+     * @param handler 消费逻辑
+     * @param threads 消费线程数
+     * @return
+     */
+    public synchronized QueueConsumer subscribe(String queue, QueueBatchHandler handler, int threads) {
+        if (properties.getBlockTimeout().compareTo(properties.getVisibilityTimeout()) >= 0) {
+            throw new IllegalArgumentException("redis.queue.block-timeout 必须小于 visibility-timeout");
+        }
+        if (properties.getHeartbeatInterval().compareTo(properties.getVisibilityTimeout()) >= 0) {
+            throw new IllegalArgumentException("redis.queue.heartbeat-interval 必须小于 visibility-timeout");
+        }
+        if (consumers.containsKey(queue)) {
+            throw new IllegalStateException("队列 " + queue + " 已经启动了消费者");
+        }
+        QueueConsumer consumer = new QueueConsumer(queue, handler, threads);
+        consumers.put(queue, consumer);
+        consumer.start();
+        if (scheduler == null) {
+            scheduler = Executors.newScheduledThreadPool(2, r -> {
+                Thread thread = new Thread(r, "redis-queue-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long heartbeatInterval = properties.getHeartbeatInterval().toMillis();
+            scheduler.scheduleWithFixedDelay(this::refreshHeartbeats, heartbeatInterval, heartbeatInterval, TimeUnit.MILLISECONDS);
+            long reaperInterval = properties.getReaperInterval().toMillis();
+            scheduler.scheduleWithFixedDelay(this::requeueExpired, reaperInterval, reaperInterval, TimeUnit.MILLISECONDS);
+        }
+        return consumer;
+    }
+
+    /**
+     * 把心跳已过期的消费者的处理中元素放回队列，并移除这些消费者
+     *
+     * @param queue 队列名
+     * @return 放回队列的元素个数
+     */
+    public long requeueExpired(String queue) {
+        String consumersKey = consumersKey(queue);
+        Set<String> ids = stringRedisTemplate.opsForSet().members(consumersKey);
+        if (ids == null) {
+            return 0;
+        }
+        long requeued = 0;
+        for (String id : ids) {
+            if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(heartbeatKey(queue, id)))) {
+                continue;
+            }
+            // 逐个 RPOPLPUSH，多个实例同时检查时也不会丢失或重复放回
+            while (stringRedisTemplate.opsForList().rightPopAndLeftPush(processingKey(queue, id), queueKey(queue)) != null) {
+                requeued++;
+            }
+            stringRedisTemplate.opsForSet().remove(consumersKey, id);
+        }
+        if (requeued > 0) {
+            log.warn("队列{}有{}个元素超过可见性超时未确认，已放回队列", queue, requeued);
+        }
+        return requeued;
+    }
+
+    /**
+     * 为所有存活的消费线程刷新心跳（一次管道往返）
+     */
+    private void refreshHeartbeats() {
+        for (QueueConsumer consumer : consumers.values()) {
+            try {
+                consumer.heartbeat(consumer.aliveIds);
+            } catch (Exception e) {
+                log.error(e.getMessage());
+            }
+        }
+    }
+
+    private void requeueExpired() {
+        for (String queue : consumers.keySet()) {
+            try {
+                requeueExpired(queue);
+            } catch (Exception e) {
+                log.error(e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        for (QueueConsumer consumer : new ArrayList<>(consumers.values())) {
+            consumer.stop();
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private static String queueKey(String queue) {
+        return "queue:{" + queue + "}";
+    }
+
+    private static String processingKey(String queue, String consumerId) {
+        return queueKey(queue) + ":processing:" + consumerId;
+    }
+
+    private static String heartbeatKey(String queue, String consumerId) {
+        return queueKey(queue) + ":heartbeat:" + consumerId;
+    }
+
+    private static String consumersKey(String queue) {
+        return queueKey(queue) + ":consumers";
+    }
+
+    /**
+     * 一个队列的一组消费线程
+     */
+    public final class QueueConsumer {
+
+        private final String queue;
+
+        private final QueueBatchHandler handler;
+
+        private final int threads;
+
+        private final ExecutorService executor;
+
+        /**
+         * 存活的消费线程ID，由定时任务刷新心跳
+         */
+        private final Set<String> aliveIds = ConcurrentHashMap.newKeySet();
+
+        private volatile boolean running = true;
+
+        private QueueConsumer(String queue, QueueBatchHandler handler, int threads) {
+            this.queue = queue;
+            this.handler = handler;
+            this.threads = threads;
+            AtomicInteger index = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "redis-queue-" + queue + "-" + index.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        private void start() {
+            for (int i = 0; i < threads; i++) {
+                String consumerId = instanceId + "-" + consumerIds.incrementAndGet();
+                executor.execute(() -> run(consumerId));
+            }
+            log.info("队列{}启动{}个消费线程", queue, threads);
+        }
+
+        /**
+         * 停止消费：当前批次处理完后退出，最多等待一个阻塞超时
+         */
+        public void stop() {
+            running = false;
+            executor.shutdown();
+            try {
+                executor.awaitTermination(properties.getBlockTimeout().toMillis() + 5000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            consumers.remove(queue, this);
+        }
+
+        public boolean isRunning() {
+            return running;
+        }
+
+        private void run(String consumerId) {
+            aliveIds.add(consumerId);
+            while (running) {
+                try {
+                    // 整个消费循环占用同一个连接，阻塞命令不会反复新建连接
+                    stringRedisTemplate.execute((RedisCallback<Void>) connection -> {
+                        consume((StringRedisConnection) connection, consumerId);
+                        return null;
+                    });
+                } catch (Exception e) {
+                    if (!running) {
+                        break;
+                    }
+                    log.error("队列{}消费者{}异常: {}", queue, consumerId, e.getMessage());
+                    sleepQuietly(1000);
+                }
+            }
+            // 先停止刷新再删除心跳，未确认的元素（如确认时连接异常）由定时任务放回队列
+            aliveIds.remove(consumerId);
+            try {
+                stringRedisTemplate.delete(heartbeatKey(queue, consumerId));
+            } catch (Exception e) {
+                log.error(e.getMessage());
+            }
+        }
+
+        private void consume(StringRedisConnection connection, String consumerId) {
+            String queueKey = queueKey(queue);
+            String processingKey = processingKey(queue, consumerId);
+            int blockSeconds = (int) Math.max(1, properties.getBlockTimeout().getSeconds());
+            // 取元素之前先登记，之后由定时任务刷新
+            heartbeat(Collections.singleton(consumerId));
+            while (running) {
+                List<String> batch = claim(connection, consumerId);
+                if (batch.isEmpty()) {
+                    String payload = connection.bRPopLPush(blockSeconds, queueKey, processingKey);
+                    if (payload == null) {
+                        continue;
+                    }
+                    batch = Collections.singletonList(payload);
+                }
+                try {
+                    handler.handle(queue, batch);
+                } catch (Exception e) {
+                    log.error("队列{}消费失败，{}个元素放回队列: {}", queue, batch.size(), e.getMessage());
+                    requeue(connection, processingKey, batch);
+                    continue;
+                }
+                connection.openPipeline();
+                for (String payload : batch) {
+                    connection.lRem(processingKey, 1, payload);
+                }
+                connection.closePipeline();
+            }
+        }
+
+        /**
+         * 刷新心跳并登记消费者（一次管道往返）。登记也在这里重复执行：
+         * 消费者曾因心跳过期被移除时（如长时间连不上Redis），恢复后重新登记，处理中的元素仍能被定时任务检查到
+         */
+        private void heartbeat(Collection<String> ids) {
+            if (ids.isEmpty()) {
+                return;
+            }
+            String timestamp = String.valueOf(System.currentTimeMillis());
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (String id : ids) {
+                    stringConnection.setEx(heartbeatKey(queue, id), properties.getVisibilityTimeout().getSeconds(), timestamp);
+                    stringConnection.sAdd(consumersKey(queue), id);
+                }
+                return null;
+            });
+        }
+
+        /**
+         * 一次管道往返最多取出 batchSize 个元素
+         */
+        private List<String> claim(StringRedisConnection connection, String consumerId) {
+            int batchSize = Math.max(1, properties.getBatchSize());
+            String queueKey = queueKey(queue);
+            String processingKey = processingKey(queue, consumerId);
+            connection.openPipeline();
+            for (int i = 0; i < batchSize; i++) {
+                connection.rPopLPush(queueKey, processingKey);
+            }
+            List<Object> results = connection.closePipeline();
+            List<String> batch = new ArrayList<>(batchSize);
+            for (Object result : results) {
+                if (result instanceof byte[]) {
+                    batch.add(new String((byte[]) result, StandardCharsets.UTF_8));
+                } else if (result instanceof String) {
+                    batch.add((String) result);
+                }
+            }
+            return batch;
+        }
+
+        /**
+         * 处理失败的元素从处理中列表移除后放到队列的入队端，避免同一个元素立即被重复消费
+         */
+        private void requeue(StringRedisConnection connection, String processingKey, List<String> batch) {
+            connection.openPipeline();
+            for (String payload : batch) {
+                connection.lRem(processingKey, 1, payload);
+            }
+            List<Object> removed = connection.closePipeline();
+            connection.openPipeline();
+            for (int i = 0; i < batch.size() && i < removed.size(); i++) {
+                // 已被定时任务放回队列的元素不再重复放回
+                if (removed.get(i) instanceof Number && ((Number) removed.get(i)).longValue() > 0) {
+                    connection.lPush(queueKey(queue), batch.get(i));
+                }
+            }
+            connection.closePipeline();
+        }
+
+        private void sleepQuietly(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
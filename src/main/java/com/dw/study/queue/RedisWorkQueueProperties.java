@@ -0,0 +1,48 @@
+package com.dw.study.queue;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @Author dw
+ * @ClassName RedisWorkQueueProperties
+ * @Description {@link RedisWorkQueue} 消费者配置，对应 application.yml 中的 redis.queue
+ * @Date 2026/10/19 17:10
+ * @Version 1.0
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.queue")
+public class RedisWorkQueueProperties {
+
+    /**
+     * 每个队列的消费线程数
+     */
+    private int consumerThreads = 4;
+
+    /**
+     * 每次最多取出的元素个数（一次管道往返）
+     */
+    private int batchSize = 10;
+
+    /**
+     * 队列为空时阻塞等待的时间（BRPOPLPUSH 的超时，按秒取整），必须小于 visibilityTimeout
+     */
+    private Duration blockTimeout = Duration.ofSeconds(5);
+
+    /**
+     * 可见性超时：消费者超过该时间没有心跳（处理一批元素耗时过长或进程退出），处理中的元素被放回队列重新投递
+     */
+    private Duration visibilityTimeout = Duration.ofSeconds(60);
+
+    /**
+     * 刷新消费者心跳的间隔（定时任务，与处理一批元素的耗时无关），必须小于 visibilityTimeout
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(10);
+
+    /**
+     * 检查超时消费者的间隔
+     */
+    private Duration reaperInterval = Duration.ofSeconds(10);
+}
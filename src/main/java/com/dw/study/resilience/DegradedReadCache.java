@@ -0,0 +1,136 @@
+package com.dw.study.resilience;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @Author dw
+ * @ClassName DegradedReadCache
+ * @Description 降级读缓存：开启 redis.resilience.degraded.enabled 后，RedisUtils 读成功时把值保存在本地（有上限，
+ * 超过后淘汰最久未写入的key），Redis 不可用时返回本地的值，超过 max-staleness 的值不再使用；
+ * RedisUtils 写入或删除key时同时删除本地的值。返回的是同一个对象，调用方不要修改
+ * @Date 2026/10/19 20:00
+ * @Version 1.0
+ */
+@Component
+public class DegradedReadCache {
+
+    private final static Logger log = LoggerFactory.getLogger(DegradedReadCache.class);
+
+    private static final int SEGMENTS = 16;
+
+    private final boolean enabled;
+
+    private final long maxStalenessMillis;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    public DegradedReadCache(RedisResilienceProperties properties) {
+        RedisResilienceProperties.Degraded degraded = properties.getDegraded();
+        this.enabled = properties.isEnabled() && degraded.isEnabled();
+        this.maxStalenessMillis = degraded.getMaxStaleness().toMillis();
+        int maxEntriesPerSegment = Math.max(1, degraded.getMaxEntries() / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(maxEntriesPerSegment);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 保存从 Redis 读到的值（包括 null，表示key不存在）
+     *
+     * @param key
+     * @param value
+     */
+    public void put(String key, Object value) {
+        if (!enabled) {
+            return;
+        }
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            // 先删除再放入，保持按写入时间排序
+            segment.remove(key);
+            segment.put(key, new Entry(value, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * 删除本地的值，RedisUtils 写入、删除key时调用
+     *
+     * @param key
+     */
+    public void invalidate(String key) {
+        if (!enabled) {
+            return;
+        }
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    /**
+     * Redis 读失败时获取本地的值，本地没有或已过期时抛出原来的异常
+     *
+     * @param key
+     * @param failure Redis 读失败的异常
+     * @return 本地的值
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getOrThrow(String key, DataAccessException failure) {
+        if (!enabled) {
+            throw failure;
+        }
+        Entry entry;
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            entry = segment.get(key);
+        }
+        if (entry == null || System.currentTimeMillis() - entry.savedAt > maxStalenessMillis) {
+            throw failure;
+        }
+        log.debug("Redis不可用，key: {} 返回本地降级数据, error: {}", key, failure.getMessage());
+        return (T) entry.value;
+    }
+
+    private Segment segmentFor(String key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    private static class Entry {
+
+        private final Object value;
+
+        private final long savedAt;
+
+        private Entry(Object value, long savedAt) {
+            this.value = value;
+            this.savedAt = savedAt;
+        }
+    }
+
+    private static class Segment extends LinkedHashMap<String, Entry> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+
+        private Segment(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    }
+}
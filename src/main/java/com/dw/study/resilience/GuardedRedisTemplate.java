@@ -0,0 +1,52 @@
+package com.dw.study.resilience;
+
+import com.dw.study.accounting.AccountingRedisTemplate;
+import com.dw.study.accounting.RedisRequestAccounting;
+import com.dw.study.accounting.RedisRequestStats;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.List;
+
+/**
+ * @Author dw
+ * @ClassName GuardedRedisTemplate
+ * @Description 所有访问 Redis 的入口都经过 {@link RedisGuard} 的 RedisTemplate：opsForXxx、Lua 脚本最终都调用
+ * execute(RedisCallback, boolean, boolean)，SessionCallback 和管道整体作为一次批量调用，内部的命令不再重复进入舱壁。
+ * 调用在 redis-guard 线程中执行，当前HTTP请求的Redis访问统计随调用一起传递
+ * @Date 2026/10/19 19:55
+ * @Version 1.0
+ */
+public class GuardedRedisTemplate extends AccountingRedisTemplate {
+
+    private final RedisGuard guard;
+
+    public GuardedRedisTemplate(RedisGuard guard) {
+        this.guard = guard;
+    }
+
+    @Override
+    public <T> T execute(RedisCallback<T> action, boolean exposeConnection, boolean pipeline) {
+        RedisRequestStats stats = RedisRequestAccounting.current();
+        return guard.execute(pipeline, () -> RedisRequestAccounting.callWith(stats, () -> super.execute(action, exposeConnection, pipeline)));
+    }
+
+    @Override
+    public <T> T execute(SessionCallback<T> session) {
+        RedisRequestStats stats = RedisRequestAccounting.current();
+        return guard.execute(true, () -> RedisRequestAccounting.callWith(stats, () -> super.execute(session)));
+    }
+
+    @Override
+    public List<Object> executePipelined(SessionCallback<?> session, RedisSerializer<?> resultSerializer) {
+        RedisRequestStats stats = RedisRequestAccounting.current();
+        return guard.execute(true, () -> RedisRequestAccounting.callWith(stats, () -> super.executePipelined(session, resultSerializer)));
+    }
+
+    @Override
+    public List<Object> executePipelined(RedisCallback<?> action, RedisSerializer<?> resultSerializer) {
+        RedisRequestStats stats = RedisRequestAccounting.current();
+        return guard.execute(true, () -> RedisRequestAccounting.callWith(stats, () -> super.executePipelined(action, resultSerializer)));
+    }
+}
@@ -0,0 +1,138 @@
+package com.dw.study.resilience;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @Author dw
+ * @ClassName RedisCircuitBreaker
+ * @Description 基于最近N次调用失败率的熔断器：CLOSED 正常放行；失败率达到阈值后 OPEN，所有调用直接失败；
+ * 熔断时间过后 HALF_OPEN，只放行少量试探调用，全部成功回到 CLOSED，任意一次失败重新 OPEN
+ * @Date 2026/10/19 19:45
+ * @Version 1.0
+ */
+public class RedisCircuitBreaker {
+
+    private final static Logger log = LoggerFactory.getLogger(RedisCircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final RedisResilienceProperties properties;
+
+    /**
+     * 最近 slidingWindowSize 次调用的结果，true 表示失败
+     */
+    private final boolean[] outcomes;
+
+    private int index;
+
+    private int calls;
+
+    private int failures;
+
+    private volatile State state = State.CLOSED;
+
+    private long openedAt;
+
+    private int halfOpenInFlight;
+
+    private int halfOpenSuccesses;
+
+    public RedisCircuitBreaker(RedisResilienceProperties properties) {
+        this.properties = properties;
+        this.outcomes = new boolean[Math.max(1, properties.getSlidingWindowSize())];
+    }
+
+    /**
+     * 调用前获取许可，获取到许可后必须调用 onSuccess、onFailure 或 releasePermission 之一
+     *
+     * @return false 表示熔断中，不能访问 Redis
+     */
+    public boolean tryAcquirePermission() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.OPEN) {
+                if (System.currentTimeMillis() - openedAt < properties.getOpenDuration().toMillis()) {
+                    return false;
+                }
+                transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (halfOpenInFlight >= properties.getHalfOpenCalls()) {
+                    return false;
+                }
+                halfOpenInFlight++;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 获取许可后没有实际访问 Redis（如舱壁已满）
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && halfOpenInFlight > 0) {
+            halfOpenInFlight--;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+            if (++halfOpenSuccesses >= properties.getHalfOpenCalls()) {
+                transitionTo(State.CLOSED);
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (calls >= properties.getMinimumCalls() && failures * 100 >= properties.getFailureRateThreshold() * calls) {
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (calls == outcomes.length) {
+            if (outcomes[index]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        outcomes[index] = failure;
+        if (failure) {
+            failures++;
+        }
+        index = (index + 1) % outcomes.length;
+    }
+
+    private void transitionTo(State next) {
+        if (next == State.OPEN) {
+            log.warn("Redis熔断器打开，最近{}次调用失败{}次，{}ms内的调用直接失败", calls, failures, properties.getOpenDuration().toMillis());
+            openedAt = System.currentTimeMillis();
+        } else if (next == State.CLOSED) {
+            log.warn("Redis熔断器关闭，恢复正常调用");
+        }
+        state = next;
+        index = 0;
+        calls = 0;
+        failures = 0;
+        halfOpenInFlight = 0;
+        halfOpenSuccesses = 0;
+    }
+}
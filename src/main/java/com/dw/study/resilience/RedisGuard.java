@@ -0,0 +1,196 @@
+package com.dw.study.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * @Author dw
+ * @ClassName RedisGuard
+ * @Description Redis 调用的容错层，由 {@link GuardedRedisTemplate} 在每次访问 Redis 时使用：
+ * 1. 熔断器打开时直接抛出 {@link RedisUnavailableException}；
+ * 2. 舱壁：同时进行中的调用数达到 max-concurrent-calls 时等待 bulkhead-wait，仍没有空位则拒绝；
+ * 3. 截止时间：调用在 redis-guard 线程中执行，调用方最多等待截止时间，超过后抛出 QueryTimeoutException，
+ * 不再受 spring.redis.timeout（5000ms）影响；超时的调用在返回前仍占用舱壁的位置，Redis 变慢时不会无限堆积。
+ * 超时和连接失败计入熔断器的失败率，命令本身的错误（如 WRONGTYPE）不计入
+ * @Date 2026/10/19 19:50
+ * @Version 1.0
+ */
+@Component
+public class RedisGuard implements DisposableBean {
+
+    private final RedisResilienceProperties properties;
+
+    private final RedisCircuitBreaker circuitBreaker;
+
+    private final Semaphore bulkhead;
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * 调用方通过 withDeadline 指定的截止时间
+     */
+    private final ThreadLocal<Duration> callDeadline = new ThreadLocal<>();
+
+    /**
+     * 当前线程是否正在执行受保护的调用（SessionCallback、管道内部的命令不再重复进入舱壁）
+     */
+    private final ThreadLocal<Boolean> insideCall = new ThreadLocal<>();
+
+    private final Counter circuitOpenRejected;
+
+    private final Counter bulkheadRejected;
+
+    private final Counter timeouts;
+
+    public RedisGuard(RedisResilienceProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.circuitBreaker = new RedisCircuitBreaker(properties);
+        this.bulkhead = new Semaphore(properties.getMaxConcurrentCalls());
+        AtomicInteger threadNumber = new AtomicInteger();
+        // 线程数与舱壁大小相同，获取到舱壁许可的调用总能立即得到线程
+        this.executor = new ThreadPoolExecutor(properties.getMaxConcurrentCalls(), properties.getMaxConcurrentCalls(),
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "redis-guard-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.circuitOpenRejected = Counter.builder("redis.guard.rejected").tag("reason", "circuit_open").register(meterRegistry);
+        this.bulkheadRejected = Counter.builder("redis.guard.rejected").tag("reason", "bulkhead_full").register(meterRegistry);
+        this.timeouts = Counter.builder("redis.guard.timeouts").register(meterRegistry);
+        Gauge.builder("redis.guard.in.flight", bulkhead, b -> properties.getMaxConcurrentCalls() - b.availablePermits())
+                .register(meterRegistry);
+        Gauge.builder("redis.guard.circuit.state", circuitBreaker, b -> b.getState().ordinal())
+                .description("0: CLOSED, 1: OPEN, 2: HALF_OPEN")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 在指定的截止时间下执行一组 Redis 调用，如：redisGuard.withDeadline(Duration.ofMillis(50), () -> redisUtils.get(key))
+     *
+     * @param deadline 每次调用的截止时间
+     * @param calls    Redis 调用
+     * @return 调用的结果
+     */
+    public <T> T withDeadline(Duration deadline, Supplier<T> calls) {
+        Duration previous = callDeadline.get();
+        callDeadline.set(deadline);
+        try {
+            return calls.get();
+        } finally {
+            if (previous == null) {
+                callDeadline.remove();
+            } else {
+                callDeadline.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 在熔断器、舱壁和截止时间的保护下执行一次 Redis 调用
+     *
+     * @param batch 是否是批量操作（使用 batch-deadline）
+     * @param call  Redis 调用
+     * @return 调用的结果
+     */
+    public <T> T execute(boolean batch, Supplier<T> call) {
+        if (!properties.isEnabled() || insideCall.get() != null) {
+            return call.get();
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            circuitOpenRejected.increment();
+            throw new RedisUnavailableException("Redis熔断中，调用被拒绝");
+        }
+        Duration deadline = currentDeadline(batch);
+        Future<T> future;
+        try {
+            if (!bulkhead.tryAcquire(properties.getBulkheadWait().toMillis(), TimeUnit.MILLISECONDS)) {
+                circuitBreaker.releasePermission();
+                bulkheadRejected.increment();
+                throw new RedisUnavailableException("进行中的Redis调用数已达到上限: " + properties.getMaxConcurrentCalls());
+            }
+            future = executor.submit(() -> {
+                insideCall.set(Boolean.TRUE);
+                try {
+                    return call.get();
+                } finally {
+                    insideCall.remove();
+                    bulkhead.release();
+                }
+            });
+        } catch (InterruptedException e) {
+            circuitBreaker.releasePermission();
+            Thread.currentThread().interrupt();
+            throw new RedisSystemException("等待Redis调用许可时线程被中断", e);
+        }
+        try {
+            T result = future.get(deadline.toMillis(), TimeUnit.MILLISECONDS);
+            circuitBreaker.onSuccess();
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeouts.increment();
+            circuitBreaker.onFailure();
+            throw new QueryTimeoutException("Redis调用超过截止时间: " + deadline.toMillis() + "ms");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof QueryTimeoutException || cause instanceof DataAccessResourceFailureException) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RedisSystemException(cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            circuitBreaker.releasePermission();
+            Thread.currentThread().interrupt();
+            throw new RedisSystemException("等待Redis调用结果时线程被中断", e);
+        }
+    }
+
+    /**
+     * 当前线程的调用截止时间：withDeadline 指定的值，未指定时为配置的截止时间
+     *
+     * @param batch 是否是批量操作（使用 batch-deadline）
+     * @return
+     */
+    public Duration currentDeadline(boolean batch) {
+        Duration deadline = callDeadline.get();
+        if (deadline == null) {
+            deadline = batch ? properties.getBatchDeadline() : properties.getDeadline();
+        }
+        return deadline;
+    }
+
+    public RedisCircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,90 @@
+package com.dw.study.resilience;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @Author dw
+ * @ClassName RedisResilienceProperties
+ * @Description RedisUtils 的容错配置，对应 application.yml 中的 redis.resilience：
+ * 每次调用的截止时间、同时进行中的调用数上限（舱壁）、熔断器以及熔断期间的本地降级读缓存
+ * @Date 2026/10/19 19:40
+ * @Version 1.0
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.resilience")
+public class RedisResilienceProperties {
+
+    /**
+     * 是否开启，关闭后 RedisUtils 直接使用普通的 RedisTemplate，只受 spring.redis.timeout 限制。
+     * 默认关闭：开启后每个命令都切换到 redis-guard 线程执行，并发调用数超过 max-concurrent-calls 时在舱壁排队，
+     * 开启前按调用 RedisUtils 的线程数（如 async-handler.max-pool-size）调整 max-concurrent-calls
+     */
+    private boolean enabled = false;
+
+    /**
+     * 单个命令的截止时间，超过后调用方立即得到 QueryTimeoutException
+     */
+    private Duration deadline = Duration.ofMillis(1000);
+
+    /**
+     * 管道、SessionCallback 等批量操作的截止时间
+     */
+    private Duration batchDeadline = Duration.ofMillis(3000);
+
+    /**
+     * 同时进行中的 Redis 调用数上限（包括已超过截止时间、仍在等待 Redis 返回的调用）
+     */
+    private int maxConcurrentCalls = 64;
+
+    /**
+     * 达到上限时等待空位的时间，超过后拒绝调用
+     */
+    private Duration bulkheadWait = Duration.ofMillis(20);
+
+    /**
+     * 最近 sliding-window-size 次调用中失败（超时、连接失败）的百分比达到该值时熔断
+     */
+    private int failureRateThreshold = 50;
+
+    private int slidingWindowSize = 50;
+
+    /**
+     * 窗口内至少有这么多次调用才计算失败率
+     */
+    private int minimumCalls = 20;
+
+    /**
+     * 熔断持续时间，之后进入半开状态放行 half-open-calls 次试探调用，全部成功则恢复，任意一次失败则重新熔断
+     */
+    private Duration openDuration = Duration.ofSeconds(10);
+
+    private int halfOpenCalls = 5;
+
+    /**
+     * 本地降级读缓存
+     */
+    private Degraded degraded = new Degraded();
+
+    @Data
+    public static class Degraded {
+
+        /**
+         * 是否开启：开启后 RedisUtils 的 get、multiGet、hashGetAll 在本地保存最近读到的值，
+         * Redis 不可用（熔断、超时、连接失败）时返回本地的值
+         */
+        private boolean enabled = false;
+
+        /**
+         * 本地最多保存的key数
+         */
+        private int maxEntries = 10000;
+
+        /**
+         * 本地值的最长保存时间，超过后不再用于降级
+         */
+        private Duration maxStaleness = Duration.ofMinutes(5);
+    }
+}
@@ -0,0 +1,19 @@
+package com.dw.study.resilience;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+
+/**
+ * @Author dw
+ * @ClassName RedisUnavailableException
+ * @Description 熔断中或并发调用数已满时 RedisGuard 直接拒绝调用，不会访问 Redis
+ * @Date 2026/10/19 19:42
+ * @Version 1.0
+ */
+public class RedisUnavailableException extends DataAccessResourceFailureException {
+
+    private static final long serialVersionUID = 1L;
+
+    public RedisUnavailableException(String msg) {
+        super(msg);
+    }
+}
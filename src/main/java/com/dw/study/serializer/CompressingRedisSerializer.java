@@ -0,0 +1,42 @@
+package com.dw.study.serializer;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * @Author dw
+ * @ClassName CompressingRedisSerializer
+ * @Description 在其他序列化方式外层压缩的 RedisSerializer：序列化后超过阈值的值由 {@link ValueCompressor} 压缩，
+ * 读取时先按头字节解压再反序列化，因此压缩前写入的值、阈值以下的值都能正常读取
+ * @Date 2026/10/19 21:10
+ * @Version 1.0
+ */
+public class CompressingRedisSerializer<T> implements RedisSerializer<T> {
+
+    private final RedisSerializer<T> delegate;
+
+    private final ValueCompressor compressor;
+
+    private final int threshold;
+
+    /**
+     * @param delegate   实际的序列化方式
+     * @param compressor 压缩器
+     * @param threshold  压缩阈值（字节），小于等于0只解压不压缩
+     */
+    public CompressingRedisSerializer(RedisSerializer<T> delegate, ValueCompressor compressor, int threshold) {
+        this.delegate = delegate;
+        this.compressor = compressor;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public byte[] serialize(T value) throws SerializationException {
+        return compressor.compress(delegate.serialize(value), threshold);
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) throws SerializationException {
+        return delegate.deserialize(compressor.decompress(bytes));
+    }
+}
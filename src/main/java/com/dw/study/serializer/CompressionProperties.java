@@ -0,0 +1,27 @@
+package com.dw.study.serializer;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @Author dw
+ * @ClassName CompressionProperties
+ * @Description RedisTemplate 值压缩配置，对应 application.yml 中的 redis.compression；
+ * SpringCache 的压缩阈值按缓存配置在 redis.cache 的 compress-threshold 中
+ * @Date 2026/10/19 21:00
+ * @Version 1.0
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.compression")
+public class CompressionProperties {
+
+    /**
+     * 是否压缩 RedisTemplate 写入的值，关闭后仍然可以读取已压缩的值
+     */
+    private boolean enabled = true;
+
+    /**
+     * 序列化后超过该字节数的值进行压缩
+     */
+    private int threshold = 4096;
+}
@@ -0,0 +1,129 @@
+package com.dw.study.serializer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.iq80.snappy.CorruptionException;
+import org.iq80.snappy.Snappy;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * @Author dw
+ * @ClassName ValueCompressor
+ * @Description 值压缩：超过阈值的值用 Snappy 压缩，压缩后的值以头字节 0x01 开头，压缩后没有变小的值保持原样；
+ * 读取时按头字节判断，未压缩的值（JSON、JDK序列化的数据都不会以 0x01 开头）和旧版本 gzip 压缩的值都能正常读取。
+ * 监控指标（tag source 区分 RedisTemplate 和 SpringCache）：
+ * redis.compression.raw.bytes / redis.compression.compressed.bytes 压缩前后的字节数，
+ * redis.compression.ratio 每个值压缩后/压缩前的百分比，redis.compression.time 压缩、解压耗时（tag operation）
+ * @Date 2026/10/19 21:05
+ * @Version 1.0
+ */
+public class ValueCompressor {
+
+    /**
+     * Snappy 压缩的值的头字节
+     */
+    static final byte SNAPPY = 0x01;
+
+    private final Counter rawBytes;
+
+    private final Counter compressedBytes;
+
+    private final DistributionSummary ratio;
+
+    private final Timer compressTime;
+
+    private final Timer decompressTime;
+
+    public ValueCompressor(String source, MeterRegistry meterRegistry) {
+        this.rawBytes = Counter.builder("redis.compression.raw.bytes").tag("source", source).register(meterRegistry);
+        this.compressedBytes = Counter.builder("redis.compression.compressed.bytes").tag("source", source).register(meterRegistry);
+        this.ratio = DistributionSummary.builder("redis.compression.ratio").baseUnit("percent").tag("source", source)
+                .register(meterRegistry);
+        this.compressTime = Timer.builder("redis.compression.time").tag("source", source).tag("operation", "compress")
+                .register(meterRegistry);
+        this.decompressTime = Timer.builder("redis.compression.time").tag("source", source).tag("operation", "decompress")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 超过阈值时压缩
+     *
+     * @param value     序列化后的值
+     * @param threshold 压缩阈值（字节），小于等于0不压缩
+     * @return 压缩后带头字节的值，或原值
+     */
+    public byte[] compress(byte[] value, int threshold) {
+        if (value == null || threshold <= 0 || value.length < threshold) {
+            return value;
+        }
+        long start = System.nanoTime();
+        byte[] output = new byte[1 + Snappy.maxCompressedLength(value.length)];
+        output[0] = SNAPPY;
+        int length = 1 + Snappy.compress(value, 0, value.length, output, 1);
+        compressTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        rawBytes.increment(value.length);
+        ratio.record(length * 100.0 / value.length);
+        if (length >= value.length) {
+            // 压缩后没有变小（如已经压缩过的图片），保存原值
+            compressedBytes.increment(value.length);
+            return value;
+        }
+        compressedBytes.increment(length);
+        return Arrays.copyOf(output, length);
+    }
+
+    /**
+     * 按头字节解压，未压缩的值原样返回
+     *
+     * @param value Redis中保存的值
+     * @return 压缩前的值
+     */
+    public byte[] decompress(byte[] value) {
+        if (value == null || value.length == 0) {
+            return value;
+        }
+        if (value[0] == SNAPPY) {
+            long start = System.nanoTime();
+            try {
+                return Snappy.uncompress(value, 1, value.length - 1);
+            } catch (CorruptionException e) {
+                throw new SerializationException("Snappy解压失败", e);
+            } finally {
+                decompressTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (value.length >= 2 && value[0] == (byte) 0x1f && value[1] == (byte) 0x8b) {
+            return gunzip(value);
+        }
+        return value;
+    }
+
+    /**
+     * 兼容之前 PolicyAwareRedisCacheWriter 用 gzip 压缩写入的缓存
+     */
+    private byte[] gunzip(byte[] value) {
+        long start = System.nanoTime();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(value.length * 4);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(value))) {
+            byte[] buffer = new byte[4096];
+            int len;
+            while ((len = gzip.read(buffer)) > 0) {
+                out.write(buffer, 0, len);
+            }
+        } catch (IOException e) {
+            throw new SerializationException("gzip解压失败", e);
+        } finally {
+            decompressTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return out.toByteArray();
+    }
+}
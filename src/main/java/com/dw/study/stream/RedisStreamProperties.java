@@ -0,0 +1,63 @@
+package com.dw.study.stream;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @Author dw
+ * @ClassName RedisStreamProperties
+ * @Description {@link RedisStreams} 配置，对应 application.yml 中的 redis.stream
+ * @Date 2026/10/19 17:40
+ * @Version 1.0
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.stream")
+public class RedisStreamProperties {
+
+    /**
+     * 每个事件流的分区数（生产者和消费者必须一致），每个分区一个 stream key，由一个消费线程按顺序处理
+     */
+    private int partitions = 4;
+
+    /**
+     * 每次 XREADGROUP 最多读取的消息数
+     */
+    private int batchSize = 100;
+
+    /**
+     * 没有新消息时 XREADGROUP 阻塞等待的时间
+     */
+    private Duration blockTimeout = Duration.ofSeconds(2);
+
+    /**
+     * 每个分区保留的大约消息数（XTRIM MAXLEN ~），0表示不裁剪
+     */
+    private long maxLength = 100000;
+
+    /**
+     * 每个分区每发布多少条消息裁剪一次，裁剪命令与 XADD 在同一次管道往返中发送
+     */
+    private int trimEvery = 100;
+
+    /**
+     * 消息投递后超过该时间未确认（消费者崩溃或处理失败），由其他消费者 XCLAIM 接管重新处理
+     */
+    private Duration pendingIdleTimeout = Duration.ofSeconds(60);
+
+    /**
+     * 检查待确认消息的间隔
+     */
+    private Duration recoveryInterval = Duration.ofSeconds(30);
+
+    /**
+     * 最大投递次数，超过后消息转入死信流 stream:事件流名:dead 并确认；处理失败的一批消息在当前线程最多处理这么多次
+     */
+    private long maxDeliveries = 5;
+
+    /**
+     * 一批消息处理失败后第一次重试前的等待时间，之后每次加倍（不超过 pending-idle-timeout），重试期间分区不读取新消息
+     */
+    private Duration retryBackoff = Duration.ofSeconds(1);
+}
@@ -0,0 +1,479 @@
+package com.dw.study.stream;
+
+import com.dw.study.config.RedisClientProperties;
+import com.dw.study.config.RedisConnectionFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.PendingMessagesSummary;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.connection.stream.StringRecord;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Author dw
+ * @ClassName RedisStreams
+ * @Description 基于 Redis Stream 消费者组的事件流：可回放，每个消费者组都收到全部事件（扇出）。
+ * 一个事件流按分区拆成多个 stream key（stream:事件流名:分区号），同一个分区键的事件进入同一分区、按顺序处理：
+ * 一批消息处理失败时在当前线程退避后重试同一批，成功或转入死信流之前不读取下一批；
+ * 顺序只在一个分区由一个消费者处理时成立，多个实例订阅同一个消费者组、或消费者崩溃后由其他消费者接管的消息，可能晚于后面的消息处理。
+ * 不同分区由不同线程并行处理（集群模式下分布在不同slot）。
+ * 消费者每次 XREADGROUP 读取一批消息，上一批的 XACK 与下一批的读取合并在一次管道往返中；
+ * 超时未确认的消息定期通过 XPENDING + XCLAIM 接管，超过最大投递次数转入死信流。
+ * Redisson 3.10 的 spring-data 连接没有实现 Stream 命令，redis.client.type 为 redisson 时事件流使用单独的 Lettuce 共享连接
+ * @Date 2026/10/19 17:40
+ * @Version 1.0
+ */
+@Component
+public class RedisStreams implements DisposableBean {
+
+    private final static Logger log = LoggerFactory.getLogger(RedisStreams.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RedisStreamProperties properties;
+
+    /**
+     * redisson 模式下事件流单独使用的 Lettuce 连接工厂，其他模式下为null
+     */
+    private final LettuceConnectionFactory streamConnectionFactory;
+
+    /**
+     * 消费者名前缀，pid@hostname
+     */
+    private final String instanceId = ManagementFactory.getRuntimeMXBean().getName();
+
+    private final Map<String, AtomicLong> publishCounters = new ConcurrentHashMap<>();
+
+    private final Map<String, StreamSubscription> subscriptions = new ConcurrentHashMap<>();
+
+    public RedisStreams(StringRedisTemplate stringRedisTemplate, RedisStreamProperties properties,
+                        RedisClientProperties clientProperties, RedisProperties redisProperties) {
+        this.properties = properties;
+        if (clientProperties.getType() == RedisClientProperties.ClientType.REDISSON) {
+            streamConnectionFactory = new RedisConnectionFactoryBuilder(redisProperties).lettuce(false);
+            streamConnectionFactory.afterPropertiesSet();
+            this.stringRedisTemplate = new StringRedisTemplate(streamConnectionFactory);
+        } else {
+            streamConnectionFactory = null;
+            this.stringRedisTemplate = stringRedisTemplate;
+        }
+    }
+
+    /**
+     * 发布事件
+     *
+     * @param stream       事件流名
+     * @param partitionKey 分区键（如用户ID），相同分区键的事件按发布顺序消费；null表示随机分区
+     * @param fields       事件内容
+     * @return 消息ID，失败返回null
+     */
+    public String publish(String stream, String partitionKey, Map<String, String> fields) {
+        List<String> ids = publishAll(stream, partitionKey, Collections.singletonList(fields));
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    /**
+     * 批量发布同一分区的事件（一次管道往返）
+     *
+     * @param stream       事件流名
+     * @param partitionKey 分区键，null表示随机分区
+     * @param events       事件内容
+     * @return 消息ID，失败返回空集合
+     */
+    public List<String> publishAll(String stream, String partitionKey, List<Map<String, String>> events) {
+        if (events == null || events.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String key = streamKey(stream, partition(partitionKey));
+        try {
+            boolean trim = shouldTrim(key, events.size());
+            if (events.size() == 1 && !trim) {
+                // 单条发布直接走共享连接；管道在非连接池的 Lettuce 下每次都要新建专用连接
+                RecordId id = stringRedisTemplate.opsForStream().add(StreamRecords.string(events.get(0)).withStreamKey(key));
+                return id == null ? Collections.emptyList() : Collections.singletonList(id.getValue());
+            }
+            List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (Map<String, String> fields : events) {
+                    stringConnection.xAdd(StreamRecords.string(fields).withStreamKey(key));
+                }
+                if (trim) {
+                    stringConnection.xTrim(key, properties.getMaxLength(), true);
+                }
+                return null;
+            });
+            List<String> ids = new ArrayList<>(events.size());
+            for (Object result : results.subList(0, events.size())) {
+                ids.add(result instanceof RecordId ? ((RecordId) result).getValue() : String.valueOf(result));
+            }
+            return ids;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 事件流中保留的消息数（所有分区之和）
+     *
+     * @param stream 事件流名
+     * @return
+     */
+    public long size(String stream) {
+        long size = 0;
+        for (int partition = 0; partition < properties.getPartitions(); partition++) {
+            Long length = stringRedisTemplate.opsForStream().size(streamKey(stream, partition));
+            size += length == null ? 0 : length;
+        }
+        return size;
+    }
+
+    /**
+     * 消费者组已投递未确认的消息数（所有分区之和）
+     *
+     * @param stream 事件流名
+     * @param group  消费者组
+     * @return
+     */
+    public long pendingCount(String stream, String group) {
+        long pending = 0;
+        for (int partition = 0; partition < properties.getPartitions(); partition++) {
+            try {
+                PendingMessagesSummary summary = stringRedisTemplate.opsForStream().pending(streamKey(stream, partition), group);
+                pending += summary == null ? 0 : summary.getTotalPendingMessages();
+            } catch (Exception e) {
+                // 分区或消费者组不存在
+                log.debug(e.getMessage());
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * 以消费者组订阅事件流，每个分区一个消费线程；消费者组不存在时自动创建（只消费创建之后的事件）
+     *
+     * @param stream  事件流名
+     * @param group   消费者组
+     * @param handler 消费逻辑
+     * @return
+     */
+    public synchronized StreamSubscription subscribe(String stream, String group, StreamBatchHandler handler) {
+        String name = stream + "/" + group;
+        if (subscriptions.containsKey(name)) {
+            throw new IllegalStateException("事件流 " + stream + " 的消费者组 " + group + " 已经订阅");
+        }
+        StreamSubscription subscription = new StreamSubscription(stream, group, handler);
+        subscriptions.put(name, subscription);
+        subscription.start();
+        return subscription;
+    }
+
+    @Override
+    public void destroy() {
+        for (StreamSubscription subscription : new ArrayList<>(subscriptions.values())) {
+            subscription.stop();
+        }
+        if (streamConnectionFactory != null) {
+            streamConnectionFactory.destroy();
+        }
+    }
+
+    public static String streamKey(String stream, int partition) {
+        return "stream:" + stream + ":" + partition;
+    }
+
+    public static String deadLetterKey(String stream) {
+        return "stream:" + stream + ":dead";
+    }
+
+    private int partition(String partitionKey) {
+        int partitions = Math.max(1, properties.getPartitions());
+        return partitionKey == null ? ThreadLocalRandom.current().nextInt(partitions) : Math.floorMod(partitionKey.hashCode(), partitions);
+    }
+
+    /**
+     * XADD MAXLEN 在 spring-data-redis 2.4 中只支持精确裁剪（每次都要移动数据），这里每发布 trimEvery 条消息附带一次 XTRIM MAXLEN ~
+     */
+    private boolean shouldTrim(String key, int published) {
+        if (properties.getMaxLength() <= 0) {
+            return false;
+        }
+        int trimEvery = Math.max(1, properties.getTrimEvery());
+        long total = publishCounters.computeIfAbsent(key, k -> new AtomicLong()).addAndGet(published);
+        return total / trimEvery != (total - published) / trimEvery;
+    }
+
+    /**
+     * 一个消费者组对一个事件流的订阅
+     */
+    public final class StreamSubscription {
+
+        private final String stream;
+
+        private final String group;
+
+        private final StreamBatchHandler handler;
+
+        private final ExecutorService executor;
+
+        private volatile boolean running = true;
+
+        private StreamSubscription(String stream, String group, StreamBatchHandler handler) {
+            this.stream = stream;
+            this.group = group;
+            this.handler = handler;
+            AtomicInteger index = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(Math.max(1, properties.getPartitions()), r -> {
+                Thread thread = new Thread(r, "redis-stream-" + stream + "-" + group + "-" + index.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        private void start() {
+            for (int partition = 0; partition < Math.max(1, properties.getPartitions()); partition++) {
+                int current = partition;
+                executor.execute(() -> run(current));
+            }
+            log.info("事件流{}的消费者组{}启动{}个分区消费线程", stream, group, properties.getPartitions());
+        }
+
+        /**
+         * 停止消费：当前批次处理并确认后退出，最多等待一个阻塞超时
+         */
+        public void stop() {
+            running = false;
+            executor.shutdown();
+            try {
+                executor.awaitTermination(properties.getBlockTimeout().toMillis() + 5000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            subscriptions.remove(stream + "/" + group, this);
+        }
+
+        public boolean isRunning() {
+            return running;
+        }
+
+        private void run(int partition) {
+            Consumer consumer = Consumer.from(group, instanceId + "-" + partition);
+            while (running) {
+                try {
+                    // 整个消费循环占用同一个连接，阻塞读取不会反复新建连接
+                    stringRedisTemplate.execute((RedisCallback<Void>) connection -> {
+                        consume((StringRedisConnection) connection, partition, consumer);
+                        return null;
+                    });
+                } catch (Exception e) {
+                    if (!running) {
+                        break;
+                    }
+                    log.error("事件流{}分区{}消费异常: {}", stream, partition, e.getMessage());
+                    try {
+                        Thread.sleep(1000);
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void consume(StringRedisConnection connection, int partition, Consumer consumer) {
+            String key = streamKey(stream, partition);
+            createGroup(connection, key);
+            StreamOffset<String> offset = StreamOffset.create(key, ReadOffset.lastConsumed());
+            StreamReadOptions batch = StreamReadOptions.empty().count(properties.getBatchSize());
+            StreamReadOptions blocking = batch.block(properties.getBlockTimeout());
+            List<RecordId> toAck = Collections.emptyList();
+            long nextRecovery = 0;
+            try {
+                while (running) {
+                    if (System.currentTimeMillis() >= nextRecovery) {
+                        recover(connection, key, partition, consumer);
+                        nextRecovery = System.currentTimeMillis() + properties.getRecoveryInterval().toMillis();
+                    }
+                    List<StringRecord> records = Collections.emptyList();
+                    if (!toAck.isEmpty()) {
+                        // 上一批的确认与下一批的非阻塞读取合并为一次管道往返
+                        connection.openPipeline();
+                        connection.xAck(key, group, toAck.toArray(new RecordId[0]));
+                        connection.xReadGroupAsString(consumer, batch, offset);
+                        List<Object> results = connection.closePipeline();
+                        toAck = Collections.emptyList();
+                        records = toStringRecords(results.get(results.size() - 1));
+                    }
+                    if (records.isEmpty()) {
+                        records = toStringRecords(connection.xReadGroupAsString(consumer, blocking, offset));
+                    }
+                    toAck = handle(connection, key, partition, records);
+                }
+            } finally {
+                if (!toAck.isEmpty()) {
+                    connection.xAck(key, group, toAck.toArray(new RecordId[0]));
+                }
+            }
+        }
+
+        /**
+         * 处理一批消息：失败时退避后重试同一批，最多处理 max-deliveries 次，仍然失败时转入死信流；
+         * 重试期间不读取下一批，同一分区后面的消息不会先于失败的消息处理
+         *
+         * @return 需要确认的消息ID，停止消费时为空（保持待确认，超时后由其他消费者接管）
+         */
+        private List<RecordId> handle(StringRedisConnection connection, String key, int partition, List<StringRecord> records) {
+            if (records.isEmpty()) {
+                return Collections.emptyList();
+            }
+            long backoff = properties.getRetryBackoff().toMillis();
+            for (long attempt = 1; ; attempt++) {
+                try {
+                    handler.handle(stream, partition, records);
+                    break;
+                } catch (Exception e) {
+                    if (attempt >= properties.getMaxDeliveries()) {
+                        log.error("事件流{}分区{}的{}条消息处理{}次仍然失败，转入死信流: {}", stream, partition, records.size(), attempt, e.getMessage());
+                        writeDeadLetters(connection, key, records);
+                        break;
+                    }
+                    log.error("事件流{}分区{}消费失败，{}ms后第{}次重试{}条消息: {}", stream, partition, backoff, attempt + 1, records.size(), e.getMessage());
+                    if (!sleep(backoff)) {
+                        return Collections.emptyList();
+                    }
+                    backoff = Math.min(backoff * 2, properties.getPendingIdleTimeout().toMillis());
+                }
+            }
+            List<RecordId> ids = new ArrayList<>(records.size());
+            for (StringRecord record : records) {
+                ids.add(record.getId());
+            }
+            return ids;
+        }
+
+        /**
+         * 重试前等待，停止消费或线程被中断时返回false
+         */
+        private boolean sleep(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            return running;
+        }
+
+        /**
+         * 接管超时未确认的消息（Redis 6.2 的 XAUTOCLAIM 在 spring-data-redis 2.4 中没有，用 XPENDING + XCLAIM 实现），
+         * 超过最大投递次数的消息转入死信流
+         */
+        private void recover(StringRedisConnection connection, String key, int partition, Consumer consumer) {
+            PendingMessages pending = connection.xPending(key, group, Range.unbounded(), (long) properties.getBatchSize());
+            if (pending == null || pending.isEmpty()) {
+                return;
+            }
+            List<RecordId> retry = new ArrayList<>();
+            List<RecordId> dead = new ArrayList<>();
+            for (PendingMessage message : pending) {
+                if (message.getElapsedTimeSinceLastDelivery().compareTo(properties.getPendingIdleTimeout()) < 0) {
+                    continue;
+                }
+                (message.getTotalDeliveryCount() >= properties.getMaxDeliveries() ? dead : retry).add(message.getId());
+            }
+            if (!dead.isEmpty()) {
+                deadLetter(connection, key, consumer, dead);
+            }
+            if (!retry.isEmpty()) {
+                List<StringRecord> claimed = connection.xClaim(key, group, consumer.getName(),
+                        RedisStreamCommands.XClaimOptions.minIdle(properties.getPendingIdleTimeout()).ids(retry));
+                log.warn("事件流{}分区{}接管{}条超时未确认的消息", stream, partition, claimed.size());
+                List<RecordId> ids = handle(connection, key, partition, claimed);
+                if (!ids.isEmpty()) {
+                    connection.xAck(key, group, ids.toArray(new RecordId[0]));
+                }
+            }
+        }
+
+        private void deadLetter(StringRedisConnection connection, String key, Consumer consumer, List<RecordId> ids) {
+            List<StringRecord> claimed = connection.xClaim(key, group, consumer.getName(),
+                    RedisStreamCommands.XClaimOptions.minIdle(properties.getPendingIdleTimeout()).ids(ids));
+            writeDeadLetters(connection, key, claimed);
+            connection.xAck(key, group, ids.toArray(new RecordId[0]));
+            log.error("事件流{}有{}条消息超过最大投递次数，已转入死信流{}", stream, claimed.size(), deadLetterKey(stream));
+        }
+
+        /**
+         * 把消息写入死信流（一次管道往返），由调用方确认原消息
+         */
+        private void writeDeadLetters(StringRedisConnection connection, String key, List<StringRecord> records) {
+            String deadKey = deadLetterKey(stream);
+            connection.openPipeline();
+            for (StringRecord record : records) {
+                Map<String, String> fields = new LinkedHashMap<>(record.getValue());
+                fields.put("dead-letter-source", key + "/" + group + "/" + record.getId().getValue());
+                connection.xAdd(StreamRecords.string(fields).withStreamKey(deadKey));
+            }
+            connection.closePipeline();
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<StringRecord> toStringRecords(Object result) {
+            if (!(result instanceof List) || ((List<?>) result).isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<StringRecord> records = new ArrayList<>();
+            for (Object record : (List<Object>) result) {
+                if (record instanceof StringRecord) {
+                    records.add((StringRecord) record);
+                } else if (record instanceof ByteRecord) {
+                    records.add(StringRecord.of(((ByteRecord) record).deserialize(RedisSerializer.string())));
+                }
+            }
+            return records;
+        }
+
+        private void createGroup(StringRedisConnection connection, String key) {
+            try {
+                connection.xGroupCreate(key, ReadOffset.latest(), group, true);
+            } catch (Exception e) {
+                String message = String.valueOf(NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                if (!message.contains("BUSYGROUP")) {
+                    throw e;
+                }
+            }
+        }
+    }
+}
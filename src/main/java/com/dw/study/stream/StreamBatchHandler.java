@@ -0,0 +1,27 @@
+package com.dw.study.stream;
+
+import org.springframework.data.redis.connection.stream.StringRecord;
+
+import java.util.List;
+
+/**
+ * @Author dw
+ * @ClassName StreamBatchHandler
+ * @Description 事件流消费逻辑，同一分区的消息按顺序串行处理。正常返回后整批确认；
+ * 抛出异常时退避后重试同一批（至少一次，需要保证幂等），达到 maxDeliveries 次后整批转入死信流，之后才处理这个分区后面的消息
+ * @Date 2026/10/19 17:40
+ * @Version 1.0
+ */
+@FunctionalInterface
+public interface StreamBatchHandler {
+
+    /**
+     * 处理一个分区的一批消息
+     *
+     * @param stream    事件流名
+     * @param partition 分区号
+     * @param records   消息，按ID递增
+     * @throws Exception
+     */
+    void handle(String stream, int partition, List<StringRecord> records) throws Exception;
+}
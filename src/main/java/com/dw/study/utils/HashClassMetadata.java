@@ -0,0 +1,238 @@
+package com.dw.study.utils;
+
+import com.alibaba.fastjson.JSON;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Author dw
+ * @ClassName HashClassMetadata
+ * @Description RedisHashMapper 使用的类元数据：每个类只解析一次，保存无参构造器、每个属性的 getter/setter（MethodHandle）、
+ * hash field 名的字节和编解码方式。字符串、数字、布尔、字符、枚举、Date 按文本保存（数字可以直接 HINCRBY），
+ * 其他类型按 FastJson 保存；只有同时有 getter 和 setter、且不是 transient 的属性才会映射
+ * @Date 2026/10/19 20:30
+ * @Version 1.0
+ */
+class HashClassMetadata {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final Class<?> type;
+
+    private final MethodHandle constructor;
+
+    private final Map<String, Property> properties;
+
+    HashClassMetadata(Class<?> type) {
+        this.type = type;
+        try {
+            this.constructor = LOOKUP.findConstructor(type, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException(type.getName() + " 需要public无参构造器", e);
+        }
+        Map<String, Property> properties = new LinkedHashMap<>();
+        try {
+            BeanInfo beanInfo = Introspector.getBeanInfo(type, Object.class);
+            for (PropertyDescriptor descriptor : beanInfo.getPropertyDescriptors()) {
+                if (descriptor.getReadMethod() == null || descriptor.getWriteMethod() == null || isTransient(descriptor.getName())) {
+                    continue;
+                }
+                properties.put(descriptor.getName(), new Property(descriptor));
+            }
+        } catch (IntrospectionException | IllegalAccessException e) {
+            throw new IllegalArgumentException("解析 " + type.getName() + " 的属性失败", e);
+        }
+        if (properties.isEmpty()) {
+            throw new IllegalArgumentException(type.getName() + " 没有可映射的属性");
+        }
+        this.properties = Collections.unmodifiableMap(properties);
+    }
+
+    Object newInstance() {
+        try {
+            return constructor.invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("创建 " + type.getName() + " 失败", e);
+        }
+    }
+
+    Iterable<Property> properties() {
+        return properties.values();
+    }
+
+    Property property(String name) {
+        Property property = properties.get(name);
+        if (property == null) {
+            throw new IllegalArgumentException(type.getName() + " 没有可映射的属性: " + name);
+        }
+        return property;
+    }
+
+    /**
+     * 按属性名查找，hash 中存在类里没有的field时返回null
+     */
+    Property findProperty(String name) {
+        return properties.get(name);
+    }
+
+    List<Property> properties(String... names) {
+        List<Property> selected = new ArrayList<>(names.length);
+        for (String name : names) {
+            selected.add(property(name));
+        }
+        return selected;
+    }
+
+    private boolean isTransient(String name) {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            try {
+                Field field = c.getDeclaredField(name);
+                return Modifier.isTransient(field.getModifiers());
+            } catch (NoSuchFieldException e) {
+                // 继续查找父类
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 单个属性的访问器和编解码
+     */
+    static class Property {
+
+        private final String name;
+
+        private final byte[] rawName;
+
+        private final Class<?> type;
+
+        private final Type genericType;
+
+        private final MethodHandle getter;
+
+        private final MethodHandle setter;
+
+        private final boolean text;
+
+        private Property(PropertyDescriptor descriptor) throws IllegalAccessException {
+            this.name = descriptor.getName();
+            this.rawName = name.getBytes(StandardCharsets.UTF_8);
+            this.type = descriptor.getPropertyType();
+            this.genericType = descriptor.getReadMethod().getGenericReturnType();
+            this.getter = LOOKUP.unreflect(descriptor.getReadMethod())
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            this.setter = LOOKUP.unreflect(descriptor.getWriteMethod())
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+            this.text = type.isPrimitive() || type == String.class || Number.class.isAssignableFrom(type)
+                    || type == Boolean.class || type == Character.class || type.isEnum() || type == Date.class;
+        }
+
+        String name() {
+            return name;
+        }
+
+        byte[] rawName() {
+            return rawName;
+        }
+
+        boolean isIntegral() {
+            return type == int.class || type == long.class || type == short.class || type == byte.class
+                    || type == Integer.class || type == Long.class || type == Short.class || type == Byte.class;
+        }
+
+        Object get(Object target) {
+            try {
+                return getter.invoke(target);
+            } catch (Throwable e) {
+                throw new IllegalStateException("读取属性 " + name + " 失败", e);
+            }
+        }
+
+        void set(Object target, Object value) {
+            if (value == null && type.isPrimitive()) {
+                return;
+            }
+            try {
+                setter.invoke(target, value);
+            } catch (Throwable e) {
+                throw new IllegalStateException("设置属性 " + name + " 失败", e);
+            }
+        }
+
+        byte[] encode(Object value) {
+            if (!text) {
+                return JSON.toJSONBytes(value);
+            }
+            String string;
+            if (value instanceof Enum) {
+                string = ((Enum<?>) value).name();
+            } else if (value instanceof Date) {
+                string = String.valueOf(((Date) value).getTime());
+            } else if (value instanceof BigDecimal) {
+                string = ((BigDecimal) value).toPlainString();
+            } else {
+                string = String.valueOf(value);
+            }
+            return string.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Object decode(byte[] raw) {
+            if (raw == null) {
+                return null;
+            }
+            if (!text) {
+                return JSON.parseObject(raw, genericType);
+            }
+            String value = new String(raw, StandardCharsets.UTF_8);
+            if (type == String.class) {
+                return value;
+            } else if (type == int.class || type == Integer.class) {
+                return Integer.valueOf(value);
+            } else if (type == long.class || type == Long.class) {
+                return Long.valueOf(value);
+            } else if (type == double.class || type == Double.class) {
+                return Double.valueOf(value);
+            } else if (type == float.class || type == Float.class) {
+                return Float.valueOf(value);
+            } else if (type == boolean.class || type == Boolean.class) {
+                return Boolean.valueOf(value);
+            } else if (type == short.class || type == Short.class) {
+                return Short.valueOf(value);
+            } else if (type == byte.class || type == Byte.class) {
+                return Byte.valueOf(value);
+            } else if (type == char.class || type == Character.class) {
+                return value.isEmpty() ? null : value.charAt(0);
+            } else if (type == BigDecimal.class) {
+                return new BigDecimal(value);
+            } else if (type == BigInteger.class) {
+                return new BigInteger(value);
+            } else if (type.isEnum()) {
+                return Enum.valueOf((Class<Enum>) type, value);
+            } else if (type == Date.class) {
+                return new Date(Long.parseLong(value));
+            }
+            // 其他 Number 子类（如 AtomicLong）按 JSON 解析
+            return JSON.parseObject(value, genericType);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.dw.study.utils;
+
+/**
+ * @Author dw
+ * @ClassName ReadPolicy
+ * @Description 读操作的节点选择策略（能接受的数据延迟程度）
+ * @Date 2026/10/19 13:10
+ * @Version 1.0
+ */
+public enum ReadPolicy {
+    /**
+     * 只读主节点，读到的一定是最新数据
+     */
+    MASTER_ONLY,
+    /**
+     * 优先读从节点，没有可用从节点时读主节点，可能读到略旧的数据
+     */
+    REPLICA_PREFERRED,
+    /**
+     * 读延迟最低的节点（主从都可能），可能读到略旧的数据
+     */
+    NEAREST
+}
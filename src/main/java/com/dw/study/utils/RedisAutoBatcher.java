@@ -0,0 +1,408 @@
+package com.dw.study.utils;
+
+import com.dw.study.config.AutoBatchProperties;
+import com.dw.study.resilience.RedisGuard;
+import com.dw.study.resilience.RedisResilienceProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * @Author dw
+ * @ClassName RedisAutoBatcher
+ * @Description RedisUtils 单key调用的自动批量：开启 redis.auto-batch 后，get、set、hashGetOne 不再各自占用一次往返，
+ * 而是放入队列，由 redis-auto-batch 线程在 window 时间内或凑满 max-batch-size 后按读节点分组，
+ * 连续的 GET 合并为一条 MGET，其他命令与 MGET 一起通过管道发送，每个调用的 future 按自己的结果单独完成（失败时收到同一个异常）。
+ * 只保证同一个调用方等待上一个调用完成后再发起的调用按顺序执行（RedisUtils 的同步方法都是这样）。
+ * 集群模式下只合并 GET（按slot分组，见 {@link RedisClusterBatchExecutor}），其他命令直接执行；
+ * 批次在 redis-auto-batch 线程中执行，使用 redis.resilience.batch-deadline；调用方的 withDeadline 只限制自己等待结果的时间。
+ * 关闭时队列中剩余的调用仍会发送，关闭之后提交的调用在调用方线程直接执行。
+ * 监控指标：redis.auto.batch.size 每批的调用数，redis.auto.batch.direct 队列已满或已关闭时直接执行的调用数
+ * @Date 2026/10/19 22:40
+ * @Version 1.0
+ */
+@Component
+public class RedisAutoBatcher implements DisposableBean {
+
+    private final static Logger log = LoggerFactory.getLogger(RedisAutoBatcher.class);
+
+    private final AutoBatchProperties properties;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final RedisReadRouter redisReadRouter;
+
+    private final RedisClusterBatchExecutor clusterBatchExecutor;
+
+    private final RedisGuard redisGuard;
+
+    private final RedisResilienceProperties resilienceProperties;
+
+    private final BlockingQueue<Call> queue;
+
+    private final List<Thread> dispatchers = new ArrayList<>();
+
+    private final DistributionSummary batchSize;
+
+    private final Counter directCalls;
+
+    private volatile boolean running;
+
+    public RedisAutoBatcher(AutoBatchProperties properties, RedisTemplate<String, Object> redisTemplate,
+                            RedisReadRouter redisReadRouter, RedisClusterBatchExecutor clusterBatchExecutor,
+                            RedisGuard redisGuard, RedisResilienceProperties resilienceProperties,
+                            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        this.redisReadRouter = redisReadRouter;
+        this.clusterBatchExecutor = clusterBatchExecutor;
+        this.redisGuard = redisGuard;
+        this.resilienceProperties = resilienceProperties;
+        this.queue = new LinkedBlockingQueue<>(properties.getQueueCapacity());
+        this.batchSize = DistributionSummary.builder("redis.auto.batch.size").register(meterRegistry);
+        this.directCalls = Counter.builder("redis.auto.batch.direct").register(meterRegistry);
+        if (!properties.isEnabled()) {
+            return;
+        }
+        running = true;
+        for (int i = 1; i <= properties.getThreads(); i++) {
+            Thread thread = new Thread(this::dispatch, "redis-auto-batch-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            dispatchers.add(thread);
+        }
+    }
+
+    /**
+     * 是否开启了自动批量
+     *
+     * @return
+     */
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * GET，按当前线程的读策略选择读节点
+     *
+     * @param key
+     * @return 反序列化后的值
+     */
+    public CompletableFuture<Object> get(String key) {
+        return submit(new Call(Command.GET, key, null, null, 0, redisReadRouter.templateFor(key)));
+    }
+
+    /**
+     * SET，time大于0时使用SETEX
+     *
+     * @param key
+     * @param value
+     * @param time  过期时间（单位秒）
+     * @return 写入成功时完成为true
+     */
+    public CompletableFuture<Object> set(String key, Object value, long time) {
+        return submit(new Call(Command.SET, key, null, value, time, redisTemplate));
+    }
+
+    /**
+     * HGET，按当前线程的读策略选择读节点
+     *
+     * @param key
+     * @param hashKey
+     * @return 反序列化后的值
+     */
+    public CompletableFuture<Object> hashGet(String key, Object hashKey) {
+        return submit(new Call(Command.HGET, key, hashKey, null, 0, redisReadRouter.templateFor(key)));
+    }
+
+    /**
+     * 等待调用完成，失败时抛出与直接调用相同的异常（如 DataAccessException）。
+     * 最多等待 window + bulkhead-wait + 截止时间（调用方 withDeadline 指定的值，未指定时为 batch-deadline），
+     * 超过后抛出 QueryTimeoutException，批次仍在 redis-auto-batch 线程中继续执行
+     */
+    <T> T await(CompletableFuture<T> future) {
+        Duration deadline = redisGuard.currentDeadline(true);
+        long timeout = properties.getWindow().plus(resilienceProperties.getBulkheadWait()).plus(deadline).toNanos();
+        try {
+            return future.get(timeout, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("等待自动批量的Redis调用超过截止时间: " + deadline.toMillis() + "ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisSystemException("等待自动批量的Redis调用结果时线程被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RedisSystemException(cause.getMessage(), cause);
+        }
+    }
+
+    private CompletableFuture<Object> submit(Call call) {
+        boolean batched = call.command == Command.GET || !clusterBatchExecutor.isCluster();
+        if (!batched || !running || !queue.offer(call)) {
+            // 不能合并、未开启或队列已满时在调用方线程直接执行
+            if (batched) {
+                directCalls.increment();
+            }
+            flush(Collections.singletonList(call));
+        } else if (!running && queue.remove(call)) {
+            // 放入队列的同时开始关闭，发送线程可能已经退出：仍在队列中的调用由调用方自己发送，已被取走的由发送线程发送
+            directCalls.increment();
+            flush(Collections.singletonList(call));
+        }
+        return call.future;
+    }
+
+    private void dispatch() {
+        List<Call> batch = new ArrayList<>(properties.getMaxBatchSize());
+        long window = properties.getWindow().toNanos();
+        // 关闭后继续发送队列中剩余的调用
+        while (running || !queue.isEmpty()) {
+            try {
+                Call first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + window;
+                while (batch.size() < properties.getMaxBatchSize()) {
+                    long remaining = deadline - System.nanoTime();
+                    Call next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                flush(batch);
+                return;
+            }
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * 按读节点分组发送，从节点失败时在主节点重试一次
+     */
+    private void flush(List<Call> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<RedisTemplate<String, Object>, List<Call>> lanes = new IdentityHashMap<>();
+        for (Call call : batch) {
+            lanes.computeIfAbsent(call.template, template -> new ArrayList<>()).add(call);
+        }
+        for (Map.Entry<RedisTemplate<String, Object>, List<Call>> lane : lanes.entrySet()) {
+            List<Call> calls = lane.getValue();
+            try {
+                try {
+                    execute(lane.getKey(), calls);
+                } catch (DataAccessException e) {
+                    if (lane.getKey() == redisTemplate) {
+                        throw e;
+                    }
+                    log.warn("从节点批量读失败，回退到主节点，error: {}", e.getMessage());
+                    execute(redisTemplate, calls);
+                }
+            } catch (RuntimeException | Error e) {
+                for (Call call : calls) {
+                    call.future.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private void execute(RedisTemplate<String, Object> template, List<Call> calls) {
+        batchSize.record(calls.size());
+        if (calls.size() == 1) {
+            Call call = calls.get(0);
+            call.future.complete(executeOne(template, call));
+            return;
+        }
+        if (clusterBatchExecutor.isCluster()) {
+            // 集群模式下队列中只有GET
+            List<String> keys = new ArrayList<>(calls.size());
+            for (Call call : calls) {
+                keys.add(call.key);
+            }
+            List<Object> values = clusterBatchExecutor.multiGet(template, keys);
+            for (int i = 0; i < calls.size(); i++) {
+                calls.get(i).future.complete(values.get(i));
+            }
+            return;
+        }
+        // 连续的GET合并为一条MGET，其他命令保持原来的顺序
+        List<List<Call>> segments = new ArrayList<>();
+        for (Call call : calls) {
+            List<Call> last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (call.command == Command.GET && last != null && last.get(0).command == Command.GET) {
+                last.add(call);
+            } else {
+                List<Call> segment = new ArrayList<>();
+                segment.add(call);
+                segments.add(segment);
+            }
+        }
+        List<Object> results = template.executePipelined((RedisCallback<Object>) connection -> {
+            for (List<Call> segment : segments) {
+                send(connection, template, segment);
+            }
+            return null;
+        }, null);
+        int reads = 0;
+        for (List<Call> segment : segments) {
+            if (segment.get(0).command != Command.SET) {
+                reads++;
+            }
+        }
+        // Redisson 的管道结果中不包含 SET/SETEX 的返回值，Lettuce 包含
+        boolean withWrites = results.size() == segments.size();
+        if (!withWrites && results.size() != reads) {
+            throw new IllegalStateException("管道返回的结果数 " + results.size() + " 与命令数 " + segments.size() + " 不一致");
+        }
+        int index = 0;
+        for (List<Call> segment : segments) {
+            if (segment.get(0).command == Command.SET && !withWrites) {
+                complete(template, segment, null);
+            } else {
+                complete(template, segment, results.get(index++));
+            }
+        }
+    }
+
+    private static Object executeOne(RedisTemplate<String, Object> template, Call call) {
+        switch (call.command) {
+            case GET:
+                return template.opsForValue().get(call.key);
+            case HGET:
+                return template.opsForHash().get(call.key, call.hashKey);
+            default:
+                if (call.time > 0) {
+                    template.opsForValue().set(call.key, call.value, call.time, TimeUnit.SECONDS);
+                } else {
+                    template.opsForValue().set(call.key, call.value);
+                }
+                return Boolean.TRUE;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void send(RedisConnection connection, RedisTemplate<String, Object> template, List<Call> segment) {
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) template.getKeySerializer();
+        Call call = segment.get(0);
+        switch (call.command) {
+            case GET:
+                byte[][] keys = new byte[segment.size()][];
+                for (int i = 0; i < keys.length; i++) {
+                    keys[i] = keySerializer.serialize(segment.get(i).key);
+                }
+                connection.stringCommands().mGet(keys);
+                break;
+            case HGET:
+                connection.hashCommands().hGet(keySerializer.serialize(call.key),
+                        ((RedisSerializer<Object>) template.getHashKeySerializer()).serialize(call.hashKey));
+                break;
+            default:
+                byte[] value = ((RedisSerializer<Object>) template.getValueSerializer()).serialize(call.value);
+                if (call.time > 0) {
+                    connection.stringCommands().setEx(keySerializer.serialize(call.key), call.time, value);
+                } else {
+                    connection.stringCommands().set(keySerializer.serialize(call.key), value);
+                }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void complete(RedisTemplate<String, Object> template, List<Call> segment, Object result) {
+        Call call = segment.get(0);
+        switch (call.command) {
+            case GET:
+                List<byte[]> values = (List<byte[]>) result;
+                for (int i = 0; i < segment.size(); i++) {
+                    segment.get(i).future.complete(template.getValueSerializer().deserialize(values.get(i)));
+                }
+                break;
+            case HGET:
+                call.future.complete(template.getHashValueSerializer().deserialize((byte[]) result));
+                break;
+            default:
+                call.future.complete(Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        for (Thread dispatcher : dispatchers) {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        // 发送线程没有按时退出时，剩余的调用在这里发送，调用方不会一直等待
+        List<Call> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        flush(remaining);
+    }
+
+    private enum Command {
+        GET, SET, HGET
+    }
+
+    /**
+     * 等待合并的一次调用
+     */
+    private static class Call {
+
+        private final Command command;
+
+        private final String key;
+
+        private final Object hashKey;
+
+        private final Object value;
+
+        private final long time;
+
+        private final RedisTemplate<String, Object> template;
+
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        private Call(Command command, String key, Object hashKey, Object value, long time, RedisTemplate<String, Object> template) {
+            this.command = command;
+            this.key = key;
+            this.hashKey = hashKey;
+            this.value = value;
+            this.time = time;
+            this.template = template;
+        }
+    }
+}
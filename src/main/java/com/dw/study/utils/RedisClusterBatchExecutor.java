@@ -0,0 +1,272 @@
+package com.dw.study.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Author dw
+ * @ClassName RedisClusterBatchExecutor
+ * @Description 集群模式下的批量key操作：按 hash slot 和所在节点对key分组，同一个slot的key合并为一条多key命令，
+ * 同一个节点上各个slot的命令通过管道一次发送，不同节点并行执行，结果按原始key顺序合并，
+ * 避免 CROSSSLOT 错误或退化为逐个key（逐个slot）往返
+ * @Date 2026/10/19 14:05
+ * @Version 1.0
+ */
+@Component
+public class RedisClusterBatchExecutor implements DisposableBean {
+
+    private final static Logger log = LoggerFactory.getLogger(RedisClusterBatchExecutor.class);
+
+    private final boolean cluster;
+
+    private final ExecutorService executor;
+
+    public RedisClusterBatchExecutor(RedisProperties redisProperties) {
+        this.cluster = redisProperties.getCluster() != null && !redisProperties.getCluster().getNodes().isEmpty();
+        if (cluster) {
+            AtomicInteger index = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+                Thread thread = new Thread(r, "redis-cluster-batch-" + index.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.executor = null;
+        }
+    }
+
+    /**
+     * 是否为集群模式，非集群模式直接使用单条多key命令即可
+     *
+     * @return
+     */
+    public boolean isCluster() {
+        return cluster;
+    }
+
+    /**
+     * 按slot分组执行MGET，结果顺序与keys一致
+     *
+     * @param redisTemplate 执行命令的RedisTemplate（主节点或从节点）
+     * @param keys
+     * @return
+     */
+    public List<Object> multiGet(RedisTemplate<String, Object> redisTemplate, List<String> keys) {
+        Object[] results = new Object[keys.size()];
+        runPerNode(redisTemplate, keys, (operations, slotKeys) -> operations.opsForValue().multiGet(slotKeys),
+                (result, indexes) -> {
+                    List<?> values = (List<?>) result;
+                    for (int i = 0; i < indexes.size(); i++) {
+                        results[indexes.get(i)] = values == null ? null : values.get(i);
+                    }
+                });
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 按slot分组执行MSET（每个slot内原子，整体不保证原子性）
+     *
+     * @param redisTemplate
+     * @param valueMap
+     */
+    public void multiSet(RedisTemplate<String, Object> redisTemplate, Map<String, Object> valueMap) {
+        runPerNode(redisTemplate, new ArrayList<>(valueMap.keySet()), (operations, slotKeys) -> {
+            Map<String, Object> slotValues = new LinkedHashMap<>();
+            for (String key : slotKeys) {
+                slotValues.put(key, valueMap.get(key));
+            }
+            operations.opsForValue().multiSet(slotValues);
+            return null;
+        }, null);
+    }
+
+    /**
+     * MSETNX 承诺全部设置或全部不设置，只有所有key在同一个slot（如使用相同的hash tag：{user}:1、{user}:2）时才能保证，
+     * 跨slot时直接拒绝执行
+     *
+     * @param redisTemplate
+     * @param valueMap
+     * @return 是否全部设置成功
+     */
+    public Boolean multiSetIfAbsent(RedisTemplate<String, Object> redisTemplate, Map<String, Object> valueMap) {
+        if (valueMap.isEmpty()) {
+            return true;
+        }
+        Map<Integer, List<Integer>> slots = groupBySlot(new ArrayList<>(valueMap.keySet()));
+        if (slots.size() > 1) {
+            throw new IllegalArgumentException("multiSetIfAbsent 的key分布在多个slot，无法保证原子性，请使用相同的hash tag: " + valueMap.keySet());
+        }
+        return redisTemplate.opsForValue().multiSetIfAbsent(valueMap);
+    }
+
+    /**
+     * 按slot分组执行DEL
+     *
+     * @param redisTemplate
+     * @param keys
+     * @return 删除的key数量
+     */
+    public long delete(RedisTemplate<String, Object> redisTemplate, List<String> keys) {
+        AtomicLong deleted = new AtomicLong();
+        runPerNode(redisTemplate, keys, (operations, slotKeys) -> operations.delete(slotKeys),
+                (result, indexes) -> deleted.addAndGet(result == null ? 0 : ((Number) result).longValue()));
+        return deleted.get();
+    }
+
+    /**
+     * 按节点分组并行执行：同一节点上每个slot一条命令，多个slot时通过管道一次发送；调用线程执行第一个节点的批次。
+     * 结果按slot交给 merge，merge 可能在不同线程中同时调用，只能写入各自下标的位置或使用原子变量；
+     * 不需要结果的命令（如 MSET 这类状态回复，管道结果中不包含）merge 传 null
+     */
+    private void runPerNode(RedisTemplate<String, Object> redisTemplate, List<String> keys, SlotBatch batch, SlotMerge merge) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Map<Integer, List<Integer>> slots = groupBySlot(keys);
+        if (slots.size() == 1) {
+            Object result = batch.execute(redisTemplate, keys);
+            if (merge != null) {
+                merge.accept(result, slots.values().iterator().next());
+            }
+            return;
+        }
+        Map<RedisClusterNode, List<Integer>> nodes = groupByNode(redisTemplate, slots.keySet());
+        List<Runnable> tasks = new ArrayList<>(nodes.size());
+        for (List<Integer> nodeSlots : nodes.values()) {
+            tasks.add(() -> runOnNode(redisTemplate, keys, slots, nodeSlots, batch, merge));
+        }
+        List<Future<?>> futures = new ArrayList<>(tasks.size() - 1);
+        for (int i = 1; i < tasks.size(); i++) {
+            futures.add(executor.submit(tasks.get(i)));
+        }
+        tasks.get(0).run();
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("集群批量操作被中断", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+            }
+        }
+    }
+
+    /**
+     * 执行同一个节点上的slot批次，多个slot的命令在一个管道中发送，管道结果与slot一一对应
+     */
+    @SuppressWarnings("unchecked")
+    private void runOnNode(RedisTemplate<String, Object> redisTemplate, List<String> keys, Map<Integer, List<Integer>> slots,
+                           List<Integer> nodeSlots, SlotBatch batch, SlotMerge merge) {
+        List<List<String>> slotKeys = new ArrayList<>(nodeSlots.size());
+        for (Integer slot : nodeSlots) {
+            List<Integer> indexes = slots.get(slot);
+            List<String> batchKeys = new ArrayList<>(indexes.size());
+            for (Integer index : indexes) {
+                batchKeys.add(keys.get(index));
+            }
+            slotKeys.add(batchKeys);
+        }
+        if (nodeSlots.size() == 1) {
+            Object result = batch.execute(redisTemplate, slotKeys.get(0));
+            if (merge != null) {
+                merge.accept(result, slots.get(nodeSlots.get(0)));
+            }
+            return;
+        }
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                for (List<String> batchKeys : slotKeys) {
+                    batch.execute((RedisOperations<String, Object>) operations, batchKeys);
+                }
+                return null;
+            }
+        });
+        if (merge == null) {
+            return;
+        }
+        for (int i = 0; i < nodeSlots.size(); i++) {
+            merge.accept(results.get(i), slots.get(nodeSlots.get(i)));
+        }
+    }
+
+    /**
+     * slot -> 该slot下key在原始列表中的下标
+     */
+    private Map<Integer, List<Integer>> groupBySlot(List<String> keys) {
+        Map<Integer, List<Integer>> slots = new TreeMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            slots.computeIfAbsent(ClusterSlotHashUtil.calculateSlot(keys.get(i)), slot -> new ArrayList<>()).add(i);
+        }
+        return slots;
+    }
+
+    /**
+     * 节点 -> 该节点负责的slot（使用客户端缓存的集群拓扑）
+     */
+    private Map<RedisClusterNode, List<Integer>> groupByNode(RedisTemplate<String, Object> redisTemplate, Iterable<Integer> slots) {
+        Map<RedisClusterNode, List<Integer>> nodes = new HashMap<>();
+        try (RedisClusterConnection connection = redisTemplate.getRequiredConnectionFactory().getClusterConnection()) {
+            for (Integer slot : slots) {
+                nodes.computeIfAbsent(connection.clusterGetNodeForSlot(slot), node -> new ArrayList<>()).add(slot);
+            }
+        }
+        log.debug("集群批量操作涉及节点数: {}", nodes.size());
+        return nodes;
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface SlotBatch {
+        /**
+         * 发送同一个slot内的一条多key命令
+         *
+         * @param operations RedisTemplate，或管道中的 RedisOperations（此时返回值为null，结果从管道中取得）
+         * @param slotKeys   同一个slot的key
+         * @return 命令的结果
+         */
+        Object execute(RedisOperations<String, Object> operations, List<String> slotKeys);
+    }
+
+    @FunctionalInterface
+    private interface SlotMerge {
+        /**
+         * 合并一个slot的命令结果
+         *
+         * @param result  命令的结果
+         * @param indexes 该slot的key在原始列表中的下标
+         */
+        void accept(Object result, List<Integer> indexes);
+    }
+}
@@ -0,0 +1,277 @@
+package com.dw.study.utils;
+
+import com.dw.study.resilience.DegradedReadCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @Author dw
+ * @ClassName RedisHashMapper
+ * @Description 对象与 Redis hash 的按属性映射：每个属性保存为一个 hash field（见 {@link HashClassMetadata}），
+ * 修改部分属性时只写入这些 field（HMSET/HDEL，与设置过期时间一起原子执行），读取部分属性时只 HMGET 这些 field，不需要读出、改写整个 JSON。
+ * 如：hashMapper.putFields("user:1", user, "nickname", "age")、hashMapper.getFields("user:1", User.class, "nickname")
+ * @Date 2026/10/19 20:40
+ * @Version 1.0
+ */
+@Component
+public class RedisHashMapper {
+
+    private final static Logger log = LoggerFactory.getLogger(RedisHashMapper.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final RedisReadRouter redisReadRouter;
+
+    private final DegradedReadCache degradedReadCache;
+
+    private final RedisSingleFlight singleFlight;
+
+    private final RedisScriptRegistry scriptRegistry;
+
+    private final Map<Class<?>, HashClassMetadata> metadata = new ConcurrentHashMap<>();
+
+    public RedisHashMapper(RedisTemplate<String, Object> redisTemplate, RedisReadRouter redisReadRouter,
+                           DegradedReadCache degradedReadCache, RedisSingleFlight singleFlight,
+                           RedisScriptRegistry scriptRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.redisReadRouter = redisReadRouter;
+        this.degradedReadCache = degradedReadCache;
+        this.singleFlight = singleFlight;
+        this.scriptRegistry = scriptRegistry;
+    }
+
+    /**
+     * 保存对象的所有属性，值为null的属性删除对应的field（与 putFields 一致，读出的对象与保存的对象相同）
+     *
+     * @param key
+     * @param object
+     * @return
+     */
+    public boolean put(String key, Object object) {
+        return put(key, object, 0);
+    }
+
+    /**
+     * 保存对象的所有属性并设置过期时间（单位秒），值为null的属性删除对应的field
+     *
+     * @param key
+     * @param object
+     * @param time   过期时间，小于等于0时不修改过期时间
+     * @return
+     */
+    public boolean put(String key, Object object, long time) {
+        HashClassMetadata classMetadata = metadataFor(object.getClass());
+        Map<byte[], byte[]> fields = new LinkedHashMap<>();
+        List<byte[]> deleted = new ArrayList<>();
+        for (HashClassMetadata.Property property : classMetadata.properties()) {
+            Object value = property.get(object);
+            if (value == null) {
+                deleted.add(property.rawName());
+            } else {
+                fields.put(property.rawName(), property.encode(value));
+            }
+        }
+        return write(key, fields, deleted, time);
+    }
+
+    /**
+     * 只写入指定的属性，值为null的属性删除对应的field
+     *
+     * @param key
+     * @param object
+     * @param fields 属性名
+     * @return
+     */
+    public boolean putFields(String key, Object object, String... fields) {
+        Map<byte[], byte[]> values = new LinkedHashMap<>();
+        List<byte[]> deleted = new ArrayList<>();
+        for (HashClassMetadata.Property property : metadataFor(object.getClass()).properties(fields)) {
+            Object value = property.get(object);
+            if (value == null) {
+                deleted.add(property.rawName());
+            } else {
+                values.put(property.rawName(), property.encode(value));
+            }
+        }
+        return write(key, values, deleted, 0);
+    }
+
+    /**
+     * 写入单个属性，值的编码方式与该属性的类型一致
+     *
+     * @param key
+     * @param type  对象的类型
+     * @param field 属性名
+     * @param value 属性值，为null时删除field
+     * @return
+     */
+    public boolean putField(String key, Class<?> type, String field, Object value) {
+        HashClassMetadata.Property property = metadataFor(type).property(field);
+        Map<byte[], byte[]> values = new LinkedHashMap<>();
+        List<byte[]> deleted = new ArrayList<>();
+        if (value == null) {
+            deleted.add(property.rawName());
+        } else {
+            values.put(property.rawName(), property.encode(value));
+        }
+        return write(key, values, deleted, 0);
+    }
+
+    /**
+     * 整数属性自增（HINCRBY），不需要读出对象
+     *
+     * @param key
+     * @param type  对象的类型
+     * @param field 属性名
+     * @param delta 增量
+     * @return 自增后的值，出错时返回null
+     */
+    public Long incrementField(String key, Class<?> type, String field, long delta) {
+        HashClassMetadata.Property property = metadataFor(type).property(field);
+        if (!property.isIntegral()) {
+            throw new IllegalArgumentException("属性 " + field + " 不是整数类型");
+        }
+        degradedReadCache.invalidate(key);
+        singleFlight.forget(key);
+        try {
+            return redisTemplate.execute((RedisCallback<Long>) connection ->
+                    connection.hashCommands().hIncrBy(rawKey(key), property.rawName(), delta));
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 读取整个对象（HGETALL）
+     *
+     * @param key
+     * @param type 对象的类型
+     * @return key不存在时返回null
+     */
+    public <T> T get(String key, Class<T> type) {
+        HashClassMetadata classMetadata = metadataFor(type);
+        Map<byte[], byte[]> entries = redisReadRouter.read(key, template -> template.execute((RedisCallback<Map<byte[], byte[]>>) connection ->
+                connection.hashCommands().hGetAll(rawKey(key))));
+        if (entries == null || entries.isEmpty()) {
+            return null;
+        }
+        Object object = classMetadata.newInstance();
+        for (Map.Entry<byte[], byte[]> entry : entries.entrySet()) {
+            HashClassMetadata.Property property = classMetadata.findProperty(new String(entry.getKey(), StandardCharsets.UTF_8));
+            if (property != null) {
+                property.set(object, property.decode(entry.getValue()));
+            }
+        }
+        return type.cast(object);
+    }
+
+    /**
+     * 只读取指定的属性（HMGET），其他属性保持默认值
+     *
+     * @param key
+     * @param type   对象的类型
+     * @param fields 属性名
+     * @return 指定的field都不存在时返回null
+     */
+    public <T> T getFields(String key, Class<T> type, String... fields) {
+        HashClassMetadata classMetadata = metadataFor(type);
+        List<HashClassMetadata.Property> properties = classMetadata.properties(fields);
+        byte[][] rawFields = new byte[properties.size()][];
+        for (int i = 0; i < rawFields.length; i++) {
+            rawFields[i] = properties.get(i).rawName();
+        }
+        List<byte[]> values = redisReadRouter.read(key, template -> template.execute((RedisCallback<List<byte[]>>) connection ->
+                connection.hashCommands().hMGet(rawKey(key), rawFields)));
+        if (values == null) {
+            return null;
+        }
+        Object object = classMetadata.newInstance();
+        boolean found = false;
+        for (int i = 0; i < properties.size(); i++) {
+            byte[] value = values.get(i);
+            if (value != null) {
+                properties.get(i).set(object, properties.get(i).decode(value));
+                found = true;
+            }
+        }
+        return found ? type.cast(object) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean write(String key, Map<byte[], byte[]> values, List<byte[]> deleted, long time) {
+        byte[] rawKey = rawKey(key);
+        // RedisUtils.hashGetAll 的降级数据和进行中的读
+        degradedReadCache.invalidate(key);
+        singleFlight.forget(key);
+        try {
+            int commands = (values.isEmpty() ? 0 : 1) + (deleted.isEmpty() ? 0 : 1) + (time > 0 ? 1 : 0);
+            if (commands == 0) {
+                return true;
+            }
+            // 只有一条命令时直接执行；多条命令通过 lua/hash_write.lua 原子执行，不会只写入一部分field或写入后没有设置过期时间
+            if (commands == 1) {
+                redisTemplate.execute((RedisCallback<Object>) connection -> {
+                    writeCommands(connection, rawKey, values, deleted, time);
+                    return null;
+                });
+            } else {
+                redisTemplate.execute(scriptRegistry.get("hash_write", Long.class), RedisSerializer.byteArray(),
+                        (RedisSerializer<Long>) redisTemplate.getValueSerializer(), Collections.singletonList(key),
+                        (Object[]) hashWriteArgs(values, deleted, time));
+            }
+            return true;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * lua/hash_write.lua 的参数：过期时间、field个数、field和值、删除的field
+     */
+    private static byte[][] hashWriteArgs(Map<byte[], byte[]> values, List<byte[]> deleted, long time) {
+        List<byte[]> args = new ArrayList<>(2 + values.size() * 2 + deleted.size());
+        args.add(String.valueOf(time).getBytes(StandardCharsets.UTF_8));
+        args.add(String.valueOf(values.size()).getBytes(StandardCharsets.UTF_8));
+        for (Map.Entry<byte[], byte[]> entry : values.entrySet()) {
+            args.add(entry.getKey());
+            args.add(entry.getValue());
+        }
+        args.addAll(deleted);
+        return args.toArray(new byte[0][]);
+    }
+
+    private static void writeCommands(RedisConnection connection, byte[] rawKey, Map<byte[], byte[]> values, List<byte[]> deleted, long time) {
+        if (!values.isEmpty()) {
+            connection.hashCommands().hMSet(rawKey, values);
+        }
+        if (!deleted.isEmpty()) {
+            connection.hashCommands().hDel(rawKey, deleted.toArray(new byte[0][]));
+        }
+        if (time > 0) {
+            connection.keyCommands().expire(rawKey, time);
+        }
+    }
+
+    private HashClassMetadata metadataFor(Class<?> type) {
+        return metadata.computeIfAbsent(type, HashClassMetadata::new);
+    }
+
+    private static byte[] rawKey(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+}
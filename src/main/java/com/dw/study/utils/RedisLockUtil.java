@@ -1,18 +1,31 @@
 package com.dw.study.utils;
 
+import org.redisson.Redisson;
+import org.redisson.RedissonMultiLock;
+import org.redisson.api.RFuture;
 import org.redisson.api.RLock;
+import org.redisson.api.RPermitExpirableSemaphore;
 import org.redisson.api.RedissonClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 
 /**
  * @Author dw
  * @ClassName RedisLockUtil
- * @Description redisson 分布式锁工具类
+ * @Description redisson 分布式锁工具类：互斥锁、读写锁、带租期的许可信号量，以及按固定顺序一次往返获取多个key的批量锁
  * @Date 2022/6/13 9:07
  * @Version 1.0
  */
@@ -26,8 +39,22 @@ public class RedisLockUtil {
      */
     private static final Long EXPIRE_TIME = 60L;
 
+    /**
+     * 批量锁等待时两次尝试之间的最长间隔（毫秒）
+     */
+    private static final long MAX_RETRY_INTERVAL = 100L;
+
+    /**
+     * redis.client.type 不是 redisson 时 Redisson 客户端延迟创建，第一次加锁时才建立连接
+     */
     @Autowired
-    private RedissonClient redissonClient;
+    private ObjectProvider<RedissonClient> redissonClientProvider;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private RedisScriptRegistry scriptRegistry;
 
     /**
      * 加锁
@@ -36,7 +63,7 @@ public class RedisLockUtil {
      * @return
      */
     public RLock lock(String lockKey) {
-        RLock lock = redissonClient.getLock(lockKey);
+        RLock lock = redissonClient().getLock(lockKey);
         lock.lock();
         return lock;
     }
@@ -49,7 +76,7 @@ public class RedisLockUtil {
      * @return
      */
     public RLock lock(String lockKey, long leaseTime) {
-        RLock lock = redissonClient.getLock(lockKey);
+        RLock lock = redissonClient().getLock(lockKey);
         lock.lock(leaseTime, TimeUnit.SECONDS);
         return lock;
     }
@@ -63,7 +90,7 @@ public class RedisLockUtil {
      * @return
      */
     public RLock lock(String lockKey, TimeUnit unit, long leaseTime) {
-        RLock lock = redissonClient.getLock(lockKey);
+        RLock lock = redissonClient().getLock(lockKey);
         lock.lock(leaseTime, unit);
         return lock;
     }
@@ -78,7 +105,7 @@ public class RedisLockUtil {
      * @return
      */
     public boolean tryLock(String lockKey, TimeUnit unit, long waitTime, long leaseTime) {
-        RLock lock = redissonClient.getLock(lockKey);
+        RLock lock = redissonClient().getLock(lockKey);
         try {
             logger.info("尝试获取分布式锁： {}", lockKey);
             return lock.tryLock(waitTime, leaseTime, unit);
@@ -97,7 +124,7 @@ public class RedisLockUtil {
      * @return
      */
     public boolean tryLock(String lockKey, long waitTime, long leaseTime) {
-        RLock lock = redissonClient.getLock(lockKey);
+        RLock lock = redissonClient().getLock(lockKey);
         try {
             logger.info("尝试获取分布式锁： {}", lockKey);
             return lock.tryLock(waitTime, leaseTime, TimeUnit.SECONDS);
@@ -115,7 +142,7 @@ public class RedisLockUtil {
      * @return
      */
     public boolean tryLock(String lockKey, long time) {
-        RLock lock = redissonClient.getLock(lockKey);
+        RLock lock = redissonClient().getLock(lockKey);
         try {
             logger.info("尝试获取分布式锁： {}", lockKey);
             return lock.tryLock(time, TimeUnit.SECONDS);
@@ -132,7 +159,7 @@ public class RedisLockUtil {
      * @return
      */
     public boolean tryLock(String lockKey) {
-        RLock lock = redissonClient.getLock(lockKey);
+        RLock lock = redissonClient().getLock(lockKey);
         try {
             logger.info("尝试获取分布式锁： {}", lockKey);
             return lock.tryLock(EXPIRE_TIME, TimeUnit.SECONDS);
@@ -148,7 +175,7 @@ public class RedisLockUtil {
      * @param lockKey
      */
     public void unlock(String lockKey) {
-        RLock lock = redissonClient.getLock(lockKey);
+        RLock lock = redissonClient().getLock(lockKey);
         lock.unlock();
     }
 
@@ -161,4 +188,319 @@ public class RedisLockUtil {
         lock.unlock();
     }
 
+    /**
+     * 加读锁，多个读锁可以同时持有，与写锁互斥
+     *
+     * @param lockKey
+     * @return
+     */
+    public RLock readLock(String lockKey) {
+        RLock lock = redissonClient().getReadWriteLock(lockKey).readLock();
+        lock.lock();
+        return lock;
+    }
+
+    /**
+     * 加读锁，过期自动释放
+     *
+     * @param lockKey
+     * @param leaseTime 自动释放锁时间（秒）
+     * @return
+     */
+    public RLock readLock(String lockKey, long leaseTime) {
+        RLock lock = redissonClient().getReadWriteLock(lockKey).readLock();
+        lock.lock(leaseTime, TimeUnit.SECONDS);
+        return lock;
+    }
+
+    /**
+     * 尝试获取读锁
+     *
+     * @param lockKey
+     * @param unit      时间单位
+     * @param waitTime  最多等待时间
+     * @param leaseTime 上锁后自动释放时间
+     * @return
+     */
+    public boolean tryReadLock(String lockKey, TimeUnit unit, long waitTime, long leaseTime) {
+        RLock lock = redissonClient().getReadWriteLock(lockKey).readLock();
+        try {
+            logger.info("尝试获取分布式读锁： {}", lockKey);
+            return lock.tryLock(waitTime, leaseTime, unit);
+        } catch (InterruptedException e) {
+            logger.error("获取分布式读锁失败: {}", lockKey);
+            return false;
+        }
+    }
+
+    /**
+     * 尝试获取读锁
+     *
+     * @param lockKey
+     * @param waitTime  最多等待时间（秒）
+     * @param leaseTime 上锁后自动释放锁时间（秒）
+     * @return
+     */
+    public boolean tryReadLock(String lockKey, long waitTime, long leaseTime) {
+        return tryReadLock(lockKey, TimeUnit.SECONDS, waitTime, leaseTime);
+    }
+
+    /**
+     * 释放当前线程持有的读锁
+     *
+     * @param lockKey
+     */
+    public void unlockRead(String lockKey) {
+        redissonClient().getReadWriteLock(lockKey).readLock().unlock();
+    }
+
+    /**
+     * 加写锁，与所有读锁、其他写锁互斥
+     *
+     * @param lockKey
+     * @return
+     */
+    public RLock writeLock(String lockKey) {
+        RLock lock = redissonClient().getReadWriteLock(lockKey).writeLock();
+        lock.lock();
+        return lock;
+    }
+
+    /**
+     * 加写锁，过期自动释放
+     *
+     * @param lockKey
+     * @param leaseTime 自动释放锁时间（秒）
+     * @return
+     */
+    public RLock writeLock(String lockKey, long leaseTime) {
+        RLock lock = redissonClient().getReadWriteLock(lockKey).writeLock();
+        lock.lock(leaseTime, TimeUnit.SECONDS);
+        return lock;
+    }
+
+    /**
+     * 尝试获取写锁
+     *
+     * @param lockKey
+     * @param unit      时间单位
+     * @param waitTime  最多等待时间
+     * @param leaseTime 上锁后自动释放时间
+     * @return
+     */
+    public boolean tryWriteLock(String lockKey, TimeUnit unit, long waitTime, long leaseTime) {
+        RLock lock = redissonClient().getReadWriteLock(lockKey).writeLock();
+        try {
+            logger.info("尝试获取分布式写锁： {}", lockKey);
+            return lock.tryLock(waitTime, leaseTime, unit);
+        } catch (InterruptedException e) {
+            logger.error("获取分布式写锁失败: {}", lockKey);
+            return false;
+        }
+    }
+
+    /**
+     * 尝试获取写锁
+     *
+     * @param lockKey
+     * @param waitTime  最多等待时间（秒）
+     * @param leaseTime 上锁后自动释放锁时间（秒）
+     * @return
+     */
+    public boolean tryWriteLock(String lockKey, long waitTime, long leaseTime) {
+        return tryWriteLock(lockKey, TimeUnit.SECONDS, waitTime, leaseTime);
+    }
+
+    /**
+     * 释放当前线程持有的写锁
+     *
+     * @param lockKey
+     */
+    public void unlockWrite(String lockKey) {
+        redissonClient().getReadWriteLock(lockKey).writeLock().unlock();
+    }
+
+    /**
+     * 设置信号量的许可数，只有信号量还没有设置过时才生效，用于限制访问下游的并发数
+     *
+     * @param semaphoreKey
+     * @param permits      许可数
+     * @return 是否设置成功
+     */
+    public boolean trySetPermits(String semaphoreKey, int permits) {
+        return redissonClient().getPermitExpirableSemaphore(semaphoreKey).trySetPermits(permits);
+    }
+
+    /**
+     * 获取一个许可，没有可用许可时一直等待；许可到期自动归还，持有方宕机时不会永久占用许可
+     *
+     * @param semaphoreKey
+     * @param leaseTime    许可自动归还时间（秒）
+     * @return 许可id，归还时使用，线程被中断时返回null
+     */
+    public String acquirePermit(String semaphoreKey, long leaseTime) {
+        RPermitExpirableSemaphore semaphore = redissonClient().getPermitExpirableSemaphore(semaphoreKey);
+        try {
+            return semaphore.acquire(leaseTime, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            logger.error("获取信号量许可失败: {}", semaphoreKey);
+            return null;
+        }
+    }
+
+    /**
+     * 尝试获取一个许可
+     *
+     * @param semaphoreKey
+     * @param unit         时间单位
+     * @param waitTime     最多等待时间
+     * @param leaseTime    许可自动归还时间
+     * @return 许可id，没有获取到时返回null
+     */
+    public String tryAcquirePermit(String semaphoreKey, TimeUnit unit, long waitTime, long leaseTime) {
+        RPermitExpirableSemaphore semaphore = redissonClient().getPermitExpirableSemaphore(semaphoreKey);
+        try {
+            return semaphore.tryAcquire(waitTime, leaseTime, unit);
+        } catch (InterruptedException e) {
+            logger.error("获取信号量许可失败: {}", semaphoreKey);
+            return null;
+        }
+    }
+
+    /**
+     * 尝试获取一个许可
+     *
+     * @param semaphoreKey
+     * @param waitTime     最多等待时间（秒）
+     * @param leaseTime    许可自动归还时间（秒）
+     * @return 许可id，没有获取到时返回null
+     */
+    public String tryAcquirePermit(String semaphoreKey, long waitTime, long leaseTime) {
+        return tryAcquirePermit(semaphoreKey, TimeUnit.SECONDS, waitTime, leaseTime);
+    }
+
+    /**
+     * 归还许可
+     *
+     * @param semaphoreKey
+     * @param permitId     获取许可时返回的id
+     * @return 许可已经到期自动归还时返回false
+     */
+    public boolean releasePermit(String semaphoreKey, String permitId) {
+        return redissonClient().getPermitExpirableSemaphore(semaphoreKey).tryRelease(permitId);
+    }
+
+    /**
+     * 当前可用的许可数
+     *
+     * @param semaphoreKey
+     * @return
+     */
+    public int availablePermits(String semaphoreKey) {
+        return redissonClient().getPermitExpirableSemaphore(semaphoreKey).availablePermits();
+    }
+
+    /**
+     * 尝试同时获取多个key的锁，要么全部获取，要么一个都不持有。
+     * key去重后按字典序排列，所有调用方按同一顺序加锁，不会互相死锁；
+     * 非集群模式（或所有key在同一个slot）时通过 lua/multi_lock.lua 一次往返获取全部锁，
+     * 锁的结构与 RLock 相同，与单个key的 lock/tryLock 互斥；否则按顺序逐个获取
+     *
+     * @param lockKeys
+     * @param unit      时间单位
+     * @param waitTime  最多等待时间
+     * @param leaseTime 上锁后自动释放时间，必须大于0（批量锁没有看门狗续期）
+     * @return
+     */
+    public boolean tryLockAll(Collection<String> lockKeys, TimeUnit unit, long waitTime, long leaseTime) {
+        if (leaseTime <= 0) {
+            throw new IllegalArgumentException("批量加锁需要指定自动释放时间");
+        }
+        List<String> keys = new ArrayList<>(new TreeSet<>(lockKeys));
+        logger.info("尝试获取分布式锁： {}", keys);
+        try {
+            RedissonClient redissonClient = redissonClient();
+            if (!(redissonClient instanceof Redisson) || !isSameSlot(keys)) {
+                RLock[] locks = new RLock[keys.size()];
+                for (int i = 0; i < locks.length; i++) {
+                    locks[i] = redissonClient.getLock(keys.get(i));
+                }
+                return new RedissonMultiLock(locks).tryLock(waitTime, leaseTime, unit);
+            }
+            // 与 RedissonLock 的锁持有者相同：Redisson实例id:线程id，RLock#unlock 可以直接释放
+            String owner = ((Redisson) redissonClient).getConnectionManager().getId() + ":" + Thread.currentThread().getId();
+            String lease = String.valueOf(unit.toMillis(leaseTime));
+            long deadline = System.nanoTime() + unit.toNanos(waitTime);
+            long interval = 5;
+            while (true) {
+                Long ttl = redisTemplate.execute(scriptRegistry.get("multi_lock", Long.class), RedisSerializer.string(), null,
+                        keys, lease, owner);
+                if (ttl == null) {
+                    return true;
+                }
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return false;
+                }
+                // 占用的锁快到期时提前重试
+                Thread.sleep(Math.min(ttl > 0 ? Math.min(interval, ttl) : interval, remaining));
+                interval = Math.min(interval * 2, MAX_RETRY_INTERVAL);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("获取分布式锁失败: {}", keys);
+            return false;
+        }
+    }
+
+    /**
+     * 尝试同时获取多个key的锁
+     *
+     * @param lockKeys
+     * @param waitTime  最多等待时间（秒）
+     * @param leaseTime 上锁后自动释放锁时间（秒）
+     * @return
+     */
+    public boolean tryLockAll(Collection<String> lockKeys, long waitTime, long leaseTime) {
+        return tryLockAll(lockKeys, TimeUnit.SECONDS, waitTime, leaseTime);
+    }
+
+    /**
+     * 释放 tryLockAll 获取的锁，所有key的解锁命令同时发送，已经过期的锁不影响其他锁的释放
+     *
+     * @param lockKeys
+     */
+    public void unlockAll(Collection<String> lockKeys) {
+        List<RFuture<Void>> futures = new ArrayList<>();
+        for (String key : new TreeSet<>(lockKeys).descendingSet()) {
+            futures.add(redissonClient().getLock(key).unlockAsync());
+        }
+        RuntimeException failure = null;
+        for (RFuture<Void> future : futures) {
+            try {
+                future.syncUninterruptibly();
+            } catch (RuntimeException e) {
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private RedissonClient redissonClient() {
+        return redissonClientProvider.getObject();
+    }
+
+    private boolean isSameSlot(List<String> keys) {
+        if (!redissonClient().getConfig().isClusterConfig()) {
+            return true;
+        }
+        byte[][] rawKeys = new byte[keys.size()][];
+        for (int i = 0; i < rawKeys.length; i++) {
+            rawKeys[i] = keys.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+        return ClusterSlotHashUtil.isSameSlotForAllKeys(rawKeys);
+    }
+
 }
@@ -0,0 +1,239 @@
+package com.dw.study.utils;
+
+import com.dw.study.config.ReadRoutingProperties;
+import com.dw.study.config.RedisClientProperties;
+import com.dw.study.config.RedisConfig;
+import com.dw.study.config.RedisConnectionFactoryBuilder;
+import io.lettuce.core.ReadFrom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnectionCommands;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @Author dw
+ * @ClassName RedisReadRouter
+ * @Description RedisUtils 读操作路由：按单次调用指定的策略、key前缀策略、默认策略依次选择读主节点还是从节点。
+ * 定时检查 INFO replication 中从节点的延迟，延迟超过阈值或没有在线从节点时所有读自动回退到主节点；
+ * 从节点读失败时也会在主节点上重试一次
+ * @Date 2026/10/19 13:20
+ * @Version 1.0
+ */
+@Component
+public class RedisReadRouter implements DisposableBean {
+
+    private final static Logger log = LoggerFactory.getLogger(RedisReadRouter.class);
+
+    /**
+     * INFO replication 中从节点信息的key，集群模式下key带有节点地址前缀
+     */
+    private static final Pattern SLAVE_KEY = Pattern.compile("(^|\\.)slave\\d+$");
+
+    private static final Pattern SLAVE_LAG = Pattern.compile("state=online.*lag=(\\d+)");
+
+    private final ThreadLocal<ReadPolicy> callPolicy = new ThreadLocal<>();
+
+    private final RedisTemplate<String, Object> masterTemplate;
+
+    private final ReadRoutingProperties properties;
+
+    private final Map<ReadPolicy, LettuceConnectionFactory> replicaFactories = new EnumMap<>(ReadPolicy.class);
+
+    private final Map<ReadPolicy, RedisTemplate<String, Object>> replicaTemplates = new EnumMap<>(ReadPolicy.class);
+
+    private ScheduledExecutorService lagChecker;
+
+    private volatile boolean replicasHealthy = false;
+
+    public RedisReadRouter(RedisTemplate<String, Object> redisTemplate,
+                           ReadRoutingProperties properties,
+                           RedisClientProperties clientProperties,
+                           RedisProperties redisProperties) {
+        this.masterTemplate = redisTemplate;
+        this.properties = properties;
+        if (!properties.isEnabled()) {
+            return;
+        }
+        boolean replicated = (redisProperties.getSentinel() != null && !redisProperties.getSentinel().getNodes().isEmpty())
+                || (redisProperties.getCluster() != null && !redisProperties.getCluster().getNodes().isEmpty());
+        if (!replicated || clientProperties.getType() == RedisClientProperties.ClientType.REDISSON) {
+            log.warn("从节点读只支持 Lettuce 客户端的哨兵/集群模式，当前所有读操作仍然访问主节点");
+            return;
+        }
+        boolean pooled = clientProperties.getType() == RedisClientProperties.ClientType.LETTUCE_POOLED;
+        RedisConnectionFactoryBuilder builder = new RedisConnectionFactoryBuilder(redisProperties);
+        addReplicaTemplate(ReadPolicy.REPLICA_PREFERRED, builder.lettuce(pooled, ReadFrom.REPLICA_PREFERRED));
+        addReplicaTemplate(ReadPolicy.NEAREST, builder.lettuce(pooled, ReadFrom.NEAREST));
+        replicasHealthy = true;
+        lagChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "redis-replica-lag-checker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getLagCheckInterval().toMillis();
+        lagChecker.scheduleWithFixedDelay(this::checkReplicaLag, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void addReplicaTemplate(ReadPolicy policy, LettuceConnectionFactory factory) {
+        factory.afterPropertiesSet();
+        RedisTemplate<String, Object> template = RedisConfig.createRedisTemplate(factory, masterTemplate.getValueSerializer());
+        template.afterPropertiesSet();
+        replicaFactories.put(policy, factory);
+        replicaTemplates.put(policy, template);
+    }
+
+    /**
+     * 在指定的读策略下执行一组读操作，如：redisReadRouter.withPolicy(ReadPolicy.MASTER_ONLY, () -> redisUtils.get(key))
+     *
+     * @param policy 读策略
+     * @param reads  读操作
+     * @return 读操作的结果
+     */
+    public <T> T withPolicy(ReadPolicy policy, Supplier<T> reads) {
+        ReadPolicy previous = callPolicy.get();
+        callPolicy.set(policy);
+        try {
+            return reads.get();
+        } finally {
+            if (previous == null) {
+                callPolicy.remove();
+            } else {
+                callPolicy.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 当前线程通过 withPolicy 指定的读策略，未指定时返回null
+     */
+    ReadPolicy currentPolicy() {
+        return callPolicy.get();
+    }
+
+    /**
+     * 按key选择读节点并执行读操作，从节点读失败时回退到主节点重试
+     *
+     * @param key       用于匹配前缀策略的key
+     * @param operation 读操作
+     * @return
+     */
+    public <T> T read(String key, Function<RedisTemplate<String, Object>, T> operation) {
+        RedisTemplate<String, Object> template = templateFor(key);
+        if (template == masterTemplate) {
+            return operation.apply(masterTemplate);
+        }
+        try {
+            return operation.apply(template);
+        } catch (DataAccessException e) {
+            log.warn("从节点读失败，回退到主节点，key: {}, error: {}", key, e.getMessage());
+            return operation.apply(masterTemplate);
+        }
+    }
+
+    /**
+     * 根据读策略选择RedisTemplate
+     *
+     * @param key
+     * @return
+     */
+    public RedisTemplate<String, Object> templateFor(String key) {
+        if (!replicasHealthy) {
+            return masterTemplate;
+        }
+        RedisTemplate<String, Object> template = replicaTemplates.get(resolvePolicy(key));
+        return template != null ? template : masterTemplate;
+    }
+
+    /**
+     * 从节点当前是否可读（延迟在阈值内）
+     *
+     * @return
+     */
+    public boolean isReplicasHealthy() {
+        return replicasHealthy;
+    }
+
+    /**
+     * 打开所有从节点读连接（启动预热），没有开启从节点读时返回0
+     *
+     * @return 预热的从节点连接工厂数
+     */
+    public int warmUp() {
+        for (RedisTemplate<String, Object> template : replicaTemplates.values()) {
+            template.execute((RedisCallback<String>) RedisConnectionCommands::ping);
+        }
+        return replicaTemplates.size();
+    }
+
+    private ReadPolicy resolvePolicy(String key) {
+        ReadPolicy policy = callPolicy.get();
+        if (policy != null) {
+            return policy;
+        }
+        String matched = null;
+        if (key != null) {
+            for (Map.Entry<String, ReadPolicy> entry : properties.getPrefixPolicies().entrySet()) {
+                if (key.startsWith(entry.getKey()) && (matched == null || entry.getKey().length() > matched.length())) {
+                    matched = entry.getKey();
+                    policy = entry.getValue();
+                }
+            }
+        }
+        return policy != null ? policy : properties.getDefaultPolicy();
+    }
+
+    /**
+     * 读取主节点 INFO replication，取在线从节点的最大延迟，没有在线从节点或延迟超过阈值时标记为不可读
+     */
+    private void checkReplicaLag() {
+        try {
+            Properties info = masterTemplate.execute((RedisCallback<Properties>) connection -> connection.info("replication"));
+            long maxLag = -1;
+            if (info != null) {
+                for (String name : info.stringPropertyNames()) {
+                    if (!SLAVE_KEY.matcher(name).find()) {
+                        continue;
+                    }
+                    Matcher matcher = SLAVE_LAG.matcher(info.getProperty(name));
+                    if (matcher.find()) {
+                        maxLag = Math.max(maxLag, Long.parseLong(matcher.group(1)));
+                    }
+                }
+            }
+            boolean healthy = maxLag >= 0 && maxLag <= properties.getMaxReplicaLagSeconds();
+            if (healthy != replicasHealthy) {
+                log.warn("从节点读状态变更: {}, 最大延迟: {}s", healthy ? "恢复从节点读" : "回退到主节点", maxLag);
+            }
+            replicasHealthy = healthy;
+        } catch (Exception e) {
+            log.error("检查从节点延迟失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (lagChecker != null) {
+            lagChecker.shutdownNow();
+        }
+        for (LettuceConnectionFactory factory : replicaFactories.values()) {
+            factory.destroy();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.dw.study.utils;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @Author dw
+ * @ClassName RedisScriptRegistry
+ * @Description Lua 脚本注册表：启动时读取 classpath 下 lua/*.lua（按文件名去掉 .lua 作为脚本名），
+ * 由 {@link com.dw.study.config.RedisWarmup} 在启动预热阶段通过 SCRIPT LOAD 预先加载到 Redis；执行时 RedisTemplate 只发送 EVALSHA，
+ * Redis 重启、主从切换或 SCRIPT FLUSH 后返回 NOSCRIPT 时自动改用 EVAL 重新执行（同时脚本会被重新缓存）。
+ * 脚本文件只能包含 ASCII 字符：Lettuce 执行 EVAL 时 spring-data-redis 按平台默认编码把脚本转成字节
+ * @Date 2026/10/19 19:10
+ * @Version 1.0
+ */
+@Component
+public class RedisScriptRegistry {
+
+    private static final String LOCATION = "classpath*:lua/*.lua";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * 脚本名 -> 脚本原文
+     */
+    private final Map<String, String> sources = new TreeMap<>();
+
+    private final Map<String, DefaultRedisScript<?>> scripts = new ConcurrentHashMap<>();
+
+    public RedisScriptRegistry(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(LOCATION)) {
+                String filename = resource.getFilename();
+                try (InputStream in = resource.getInputStream()) {
+                    sources.put(filename.substring(0, filename.length() - ".lua".length()), readAscii(filename, in));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 所有脚本名
+     *
+     * @return
+     */
+    public Set<String> names() {
+        return Collections.unmodifiableSet(sources.keySet());
+    }
+
+    /**
+     * 把所有脚本加载到 Redis（SCRIPT LOAD）。管道中只能使用 EVALSHA 且出错时不会自动回退到 EVAL，
+     * 管道返回 NOSCRIPT（Redis 重启或执行过 SCRIPT FLUSH）时调用该方法重新加载
+     */
+    public void load() {
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            for (Map.Entry<String, String> entry : sources.entrySet()) {
+                connection.scriptingCommands().scriptLoad(entry.getValue().getBytes(StandardCharsets.US_ASCII));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 获取脚本，同一个脚本只创建一次（SHA1 只计算一次）
+     *
+     * @param name       脚本名，即 lua 目录下去掉 .lua 的文件名
+     * @param resultType 返回值类型：Long、Boolean、List 或 Object（批量字符串按 resultSerializer 反序列化）
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public <T> RedisScript<T> get(String name, Class<T> resultType) {
+        DefaultRedisScript<?> script = scripts.computeIfAbsent(name, key -> {
+            String source = sources.get(key);
+            if (source == null) {
+                throw new IllegalArgumentException("Lua脚本不存在: lua/" + key + ".lua");
+            }
+            return new DefaultRedisScript<>(source, resultType);
+        });
+        if (script.getResultType() != resultType) {
+            throw new IllegalArgumentException("Lua脚本 " + name + " 的返回值类型已注册为 " + script.getResultType().getName());
+        }
+        return (RedisScript<T>) script;
+    }
+
+    private static String readAscii(String filename, InputStream in) throws IOException {
+        byte[] content = StreamUtils.copyToByteArray(in);
+        for (byte b : content) {
+            if (b < 0) {
+                throw new IllegalStateException("Lua脚本只能包含ASCII字符: " + filename);
+            }
+        }
+        return new String(content, StandardCharsets.US_ASCII);
+    }
+}
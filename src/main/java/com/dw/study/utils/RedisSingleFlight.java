@@ -0,0 +1,185 @@
+package com.dw.study.utils;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.dw.study.config.SingleFlightProperties;
+import com.dw.study.resilience.RedisGuard;
+import com.dw.study.resilience.RedisResilienceProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * @Author dw
+ * @ClassName RedisSingleFlight
+ * @Description 相同key的并发读合并（single-flight）：第一个调用方发送命令，同时到达的相同读操作（操作 + key + 读策略相同）
+ * 不再发送命令，等待并共享第一个调用方反序列化后的结果（或异常），突发的热点key读只产生一次往返和一次反序列化。
+ * 只合并同时进行中的读，结果不会缓存；RedisUtils、RedisHashMapper 写入key前调用 forget，之后开始的读不会加入写入前开始的读。
+ * 加入合并的调用方最多等待 bulkhead-wait + 自己的截止时间（withDeadline 指定的值，未指定时为 redis.resilience.deadline），超过后抛出 QueryTimeoutException。
+ * 监控指标：redis.single.flight.joined（tag operation）加入合并、没有发送命令的读次数
+ * @Date 2026/10/19 22:10
+ * @Version 1.0
+ */
+@Component
+public class RedisSingleFlight {
+
+    private final SingleFlightProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<FlightKey, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+
+    private final RedisReadRouter redisReadRouter;
+
+    private final RedisGuard redisGuard;
+
+    private final RedisResilienceProperties resilienceProperties;
+
+    public RedisSingleFlight(SingleFlightProperties properties, MeterRegistry meterRegistry, RedisReadRouter redisReadRouter,
+                             RedisGuard redisGuard, RedisResilienceProperties resilienceProperties) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.redisReadRouter = redisReadRouter;
+        this.redisGuard = redisGuard;
+        this.resilienceProperties = resilienceProperties;
+    }
+
+    /**
+     * 执行读操作，相同的读操作正在进行时等待并共享它的结果
+     *
+     * @param operation 操作名，如 get、hgetall
+     * @param key
+     * @param read      读操作
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, String key, Supplier<T> read) {
+        if (!properties.isEnabled()) {
+            return read.get();
+        }
+        FlightKey flightKey = new FlightKey(operation, key, redisReadRouter.currentPolicy());
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = flights.putIfAbsent(flightKey, flight);
+        if (existing != null) {
+            meterRegistry.counter("redis.single.flight.joined", "operation", operation).increment();
+            T value = (T) await(existing);
+            return properties.isDefensiveCopy() ? (T) copy(value) : value;
+        }
+        try {
+            T value = read.get();
+            flight.complete(value);
+            // 读到的对象只作为复制的来源，第一个调用方同样拿到副本，修改结果时不影响正在复制的其他调用方
+            return properties.isDefensiveCopy() ? (T) copy(value) : value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(flightKey, flight);
+        }
+    }
+
+    /**
+     * 写入key之前调用：之后开始的读不再加入已经在进行中的读
+     *
+     * @param key
+     */
+    public void forget(String key) {
+        if (!flights.isEmpty()) {
+            flights.keySet().removeIf(flightKey -> flightKey.getKey().equals(key));
+        }
+    }
+
+    /**
+     * 等待第一个调用方的结果，最多等待 bulkhead-wait + 当前调用方的截止时间
+     */
+    private Object await(CompletableFuture<Object> flight) {
+        Duration deadline = redisGuard.currentDeadline(false);
+        try {
+            return flight.get(resilienceProperties.getBulkheadWait().plus(deadline).toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("等待合并的Redis读超过截止时间: " + deadline.toMillis() + "ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisSystemException("等待合并的Redis读结果时线程被中断", e);
+        } catch (ExecutionException e) {
+            // 与第一个调用方抛出同样的异常，RedisUtils 的降级读等处理不受影响
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RedisSystemException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * 复制可变的结果：Map、Collection（含 FastJson 的 JSONObject、JSONArray）逐层复制，
+     * 字符串、数字等不可变对象直接返回，其他对象通过 FastJson 序列化再反序列化复制
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object copy(Object value) {
+        if (value == null || isImmutable(value)) {
+            return value;
+        }
+        if (value instanceof Map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                copy.put(entry.getKey(), copy(entry.getValue()));
+            }
+            return value instanceof JSONObject ? new JSONObject((Map) copy) : copy;
+        }
+        if (value instanceof Set) {
+            Set<Object> copy = new LinkedHashSet<>();
+            for (Object element : (Set<?>) value) {
+                copy.add(copy(element));
+            }
+            return copy;
+        }
+        if (value instanceof Collection) {
+            List<Object> copy = value instanceof JSONArray ? new JSONArray() : new ArrayList<>();
+            for (Object element : (Collection<?>) value) {
+                copy.add(copy(element));
+            }
+            return copy;
+        }
+        return JSON.parseObject(JSON.toJSONBytes(value), value.getClass());
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value instanceof String || value instanceof Boolean || value instanceof Character || value instanceof Enum
+                || value instanceof Integer || value instanceof Long || value instanceof Double || value instanceof Float
+                || value instanceof Short || value instanceof Byte || value instanceof BigDecimal || value instanceof BigInteger;
+    }
+
+    /**
+     * 读操作的标识：操作 + key + 读策略
+     */
+    @Data
+    private static final class FlightKey {
+        private final String operation;
+        private final String key;
+        private final ReadPolicy policy;
+    }
+}
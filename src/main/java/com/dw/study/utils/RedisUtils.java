@@ -1,20 +1,40 @@
 package com.dw.study.utils;
 
+import com.dw.study.config.OptimisticUpdateProperties;
+import com.dw.study.geo.GeoRadiusCache;
+import com.dw.study.resilience.DegradedReadCache;
+import com.dw.study.resilience.RedisGuard;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.geo.Circle;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.geo.Distance;
 import org.springframework.data.geo.GeoResults;
 import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.BitFieldSubCommands;
 import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 /**
  * @Author
@@ -31,6 +51,45 @@ public class RedisUtils {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private RedisReadRouter redisReadRouter;
+
+    @Autowired
+    private RedisClusterBatchExecutor clusterBatchExecutor;
+
+    @Autowired
+    private RedisScriptRegistry scriptRegistry;
+
+    @Autowired
+    private RedisGuard redisGuard;
+
+    @Autowired
+    private DegradedReadCache degradedReadCache;
+
+    @Autowired
+    private RedisSingleFlight singleFlight;
+
+    @Autowired
+    private RedisAutoBatcher autoBatcher;
+
+    @Autowired
+    private OptimisticUpdateProperties optimisticUpdateProperties;
+
+    @Autowired
+    private GeoRadiusCache geoRadiusCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private static final byte[] VERSION_FIELD = "version".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] DATA_FIELD = "data".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 没有冒号的key在监控指标中的前缀，不使用key本身，避免指标的tag值无限增长
+     */
+    private static final String NO_PREFIX = "(none)";
+
 
 // ##########################【操作String类型】#####################################################
 
@@ -42,8 +101,13 @@ public class RedisUtils {
      * @return
      */
     public boolean set(String key, Object value) {
+        invalidateLocal(key);
         try {
-            redisTemplate.opsForValue().set(key, value);
+            if (autoBatcher.isEnabled()) {
+                autoBatcher.await(autoBatcher.set(key, value, 0));
+            } else {
+                redisTemplate.opsForValue().set(key, value);
+            }
             return true;
         } catch (Exception e) {
             log.error(e.getMessage());
@@ -60,8 +124,11 @@ public class RedisUtils {
      * @return
      */
     public boolean set(String key, Object value, long time) {
+        invalidateLocal(key);
         try {
-            if (time > 0) {
+            if (time > 0 && autoBatcher.isEnabled()) {
+                autoBatcher.await(autoBatcher.set(key, value, time));
+            } else if (time > 0) {
                 redisTemplate.opsForValue().set(key, value, time, TimeUnit.SECONDS);
             } else {
                 set(key, value);
@@ -81,6 +148,7 @@ public class RedisUtils {
      * @return
      */
     public Object getAndSet(String key, Object value) {
+        invalidateLocal(key);
         try {
             Object andSet = redisTemplate.opsForValue().getAndSet(key, value);
             return andSet;
@@ -90,6 +158,156 @@ public class RedisUtils {
         }
     }
 
+    /**
+     * 设置值和过期时间（单位秒）并返回旧值，一次往返完成（Lua脚本 get_and_set_with_expire）
+     *
+     * @param key
+     * @param value
+     * @param time  过期时间，小于等于0时不过期
+     * @return 旧值，不存在时返回null
+     */
+    public Object getAndSet(String key, Object value, long time) {
+        invalidateLocal(key);
+        try {
+            return executeScript("get_and_set_with_expire", Object.class, key, rawValue(value), rawNumber(time));
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 获取值并刷新过期时间（单位秒），一次往返完成，key不存在时不会创建（Lua脚本 get_and_expire）
+     *
+     * @param key
+     * @param time 过期时间，小于等于0时只获取值
+     * @return
+     */
+    public Object getAndExpire(String key, long time) {
+        try {
+            return executeScript("get_and_expire", Object.class, key, rawNumber(time));
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * key的值等于expected时才删除，代替 get/hasKey + del 两次往返，且不会误删其他线程刚写入的新值（Lua脚本 compare_and_delete）
+     *
+     * @param key
+     * @param expected 期望的值
+     * @return true 删除成功 false 值不相等或key不存在
+     */
+    public boolean compareAndDelete(String key, Object expected) {
+        invalidateLocal(key);
+        try {
+            Long deleted = executeScript("compare_and_delete", Long.class, key, rawValue(expected));
+            return deleted != null && deleted > 0;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 乐观锁写入带版本号的值：值保存在hash的 data 字段，版本号保存在 version 字段，
+     * 当前版本号等于expectedVersion时才写入并把版本号加1（Lua脚本 set_if_version_matches）
+     *
+     * @param key
+     * @param expectedVersion 期望的版本号，0 表示key不存在时才写入
+     * @param value
+     * @param time            过期时间（单位秒），小于等于0时不修改过期时间
+     * @return 写入后的版本号，版本号不一致或出错时返回-1
+     */
+    public long setIfVersionMatches(String key, long expectedVersion, Object value, long time) {
+        try {
+            Long version = executeScript("set_if_version_matches", Long.class, key,
+                    rawNumber(expectedVersion), rawValue(value), rawNumber(time));
+            return version == null ? -1 : version;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * 获取 setIfVersionMatches 写入的值和版本号（一次 HMGET）
+     *
+     * @param key
+     * @return key不存在时版本号为0、值为null
+     */
+    public VersionedValue getVersioned(String key) {
+        try {
+            return readVersioned(key);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 乐观更新带版本号的值（不加锁的读-改-写）：读取当前值和版本号，调用update计算新值，
+     * 版本号没有变化时通过 setIfVersionMatches 的脚本原子写入，被其他调用方抢先修改时随机退避后重新读取、计算，
+     * 最多尝试 redis.optimistic-update.max-attempts 次。适合很短的更新逻辑，update可能被调用多次，不能有副作用。
+     * 监控指标（tag prefix 为key第一个冒号前的部分，没有冒号时为 (none)）：redis.optimistic.update（tag result：committed、aborted、exhausted、error），
+     * redis.optimistic.conflicts 版本号冲突次数，冲突次数/更新次数高的场景改用 RedisLockUtil 加锁更新
+     *
+     * @param key
+     * @param update 根据当前值（key不存在时为null）计算新值，返回null时放弃更新
+     * @param time   过期时间（单位秒），小于等于0时不修改过期时间
+     * @return 写入后的值和版本号，放弃更新时返回当前的值和版本号，重试次数用完或出错时返回null
+     */
+    public VersionedValue updateVersioned(String key, UnaryOperator<Object> update, long time) {
+        int separator = key.indexOf(':');
+        String prefix = separator > 0 ? key.substring(0, separator) : NO_PREFIX;
+        long backoff = optimisticUpdateProperties.getInitialBackoff().toMillis();
+        try {
+            for (int attempt = 1; attempt <= optimisticUpdateProperties.getMaxAttempts(); attempt++) {
+                // 从节点可能读到旧版本号，读主节点避免必然失败的写入
+                VersionedValue current = redisReadRouter.withPolicy(ReadPolicy.MASTER_ONLY, () -> readVersioned(key));
+                Object value = update.apply(current.getValue());
+                if (value == null) {
+                    meterRegistry.counter("redis.optimistic.update", "prefix", prefix, "result", "aborted").increment();
+                    return current;
+                }
+                Long version = executeScript("set_if_version_matches", Long.class, key,
+                        rawNumber(current.getVersion()), rawValue(value), rawNumber(time));
+                if (version != null && version > 0) {
+                    meterRegistry.counter("redis.optimistic.update", "prefix", prefix, "result", "committed").increment();
+                    return new VersionedValue(version, value);
+                }
+                meterRegistry.counter("redis.optimistic.conflicts", "prefix", prefix).increment();
+                if (attempt < optimisticUpdateProperties.getMaxAttempts()) {
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(backoff + 1));
+                    backoff = Math.min(backoff * 2, optimisticUpdateProperties.getMaxBackoff().toMillis());
+                }
+            }
+            meterRegistry.counter("redis.optimistic.update", "prefix", prefix, "result", "exhausted").increment();
+            log.warn("乐观更新冲突次数超过上限: {}", key);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            meterRegistry.counter("redis.optimistic.update", "prefix", prefix, "result", "error").increment();
+            log.error("乐观更新等待重试时线程被中断: {}", key);
+            return null;
+        } catch (Exception e) {
+            meterRegistry.counter("redis.optimistic.update", "prefix", prefix, "result", "error").increment();
+            log.error(e.getMessage());
+            return null;
+        }
+    }
+
+    private VersionedValue readVersioned(String key) {
+        List<byte[]> fields = redisReadRouter.read(key, template -> template.execute((RedisCallback<List<byte[]>>) connection ->
+                connection.hashCommands().hMGet(rawKey(key), VERSION_FIELD, DATA_FIELD)));
+        if (fields == null || fields.get(0) == null) {
+            return new VersionedValue(0, null);
+        }
+        long version = Long.parseLong(new String(fields.get(0), StandardCharsets.UTF_8));
+        return new VersionedValue(version, redisTemplate.getValueSerializer().deserialize(fields.get(1)));
+    }
+
     /**
      * 如果不存在则设置值value，返回true。 否则返回false
      *
@@ -107,14 +325,21 @@ public class RedisUtils {
     }
 
     /**
-     * 批量设置 k->v 到 redis
+     * 批量设置 k->v 到 redis（集群模式下按slot分组并行执行）
      *
      * @param valueMap
      * @return
      */
-    public boolean multiSet(HashMap valueMap) {
+    public boolean multiSet(Map<String, Object> valueMap) {
+        for (String key : valueMap.keySet()) {
+            invalidateLocal(key);
+        }
         try {
-            redisTemplate.opsForValue().multiSet(valueMap);
+            if (clusterBatchExecutor.isCluster()) {
+                clusterBatchExecutor.multiSet(redisTemplate, valueMap);
+            } else {
+                redisTemplate.opsForValue().multiSet(valueMap);
+            }
             return true;
         } catch (Exception e) {
             log.error(e.getMessage());
@@ -123,14 +348,31 @@ public class RedisUtils {
     }
 
     /**
-     * 如果不存在对应的Map，则批量设置 k->v 到 redis
+     * 批量设置 k->v 并设置相同的过期时间（单位秒），所有SET命令通过管道一次发送
      *
      * @param valueMap
+     * @param time     过期时间
      * @return
      */
-    public boolean multiSetIfAbsent(HashMap valueMap) {
+    public boolean multiSetWithExpire(Map<String, Object> valueMap, long time) {
+        if (CollectionUtils.isEmpty(valueMap)) {
+            return true;
+        }
+        for (String key : valueMap.keySet()) {
+            invalidateLocal(key);
+        }
         try {
-            redisTemplate.opsForValue().multiSetIfAbsent(valueMap);
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    ValueOperations<String, Object> value = (ValueOperations<String, Object>) operations.opsForValue();
+                    for (Map.Entry<String, Object> entry : valueMap.entrySet()) {
+                        value.set(entry.getKey(), entry.getValue(), time, TimeUnit.SECONDS);
+                    }
+                    return null;
+                }
+            });
             return true;
         } catch (Exception e) {
             log.error(e.getMessage());
@@ -138,6 +380,25 @@ public class RedisUtils {
         }
     }
 
+    /**
+     * 如果所有的key都不存在，则批量设置 k->v 到 redis（全部设置或全部不设置）
+     * 集群模式下所有key必须在同一个slot（使用相同的hash tag，如 {order}:1、{order}:2），否则不执行并返回false
+     *
+     * @param valueMap
+     * @return 是否设置成功
+     */
+    public boolean multiSetIfAbsent(Map<String, Object> valueMap) {
+        try {
+            Boolean success = clusterBatchExecutor.isCluster()
+                    ? clusterBatchExecutor.multiSetIfAbsent(redisTemplate, valueMap)
+                    : redisTemplate.opsForValue().multiSetIfAbsent(valueMap);
+            return Boolean.TRUE.equals(success);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return false;
+        }
+    }
+
 
     /**
      * 在原有的值基础上新增字符串到末尾
@@ -147,6 +408,7 @@ public class RedisUtils {
      * @return
      */
     public boolean append(String key, String value) {
+        invalidateLocal(key);
         try {
             redisTemplate.opsForValue().append(key, value);
             return true;
@@ -164,11 +426,37 @@ public class RedisUtils {
      * @return
      */
     public Object get(String key) {
-        return key == null ? null : redisTemplate.opsForValue().get(key);
+        return key == null ? null : readWithFallback(key, () -> singleFlight.execute("get", key, () -> autoBatcher.isEnabled()
+                ? autoBatcher.await(autoBatcher.get(key))
+                : redisReadRouter.read(key, template -> template.opsForValue().get(key))));
+    }
+
+    /**
+     * 在指定的读策略下执行读操作，如：redisUtils.withReadPolicy(ReadPolicy.MASTER_ONLY, () -> redisUtils.get(key))
+     * 未指定时按 redis.read-routing 中的key前缀策略、默认策略选择读节点
+     *
+     * @param policy 读策略
+     * @param reads  读操作
+     * @return
+     */
+    public <T> T withReadPolicy(ReadPolicy policy, Supplier<T> reads) {
+        return redisReadRouter.withPolicy(policy, reads);
+    }
+
+    /**
+     * 在指定的截止时间下执行操作，如：redisUtils.withDeadline(Duration.ofMillis(50), () -> redisUtils.get(key))
+     * 未指定时单个命令使用 redis.resilience.deadline，管道等批量操作使用 redis.resilience.batch-deadline
+     *
+     * @param deadline 每次访问Redis的截止时间
+     * @param calls    操作
+     * @return
+     */
+    public <T> T withDeadline(Duration deadline, Supplier<T> calls) {
+        return redisGuard.withDeadline(deadline, calls);
     }
 
     /**
-     * 批量获取值
+     * 批量获取值（集群模式下按slot分组并行执行，结果顺序与keys一致）
      *
      * @param keys
      * @return
@@ -177,21 +465,48 @@ public class RedisUtils {
         if (CollectionUtils.isEmpty(keys)) {
             return null;
         }
-        return redisTemplate.opsForValue().multiGet(keys);
+        List<Object> values;
+        try {
+            if (clusterBatchExecutor.isCluster()) {
+                List<String> keyList = new ArrayList<>(keys);
+                values = redisReadRouter.read(keyList.get(0), template -> clusterBatchExecutor.multiGet(template, keyList));
+            } else {
+                values = redisReadRouter.read(keys.iterator().next(), template -> template.opsForValue().multiGet(keys));
+            }
+        } catch (DataAccessException e) {
+            // 所有key在本地都有值时才降级
+            List<Object> local = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                local.add(degradedReadCache.getOrThrow(key, e));
+            }
+            return local;
+        }
+        if (values != null && degradedReadCache.isEnabled()) {
+            Iterator<Object> value = values.iterator();
+            for (String key : keys) {
+                degradedReadCache.put(key, value.next());
+            }
+        }
+        return values;
     }
 
 
     /**
-     * 删除缓存，支持批量删除
+     * 删除缓存，支持批量删除（集群模式下按slot分组并行执行）
      *
      * @param key
      */
     public boolean del(String... key) {
         if (key != null && key.length > 0) {
+            for (String k : key) {
+                invalidateLocal(k);
+            }
             if (key.length == 1) {
                 return redisTemplate.delete(key[0]);
             } else {
-                Long delete = redisTemplate.delete(Arrays.asList(key));
+                Long delete = clusterBatchExecutor.isCluster()
+                        ? clusterBatchExecutor.delete(redisTemplate, Arrays.asList(key))
+                        : redisTemplate.delete(Arrays.asList(key));
                 if (delete > 0) {
                     return true;
                 }
@@ -253,6 +568,7 @@ public class RedisUtils {
      * @return
      */
     public void increment(String key, long increment) {
+        invalidateLocal(key);
         redisTemplate.opsForValue().increment(key, increment);
     }
 
@@ -264,6 +580,7 @@ public class RedisUtils {
      * @return
      */
     public void increment(String key, double increment) {
+        invalidateLocal(key);
         redisTemplate.opsForValue().increment(key, increment);
     }
 
@@ -274,6 +591,8 @@ public class RedisUtils {
      * @param newKey
      */
     public void renameKey(String oldKey, String newKey) {
+        invalidateLocal(oldKey);
+        invalidateLocal(newKey);
         redisTemplate.rename(oldKey, newKey);
     }
 
@@ -285,6 +604,8 @@ public class RedisUtils {
      * @return
      */
     public Boolean renameOldKeyIfAbsent(String oldKey, String newKey) {
+        invalidateLocal(oldKey);
+        invalidateLocal(newKey);
         return redisTemplate.renameIfAbsent(oldKey, newKey);
     }
 
@@ -297,6 +618,7 @@ public class RedisUtils {
      * @param maps
      */
     public boolean hashPutAll(String mapName, Map<String, String> maps) {
+        invalidateLocal(mapName);
         try {
             redisTemplate.opsForHash().putAll(mapName, maps);
             return true;
@@ -315,6 +637,7 @@ public class RedisUtils {
      * @param value
      */
     public boolean hashPutOne(String mapName, String key, String value) {
+        invalidateLocal(mapName);
         try {
             redisTemplate.opsForHash().put(mapName, key, value);
             return true;
@@ -332,6 +655,7 @@ public class RedisUtils {
      * @param value
      */
     public boolean hashPutOneIfAbsent(String mapName, String hashKey, String value) {
+        invalidateLocal(mapName);
         try {
             redisTemplate.opsForHash().putIfAbsent(mapName, hashKey, value);
             return true;
@@ -348,7 +672,10 @@ public class RedisUtils {
      * @return
      */
     public Object hashGetOne(String mapName, Object hashKey) {
-        return redisTemplate.opsForHash().get(mapName, hashKey);
+        if (autoBatcher.isEnabled()) {
+            return autoBatcher.await(autoBatcher.hashGet(mapName, hashKey));
+        }
+        return redisReadRouter.read(mapName, template -> template.opsForHash().get(mapName, hashKey));
     }
 
     /**
@@ -358,7 +685,8 @@ public class RedisUtils {
      * @return
      */
     public Map<Object, Object> hashGetAll(String mapName) {
-        return redisTemplate.opsForHash().entries(mapName);
+        return readWithFallback(mapName, () -> singleFlight.execute("hgetall", mapName,
+                () -> redisReadRouter.read(mapName, template -> template.opsForHash().entries(mapName))));
     }
 
 
@@ -370,6 +698,7 @@ public class RedisUtils {
      * @return
      */
     public Long hashDelete(String key, Object... fields) {
+        invalidateLocal(key);
         return redisTemplate.opsForHash().delete(key, fields);
     }
 
@@ -393,6 +722,7 @@ public class RedisUtils {
      * @return
      */
     public Long hashIncrementByLong(String key, Object field, long increment) {
+        invalidateLocal(key);
         return redisTemplate.opsForHash().increment(key, field, increment);
     }
 
@@ -405,6 +735,7 @@ public class RedisUtils {
      * @return
      */
     public Double hashIncrementByDouble(String key, Object field, double delta) {
+        invalidateLocal(key);
         return redisTemplate.opsForHash().increment(key, field, delta);
     }
 
@@ -491,6 +822,33 @@ public class RedisUtils {
         }
     }
 
+    /**
+     * 设置值到List中的头部并只保留最新的maxLength个元素，一次往返完成（Lua脚本 capped_list_push）
+     *
+     * @param key       List名字
+     * @param maxLength 最多保留的元素个数
+     * @param time      过期时间（单位秒），小于等于0时不修改过期时间
+     * @param values
+     * @return 写入后List的长度，出错时返回null
+     */
+    public Long listAddInHeadCapped(String key, long maxLength, long time, Object... values) {
+        if (maxLength <= 0 || values == null || values.length == 0) {
+            throw new IllegalArgumentException("maxLength必须大于0且values不能为空");
+        }
+        try {
+            Object[] args = new Object[values.length + 2];
+            args[0] = rawNumber(maxLength);
+            args[1] = rawNumber(time);
+            for (int i = 0; i < values.length; i++) {
+                args[i + 2] = rawValue(values[i]);
+            }
+            return executeScript("capped_list_push", Long.class, key, args);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * 设置值到List中的尾部
      *
@@ -568,7 +926,7 @@ public class RedisUtils {
     }
 
     /**
-     * 移除并获取列表中第一个元素(如果列表没有元素会阻塞列表直到等待超时或发现可弹出元素为止)
+     * 移除并获取列表中第一个元素(非阻塞，列表没有元素时返回null；需要阻塞消费的队列使用 RedisWorkQueue)
      *
      * @param key list名字
      * @return
@@ -578,7 +936,7 @@ public class RedisUtils {
     }
 
     /**
-     * 移除并获取列表中最后一个元素(如果列表没有元素会阻塞列表直到等待超时或发现可弹出元素为止)
+     * 移除并获取列表中最后一个元素(非阻塞，列表没有元素时返回null；需要阻塞消费的队列使用 RedisWorkQueue)
      *
      * @param key list名字
      * @return
@@ -644,6 +1002,398 @@ public class RedisUtils {
         return redisTemplate.opsForSet().isMember(key, value);
     }
 
+    // ##########################【操作ZSet类型】#####################################################
+
+    /**
+     * 添加元素到有序集合，元素已存在时更新分数
+     *
+     * @param key
+     * @param value
+     * @param score
+     * @return
+     */
+    public boolean zSetAdd(String key, Object value, double score) {
+        try {
+            redisTemplate.opsForZSet().add(key, value, score);
+            return true;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 批量添加元素到有序集合（一条ZADD命令）
+     *
+     * @param key
+     * @param scores 元素 -> 分数
+     * @return
+     */
+    public boolean zSetBatchAdd(String key, Map<Object, Double> scores) {
+        if (CollectionUtils.isEmpty(scores)) {
+            return true;
+        }
+        Set<ZSetOperations.TypedTuple<Object>> tuples = new HashSet<>(scores.size() * 4 / 3 + 1);
+        for (Map.Entry<Object, Double> entry : scores.entrySet()) {
+            tuples.add(new DefaultTypedTuple<>(entry.getKey(), entry.getValue()));
+        }
+        try {
+            redisTemplate.opsForZSet().add(key, tuples);
+            return true;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 给有序集合中元素的分数加上增量delta，元素不存在时以delta为分数添加
+     *
+     * @param key
+     * @param value
+     * @param delta
+     * @return 增加后的分数
+     */
+    public Double zSetIncrementScore(String key, Object value, double delta) {
+        return redisTemplate.opsForZSet().incrementScore(key, value, delta);
+    }
+
+    /**
+     * 批量增加分数，所有ZINCRBY通过管道一次发送
+     *
+     * @param key
+     * @param deltas 元素 -> 增量
+     * @return 增加后的分数，与deltas的遍历顺序一致；失败返回空集合
+     */
+    public List<Double> zSetBatchIncrementScore(String key, Map<Object, Double> deltas) {
+        if (CollectionUtils.isEmpty(deltas)) {
+            return Collections.emptyList();
+        }
+        try {
+            List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    ZSetOperations<String, Object> zSet = (ZSetOperations<String, Object>) operations.opsForZSet();
+                    for (Map.Entry<Object, Double> entry : deltas.entrySet()) {
+                        zSet.incrementScore(key, entry.getKey(), entry.getValue());
+                    }
+                    return null;
+                }
+            });
+            List<Double> scores = new ArrayList<>(results.size());
+            for (Object result : results) {
+                scores.add(result == null ? null : ((Number) result).doubleValue());
+            }
+            return scores;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 移除有序集合中的元素，支持批量
+     *
+     * @param key
+     * @param values
+     * @return 移除的数量
+     */
+    public Long zSetRemove(String key, Object... values) {
+        return redisTemplate.opsForZSet().remove(key, values);
+    }
+
+    /**
+     * 获取元素的分数
+     *
+     * @param key
+     * @param value
+     * @return 元素不存在时返回null
+     */
+    public Double zSetScore(String key, Object value) {
+        return redisReadRouter.read(key, template -> template.opsForZSet().score(key, value));
+    }
+
+    /**
+     * 获取元素按分数从小到大的排名（从0开始）
+     *
+     * @param key
+     * @param value
+     * @return 元素不存在时返回null
+     */
+    public Long zSetRank(String key, Object value) {
+        return redisReadRouter.read(key, template -> template.opsForZSet().rank(key, value));
+    }
+
+    /**
+     * 获取元素按分数从大到小的排名（从0开始）
+     *
+     * @param key
+     * @param value
+     * @return 元素不存在时返回null
+     */
+    public Long zSetReverseRank(String key, Object value) {
+        return redisReadRouter.read(key, template -> template.opsForZSet().reverseRank(key, value));
+    }
+
+    /**
+     * 按分数从小到大获取排名在[start, end]之间的元素和分数，end为-1表示到最后
+     *
+     * @param key
+     * @param start
+     * @param end
+     * @return
+     */
+    public Set<ZSetOperations.TypedTuple<Object>> zSetRangeWithScores(String key, long start, long end) {
+        return redisReadRouter.read(key, template -> template.opsForZSet().rangeWithScores(key, start, end));
+    }
+
+    /**
+     * 按分数从大到小获取排名在[start, end]之间的元素和分数，end为-1表示到最后
+     *
+     * @param key
+     * @param start
+     * @param end
+     * @return
+     */
+    public Set<ZSetOperations.TypedTuple<Object>> zSetReverseRangeWithScores(String key, long start, long end) {
+        return redisReadRouter.read(key, template -> template.opsForZSet().reverseRangeWithScores(key, start, end));
+    }
+
+    /**
+     * 按分数从小到大获取分数在[min, max]之间的元素和分数
+     *
+     * @param key
+     * @param min
+     * @param max
+     * @param offset 跳过的元素个数
+     * @param count  最多返回的元素个数，小于0表示不限制
+     * @return
+     */
+    public Set<ZSetOperations.TypedTuple<Object>> zSetRangeByScoreWithScores(String key, double min, double max, long offset, long count) {
+        return redisReadRouter.read(key, template -> template.opsForZSet().rangeByScoreWithScores(key, min, max, offset, count));
+    }
+
+    /**
+     * 获取分数在[min, max]之间的元素个数
+     *
+     * @param key
+     * @param min
+     * @param max
+     * @return
+     */
+    public Long zSetCount(String key, double min, double max) {
+        return redisReadRouter.read(key, template -> template.opsForZSet().count(key, min, max));
+    }
+
+    /**
+     * 获取有序集合的大小
+     *
+     * @param key
+     * @return
+     */
+    public Long zSetSize(String key) {
+        return redisReadRouter.read(key, template -> template.opsForZSet().zCard(key));
+    }
+
+    /**
+     * 移除按分数从小到大排名在[start, end]之间的元素，如保留前N名：zSetRemoveRange(key, 0, -(N + 1))
+     *
+     * @param key
+     * @param start
+     * @param end
+     * @return 移除的数量
+     */
+    public Long zSetRemoveRange(String key, long start, long end) {
+        return redisTemplate.opsForZSet().removeRange(key, start, end);
+    }
+
+    // ##########################【操作HyperLogLog】#####################################################
+
+    /**
+     * 添加元素到HyperLogLog（支持批量），用于统计基数（如UV），每个key最多占用约12KB，误差约0.81%
+     *
+     * @param key
+     * @param values
+     * @return 1基数估计值发生变化 0未变化，出错时返回null
+     */
+    public Long pfAdd(String key, Object... values) {
+        try {
+            return redisTemplate.opsForHyperLogLog().add(key, values);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 获取HyperLogLog的基数估计值，多个key时返回并集的基数（不修改数据，集群模式下多个key需要在同一个slot）
+     *
+     * @param keys
+     * @return
+     */
+    public long pfCount(String... keys) {
+        return redisReadRouter.read(keys[0], template -> template.opsForHyperLogLog().size(keys));
+    }
+
+    /**
+     * 合并多个HyperLogLog到destKey（集群模式下所有key需要在同一个slot）
+     *
+     * @param destKey    目标key，已存在时与来源合并
+     * @param sourceKeys 来源key
+     * @return true成功 false失败
+     */
+    public boolean pfMerge(String destKey, String... sourceKeys) {
+        byte[][] rawSourceKeys = new byte[sourceKeys.length][];
+        for (int i = 0; i < sourceKeys.length; i++) {
+            rawSourceKeys[i] = rawKey(sourceKeys[i]);
+        }
+        try {
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                connection.hyperLogLogCommands().pfMerge(rawKey(destKey), rawSourceKeys);
+                return null;
+            });
+            return true;
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return false;
+        }
+    }
+
+    // ##########################【操作Bitmap】#####################################################
+
+    /**
+     * 设置位图中offset位的值，key不存在时创建，位图长度按offset自动扩展（offset不要超过实际需要，否则会分配大量内存）
+     *
+     * @param key
+     * @param offset 位偏移量，从0开始
+     * @param value  true为1 false为0
+     * @return 该位原来的值，出错时返回null
+     */
+    public Boolean setBit(String key, long offset, boolean value) {
+        try {
+            return redisTemplate.opsForValue().setBit(key, offset, value);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 获取位图中offset位的值
+     *
+     * @param key
+     * @param offset 位偏移量，从0开始
+     * @return key不存在或超出长度时返回false
+     */
+    public boolean getBit(String key, long offset) {
+        return Boolean.TRUE.equals(redisReadRouter.read(key, template -> template.opsForValue().getBit(key, offset)));
+    }
+
+    /**
+     * 统计位图中值为1的位数
+     *
+     * @param key
+     * @return
+     */
+    public long bitCount(String key) {
+        Long count = redisReadRouter.read(key, template -> template.execute((RedisCallback<Long>) connection ->
+                connection.stringCommands().bitCount(rawKey(key))));
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 统计位图中字节范围[start, end]内值为1的位数（注意是字节下标，不是位下标，负数表示从末尾开始）
+     *
+     * @param key
+     * @param start 开始字节
+     * @param end   结束字节（包含）
+     * @return
+     */
+    public long bitCount(String key, long start, long end) {
+        Long count = redisReadRouter.read(key, template -> template.execute((RedisCallback<Long>) connection ->
+                connection.stringCommands().bitCount(rawKey(key), start, end)));
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 对多个位图做位运算（AND、OR、XOR、NOT），结果保存到destKey（集群模式下所有key需要在同一个slot）
+     *
+     * @param operation 位运算，NOT时只能有一个来源key
+     * @param destKey   保存结果的key
+     * @param keys      来源key
+     * @return 结果的字节数，出错时返回null
+     */
+    public Long bitOp(RedisStringCommands.BitOperation operation, String destKey, String... keys) {
+        byte[][] rawKeys = new byte[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            rawKeys[i] = rawKey(keys[i]);
+        }
+        invalidateLocal(destKey);
+        try {
+            return redisTemplate.execute((RedisCallback<Long>) connection ->
+                    connection.stringCommands().bitOp(operation, rawKey(destKey), rawKeys));
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 执行BITFIELD子命令（GET、SET、INCRBY），可以在一个位图中保存多个定长整数计数器，
+     * 如 BitFieldSubCommands.create().incr(BitFieldType.UINT_16).valueAt(Offset.offset(3).multipliedByTypeLength()).by(1)
+     * 表示第4个16位无符号计数器加1。通过 lua/bitfield.lua 执行（Redisson的连接没有实现BITFIELD）
+     *
+     * @param key
+     * @param subCommands 子命令
+     * @return 每个子命令的结果（GET为当前值、SET为原值、INCRBY为新值，OVERFLOW FAIL溢出时为null），出错时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public List<Long> bitField(String key, BitFieldSubCommands subCommands) {
+        invalidateLocal(key);
+        try {
+            return executeScript("bitfield", List.class, key, (Object[]) bitFieldArgs(subCommands));
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 位图中的计数器自增（BITFIELD INCRBY），计数器按 index * 类型位数 定位
+     *
+     * @param key
+     * @param type     计数器类型，如 BitFieldType.UINT_16
+     * @param index    第几个计数器，从0开始
+     * @param delta    增量，可以为负数
+     * @param overflow 溢出时的处理方式：WRAP回绕、SAT停在最大/最小值、FAIL不修改并返回null
+     * @return 自增后的值
+     */
+    public Long bitFieldIncrement(String key, BitFieldSubCommands.BitFieldType type, long index, long delta,
+                                  BitFieldSubCommands.BitFieldIncrBy.Overflow overflow) {
+        List<Long> results = bitField(key, BitFieldSubCommands.create()
+                .incr(type).valueAt(BitFieldSubCommands.Offset.offset(index).multipliedByTypeLength()).overflow(overflow).by(delta));
+        return CollectionUtils.isEmpty(results) ? null : results.get(0);
+    }
+
+    /**
+     * 读取位图中的多个连续计数器（一条BITFIELD命令）
+     *
+     * @param key
+     * @param type  计数器类型
+     * @param index 第一个计数器的下标，从0开始
+     * @param count 计数器个数
+     * @return 每个计数器的值，key不存在时都为0，出错时返回null
+     */
+    public List<Long> bitFieldGet(String key, BitFieldSubCommands.BitFieldType type, long index, int count) {
+        BitFieldSubCommands subCommands = BitFieldSubCommands.create();
+        for (int i = 0; i < count; i++) {
+            subCommands = subCommands.get(type).valueAt(BitFieldSubCommands.Offset.offset(index + i).multipliedByTypeLength());
+        }
+        // Redis 6.2 之前BITFIELD属于写命令，不能在从节点执行，因此不经过读路由
+        return bitField(key, subCommands);
+    }
+
     // ##########################【操作经纬度】#####################################################
 
     /***
@@ -657,7 +1407,10 @@ public class RedisUtils {
      */
     public Long geoAdd(String key, double longitude, double latitude, String member) {
 //        Long addedNum = redisTemplate.opsForGeo().add("city", new Point(116.405285, 39.904989), "北京");
-        return redisTemplate.opsForGeo().add(key, new Point(longitude, latitude), member);
+        Point point = new Point(longitude, latitude);
+        Long addedNum = redisTemplate.opsForGeo().add(key, point, member);
+        geoRadiusCache.invalidate(key, Collections.singletonList(point), Collections.singletonList(member));
+        return addedNum;
     }
 
     /***
@@ -671,10 +1424,17 @@ public class RedisUtils {
             return 0L;
         }
         List<RedisGeoCommands.GeoLocation<Object>> locations = new ArrayList<>(geoLocationList.size());
+        List<Point> points = new ArrayList<>(geoLocationList.size());
+        List<String> members = new ArrayList<>(geoLocationList.size());
         for (BizGeoLocation geoLocation : geoLocationList) {
-            locations.add(new RedisGeoCommands.GeoLocation<Object>(geoLocation.getBizKey(), new Point(geoLocation.getLongitude(), geoLocation.getLatitude())));
+            Point point = new Point(geoLocation.getLongitude(), geoLocation.getLatitude());
+            locations.add(new RedisGeoCommands.GeoLocation<Object>(geoLocation.getBizKey(), point));
+            points.add(point);
+            members.add(geoLocation.getBizKey());
         }
-        return redisTemplate.opsForGeo().add(key, locations);
+        Long addedNum = redisTemplate.opsForGeo().add(key, locations);
+        geoRadiusCache.invalidate(key, points, members);
+        return addedNum;
     }
 
 
@@ -685,7 +1445,7 @@ public class RedisUtils {
      * @param memberList 坐标名称（标识）的集合
      */
     public List<Point> geoGet(String key, List<String> memberList) {
-        return redisTemplate.opsForGeo().position(key, memberList);
+        return redisReadRouter.read(key, template -> template.opsForGeo().position(key, memberList));
     }
 
 
@@ -723,6 +1483,7 @@ public class RedisUtils {
      * - WITHHASH： 以 52 位有符号整数的形式， 返回位置元素经过原始 geohash 编码的有序集合分值。这个选项主要用于底层应用或者调试， 实际中的作用并不大。
      * - ASC|DESC ：可选参数，按照距离升序或者降序排列，即 由近到远（asc） 还是 由远到近（desc）
      * - COUNT count：取数数量，避免获取到太多的信息，返回太多信息
+     * 开启 redis.geo-cache 时，中心在同一个 geohash 格子、半径在同一档位的查询共享一次Redis查询的结果，在本地按距离过滤，见 GeoRadiusCache
      * @param key redis的key
      * @param longitude   经度
      * @param latitude   纬度
@@ -735,15 +1496,9 @@ public class RedisUtils {
                                                                                          double latitude,
                                                                                          Integer distance,
                                                                                          Integer count) {
-        //以当前坐标为中心画圆，标识当前坐标覆盖的distance的范围， Point(经度, 纬度) Distance(距离量, 距离单位)
-        Circle circle = new Circle(new Point(longitude, latitude), new Distance(distance, RedisGeoCommands.DistanceUnit.METERS));
         // 从redis获取的信息包含：距离中心坐标的距离、当前的坐标、并且升序排序，如果count > 0 则只取count个坐标，否则返回所有
-        RedisGeoCommands.GeoRadiusCommandArgs args = RedisGeoCommands.GeoRadiusCommandArgs
-                .newGeoRadiusArgs().includeDistance().includeCoordinates().sortAscending();
-        if (count > 0) {
-            args.limit(count);
-        }
-        return redisTemplate.opsForGeo().radius(key, circle, args);
+        return geoRadiusCache.radius(key, longitude, latitude, distance, count,
+                (circle, args) -> redisReadRouter.read(key, template -> template.opsForGeo().radius(key, circle, args)));
     }
 
     /***
@@ -768,7 +1523,98 @@ public class RedisUtils {
         if (count > 0) {
             args.limit(count);
         }
-        return redisTemplate.opsForGeo().radius(key, name, distances, args);
+        return redisReadRouter.read(key, template -> template.opsForGeo().radius(key, name, distances, args));
+    }
+
+    /**
+     * 写入key前删除本地保存的降级数据，并且之后开始的读不再加入进行中的相同读
+     */
+    private void invalidateLocal(String key) {
+        degradedReadCache.invalidate(key);
+        singleFlight.forget(key);
+        geoRadiusCache.invalidate(key);
+    }
+
+    /**
+     * 读成功时把值保存到降级读缓存，Redis 不可用时返回降级读缓存中的值（未开启降级时直接抛出异常）
+     */
+    private <T> T readWithFallback(String key, Supplier<T> read) {
+        T value;
+        try {
+            value = read.get();
+        } catch (DataAccessException e) {
+            return degradedReadCache.getOrThrow(key, e);
+        }
+        degradedReadCache.put(key, value);
+        return value;
+    }
+
+    /**
+     * 通过 RedisScriptRegistry 执行 lua 目录下的脚本（EVALSHA，NOSCRIPT 时回退到 EVAL），
+     * 参数需要先按 rawValue/rawNumber 转成字节，字符串结果按 value 的序列化方式反序列化
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T executeScript(String name, Class<T> resultType, String key, Object... args) {
+        return redisTemplate.execute(scriptRegistry.get(name, resultType), RedisSerializer.byteArray(),
+                (RedisSerializer<T>) redisTemplate.getValueSerializer(), Collections.singletonList(key), args);
+    }
+
+    /**
+     * BITFIELD子命令转成命令参数，如 OVERFLOW SAT INCRBY u16 #3 1
+     */
+    private static byte[][] bitFieldArgs(BitFieldSubCommands subCommands) {
+        List<String> args = new ArrayList<>();
+        for (BitFieldSubCommands.BitFieldSubCommand subCommand : subCommands) {
+            if (subCommand instanceof BitFieldSubCommands.BitFieldIncrBy) {
+                BitFieldSubCommands.BitFieldIncrBy.Overflow overflow = ((BitFieldSubCommands.BitFieldIncrBy) subCommand).getOverflow();
+                if (overflow != null) {
+                    args.add("OVERFLOW");
+                    args.add(overflow.name());
+                }
+            }
+            args.add(subCommand.getCommand());
+            args.add(subCommand.getType().asString());
+            args.add(subCommand.getOffset().asString());
+            if (subCommand instanceof BitFieldSubCommands.BitFieldIncrBy) {
+                args.add(String.valueOf(((BitFieldSubCommands.BitFieldIncrBy) subCommand).getValue()));
+            } else if (subCommand instanceof BitFieldSubCommands.BitFieldSet) {
+                args.add(String.valueOf(((BitFieldSubCommands.BitFieldSet) subCommand).getValue()));
+            }
+        }
+        byte[][] rawArgs = new byte[args.size()][];
+        for (int i = 0; i < rawArgs.length; i++) {
+            rawArgs[i] = args.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+        return rawArgs;
+    }
+
+    private byte[] rawKey(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawValue(Object value) {
+        return ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(value);
+    }
+
+    private static byte[] rawNumber(long value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 带版本号的值，见 setIfVersionMatches
+     */
+    @Data
+    @AllArgsConstructor
+    public static class VersionedValue {
+        /**
+         * 版本号，key不存在时为0
+         */
+        private long version;
+        /**
+         * 值
+         */
+        private Object value;
     }
 
     /**
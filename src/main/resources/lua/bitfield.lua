@@ -0,0 +1,4 @@
+-- RedisUtils#bitField: BITFIELD through a script, some client connections (Redisson) do not implement it
+-- KEYS[1] key
+-- ARGV    BITFIELD sub commands, e.g. OVERFLOW SAT INCRBY u32 #3 1 GET u32 #3
+return redis.call('bitfield', KEYS[1], unpack(ARGV))
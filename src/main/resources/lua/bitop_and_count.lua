@@ -0,0 +1,9 @@
+-- VisitorAnalyticsService#retention: BITOP AND into a scratch key, BITCOUNT it and delete it in one atomic step,
+-- so concurrent calls for the same days cannot delete or overwrite each other's result between the commands
+-- KEYS[1] scratch destination key (same hash tag as the source keys)
+-- KEYS[2..n] source bitmaps
+-- returns the number of bits set in all source bitmaps
+redis.call('bitop', 'and', KEYS[1], unpack(KEYS, 2))
+local count = redis.call('bitcount', KEYS[1])
+redis.call('del', KEYS[1])
+return count
@@ -0,0 +1,10 @@
+-- RedisUtils#listAddInHeadCapped: push to the head of a list and keep only the newest entries
+-- KEYS[1] list
+-- ARGV[1] max length, ARGV[2] expiry in seconds (values <= 0 leave the expiry unchanged),
+-- ARGV[3..n] values to push
+redis.call('lpush', KEYS[1], unpack(ARGV, 3))
+redis.call('ltrim', KEYS[1], 0, tonumber(ARGV[1]) - 1)
+if tonumber(ARGV[2]) > 0 then
+    redis.call('expire', KEYS[1], ARGV[2])
+end
+return redis.call('llen', KEYS[1])
@@ -0,0 +1,7 @@
+-- RedisUtils#compareAndDelete: delete the key only if it still holds the expected value
+-- KEYS[1] key
+-- ARGV[1] expected value (serialized the same way as the stored value)
+if redis.call('get', KEYS[1]) == ARGV[1] then
+    return redis.call('del', KEYS[1])
+end
+return 0
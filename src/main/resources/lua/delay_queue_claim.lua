@@ -0,0 +1,28 @@
+-- RedisDelayQueue: claim a batch of due jobs atomically
+-- KEYS[1] pending jobs zset (score = due time in ms)
+-- KEYS[2] processing jobs zset (score = lease expiry in ms)
+-- ARGV[1] now in ms, ARGV[2] max jobs to claim, ARGV[3] lease expiry in ms for this claim
+-- Jobs whose lease expired (handler failed or instance died) are claimed first, then due jobs.
+-- ZREM/ZADD are sent in chunks: unpack() is limited by the Lua C stack (LUAI_MAXCSTACK = 8000),
+-- so a large batch size must not be unpacked in one call.
+local CHUNK = 1000
+local jobs = redis.call('zrangebyscore', KEYS[2], '-inf', ARGV[1], 'limit', 0, ARGV[2])
+local remaining = tonumber(ARGV[2]) - #jobs
+if remaining > 0 then
+    local due = redis.call('zrangebyscore', KEYS[1], '-inf', ARGV[1], 'limit', 0, remaining)
+    for i = 1, #due, CHUNK do
+        redis.call('zrem', KEYS[1], unpack(due, i, math.min(i + CHUNK - 1, #due)))
+    end
+    for i = 1, #due do
+        jobs[#jobs + 1] = due[i]
+    end
+end
+for i = 1, #jobs, CHUNK do
+    local leases = {}
+    for j = i, math.min(i + CHUNK - 1, #jobs) do
+        leases[#leases + 1] = ARGV[3]
+        leases[#leases + 1] = jobs[j]
+    end
+    redis.call('zadd', KEYS[2], unpack(leases))
+end
+return jobs
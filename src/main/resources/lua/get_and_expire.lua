@@ -0,0 +1,8 @@
+-- RedisUtils#getAndExpire: read the value and refresh its expiry in one round trip
+-- KEYS[1] key
+-- ARGV[1] expiry in seconds, values <= 0 leave the expiry unchanged
+local value = redis.call('get', KEYS[1])
+if value and tonumber(ARGV[1]) > 0 then
+    redis.call('expire', KEYS[1], ARGV[1])
+end
+return value
@@ -0,0 +1,10 @@
+-- RedisUtils#getAndSet(key, value, time): replace the value, set its expiry and return the old value
+-- KEYS[1] key
+-- ARGV[1] new value, ARGV[2] expiry in seconds (values <= 0 keep the key persistent)
+local old = redis.call('get', KEYS[1])
+if tonumber(ARGV[2]) > 0 then
+    redis.call('set', KEYS[1], ARGV[1], 'ex', ARGV[2])
+else
+    redis.call('set', KEYS[1], ARGV[1])
+end
+return old
@@ -0,0 +1,4 @@
+-- PolicyAwareRedisCacheWriter#get (refresh-ahead): read a cache entry and its remaining time to live in one round trip
+-- KEYS[1] cache key
+-- returns {value or nil, pttl in milliseconds}
+return {redis.call('get', KEYS[1]), redis.call('pttl', KEYS[1])}
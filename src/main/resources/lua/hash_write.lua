@@ -0,0 +1,18 @@
+-- RedisHashMapper#write: set fields, delete fields and refresh the expiry of a hash in one atomic step,
+-- readers never see the new fields without the deletes (or a hash that is written but not yet given its ttl)
+-- KEYS[1] hash key
+-- ARGV[1] expire in seconds, <= 0 keeps the current ttl
+-- ARGV[2] number of field/value pairs to set (n)
+-- ARGV[3 .. 2+2n] field, value pairs; ARGV[3+2n ..] fields to delete
+local count = tonumber(ARGV[2])
+local firstDeleted = 3 + 2 * count
+if count > 0 then
+    redis.call('hset', KEYS[1], unpack(ARGV, 3, firstDeleted - 1))
+end
+if #ARGV >= firstDeleted then
+    redis.call('hdel', KEYS[1], unpack(ARGV, firstDeleted))
+end
+if tonumber(ARGV[1]) > 0 then
+    redis.call('expire', KEYS[1], ARGV[1])
+end
+return 1
@@ -0,0 +1,10 @@
+-- RedisIntrospectionService: type, remaining time to live and memory usage of sampled keys in one round trip
+-- KEYS sampled keys (all in one slot in cluster mode)
+-- ARGV[1] MEMORY USAGE SAMPLES, nested elements sampled for aggregate types
+-- returns {type, pttl in milliseconds, bytes} per key, a key deleted after SCAN returns {'none', -2, -1}
+local result = {}
+for i, key in ipairs(KEYS) do
+    local bytes = redis.call('memory', 'usage', key, 'samples', ARGV[1])
+    result[i] = {redis.call('type', key)['ok'], redis.call('pttl', key), bytes or -1}
+end
+return result
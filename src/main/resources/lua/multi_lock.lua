@@ -0,0 +1,15 @@
+-- RedisLockUtil#tryLockAll: acquire several locks all-or-nothing in one round trip
+-- Each lock uses the RedissonLock layout (hash field = owner, value = reentrant count), so RLock#unlock releases it.
+-- KEYS lock keys in canonical order (must hash to the same slot in cluster mode)
+-- ARGV[1] lease time in milliseconds, ARGV[2] owner (Redisson instance id:thread id)
+-- Returns nil when every lock was acquired, otherwise the pttl of the first lock held by another owner.
+for i = 1, #KEYS do
+    if redis.call('exists', KEYS[i]) == 1 and redis.call('hexists', KEYS[i], ARGV[2]) == 0 then
+        return redis.call('pttl', KEYS[i])
+    end
+end
+for i = 1, #KEYS do
+    redis.call('hincrby', KEYS[i], ARGV[2], 1)
+    redis.call('pexpire', KEYS[i], ARGV[1])
+end
+return nil
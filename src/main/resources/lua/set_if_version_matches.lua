@@ -0,0 +1,15 @@
+-- RedisUtils#setIfVersionMatches: optimistic write of a versioned value kept in a hash
+-- KEYS[1] hash with fields 'version' and 'data'
+-- ARGV[1] expected version (0 = key must not exist), ARGV[2] new data,
+-- ARGV[3] expiry in seconds (values <= 0 leave the expiry unchanged)
+-- Returns the new version, or -1 when the stored version differs from the expected one.
+local current = redis.call('hget', KEYS[1], 'version') or '0'
+if current ~= ARGV[1] then
+    return -1
+end
+local version = tonumber(current) + 1
+redis.call('hmset', KEYS[1], 'version', version, 'data', ARGV[2])
+if tonumber(ARGV[3]) > 0 then
+    redis.call('expire', KEYS[1], ARGV[3])
+end
+return version
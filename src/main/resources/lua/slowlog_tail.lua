@@ -0,0 +1,5 @@
+-- RedisIntrospectionService: latest SLOWLOG entries of one node
+-- KEYS[1] routing key, only used to select the node in cluster mode
+-- ARGV[1] number of entries
+-- returns SLOWLOG GET entries, newest first
+return redis.call('slowlog', 'get', ARGV[1])
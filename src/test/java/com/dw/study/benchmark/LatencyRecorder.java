@@ -0,0 +1,91 @@
+package com.dw.study.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * @Author dw
+ * @ClassName LatencyRecorder
+ * @Description 压测延迟记录器：每个压测线程持有一个实例（非线程安全），结束后合并统计分位数
+ * @Date 2026/10/19 11:30
+ * @Version 1.0
+ */
+public class LatencyRecorder {
+
+    private long[] latencies = new long[1 << 14];
+
+    private int size;
+
+    private long errors;
+
+    /**
+     * 记录一次成功操作的耗时
+     *
+     * @param nanos 纳秒
+     */
+    public void record(long nanos) {
+        if (size == latencies.length) {
+            latencies = Arrays.copyOf(latencies, size << 1);
+        }
+        latencies[size++] = nanos;
+    }
+
+    /**
+     * 记录一次失败操作
+     */
+    public void error() {
+        errors++;
+    }
+
+    /**
+     * 合并多个线程的记录
+     *
+     * @param recorders
+     * @return
+     */
+    public static LatencyRecorder merge(Iterable<LatencyRecorder> recorders) {
+        LatencyRecorder merged = new LatencyRecorder();
+        for (LatencyRecorder recorder : recorders) {
+            for (int i = 0; i < recorder.size; i++) {
+                merged.record(recorder.latencies[i]);
+            }
+            merged.errors += recorder.errors;
+        }
+        Arrays.sort(merged.latencies, 0, merged.size);
+        return merged;
+    }
+
+    public int count() {
+        return size;
+    }
+
+    public long errors() {
+        return errors;
+    }
+
+    /**
+     * 获取分位数（需先调用 merge 排序）
+     *
+     * @param percentile 0~100
+     * @return 微秒
+     */
+    public double percentileMicros(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * size) - 1;
+        return latencies[Math.max(0, Math.min(index, size - 1))] / 1000.0;
+    }
+
+    /**
+     * 格式化输出：次数、吞吐量、p50、p99、p999、错误数
+     *
+     * @param name       场景名称
+     * @param elapsedNanos 压测持续时间
+     * @return
+     */
+    public String report(String name, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        return String.format("%-20s ops=%-9d throughput=%10.1f/s p50=%8.1fus p99=%9.1fus p999=%9.1fus errors=%d",
+                name, size, size / seconds, percentileMicros(50), percentileMicros(99), percentileMicros(99.9), errors);
+    }
+}
@@ -0,0 +1,229 @@
+package com.dw.study.benchmark;
+
+import com.dw.study.SpringbootRedisApplication;
+import com.dw.study.benchmark.standin.RespStandInServer;
+import com.dw.study.support.EmbeddedRedis;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author dw
+ * @ClassName LoadHarness
+ * @Description 端到端压测：在进程内启动 Redis 和本应用，并发请求
+ * /getToken、/testIdempotent、/testLocal、/addCache1~3，输出每个接口的吞吐量和 p50/p99 延迟，不需要单独部署 Redis。
+ * 参数（--key=value）：
+ * --server=embedded（默认，embedded-redis 附带的真实 redis-server）或 stand-in（{@link RespStandInServer}，
+ * 只用于没有可执行 redis-server 的平台，项目 resources/lua 下的脚本不可用，依赖这些脚本的接口会计入错误）
+ * --duration-seconds=30 --warmup-seconds=5 --threads.getToken=8 --threads.testIdempotent=8 --threads.testLocal=1 --threads.addCache=8
+ * --max-p99-ms.接口名=N、--min-throughput.接口名=N：超过阈值时进程退出码为1，用于在普通Linux机器上发现性能回归；
+ * --spring.*、--redis.* 参数原样传给应用，如 --redis.client.type=lettuce-shared
+ * @Date 2026/10/19 16:20
+ * @Version 1.0
+ */
+public class LoadHarness {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadHarness.class);
+
+    private static final String GET_TOKEN = "getToken";
+    private static final String TEST_IDEMPOTENT = "testIdempotent";
+    private static final String TEST_LOCAL = "testLocal";
+    private static final String ADD_CACHE = "addCache";
+
+    private final Map<String, String> options;
+
+    private String baseUrl;
+
+    public LoadHarness(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        // devtools 的重启会重新执行 main 方法，压测时关闭
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        Map<String, String> options = new LinkedHashMap<>();
+        List<String> appArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--spring.") || arg.startsWith("--redis.")) {
+                appArgs.add(arg);
+            } else if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        int exitCode;
+        try (RespStandInServer standIn = "stand-in".equals(options.get("server")) ? new RespStandInServer(0) : null) {
+            int redisPort = standIn != null ? standIn.getPort() : EmbeddedRedis.port();
+            appArgs.add("--spring.redis.host=127.0.0.1");
+            appArgs.add("--spring.redis.port=" + redisPort);
+            if (standIn == null) {
+                appArgs.add("--spring.redis.password=" + EmbeddedRedis.PASSWORD);
+            }
+            appArgs.add("--server.port=0");
+            ConfigurableApplicationContext context = SpringApplication.run(SpringbootRedisApplication.class, appArgs.toArray(new String[0]));
+            try {
+                int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+                exitCode = new LoadHarness(options).run("http://127.0.0.1:" + port);
+            } finally {
+                context.close();
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    /**
+     * 执行压测并输出结果
+     *
+     * @param baseUrl 应用地址
+     * @return 0: 通过；1: 超过阈值
+     */
+    public int run(String baseUrl) throws InterruptedException {
+        this.baseUrl = baseUrl;
+        Map<String, Integer> threads = new LinkedHashMap<>();
+        threads.put(GET_TOKEN, intOption("threads." + GET_TOKEN, 8));
+        threads.put(TEST_IDEMPOTENT, intOption("threads." + TEST_IDEMPOTENT, 8));
+        threads.put(TEST_LOCAL, intOption("threads." + TEST_LOCAL, 1));
+        threads.put(ADD_CACHE, intOption("threads." + ADD_CACHE, 8));
+
+        runFor(threads, intOption("warmup-seconds", 5));
+        long start = System.nanoTime();
+        Map<String, List<LatencyRecorder>> recorders = runFor(threads, intOption("duration-seconds", 30));
+        long elapsed = System.nanoTime() - start;
+
+        StringBuilder report = new StringBuilder();
+        int exitCode = 0;
+        for (Map.Entry<String, List<LatencyRecorder>> entry : recorders.entrySet()) {
+            String endpoint = entry.getKey();
+            LatencyRecorder merged = LatencyRecorder.merge(entry.getValue());
+            report.append('\n').append(merged.report(endpoint, elapsed));
+            double p99Millis = merged.percentileMicros(99) / 1000;
+            double throughput = merged.count() / (elapsed / 1_000_000_000.0);
+            String maxP99 = options.get("max-p99-ms." + endpoint);
+            if (maxP99 != null && p99Millis > Double.parseDouble(maxP99)) {
+                report.append("  <-- p99 超过阈值 ").append(maxP99).append("ms");
+                exitCode = 1;
+            }
+            String minThroughput = options.get("min-throughput." + endpoint);
+            if (minThroughput != null && throughput < Double.parseDouble(minThroughput)) {
+                report.append("  <-- 吞吐量低于阈值 ").append(minThroughput).append("/s");
+                exitCode = 1;
+            }
+        }
+        log.info("端到端压测结果:{}", report);
+        return exitCode;
+    }
+
+    private Map<String, List<LatencyRecorder>> runFor(Map<String, Integer> threads, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        int total = 0;
+        for (Integer count : threads.values()) {
+            total += count;
+        }
+        CountDownLatch done = new CountDownLatch(total);
+        Map<String, List<LatencyRecorder>> recorders = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : threads.entrySet()) {
+            String endpoint = entry.getKey();
+            List<LatencyRecorder> endpointRecorders = new ArrayList<>();
+            recorders.put(endpoint, endpointRecorders);
+            for (int i = 0; i < entry.getValue(); i++) {
+                LatencyRecorder recorder = new LatencyRecorder();
+                endpointRecorders.add(recorder);
+                Thread worker = new Thread(() -> {
+                    try {
+                        while (System.nanoTime() < deadline) {
+                            request(endpoint, recorder);
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }, "load-" + endpoint + "-" + i);
+                worker.setDaemon(true);
+                worker.start();
+            }
+        }
+        done.await();
+        return recorders;
+    }
+
+    /**
+     * 请求一次接口并记录耗时，/testIdempotent 先获取Token（不计入耗时）
+     */
+    private void request(String endpoint, LatencyRecorder recorder) {
+        try {
+            String method = "GET";
+            String path;
+            String token = null;
+            switch (endpoint) {
+                case TEST_IDEMPOTENT:
+                    token = call("GET", "/getToken", null);
+                    method = "POST";
+                    path = "/testIdempotent";
+                    break;
+                case ADD_CACHE:
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    path = "/addCache" + (random.nextInt(3) + 1) + "?count=" + random.nextInt(100);
+                    break;
+                default:
+                    path = "/" + endpoint;
+            }
+            long begin = System.nanoTime();
+            call(method, path, token);
+            recorder.record(System.nanoTime() - begin);
+        } catch (IOException e) {
+            recorder.error();
+        }
+    }
+
+    private String call(String method, String path, String token) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(5000);
+        connection.setReadTimeout(120_000);
+        if (token != null) {
+            connection.setRequestProperty("token", token);
+        }
+        int status = connection.getResponseCode();
+        InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        String content = readFully(body);
+        if (status >= 400) {
+            throw new IOException(method + " " + path + " 返回 " + status);
+        }
+        return content;
+    }
+
+    private static String readFully(InputStream in) throws IOException {
+        if (in == null) {
+            return "";
+        }
+        try (InputStream stream = in) {
+            // 读完整个响应后再解码，多字节字符可能跨越两次 read
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int n;
+            while ((n = stream.read(buffer)) > 0) {
+                content.write(buffer, 0, n);
+            }
+            return new String(content.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private int intOption(String name, int defaultValue) {
+        String value = options.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+}
@@ -0,0 +1,184 @@
+package com.dw.study.benchmark;
+
+import com.dw.study.SpringbootRedisApplication;
+import com.dw.study.config.RedisClientProperties.ClientType;
+import com.dw.study.config.RedisConfig;
+import com.dw.study.config.RedisConnectionFactoryBuilder;
+import com.dw.study.support.EmbeddedRedis;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.spring.data.connection.RedissonConnectionFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author dw
+ * @ClassName RedisClientBenchmark
+ * @Description 对比 Lettuce共享连接、Lettuce连接池、Redisson 三种客户端在本项目访问模型下的吞吐量和延迟。
+ * 访问模型：40% 缓存读、15% 缓存写(带过期时间)、15% 幂等Token(set+hasKey+del)、15% hash读、10% multiGet(10个key)、5% 分布式锁
+ * 启动方式：运行 main 方法（test classpath），默认压测 {@link EmbeddedRedis}，
+ * 传入 --spring.redis.host=... 等参数时压测指定的Redis；redis.benchmark.* 见 application-benchmark.yml
+ * @Date 2026/10/19 11:40
+ * @Version 1.0
+ */
+@Slf4j
+@Component
+@Profile("benchmark")
+public class RedisClientBenchmark implements CommandLineRunner {
+
+    private static final String KEY_PREFIX = "benchmark:";
+
+    @Autowired
+    private RedisProperties redisProperties;
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Value("${redis.benchmark.clients:LETTUCE_SHARED,LETTUCE_POOLED,REDISSON}")
+    private List<ClientType> clients;
+
+    @Value("${redis.benchmark.threads:64}")
+    private int threads;
+
+    @Value("${redis.benchmark.warmup-seconds:5}")
+    private int warmupSeconds;
+
+    @Value("${redis.benchmark.duration-seconds:30}")
+    private int durationSeconds;
+
+    @Value("${redis.benchmark.key-space:10000}")
+    private int keySpace;
+
+    public static void main(String[] args) {
+        // devtools 的重启会重新执行 main 方法，压测时关闭
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<String> appArgs = new ArrayList<>(Arrays.asList(args));
+        appArgs.add("--spring.profiles.active=benchmark");
+        if (appArgs.stream().noneMatch(arg -> arg.startsWith("--spring.redis.host="))) {
+            appArgs.add("--spring.redis.host=127.0.0.1");
+            appArgs.add("--spring.redis.port=" + EmbeddedRedis.port());
+            appArgs.add("--spring.redis.password=" + EmbeddedRedis.PASSWORD);
+        }
+        System.exit(SpringApplication.exit(SpringApplication.run(SpringbootRedisApplication.class, appArgs.toArray(new String[0]))));
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        List<String> reports = new ArrayList<>();
+        for (ClientType client : clients) {
+            RedisConnectionFactory factory = createFactory(client);
+            try {
+                RedisTemplate<String, Object> template = RedisConfig.createRedisTemplate(factory);
+                template.afterPropertiesSet();
+                preload(template);
+                runFor(template, warmupSeconds);
+                long start = System.nanoTime();
+                LatencyRecorder recorder = runFor(template, durationSeconds);
+                reports.add(recorder.report(client.name(), System.nanoTime() - start));
+            } finally {
+                if (factory instanceof DisposableBean) {
+                    ((DisposableBean) factory).destroy();
+                }
+            }
+        }
+        log.info("Redis客户端压测结果（threads={}, duration={}s）:\n{}", threads, durationSeconds, String.join("\n", reports));
+    }
+
+    private RedisConnectionFactory createFactory(ClientType client) throws Exception {
+        RedisConnectionFactory factory = client == ClientType.REDISSON
+                ? new RedissonConnectionFactory(redissonClient)
+                : new RedisConnectionFactoryBuilder(redisProperties).lettuce(client == ClientType.LETTUCE_POOLED);
+        ((InitializingBean) factory).afterPropertiesSet();
+        return factory;
+    }
+
+    private void preload(RedisTemplate<String, Object> template) {
+        Map<String, Object> values = new HashMap<>();
+        Map<String, String> hash = new HashMap<>();
+        for (int i = 0; i < keySpace; i++) {
+            values.put(KEY_PREFIX + "cache:" + i, "count==" + i);
+            hash.put(String.valueOf(i), "value" + i);
+        }
+        template.opsForValue().multiSet(values);
+        template.opsForHash().putAll(KEY_PREFIX + "hash", hash);
+    }
+
+    private LatencyRecorder runFor(RedisTemplate<String, Object> template, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<LatencyRecorder> recorders = new ArrayList<>(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            LatencyRecorder recorder = new LatencyRecorder();
+            recorders.add(recorder);
+            Thread worker = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        long begin = System.nanoTime();
+                        try {
+                            execute(template);
+                            recorder.record(System.nanoTime() - begin);
+                        } catch (Exception e) {
+                            recorder.error();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "redis-benchmark-" + i);
+            worker.start();
+        }
+        done.await();
+        return LatencyRecorder.merge(recorders);
+    }
+
+    /**
+     * 按访问模型随机执行一次操作
+     */
+    private void execute(RedisTemplate<String, Object> template) throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int dice = random.nextInt(100);
+        String key = KEY_PREFIX + "cache:" + random.nextInt(keySpace);
+        if (dice < 40) {
+            template.opsForValue().get(key);
+        } else if (dice < 55) {
+            template.opsForValue().set(key, "count==" + dice, 600, TimeUnit.SECONDS);
+        } else if (dice < 70) {
+            String token = KEY_PREFIX + "token:" + random.nextLong();
+            template.opsForValue().set(token, token, 10000, TimeUnit.SECONDS);
+            template.hasKey(token);
+            template.delete(token);
+        } else if (dice < 85) {
+            template.opsForHash().get(KEY_PREFIX + "hash", String.valueOf(random.nextInt(keySpace)));
+        } else if (dice < 95) {
+            List<String> keys = new ArrayList<>(10);
+            for (int i = 0; i < 10; i++) {
+                keys.add(KEY_PREFIX + "cache:" + random.nextInt(keySpace));
+            }
+            template.opsForValue().multiGet(keys);
+        } else {
+            RLock lock = redissonClient.getLock(KEY_PREFIX + "lock:" + random.nextInt(100));
+            if (lock.tryLock(1, 5, TimeUnit.SECONDS)) {
+                lock.unlock();
+            }
+        }
+    }
+}
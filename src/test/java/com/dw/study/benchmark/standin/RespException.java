@@ -0,0 +1,27 @@
+package com.dw.study.benchmark.standin;
+
+/**
+ * @Author dw
+ * @ClassName RespException
+ * @Description 命令执行失败，message 作为 RESP 错误回复返回给客户端（如 "ERR syntax error"）
+ * @Date 2026/10/19 15:00
+ * @Version 1.0
+ */
+public class RespException extends RuntimeException {
+
+    public static final String WRONG_TYPE = "WRONGTYPE Operation against a key holding the wrong kind of value";
+
+    public static final String NOT_INTEGER = "ERR value is not an integer or out of range";
+
+    public static final String NOT_FLOAT = "ERR value is not a valid float";
+
+    public static final String SYNTAX = "ERR syntax error";
+
+    public RespException(String message) {
+        super(message, null, false, false);
+    }
+
+    public static RespException wrongArgs(String command) {
+        return new RespException("ERR wrong number of arguments for '" + command.toLowerCase() + "' command");
+    }
+}
@@ -0,0 +1,448 @@
+package com.dw.study.benchmark.standin;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * @Author dw
+ * @ClassName RespStandInServer
+ * @Description 进程内的 Redis 替身服务（RESP2协议），用于没有真实 Redis 的机器上压测和排查性能回归。
+ * 每个连接一个线程，所有命令在同一把锁内串行执行（与 Redis 单线程模型一致），支持管道和发布订阅。
+ * 单独启动：java -cp ... com.dw.study.benchmark.standin.RespStandInServer [port]，
+ * 应用指向替身：--spring.redis.host=127.0.0.1 --spring.redis.port=port
+ * @Date 2026/10/19 15:50
+ * @Version 1.0
+ */
+public class RespStandInServer implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(RespStandInServer.class);
+
+    private final ReentrantLock commandLock = new ReentrantLock();
+
+    private final Map<String, Set<Client>> channels = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<Client>> patterns = new ConcurrentHashMap<>();
+
+    private final Set<Client> clients = new CopyOnWriteArraySet<>();
+
+    private final AtomicInteger clientIds = new AtomicInteger();
+
+    private final StandInDataStore store = new StandInDataStore(this::publish);
+
+    private final ServerSocket serverSocket;
+
+    private volatile boolean running = true;
+
+    /**
+     * 启动替身服务，只监听本机地址
+     *
+     * @param port 端口，0表示随机端口
+     * @throws IOException
+     */
+    public RespStandInServer(int port) throws IOException {
+        this.serverSocket = new ServerSocket(port, 512, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "resp-stand-in-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("Redis替身服务已启动，端口: {}", getPort());
+    }
+
+    public static void main(String[] args) throws Exception {
+        RespStandInServer server = new RespStandInServer(args.length > 0 ? Integer.parseInt(args[0]) : 6379);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        Thread.currentThread().join();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            log.warn("关闭Redis替身服务失败: {}", e.getMessage());
+        }
+        for (Client client : clients) {
+            client.close();
+        }
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Client client = new Client(socket);
+                clients.add(client);
+                Thread thread = new Thread(client, "resp-stand-in-client-" + clientIds.incrementAndGet());
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                if (running) {
+                    log.error("Redis替身服务接收连接失败: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 串行执行一条命令
+     */
+    private Object execute(List<String> command) {
+        commandLock.lock();
+        try {
+            return store.execute(command);
+        } catch (RespException e) {
+            return e;
+        } finally {
+            commandLock.unlock();
+        }
+    }
+
+    private long publish(String channel, String message) {
+        long receivers = 0;
+        Set<Client> subscribers = channels.get(channel);
+        if (subscribers != null) {
+            for (Client client : subscribers) {
+                client.push(Arrays.<Object>asList("message", channel, message));
+                receivers++;
+            }
+        }
+        for (Map.Entry<String, Set<Client>> entry : patterns.entrySet()) {
+            if (!globMatches(entry.getKey(), channel)) {
+                continue;
+            }
+            for (Client client : entry.getValue()) {
+                client.push(Arrays.<Object>asList("pmessage", entry.getKey(), channel, message));
+                receivers++;
+            }
+        }
+        return receivers;
+    }
+
+    private static boolean globMatches(String glob, String value) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            regex.append(c == '*' ? ".*" : c == '?' ? "." : Pattern.quote(String.valueOf(c)));
+        }
+        return value.matches(regex.toString());
+    }
+
+    /**
+     * 一个客户端连接
+     */
+    private final class Client implements Runnable {
+
+        private final Socket socket;
+
+        private final InputStream in;
+
+        private final OutputStream rawOut;
+
+        private final RespWriter writer;
+
+        private final Set<String> subscribedChannels = new LinkedHashSet<>();
+
+        private final Set<String> subscribedPatterns = new LinkedHashSet<>();
+
+        private Client(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream(), 16 * 1024);
+            this.rawOut = new BufferedOutputStream(socket.getOutputStream(), 16 * 1024);
+            this.writer = new RespWriter(rawOut);
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<String> command;
+                while ((command = readCommand()) != null) {
+                    if (command.isEmpty()) {
+                        continue;
+                    }
+                    Object reply = handle(command);
+                    if (reply == null && isQuit(command)) {
+                        break;
+                    }
+                    synchronized (this) {
+                        if (reply != NO_REPLY) {
+                            writer.write(reply);
+                        }
+                        // 管道中还有后续命令时先不刷新，减少系统调用
+                        if (in.available() == 0) {
+                            writer.flush();
+                        }
+                    }
+                }
+            } catch (EOFException | SocketException e) {
+                // 客户端断开
+            } catch (IOException e) {
+                log.warn("Redis替身连接异常: {}", e.getMessage());
+            } finally {
+                close();
+            }
+        }
+
+        private boolean isQuit(List<String> command) {
+            return "QUIT".equalsIgnoreCase(command.get(0));
+        }
+
+        private Object handle(List<String> command) {
+            String name = command.get(0).toUpperCase();
+            switch (name) {
+                case "QUIT":
+                    synchronized (this) {
+                        try {
+                            writer.write(RespWriter.OK);
+                            writer.flush();
+                        } catch (IOException ignored) {
+                            // 忽略
+                        }
+                    }
+                    return null;
+                case "HELLO":
+                    // 只支持 RESP2，Lettuce 收到该错误后会退回 RESP2 握手
+                    return new RespException("ERR unknown command 'HELLO'");
+                case "SUBSCRIBE":
+                    return subscribe(command, channels, subscribedChannels, "subscribe");
+                case "PSUBSCRIBE":
+                    return subscribe(command, patterns, subscribedPatterns, "psubscribe");
+                case "UNSUBSCRIBE":
+                    return unsubscribe(command, channels, subscribedChannels, "unsubscribe");
+                case "PUNSUBSCRIBE":
+                    return unsubscribe(command, patterns, subscribedPatterns, "punsubscribe");
+                case "BRPOPLPUSH":
+                    return blockingExecute(command, command.get(command.size() - 1));
+                case "XREADGROUP": {
+                    int block = blockOption(command);
+                    return block < 0 ? execute(command) : blockingExecute(command, block);
+                }
+                case "PING":
+                    if (subscriptionCount() > 0) {
+                        return Arrays.<Object>asList("pong", command.size() > 1 ? command.get(1) : "");
+                    }
+                    return execute(command);
+                default:
+                    if (subscriptionCount() > 0) {
+                        return new RespException("ERR only (P)SUBSCRIBE / (P)UNSUBSCRIBE / PING / QUIT allowed in this context");
+                    }
+                    return execute(command);
+            }
+        }
+
+        /**
+         * 阻塞命令：在锁外按固定间隔重试，直到取到元素或超时（0表示一直等待）
+         *
+         * @param timeoutSeconds 超时时间（秒）
+         */
+        private Object blockingExecute(List<String> command, String timeoutSeconds) {
+            double timeout;
+            try {
+                timeout = Double.parseDouble(timeoutSeconds);
+            } catch (NumberFormatException e) {
+                return new RespException("ERR timeout is not a float or out of range");
+            }
+            long deadline = System.nanoTime() + (long) (timeout * 1_000_000_000L);
+            while (true) {
+                Object reply = execute(command);
+                boolean empty = reply == null || reply == RespWriter.NULL_ARRAY;
+                if (!empty || (timeout > 0 && System.nanoTime() >= deadline) || !running) {
+                    return reply;
+                }
+                try {
+                    Thread.sleep(BLOCKING_POLL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return reply;
+                }
+            }
+        }
+
+        private Object blockingExecute(List<String> command, int blockArgIndex) {
+            try {
+                return blockingExecute(command, String.valueOf(Long.parseLong(command.get(blockArgIndex)) / 1000.0));
+            } catch (NumberFormatException e) {
+                return new RespException("ERR timeout is not an integer or out of range");
+            }
+        }
+
+        /**
+         * XREAD/XREADGROUP 中 BLOCK 参数值的下标，没有 BLOCK 时返回-1
+         */
+        private int blockOption(List<String> command) {
+            for (int i = 1; i + 1 < command.size() && !"STREAMS".equalsIgnoreCase(command.get(i)); i++) {
+                if ("BLOCK".equalsIgnoreCase(command.get(i))) {
+                    return i + 1;
+                }
+            }
+            return -1;
+        }
+
+        private Object subscribe(List<String> command, Map<String, Set<Client>> registry, Set<String> own, String kind) {
+            synchronized (this) {
+                try {
+                    for (String channel : command.subList(1, command.size())) {
+                        own.add(channel);
+                        registry.computeIfAbsent(channel, c -> new CopyOnWriteArraySet<>()).add(this);
+                        writer.write(Arrays.<Object>asList(kind, channel, (long) subscriptionCount()));
+                    }
+                } catch (IOException e) {
+                    close();
+                }
+            }
+            return NO_REPLY;
+        }
+
+        private Object unsubscribe(List<String> command, Map<String, Set<Client>> registry, Set<String> own, String kind) {
+            List<String> targets = command.size() > 1 ? command.subList(1, command.size()) : new ArrayList<>(own);
+            synchronized (this) {
+                try {
+                    if (targets.isEmpty()) {
+                        writer.write(Arrays.<Object>asList(kind, null, (long) subscriptionCount()));
+                    }
+                    for (String channel : targets) {
+                        own.remove(channel);
+                        Set<Client> subscribers = registry.get(channel);
+                        if (subscribers != null) {
+                            subscribers.remove(this);
+                        }
+                        writer.write(Arrays.<Object>asList(kind, channel, (long) subscriptionCount()));
+                    }
+                } catch (IOException e) {
+                    close();
+                }
+            }
+            return NO_REPLY;
+        }
+
+        private int subscriptionCount() {
+            return subscribedChannels.size() + subscribedPatterns.size();
+        }
+
+        /**
+         * 推送订阅消息（由发布线程调用）
+         */
+        private void push(List<Object> message) {
+            synchronized (this) {
+                try {
+                    writer.write(message);
+                    writer.flush();
+                } catch (IOException e) {
+                    close();
+                }
+            }
+        }
+
+        /**
+         * 读取一条命令：RESP数组或者 telnet/redis-cli 的内联命令
+         */
+        private List<String> readCommand() throws IOException {
+            int first = in.read();
+            if (first < 0) {
+                return null;
+            }
+            if (first != '*') {
+                String line = ((char) first) + readLine();
+                List<String> inline = new ArrayList<>();
+                for (String part : line.trim().split("\\s+")) {
+                    if (!part.isEmpty()) {
+                        inline.add(part);
+                    }
+                }
+                return inline;
+            }
+            int count = Integer.parseInt(readLine());
+            List<String> command = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                if (in.read() != '$') {
+                    throw new IOException("Protocol error: expected '$'");
+                }
+                int length = Integer.parseInt(readLine());
+                byte[] bytes = new byte[length];
+                int read = 0;
+                while (read < length) {
+                    int n = in.read(bytes, read, length - read);
+                    if (n < 0) {
+                        throw new EOFException();
+                    }
+                    read += n;
+                }
+                in.read();
+                in.read();
+                command.add(new String(bytes, StandardCharsets.ISO_8859_1));
+            }
+            return command;
+        }
+
+        private String readLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = in.read()) != '\r') {
+                if (c < 0) {
+                    throw new EOFException();
+                }
+                line.append((char) c);
+            }
+            in.read();
+            return line.toString();
+        }
+
+        private void close() {
+            clients.remove(this);
+            for (String channel : subscribedChannels) {
+                Set<Client> subscribers = channels.get(channel);
+                if (subscribers != null) {
+                    subscribers.remove(this);
+                }
+            }
+            for (String pattern : subscribedPatterns) {
+                Set<Client> subscribers = patterns.get(pattern);
+                if (subscribers != null) {
+                    subscribers.remove(this);
+                }
+            }
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // 忽略
+            }
+        }
+    }
+
+    /**
+     * 已经直接写出回复的命令（订阅类命令每个频道一条回复）
+     */
+    private static final Object NO_REPLY = new Object();
+
+    /**
+     * 阻塞命令的重试间隔
+     */
+    private static final long BLOCKING_POLL_MILLIS = 5;
+}
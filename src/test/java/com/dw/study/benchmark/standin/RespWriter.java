@@ -0,0 +1,88 @@
+package com.dw.study.benchmark.standin;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * @Author dw
+ * @ClassName RespWriter
+ * @Description RESP2 回复编码。命令的返回值约定：String -> 批量字符串(ISO-8859-1 按字节还原)、Long/Integer -> 整数、
+ * List -> 数组、null -> 空批量字符串、{@link Status} -> 简单字符串、{@link #NULL_ARRAY} -> 空数组、RespException -> 错误
+ * @Date 2026/10/19 15:05
+ * @Version 1.0
+ */
+public class RespWriter {
+
+    public static final Object NULL_ARRAY = new Object();
+
+    public static final Status OK = new Status("OK");
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final OutputStream out;
+
+    public RespWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    public void write(Object reply) throws IOException {
+        if (reply == null) {
+            out.write('$');
+            out.write('-');
+            out.write('1');
+            out.write(CRLF);
+        } else if (reply == NULL_ARRAY) {
+            out.write('*');
+            out.write('-');
+            out.write('1');
+            out.write(CRLF);
+        } else if (reply instanceof Status) {
+            out.write('+');
+            out.write(((Status) reply).text.getBytes(StandardCharsets.ISO_8859_1));
+            out.write(CRLF);
+        } else if (reply instanceof RespException) {
+            out.write('-');
+            out.write(((RespException) reply).getMessage().getBytes(StandardCharsets.UTF_8));
+            out.write(CRLF);
+        } else if (reply instanceof Number) {
+            out.write(':');
+            out.write(String.valueOf(((Number) reply).longValue()).getBytes(StandardCharsets.ISO_8859_1));
+            out.write(CRLF);
+        } else if (reply instanceof String) {
+            byte[] bytes = ((String) reply).getBytes(StandardCharsets.ISO_8859_1);
+            out.write('$');
+            out.write(String.valueOf(bytes.length).getBytes(StandardCharsets.ISO_8859_1));
+            out.write(CRLF);
+            out.write(bytes);
+            out.write(CRLF);
+        } else if (reply instanceof List) {
+            List<?> list = (List<?>) reply;
+            out.write('*');
+            out.write(String.valueOf(list.size()).getBytes(StandardCharsets.ISO_8859_1));
+            out.write(CRLF);
+            for (Object item : list) {
+                write(item);
+            }
+        } else {
+            throw new IllegalArgumentException("不支持的回复类型: " + reply.getClass());
+        }
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * 简单字符串回复，如 +OK、+PONG
+     */
+    public static final class Status {
+
+        private final String text;
+
+        public Status(String text) {
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,1557 @@
+package com.dw.study.benchmark.standin;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * @Author dw
+ * @ClassName StandInDataStore
+ * @Description 压测用 Redis 替身的数据存储和命令实现，覆盖 RedisUtils、RedisCacheManager、Redisson分布式锁、RedisWorkQueue、RedisStreams、RedisDelayQueue、RedisIntrospectionService 用到的命令（MEMORY USAGE 为估算值）。
+ * 与 Redis 一样所有命令串行执行（由调用方在同一把锁内调用 execute），key/value 以 ISO-8859-1 字符串保存，按字节无损。
+ * 不包含 Lua 解释器，EVAL/EVALSHA 只支持 {@link StandInScripts} 中注册过的 Redisson 内部脚本，
+ * 项目 resources/lua 下的脚本只在真实 Redis 上测试（见 EmbeddedRedis）
+ * @Date 2026/10/19 15:10
+ * @Version 1.0
+ */
+public class StandInDataStore {
+
+    /**
+     * 发布消息（PUBLISH 以及脚本中的 redis.call('publish', ...)）
+     */
+    public interface Publisher {
+        long publish(String channel, String message);
+    }
+
+    private static final double EARTH_RADIUS_METERS = 6372797.560856;
+
+    private final Map<String, Entry> data = new HashMap<>();
+
+    private final Map<String, String> scriptsBySha = new HashMap<>();
+
+    private final Publisher publisher;
+
+    private final StandInScripts scripts = new StandInScripts();
+
+    /**
+     * 慢日志，最新的在前，与 Redis 的 slowlog-max-len 默认值一样最多保留128条
+     */
+    private final LinkedList<List<Object>> slowlog = new LinkedList<>();
+
+    private static final int SLOWLOG_MAX_LEN = 128;
+
+    private long slowlogSlowerThan = 10000;
+
+    private long slowlogNextId;
+
+    /**
+     * 命令嵌套深度，脚本内部 redis.call 执行的命令不记录慢日志
+     */
+    private int depth;
+
+    public StandInDataStore(Publisher publisher) {
+        this.publisher = publisher;
+    }
+
+    private static final class Entry {
+        private Object value;
+        private long expireAt;
+
+        private Entry(Object value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * HyperLogLog：替身按集合精确计数，TYPE 与 Redis 一样返回 string
+     */
+    private static final class HyperLogLog {
+        private final Set<String> elements = new HashSet<>();
+    }
+
+    /**
+     * GEO数据：成员 -> {经度, 纬度}，TYPE 返回 zset
+     */
+    private static final class GeoSet extends LinkedHashMap<String, double[]> {
+    }
+
+    /**
+     * 执行一条命令
+     *
+     * @param args 命令名 + 参数
+     * @return 回复，约定见 {@link RespWriter}
+     */
+    public Object execute(List<String> args) {
+        long start = System.nanoTime();
+        depth++;
+        try {
+            return dispatch(args);
+        } finally {
+            depth--;
+            if (depth == 0) {
+                recordSlowlog(args, (System.nanoTime() - start) / 1000);
+            }
+        }
+    }
+
+    private Object dispatch(List<String> args) {
+        String command = args.get(0).toUpperCase();
+        switch (command) {
+            // ---------------- 连接 ----------------
+            case "PING":
+                return args.size() > 1 ? args.get(1) : new RespWriter.Status("PONG");
+            case "ECHO":
+                return arg(args, 1);
+            case "AUTH":
+            case "SELECT":
+            case "READONLY":
+                return RespWriter.OK;
+            case "CLIENT":
+                return "GETNAME".equalsIgnoreCase(arg(args, 1)) ? null : RespWriter.OK;
+            case "INFO":
+                return "# Server\r\nredis_version:5.0.14\r\nredis_mode:standalone\r\n"
+                        + "# Replication\r\nrole:master\r\nconnected_slaves:0\r\n"
+                        + "# Keyspace\r\ndb0:keys=" + data.size() + ",expires=0,avg_ttl=0\r\n";
+            case "CONFIG":
+                if ("SET".equalsIgnoreCase(arg(args, 1)) && "slowlog-log-slower-than".equalsIgnoreCase(arg(args, 2))) {
+                    slowlogSlowerThan = parseLong(arg(args, 3));
+                    return RespWriter.OK;
+                }
+                return Collections.emptyList();
+            case "COMMAND":
+                return Collections.emptyList();
+            case "SLOWLOG":
+                return slowlogCommand(args);
+            case "MEMORY":
+                if (!"USAGE".equalsIgnoreCase(arg(args, 1))) {
+                    throw new RespException("ERR unknown subcommand '" + arg(args, 1) + "'");
+                }
+                return memoryUsage(arg(args, 2));
+            case "DBSIZE":
+                purgeExpired();
+                return (long) data.size();
+            case "FLUSHDB":
+            case "FLUSHALL":
+                data.clear();
+                return RespWriter.OK;
+            // ---------------- key ----------------
+            case "DEL":
+            case "UNLINK":
+                return del(args.subList(1, args.size()));
+            case "EXISTS": {
+                long count = 0;
+                for (String key : args.subList(1, args.size())) {
+                    count += entry(key) != null ? 1 : 0;
+                }
+                return count;
+            }
+            case "TYPE":
+                return new RespWriter.Status(type(entry(arg(args, 1))));
+            case "EXPIRE":
+                return expireAt(arg(args, 1), System.currentTimeMillis() + parseLong(arg(args, 2)) * 1000);
+            case "PEXPIRE":
+                return expireAt(arg(args, 1), System.currentTimeMillis() + parseLong(arg(args, 2)));
+            case "EXPIREAT":
+                return expireAt(arg(args, 1), parseLong(arg(args, 2)) * 1000);
+            case "PEXPIREAT":
+                return expireAt(arg(args, 1), parseLong(arg(args, 2)));
+            case "TTL": {
+                long pttl = pttl(arg(args, 1));
+                return pttl < 0 ? pttl : (pttl + 500) / 1000;
+            }
+            case "PTTL":
+                return pttl(arg(args, 1));
+            case "PERSIST": {
+                Entry entry = entry(arg(args, 1));
+                if (entry == null || entry.expireAt == 0) {
+                    return 0L;
+                }
+                entry.expireAt = 0;
+                return 1L;
+            }
+            case "RENAME":
+            case "RENAMENX": {
+                Entry entry = entry(arg(args, 1));
+                if (entry == null) {
+                    throw new RespException("ERR no such key");
+                }
+                if ("RENAMENX".equals(command) && entry(arg(args, 2)) != null) {
+                    return 0L;
+                }
+                data.remove(args.get(1));
+                data.put(args.get(2), entry);
+                return "RENAMENX".equals(command) ? (Object) 1L : RespWriter.OK;
+            }
+            case "KEYS": {
+                Pattern pattern = globToRegex(arg(args, 1));
+                List<Object> keys = new ArrayList<>();
+                for (String key : liveKeys()) {
+                    if (pattern.matcher(key).matches()) {
+                        keys.add(key);
+                    }
+                }
+                return keys;
+            }
+            case "SCAN":
+                return scan(args);
+            // ---------------- string ----------------
+            case "GET":
+                return getString(arg(args, 1));
+            case "SET":
+                return set(args);
+            case "SETEX":
+                checkArgs(args, 4);
+                putString(args.get(1), args.get(3), System.currentTimeMillis() + parseLong(args.get(2)) * 1000);
+                return RespWriter.OK;
+            case "PSETEX":
+                checkArgs(args, 4);
+                putString(args.get(1), args.get(3), System.currentTimeMillis() + parseLong(args.get(2)));
+                return RespWriter.OK;
+            case "SETNX":
+                checkArgs(args, 3);
+                if (entry(args.get(1)) != null) {
+                    return 0L;
+                }
+                putString(args.get(1), args.get(2), 0);
+                return 1L;
+            case "GETSET": {
+                checkArgs(args, 3);
+                String old = getString(args.get(1));
+                putString(args.get(1), args.get(2), 0);
+                return old;
+            }
+            case "MGET": {
+                List<Object> values = new ArrayList<>(args.size() - 1);
+                for (String key : args.subList(1, args.size())) {
+                    Entry entry = entry(key);
+                    values.add(entry != null && entry.value instanceof String ? entry.value : null);
+                }
+                return values;
+            }
+            case "MSET":
+                for (int i = 1; i + 1 < args.size(); i += 2) {
+                    putString(args.get(i), args.get(i + 1), 0);
+                }
+                return RespWriter.OK;
+            case "MSETNX":
+                for (int i = 1; i + 1 < args.size(); i += 2) {
+                    if (entry(args.get(i)) != null) {
+                        return 0L;
+                    }
+                }
+                for (int i = 1; i + 1 < args.size(); i += 2) {
+                    putString(args.get(i), args.get(i + 1), 0);
+                }
+                return 1L;
+            case "APPEND": {
+                String old = getString(arg(args, 1));
+                String value = (old == null ? "" : old) + arg(args, 2);
+                putStringKeepTtl(args.get(1), value);
+                return (long) value.length();
+            }
+            case "STRLEN": {
+                String value = getString(arg(args, 1));
+                return value == null ? 0L : (long) value.length();
+            }
+            case "INCR":
+                return incrBy(arg(args, 1), 1);
+            case "DECR":
+                return incrBy(arg(args, 1), -1);
+            case "INCRBY":
+                return incrBy(arg(args, 1), parseLong(arg(args, 2)));
+            case "DECRBY":
+                return incrBy(arg(args, 1), -parseLong(arg(args, 2)));
+            case "INCRBYFLOAT": {
+                String old = getString(arg(args, 1));
+                double value = (old == null ? 0 : parseDouble(old)) + parseDouble(arg(args, 2));
+                String formatted = formatDouble(value);
+                putStringKeepTtl(args.get(1), formatted);
+                return formatted;
+            }
+            // ---------------- hash ----------------
+            case "HSET":
+            case "HMSET": {
+                Map<String, String> hash = getOrCreate(arg(args, 1), LinkedHashMap::new, Map.class);
+                long added = 0;
+                for (int i = 2; i + 1 < args.size(); i += 2) {
+                    added += hash.put(args.get(i), args.get(i + 1)) == null ? 1 : 0;
+                }
+                return "HMSET".equals(command) ? (Object) RespWriter.OK : (Object) added;
+            }
+            case "HSETNX": {
+                Map<String, String> hash = getOrCreate(arg(args, 1), LinkedHashMap::new, Map.class);
+                if (hash.containsKey(arg(args, 2))) {
+                    return 0L;
+                }
+                hash.put(args.get(2), arg(args, 3));
+                return 1L;
+            }
+            case "HGET": {
+                Map<String, String> hash = getTyped(arg(args, 1), Map.class);
+                return hash == null ? null : hash.get(arg(args, 2));
+            }
+            case "HMGET": {
+                Map<String, String> hash = getTyped(arg(args, 1), Map.class);
+                List<Object> values = new ArrayList<>();
+                for (String field : args.subList(2, args.size())) {
+                    values.add(hash == null ? null : hash.get(field));
+                }
+                return values;
+            }
+            case "HGETALL": {
+                Map<String, String> hash = getTyped(arg(args, 1), Map.class);
+                List<Object> values = new ArrayList<>();
+                if (hash != null) {
+                    for (Map.Entry<String, String> field : hash.entrySet()) {
+                        values.add(field.getKey());
+                        values.add(field.getValue());
+                    }
+                }
+                return values;
+            }
+            case "HDEL": {
+                Map<String, String> hash = getTyped(arg(args, 1), Map.class);
+                long removed = 0;
+                if (hash != null) {
+                    for (String field : args.subList(2, args.size())) {
+                        removed += hash.remove(field) != null ? 1 : 0;
+                    }
+                    removeIfEmpty(args.get(1), hash.isEmpty());
+                }
+                return removed;
+            }
+            case "HEXISTS": {
+                Map<String, String> hash = getTyped(arg(args, 1), Map.class);
+                return hash != null && hash.containsKey(arg(args, 2)) ? 1L : 0L;
+            }
+            case "HINCRBY": {
+                Map<String, String> hash = getOrCreate(arg(args, 1), LinkedHashMap::new, Map.class);
+                String old = hash.get(arg(args, 2));
+                long value = (old == null ? 0 : parseLong(old)) + parseLong(arg(args, 3));
+                hash.put(args.get(2), String.valueOf(value));
+                return value;
+            }
+            case "HINCRBYFLOAT": {
+                Map<String, String> hash = getOrCreate(arg(args, 1), LinkedHashMap::new, Map.class);
+                String old = hash.get(arg(args, 2));
+                String value = formatDouble((old == null ? 0 : parseDouble(old)) + parseDouble(arg(args, 3)));
+                hash.put(args.get(2), value);
+                return value;
+            }
+            case "HKEYS": {
+                Map<String, String> hash = getTyped(arg(args, 1), Map.class);
+                return hash == null ? Collections.emptyList() : new ArrayList<Object>(hash.keySet());
+            }
+            case "HVALS": {
+                Map<String, String> hash = getTyped(arg(args, 1), Map.class);
+                return hash == null ? Collections.emptyList() : new ArrayList<Object>(hash.values());
+            }
+            case "HLEN": {
+                Map<String, String> hash = getTyped(arg(args, 1), Map.class);
+                return hash == null ? 0L : (long) hash.size();
+            }
+            // ---------------- list ----------------
+            case "LPUSH":
+            case "RPUSH":
+            case "LPUSHX":
+            case "RPUSHX": {
+                boolean onlyIfPresent = command.endsWith("X");
+                LinkedList<String> list = onlyIfPresent ? getTyped(arg(args, 1), LinkedList.class)
+                        : getOrCreate(arg(args, 1), LinkedList::new, LinkedList.class);
+                if (list == null) {
+                    return 0L;
+                }
+                for (String value : args.subList(2, args.size())) {
+                    if (command.startsWith("L")) {
+                        list.addFirst(value);
+                    } else {
+                        list.addLast(value);
+                    }
+                }
+                return (long) list.size();
+            }
+            case "LPOP":
+            case "RPOP": {
+                LinkedList<String> list = getTyped(arg(args, 1), LinkedList.class);
+                if (list == null) {
+                    return null;
+                }
+                String value = "LPOP".equals(command) ? list.pollFirst() : list.pollLast();
+                removeIfEmpty(args.get(1), list.isEmpty());
+                return value;
+            }
+            case "LLEN": {
+                LinkedList<String> list = getTyped(arg(args, 1), LinkedList.class);
+                return list == null ? 0L : (long) list.size();
+            }
+            case "LINDEX": {
+                LinkedList<String> list = getTyped(arg(args, 1), LinkedList.class);
+                if (list == null) {
+                    return null;
+                }
+                int index = listIndex(list, parseLong(arg(args, 2)));
+                return index < 0 || index >= list.size() ? null : list.get(index);
+            }
+            case "LSET": {
+                LinkedList<String> list = getTyped(arg(args, 1), LinkedList.class);
+                if (list == null) {
+                    throw new RespException("ERR no such key");
+                }
+                int index = listIndex(list, parseLong(arg(args, 2)));
+                if (index < 0 || index >= list.size()) {
+                    throw new RespException("ERR index out of range");
+                }
+                list.set(index, arg(args, 3));
+                return RespWriter.OK;
+            }
+            case "LRANGE": {
+                LinkedList<String> list = getTyped(arg(args, 1), LinkedList.class);
+                if (list == null) {
+                    return Collections.emptyList();
+                }
+                int start = Math.max(0, listIndex(list, parseLong(arg(args, 2))));
+                int stop = Math.min(list.size() - 1, listIndex(list, parseLong(arg(args, 3))));
+                return start > stop ? Collections.emptyList() : new ArrayList<Object>(list.subList(start, stop + 1));
+            }
+            case "LTRIM": {
+                LinkedList<String> list = getTyped(arg(args, 1), LinkedList.class);
+                if (list == null) {
+                    return RespWriter.OK;
+                }
+                int start = Math.max(0, listIndex(list, parseLong(arg(args, 2))));
+                int stop = Math.min(list.size() - 1, listIndex(list, parseLong(arg(args, 3))));
+                if (start > stop) {
+                    list.clear();
+                } else {
+                    list.subList(stop + 1, list.size()).clear();
+                    list.subList(0, start).clear();
+                }
+                removeIfEmpty(args.get(1), list.isEmpty());
+                return RespWriter.OK;
+            }
+            case "LREM":
+                return lrem(arg(args, 1), parseLong(arg(args, 2)), arg(args, 3));
+            case "RPOPLPUSH":
+            case "BRPOPLPUSH": {
+                // 阻塞等待由连接线程在锁外重试完成，这里只做一次非阻塞的弹出
+                LinkedList<String> source = getTyped(arg(args, 1), LinkedList.class);
+                if (source == null) {
+                    return null;
+                }
+                // 先检查目标key的类型，再弹出；源和目标相同且只有一个元素时，源key被删除后要重新取得目标列表
+                getTyped(arg(args, 2), LinkedList.class);
+                String value = source.pollLast();
+                removeIfEmpty(args.get(1), source.isEmpty());
+                LinkedList<String> destination = getOrCreate(arg(args, 2), LinkedList::new, LinkedList.class);
+                destination.addFirst(value);
+                return value;
+            }
+            // ---------------- set ----------------
+            case "SADD": {
+                Set<String> set = getOrCreate(arg(args, 1), LinkedHashSet::new, Set.class);
+                long added = 0;
+                for (String member : args.subList(2, args.size())) {
+                    added += set.add(member) ? 1 : 0;
+                }
+                return added;
+            }
+            case "SREM": {
+                Set<String> set = getTyped(arg(args, 1), Set.class);
+                long removed = 0;
+                if (set != null) {
+                    for (String member : args.subList(2, args.size())) {
+                        removed += set.remove(member) ? 1 : 0;
+                    }
+                    removeIfEmpty(args.get(1), set.isEmpty());
+                }
+                return removed;
+            }
+            case "SISMEMBER": {
+                Set<String> set = getTyped(arg(args, 1), Set.class);
+                return set != null && set.contains(arg(args, 2)) ? 1L : 0L;
+            }
+            case "SMEMBERS": {
+                Set<String> set = getTyped(arg(args, 1), Set.class);
+                return set == null ? Collections.emptyList() : new ArrayList<Object>(set);
+            }
+            case "SCARD": {
+                Set<String> set = getTyped(arg(args, 1), Set.class);
+                return set == null ? 0L : (long) set.size();
+            }
+            // ---------------- HyperLogLog ----------------
+            case "PFADD": {
+                boolean created = entry(arg(args, 1)) == null;
+                HyperLogLog hll = getOrCreate(args.get(1), HyperLogLog::new, HyperLogLog.class);
+                boolean changed = created;
+                for (String element : args.subList(2, args.size())) {
+                    changed |= hll.elements.add(element);
+                }
+                return changed ? 1L : 0L;
+            }
+            case "PFCOUNT": {
+                Set<String> union = new HashSet<>();
+                for (String key : args.subList(1, args.size())) {
+                    HyperLogLog hll = getTyped(key, HyperLogLog.class);
+                    if (hll != null) {
+                        union.addAll(hll.elements);
+                    }
+                }
+                return (long) union.size();
+            }
+            case "PFMERGE": {
+                HyperLogLog destination = getOrCreate(arg(args, 1), HyperLogLog::new, HyperLogLog.class);
+                for (String key : args.subList(2, args.size())) {
+                    HyperLogLog hll = getTyped(key, HyperLogLog.class);
+                    if (hll != null && hll != destination) {
+                        destination.elements.addAll(hll.elements);
+                    }
+                }
+                return RespWriter.OK;
+            }
+            // ---------------- bitmap ----------------
+            case "SETBIT": {
+                checkArgs(args, 4);
+                long offset = parseLong(args.get(2));
+                if (!"0".equals(args.get(3)) && !"1".equals(args.get(3))) {
+                    throw new RespException("ERR bit is not an integer or out of range");
+                }
+                byte[] bytes = bitmap(args.get(1), offset + 1);
+                long old = readBits(bytes, offset, 1, false);
+                writeBits(bytes, offset, 1, parseLong(args.get(3)));
+                putStringKeepTtl(args.get(1), new String(bytes, StandardCharsets.ISO_8859_1));
+                return old;
+            }
+            case "GETBIT":
+                return readBits(bitmap(arg(args, 1), 0), parseLong(arg(args, 2)), 1, false);
+            case "BITCOUNT":
+                return bitCount(args);
+            case "BITOP":
+                return bitOp(args);
+            case "BITFIELD":
+                return bitField(args);
+            // ---------------- geo ----------------
+            case "GEOADD": {
+                GeoSet geo = getOrCreate(arg(args, 1), GeoSet::new, GeoSet.class);
+                long added = 0;
+                for (int i = 2; i + 2 < args.size(); i += 3) {
+                    double[] point = {parseDouble(args.get(i)), parseDouble(args.get(i + 1))};
+                    added += geo.put(args.get(i + 2), point) == null ? 1 : 0;
+                }
+                return added;
+            }
+            case "GEOPOS": {
+                GeoSet geo = getTyped(arg(args, 1), GeoSet.class);
+                List<Object> positions = new ArrayList<>();
+                for (String member : args.subList(2, args.size())) {
+                    double[] point = geo == null ? null : geo.get(member);
+                    positions.add(point == null ? RespWriter.NULL_ARRAY
+                            : Arrays.<Object>asList(String.valueOf(point[0]), String.valueOf(point[1])));
+                }
+                return positions;
+            }
+            case "GEODIST": {
+                GeoSet geo = getTyped(arg(args, 1), GeoSet.class);
+                double[] from = geo == null ? null : geo.get(arg(args, 2));
+                double[] to = geo == null ? null : geo.get(arg(args, 3));
+                if (from == null || to == null) {
+                    return null;
+                }
+                double meters = distance(from, to);
+                return String.format("%.4f", meters / unitMeters(args.size() > 4 ? args.get(4) : "m"));
+            }
+            case "GEORADIUS":
+            case "GEORADIUS_RO": {
+                double[] center = {parseDouble(arg(args, 2)), parseDouble(arg(args, 3))};
+                return geoRadius(arg(args, 1), center, parseDouble(arg(args, 4)), arg(args, 5), args.subList(6, args.size()));
+            }
+            case "GEORADIUSBYMEMBER":
+            case "GEORADIUSBYMEMBER_RO": {
+                GeoSet geo = getTyped(arg(args, 1), GeoSet.class);
+                double[] center = geo == null ? null : geo.get(arg(args, 2));
+                if (center == null) {
+                    throw new RespException("ERR could not decode requested zset member");
+                }
+                return geoRadius(args.get(1), center, parseDouble(arg(args, 3)), arg(args, 4), args.subList(5, args.size()));
+            }
+            // ---------------- zset ----------------
+            case "ZADD":
+                return zadd(args);
+            case "ZINCRBY": {
+                StandInSortedSet zset = getOrCreate(arg(args, 1), StandInSortedSet::new, StandInSortedSet.class);
+                Double old = zset.score(arg(args, 3));
+                double score = (old == null ? 0 : old) + StandInSortedSet.parseScore(arg(args, 2));
+                zset.put(args.get(3), score);
+                return StandInSortedSet.formatScore(score);
+            }
+            case "ZREM": {
+                StandInSortedSet zset = getTyped(arg(args, 1), StandInSortedSet.class);
+                if (zset == null) {
+                    return 0L;
+                }
+                long removed = 0;
+                for (String member : args.subList(2, args.size())) {
+                    removed += zset.remove(member) ? 1 : 0;
+                }
+                removeIfEmpty(args.get(1), zset.size() == 0);
+                return removed;
+            }
+            case "ZSCORE": {
+                StandInSortedSet zset = getTyped(arg(args, 1), StandInSortedSet.class);
+                Double score = zset == null ? null : zset.score(arg(args, 2));
+                return score == null ? null : StandInSortedSet.formatScore(score);
+            }
+            case "ZCARD": {
+                StandInSortedSet zset = getTyped(arg(args, 1), StandInSortedSet.class);
+                return zset == null ? 0L : (long) zset.size();
+            }
+            case "ZCOUNT": {
+                StandInSortedSet zset = getTyped(arg(args, 1), StandInSortedSet.class);
+                return zset == null ? 0L : (long) zset.byScore(arg(args, 2), arg(args, 3), false, 0, -1).size();
+            }
+            case "ZRANK":
+            case "ZREVRANK": {
+                StandInSortedSet zset = getTyped(arg(args, 1), StandInSortedSet.class);
+                return zset == null ? null : zset.rank(arg(args, 2), "ZREVRANK".equals(command));
+            }
+            case "ZRANGE":
+            case "ZREVRANGE": {
+                StandInSortedSet zset = getTyped(arg(args, 1), StandInSortedSet.class);
+                if (zset == null) {
+                    return Collections.emptyList();
+                }
+                boolean withScores = args.size() > 4 && "WITHSCORES".equalsIgnoreCase(args.get(4));
+                return zsetReply(zset.byRank(parseLong(arg(args, 2)), parseLong(arg(args, 3)), "ZREVRANGE".equals(command)), withScores);
+            }
+            case "ZRANGEBYSCORE":
+            case "ZREVRANGEBYSCORE":
+                return zrangeByScore(args, "ZREVRANGEBYSCORE".equals(command));
+            case "ZREMRANGEBYRANK":
+            case "ZREMRANGEBYSCORE": {
+                StandInSortedSet zset = getTyped(arg(args, 1), StandInSortedSet.class);
+                if (zset == null) {
+                    return 0L;
+                }
+                List<StandInSortedSet.Member> members = "ZREMRANGEBYRANK".equals(command)
+                        ? zset.byRank(parseLong(arg(args, 2)), parseLong(arg(args, 3)), false)
+                        : zset.byScore(arg(args, 2), arg(args, 3), false, 0, -1);
+                for (StandInSortedSet.Member member : members) {
+                    zset.remove(member.member);
+                }
+                removeIfEmpty(args.get(1), zset.size() == 0);
+                return (long) members.size();
+            }
+            case "ZPOPMIN":
+            case "ZPOPMAX": {
+                StandInSortedSet zset = getTyped(arg(args, 1), StandInSortedSet.class);
+                if (zset == null) {
+                    return Collections.emptyList();
+                }
+                long count = args.size() > 2 ? parseLong(args.get(2)) : 1;
+                List<StandInSortedSet.Member> members = zset.byRank(0, count - 1, "ZPOPMAX".equals(command));
+                for (StandInSortedSet.Member member : members) {
+                    zset.remove(member.member);
+                }
+                removeIfEmpty(args.get(1), zset.size() == 0);
+                return zsetReply(members, true);
+            }
+            // ---------------- stream ----------------
+            case "XADD":
+                return this.<StandInStream>getOrCreate(arg(args, 1), StandInStream::new, StandInStream.class).add(args);
+            case "XLEN": {
+                StandInStream stream = getTyped(arg(args, 1), StandInStream.class);
+                return stream == null ? 0L : stream.length();
+            }
+            case "XRANGE":
+            case "XREVRANGE": {
+                StandInStream stream = getTyped(arg(args, 1), StandInStream.class);
+                return stream == null ? Collections.emptyList() : stream.range(args, "XREVRANGE".equals(command));
+            }
+            case "XTRIM": {
+                StandInStream stream = getTyped(arg(args, 1), StandInStream.class);
+                return stream == null ? 0L : stream.trim(args);
+            }
+            case "XDEL": {
+                StandInStream stream = getTyped(arg(args, 1), StandInStream.class);
+                return stream == null ? 0L : stream.delete(args);
+            }
+            case "XGROUP": {
+                boolean create = "CREATE".equalsIgnoreCase(arg(args, 1)) && args.size() > 5 && "MKSTREAM".equalsIgnoreCase(args.get(5));
+                StandInStream stream = create ? getOrCreate(arg(args, 2), StandInStream::new, StandInStream.class)
+                        : getTyped(arg(args, 2), StandInStream.class);
+                if (stream == null) {
+                    throw new RespException("ERR The XGROUP subcommand requires the key to exist. Note that for CREATE you may want to use the MKSTREAM option to create an empty stream automatically.");
+                }
+                return stream.group(args);
+            }
+            case "XREADGROUP":
+                return readGroup(args);
+            case "XACK": {
+                StandInStream stream = getTyped(arg(args, 1), StandInStream.class);
+                return stream == null ? 0L : stream.ack(args);
+            }
+            case "XPENDING":
+            case "XCLAIM": {
+                StandInStream stream = getTyped(arg(args, 1), StandInStream.class);
+                if (stream == null) {
+                    throw new RespException("NOGROUP No such key '" + args.get(1) + "' or consumer group '" + arg(args, 2) + "'");
+                }
+                return "XPENDING".equals(command) ? stream.pending(args) : stream.claim(args);
+            }
+            // ---------------- 脚本 ----------------
+            case "EVAL":
+                scriptsBySha.put(sha1(arg(args, 1)), args.get(1));
+                return evalScript(args.get(1), args);
+            case "EVALSHA": {
+                String script = scriptsBySha.get(arg(args, 1).toLowerCase());
+                if (script == null) {
+                    throw new RespException("NOSCRIPT No matching script. Please use EVAL.");
+                }
+                return evalScript(script, args);
+            }
+            case "SCRIPT":
+                return scriptCommand(args);
+            case "PUBLISH":
+                return publisher.publish(arg(args, 1), arg(args, 2));
+            default:
+                throw new RespException("ERR unknown command '" + args.get(0) + "'");
+        }
+    }
+
+    /**
+     * SLOWLOG GET [count] | LEN | RESET
+     */
+    private Object slowlogCommand(List<String> args) {
+        String subcommand = arg(args, 1).toUpperCase();
+        switch (subcommand) {
+            case "GET": {
+                int count = args.size() > 2 ? (int) parseLong(args.get(2)) : 10;
+                return new ArrayList<Object>(slowlog.subList(0, Math.min(Math.max(count, 0), slowlog.size())));
+            }
+            case "LEN":
+                return (long) slowlog.size();
+            case "RESET":
+                slowlog.clear();
+                return RespWriter.OK;
+            default:
+                throw new RespException("ERR unknown subcommand '" + arg(args, 1) + "'");
+        }
+    }
+
+    private void recordSlowlog(List<String> args, long micros) {
+        if (slowlogSlowerThan < 0 || micros < slowlogSlowerThan || "SLOWLOG".equalsIgnoreCase(args.get(0))) {
+            return;
+        }
+        List<Object> entry = new ArrayList<>();
+        entry.add(slowlogNextId++);
+        entry.add(System.currentTimeMillis() / 1000);
+        entry.add(micros);
+        entry.add(new ArrayList<Object>(args));
+        entry.add("127.0.0.1:0");
+        entry.add("");
+        slowlog.addFirst(entry);
+        if (slowlog.size() > SLOWLOG_MAX_LEN) {
+            slowlog.removeLast();
+        }
+    }
+
+    /**
+     * MEMORY USAGE 的估算：key和元素的字节数加上每个元素固定的额外开销，不区分 Redis 的紧凑编码
+     */
+    private Object memoryUsage(String key) {
+        Entry entry = entry(key);
+        if (entry == null) {
+            return null;
+        }
+        long size = 56 + key.length();
+        Object value = entry.value;
+        if (value instanceof String) {
+            size += ((String) value).length();
+        } else if (value instanceof HyperLogLog) {
+            size += 12304;
+        } else if (value instanceof Map) {
+            for (Map.Entry<?, ?> field : ((Map<?, ?>) value).entrySet()) {
+                size += 32 + String.valueOf(field.getKey()).length()
+                        + (field.getValue() instanceof String ? ((String) field.getValue()).length() : 16);
+            }
+        } else if (value instanceof Collection) {
+            for (Object element : (Collection<?>) value) {
+                size += 24 + String.valueOf(element).length();
+            }
+        } else {
+            String counter = value instanceof StandInStream ? "XLEN" : "ZCARD";
+            size += 48 * (Long) execute(Arrays.asList(counter, key));
+        }
+        return size;
+    }
+
+    // ==================== 供脚本调用的命令 ====================
+
+    /**
+     * 在脚本内部执行命令（相当于 redis.call），与外部命令共享同一份数据
+     *
+     * @param args
+     * @return
+     */
+    public Object call(String... args) {
+        return execute(Arrays.asList(args));
+    }
+
+    /**
+     * ZADD key [NX|XX] [GT|LT] [CH] [INCR] score member [score member ...]
+     */
+    private Object zadd(List<String> args) {
+        boolean nx = false;
+        boolean xx = false;
+        boolean gt = false;
+        boolean lt = false;
+        boolean ch = false;
+        boolean incr = false;
+        int i = 2;
+        for (; i < args.size(); i++) {
+            String option = args.get(i).toUpperCase();
+            if ("NX".equals(option)) {
+                nx = true;
+            } else if ("XX".equals(option)) {
+                xx = true;
+            } else if ("GT".equals(option)) {
+                gt = true;
+            } else if ("LT".equals(option)) {
+                lt = true;
+            } else if ("CH".equals(option)) {
+                ch = true;
+            } else if ("INCR".equals(option)) {
+                incr = true;
+            } else {
+                break;
+            }
+        }
+        if (i >= args.size() || (args.size() - i) % 2 != 0) {
+            throw new RespException(RespException.SYNTAX);
+        }
+        StandInSortedSet zset = getOrCreate(arg(args, 1), StandInSortedSet::new, StandInSortedSet.class);
+        long changed = 0;
+        String incrResult = null;
+        for (; i < args.size(); i += 2) {
+            double score = StandInSortedSet.parseScore(args.get(i));
+            String member = args.get(i + 1);
+            Double old = zset.score(member);
+            if ((nx && old != null) || (xx && old == null)) {
+                continue;
+            }
+            if (incr) {
+                score += old == null ? 0 : old;
+            }
+            if (old != null && ((gt && score <= old) || (lt && score >= old))) {
+                continue;
+            }
+            boolean added = zset.put(member, score);
+            if (added || (ch && old != score)) {
+                changed++;
+            }
+            incrResult = StandInSortedSet.formatScore(score);
+        }
+        removeIfEmpty(args.get(1), zset.size() == 0);
+        return incr ? incrResult : (Object) changed;
+    }
+
+    /**
+     * ZRANGEBYSCORE key min max / ZREVRANGEBYSCORE key max min [WITHSCORES] [LIMIT offset count]
+     */
+    private Object zrangeByScore(List<String> args, boolean reverse) {
+        StandInSortedSet zset = getTyped(arg(args, 1), StandInSortedSet.class);
+        boolean withScores = false;
+        long offset = 0;
+        long count = -1;
+        for (int i = 4; i < args.size(); i++) {
+            String option = args.get(i).toUpperCase();
+            if ("WITHSCORES".equals(option)) {
+                withScores = true;
+            } else if ("LIMIT".equals(option)) {
+                offset = parseLong(arg(args, ++i));
+                count = parseLong(arg(args, ++i));
+            } else {
+                throw new RespException(RespException.SYNTAX);
+            }
+        }
+        if (zset == null) {
+            return Collections.emptyList();
+        }
+        String min = reverse ? arg(args, 3) : arg(args, 2);
+        String max = reverse ? arg(args, 2) : arg(args, 3);
+        return zsetReply(zset.byScore(min, max, reverse, offset, count), withScores);
+    }
+
+    private static List<Object> zsetReply(List<StandInSortedSet.Member> members, boolean withScores) {
+        List<Object> reply = new ArrayList<>(withScores ? members.size() * 2 : members.size());
+        for (StandInSortedSet.Member member : members) {
+            reply.add(member.member);
+            if (withScores) {
+                reply.add(StandInSortedSet.formatScore(member.score));
+            }
+        }
+        return reply;
+    }
+
+    /**
+     * XREADGROUP GROUP group consumer [COUNT count] [BLOCK ms] [NOACK] STREAMS key [key ...] id [id ...]，
+     * 阻塞等待由连接线程在锁外重试完成，这里没有消息时返回空数组
+     */
+    private Object readGroup(List<String> args) {
+        if (!"GROUP".equalsIgnoreCase(arg(args, 1))) {
+            throw new RespException(RespException.SYNTAX);
+        }
+        String group = arg(args, 2);
+        String consumer = arg(args, 3);
+        long count = Long.MAX_VALUE;
+        boolean noAck = false;
+        int i = 4;
+        for (; i < args.size() && !"STREAMS".equalsIgnoreCase(args.get(i)); i++) {
+            String option = args.get(i).toUpperCase();
+            if ("COUNT".equals(option)) {
+                count = parseLong(arg(args, ++i));
+            } else if ("BLOCK".equals(option)) {
+                i++;
+            } else if ("NOACK".equals(option)) {
+                noAck = true;
+            } else {
+                throw new RespException(RespException.SYNTAX);
+            }
+        }
+        List<String> streams = args.subList(i + 1, args.size());
+        if (streams.isEmpty() || streams.size() % 2 != 0) {
+            throw new RespException("ERR Unbalanced XREAD list of streams: for each stream key an ID or '$' must be specified.");
+        }
+        int half = streams.size() / 2;
+        List<Object> reply = new ArrayList<>();
+        for (int k = 0; k < half; k++) {
+            String key = streams.get(k);
+            StandInStream stream = getTyped(key, StandInStream.class);
+            if (stream == null) {
+                throw new RespException("NOGROUP No such key '" + key + "' or consumer group '" + group + "' in XREADGROUP with GROUP option");
+            }
+            List<Object> messages = stream.readGroup(key, group, consumer, streams.get(half + k), count, noAck);
+            if (!messages.isEmpty() || !">".equals(streams.get(half + k))) {
+                reply.add(Arrays.<Object>asList(key, messages));
+            }
+        }
+        return reply.isEmpty() ? RespWriter.NULL_ARRAY : reply;
+    }
+
+    private Object evalScript(String script, List<String> args) {
+        int numKeys = (int) parseLong(arg(args, 2));
+        List<String> keys = args.subList(3, 3 + numKeys);
+        List<String> argv = args.subList(3 + numKeys, args.size());
+        StandInScripts.Script implementation = scripts.find(script);
+        if (implementation == null) {
+            throw new RespException("ERR stand-in server does not support this script: " + sha1(script));
+        }
+        return implementation.execute(this, keys, argv);
+    }
+
+    private Object scriptCommand(List<String> args) {
+        String sub = arg(args, 1).toUpperCase();
+        switch (sub) {
+            case "LOAD": {
+                String script = arg(args, 2);
+                String sha = sha1(script);
+                scriptsBySha.put(sha, script);
+                return sha;
+            }
+            case "EXISTS": {
+                List<Object> exists = new ArrayList<>();
+                for (String sha : args.subList(2, args.size())) {
+                    exists.add(scriptsBySha.containsKey(sha.toLowerCase()) ? 1L : 0L);
+                }
+                return exists;
+            }
+            case "FLUSH":
+                scriptsBySha.clear();
+                return RespWriter.OK;
+            default:
+                throw new RespException(RespException.SYNTAX);
+        }
+    }
+
+    // ==================== 内部实现 ====================
+
+    private Entry entry(String key) {
+        Entry entry = data.get(key);
+        if (entry != null && entry.expireAt > 0 && entry.expireAt <= System.currentTimeMillis()) {
+            data.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getTyped(String key, Class<?> type) {
+        Entry entry = entry(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!type.isInstance(entry.value) || (type != GeoSet.class && entry.value instanceof GeoSet)) {
+            throw new RespException(RespException.WRONG_TYPE);
+        }
+        return (T) entry.value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getOrCreate(String key, Supplier<?> creator, Class<?> type) {
+        T value = getTyped(key, type);
+        if (value == null) {
+            value = (T) creator.get();
+            data.put(key, new Entry(value));
+        }
+        return value;
+    }
+
+    private String getString(String key) {
+        return getTyped(key, String.class);
+    }
+
+    private void putString(String key, String value, long expireAt) {
+        Entry entry = new Entry(value);
+        entry.expireAt = expireAt;
+        data.put(key, entry);
+    }
+
+    private void putStringKeepTtl(String key, String value) {
+        Entry old = entry(key);
+        putString(key, value, old == null ? 0 : old.expireAt);
+    }
+
+    private void removeIfEmpty(String key, boolean empty) {
+        if (empty) {
+            data.remove(key);
+        }
+    }
+
+    private long del(List<String> keys) {
+        long count = 0;
+        for (String key : keys) {
+            if (entry(key) != null) {
+                data.remove(key);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private Object set(List<String> args) {
+        if (args.size() < 3) {
+            throw RespException.wrongArgs("SET");
+        }
+        String key = args.get(1);
+        long expireAt = 0;
+        boolean nx = false;
+        boolean xx = false;
+        boolean keepTtl = false;
+        boolean get = false;
+        for (int i = 3; i < args.size(); i++) {
+            String option = args.get(i).toUpperCase();
+            switch (option) {
+                case "EX":
+                    expireAt = System.currentTimeMillis() + parseLong(arg(args, ++i)) * 1000;
+                    break;
+                case "PX":
+                    expireAt = System.currentTimeMillis() + parseLong(arg(args, ++i));
+                    break;
+                case "NX":
+                    nx = true;
+                    break;
+                case "XX":
+                    xx = true;
+                    break;
+                case "KEEPTTL":
+                    keepTtl = true;
+                    break;
+                case "GET":
+                    get = true;
+                    break;
+                default:
+                    throw new RespException(RespException.SYNTAX);
+            }
+        }
+        Entry old = entry(key);
+        String oldValue = get ? getString(key) : null;
+        if ((nx && old != null) || (xx && old == null)) {
+            return get ? oldValue : null;
+        }
+        putString(key, args.get(2), keepTtl && old != null ? old.expireAt : expireAt);
+        return get ? oldValue : RespWriter.OK;
+    }
+
+    private long incrBy(String key, long increment) {
+        String old = getString(key);
+        long value = (old == null ? 0 : parseLong(old)) + increment;
+        putStringKeepTtl(key, String.valueOf(value));
+        return value;
+    }
+
+    /**
+     * 位图的字节，key不存在时为空；minBits 大于当前长度时补0
+     */
+    private byte[] bitmap(String key, long minBits) {
+        String value = getString(key);
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.ISO_8859_1);
+        long minBytes = (minBits + 7) / 8;
+        if (minBytes > 512L * 1024 * 1024) {
+            throw new RespException("ERR bit offset is not an integer or out of range");
+        }
+        return bytes.length >= minBytes ? bytes : Arrays.copyOf(bytes, (int) minBytes);
+    }
+
+    /**
+     * 读取从 offset 开始的 bits 位（高位在前），超出长度的部分按0处理
+     */
+    private static long readBits(byte[] bytes, long offset, int bits, boolean signed) {
+        long value = 0;
+        for (int i = 0; i < bits; i++) {
+            long position = offset + i;
+            int bit = position / 8 < bytes.length ? (bytes[(int) (position / 8)] >> (7 - (int) (position % 8))) & 1 : 0;
+            value = (value << 1) | bit;
+        }
+        if (signed && bits < 64 && (value >> (bits - 1) & 1) == 1) {
+            value |= -1L << bits;
+        }
+        return value;
+    }
+
+    private static void writeBits(byte[] bytes, long offset, int bits, long value) {
+        for (int i = 0; i < bits; i++) {
+            long position = offset + i;
+            int mask = 1 << (7 - (int) (position % 8));
+            if ((value >> (bits - 1 - i) & 1) == 1) {
+                bytes[(int) (position / 8)] |= mask;
+            } else {
+                bytes[(int) (position / 8)] &= ~mask;
+            }
+        }
+    }
+
+    private long bitCount(List<String> args) {
+        byte[] bytes = bitmap(arg(args, 1), 0);
+        int start = 0;
+        int end = bytes.length - 1;
+        if (args.size() == 4) {
+            start = (int) normalizeIndex(parseLong(args.get(2)), bytes.length);
+            end = (int) Math.min(normalizeIndex(parseLong(args.get(3)), bytes.length), bytes.length - 1);
+        } else if (args.size() != 2) {
+            throw RespException.wrongArgs(args.get(0));
+        }
+        long count = 0;
+        for (int i = start; i <= end; i++) {
+            count += Integer.bitCount(bytes[i] & 0xff);
+        }
+        return count;
+    }
+
+    private static long normalizeIndex(long index, int length) {
+        return Math.max(0, index < 0 ? length + index : index);
+    }
+
+    private long bitOp(List<String> args) {
+        String operation = arg(args, 1).toUpperCase();
+        String destination = arg(args, 2);
+        List<byte[]> sources = new ArrayList<>();
+        int length = 0;
+        for (String key : args.subList(3, args.size())) {
+            byte[] bytes = bitmap(key, 0);
+            sources.add(bytes);
+            length = Math.max(length, bytes.length);
+        }
+        if (sources.isEmpty() || ("NOT".equals(operation) && sources.size() != 1)) {
+            throw RespException.wrongArgs(args.get(0));
+        }
+        byte[] result = new byte[length];
+        for (int i = 0; i < length; i++) {
+            int value = byteAt(sources.get(0), i);
+            for (byte[] source : sources.subList(1, sources.size())) {
+                switch (operation) {
+                    case "AND":
+                        value &= byteAt(source, i);
+                        break;
+                    case "OR":
+                        value |= byteAt(source, i);
+                        break;
+                    case "XOR":
+                        value ^= byteAt(source, i);
+                        break;
+                    default:
+                        throw new RespException("ERR syntax error");
+                }
+            }
+            result[i] = (byte) ("NOT".equals(operation) ? ~value : value);
+        }
+        if (length == 0) {
+            data.remove(destination);
+        } else {
+            putString(destination, new String(result, StandardCharsets.ISO_8859_1), 0);
+        }
+        return length;
+    }
+
+    private static int byteAt(byte[] bytes, int index) {
+        return index < bytes.length ? bytes[index] & 0xff : 0;
+    }
+
+    /**
+     * BITFIELD 的 GET / SET / INCRBY / OVERFLOW 子命令，替身只支持不超过63位的类型
+     */
+    private List<Object> bitField(List<String> args) {
+        String key = arg(args, 1);
+        byte[] bytes = bitmap(key, 0);
+        boolean changed = false;
+        String overflow = "WRAP";
+        List<Object> results = new ArrayList<>();
+        int i = 2;
+        while (i < args.size()) {
+            String subCommand = args.get(i).toUpperCase();
+            if ("OVERFLOW".equals(subCommand)) {
+                overflow = arg(args, i + 1).toUpperCase();
+                i += 2;
+                continue;
+            }
+            String type = arg(args, i + 1);
+            boolean signed = type.charAt(0) == 'i' || type.charAt(0) == 'I';
+            int bits = (int) parseLong(type.substring(1));
+            if (bits < 1 || bits > 63) {
+                throw new RespException("ERR Invalid bitfield type. Use something like i16 u8. Note that u64 is not supported but i64 is.");
+            }
+            String offsetArg = arg(args, i + 2);
+            long offset = offsetArg.startsWith("#") ? parseLong(offsetArg.substring(1)) * bits : parseLong(offsetArg);
+            if ("GET".equals(subCommand)) {
+                results.add(readBits(bytes, offset, bits, signed));
+                i += 3;
+                continue;
+            }
+            long min = signed ? -(1L << (bits - 1)) : 0;
+            long max = signed ? (1L << (bits - 1)) - 1 : (1L << bits) - 1;
+            long old = readBits(bytes, offset, bits, signed);
+            long value;
+            if ("SET".equals(subCommand)) {
+                value = parseLong(arg(args, i + 3));
+            } else if ("INCRBY".equals(subCommand)) {
+                value = old + parseLong(arg(args, i + 3));
+            } else {
+                throw new RespException("ERR syntax error");
+            }
+            i += 4;
+            if (value < min || value > max) {
+                if ("FAIL".equals(overflow)) {
+                    results.add(null);
+                    continue;
+                }
+                if ("SAT".equals(overflow)) {
+                    value = value < min ? min : max;
+                } else {
+                    value = readBits(longBytes(value), 64 - bits, bits, signed);
+                }
+            }
+            bytes = bytes.length * 8L >= offset + bits ? bytes : Arrays.copyOf(bytes, (int) ((offset + bits + 7) / 8));
+            writeBits(bytes, offset, bits, value);
+            changed = true;
+            results.add("SET".equals(subCommand) ? old : value);
+        }
+        if (changed) {
+            putStringKeepTtl(key, new String(bytes, StandardCharsets.ISO_8859_1));
+        }
+        return results;
+    }
+
+    private static byte[] longBytes(long value) {
+        byte[] bytes = new byte[8];
+        for (int i = 7; i >= 0; i--) {
+            bytes[i] = (byte) value;
+            value >>= 8;
+        }
+        return bytes;
+    }
+
+    private long expireAt(String key, long expireAt) {
+        Entry entry = entry(key);
+        if (entry == null) {
+            return 0L;
+        }
+        if (expireAt <= System.currentTimeMillis()) {
+            data.remove(key);
+        } else {
+            entry.expireAt = expireAt;
+        }
+        return 1L;
+    }
+
+    private long pttl(String key) {
+        Entry entry = entry(key);
+        if (entry == null) {
+            return -2L;
+        }
+        return entry.expireAt == 0 ? -1L : Math.max(0, entry.expireAt - System.currentTimeMillis());
+    }
+
+    private String type(Entry entry) {
+        if (entry == null) {
+            return "none";
+        }
+        if (entry.value instanceof String || entry.value instanceof HyperLogLog) {
+            return "string";
+        }
+        if (entry.value instanceof GeoSet) {
+            return "zset";
+        }
+        if (entry.value instanceof StandInSortedSet) {
+            return "zset";
+        }
+        if (entry.value instanceof StandInStream) {
+            return "stream";
+        }
+        if (entry.value instanceof Map) {
+            return "hash";
+        }
+        if (entry.value instanceof LinkedList) {
+            return "list";
+        }
+        return "set";
+    }
+
+    private long lrem(String key, long count, String value) {
+        LinkedList<String> list = getTyped(key, LinkedList.class);
+        if (list == null) {
+            return 0L;
+        }
+        long removed = 0;
+        Iterator<String> iterator = count >= 0 ? list.iterator() : list.descendingIterator();
+        while (iterator.hasNext() && (count == 0 || removed < Math.abs(count))) {
+            if (iterator.next().equals(value)) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        removeIfEmpty(key, list.isEmpty());
+        return removed;
+    }
+
+    private int listIndex(List<String> list, long index) {
+        return (int) (index < 0 ? list.size() + index : index);
+    }
+
+    private List<String> liveKeys() {
+        purgeExpired();
+        return new ArrayList<>(new TreeSet<>(data.keySet()));
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        data.values().removeIf(entry -> entry.expireAt > 0 && entry.expireAt <= now);
+    }
+
+    /**
+     * SCAN cursor [MATCH pattern] [COUNT count]，游标为按key排序后的下标
+     */
+    private Object scan(List<String> args) {
+        int cursor = (int) parseLong(arg(args, 1));
+        Pattern pattern = null;
+        int count = 10;
+        for (int i = 2; i + 1 < args.size(); i += 2) {
+            if ("MATCH".equalsIgnoreCase(args.get(i))) {
+                pattern = globToRegex(args.get(i + 1));
+            } else if ("COUNT".equalsIgnoreCase(args.get(i))) {
+                count = (int) parseLong(args.get(i + 1));
+            }
+        }
+        List<String> keys = liveKeys();
+        List<Object> matched = new ArrayList<>();
+        int end = Math.min(keys.size(), cursor + count);
+        for (int i = cursor; i < end; i++) {
+            if (pattern == null || pattern.matcher(keys.get(i)).matches()) {
+                matched.add(keys.get(i));
+            }
+        }
+        return Arrays.<Object>asList(end >= keys.size() ? "0" : String.valueOf(end), matched);
+    }
+
+    private Object geoRadius(String key, double[] center, double radius, String unit, List<String> options) {
+        boolean withCoord = false;
+        boolean withDist = false;
+        boolean withHash = false;
+        boolean desc = false;
+        boolean sorted = false;
+        int count = -1;
+        for (int i = 0; i < options.size(); i++) {
+            String option = options.get(i).toUpperCase();
+            if ("WITHCOORD".equals(option)) {
+                withCoord = true;
+            } else if ("WITHDIST".equals(option)) {
+                withDist = true;
+            } else if ("WITHHASH".equals(option)) {
+                withHash = true;
+            } else if ("ASC".equals(option) || "DESC".equals(option)) {
+                sorted = true;
+                desc = "DESC".equals(option);
+            } else if ("COUNT".equals(option)) {
+                count = (int) parseLong(arg(options, ++i));
+            }
+        }
+        GeoSet geo = getTyped(key, GeoSet.class);
+        if (geo == null) {
+            return Collections.emptyList();
+        }
+        double unitMeters = unitMeters(unit);
+        double radiusMeters = radius * unitMeters;
+        List<Object[]> hits = new ArrayList<>();
+        for (Map.Entry<String, double[]> member : geo.entrySet()) {
+            double meters = distance(center, member.getValue());
+            if (meters <= radiusMeters) {
+                hits.add(new Object[]{member.getKey(), meters, member.getValue()});
+            }
+        }
+        if (sorted || count > 0) {
+            boolean descending = desc;
+            hits.sort((a, b) -> descending ? Double.compare((Double) b[1], (Double) a[1]) : Double.compare((Double) a[1], (Double) b[1]));
+        }
+        if (count > 0 && hits.size() > count) {
+            hits = hits.subList(0, count);
+        }
+        List<Object> results = new ArrayList<>(hits.size());
+        for (Object[] hit : hits) {
+            if (!withCoord && !withDist && !withHash) {
+                results.add(hit[0]);
+                continue;
+            }
+            List<Object> item = new ArrayList<>(4);
+            item.add(hit[0]);
+            if (withDist) {
+                item.add(String.format("%.4f", (Double) hit[1] / unitMeters));
+            }
+            if (withHash) {
+                item.add(0L);
+            }
+            if (withCoord) {
+                double[] point = (double[]) hit[2];
+                item.add(Arrays.<Object>asList(String.valueOf(point[0]), String.valueOf(point[1])));
+            }
+            results.add(item);
+        }
+        return results;
+    }
+
+    private static double distance(double[] from, double[] to) {
+        double lat1 = Math.toRadians(from[1]);
+        double lat2 = Math.toRadians(to[1]);
+        double u = Math.sin((lat2 - lat1) / 2);
+        double v = Math.sin(Math.toRadians(to[0] - from[0]) / 2);
+        return 2.0 * EARTH_RADIUS_METERS * Math.asin(Math.sqrt(u * u + Math.cos(lat1) * Math.cos(lat2) * v * v));
+    }
+
+    private static double unitMeters(String unit) {
+        switch (unit.toLowerCase()) {
+            case "m":
+                return 1;
+            case "km":
+                return 1000;
+            case "mi":
+                return 1609.34;
+            case "ft":
+                return 0.3048;
+            default:
+                throw new RespException("ERR unsupported unit provided. please use m, km, ft, mi");
+        }
+    }
+
+    private static Pattern globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            switch (c) {
+                case '*':
+                    regex.append(".*");
+                    break;
+                case '?':
+                    regex.append('.');
+                    break;
+                case '[': {
+                    int end = glob.indexOf(']', i);
+                    if (end < 0) {
+                        regex.append("\\[");
+                    } else {
+                        String body = glob.substring(i + 1, end);
+                        regex.append('[').append(body.startsWith("^") ? body : body.replace("\\", "\\\\")).append(']');
+                        i = end;
+                    }
+                    break;
+                }
+                case '\\':
+                    if (i + 1 < glob.length()) {
+                        regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+                    }
+                    break;
+                default:
+                    regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    private static String arg(List<String> args, int index) {
+        if (index >= args.size()) {
+            throw RespException.wrongArgs(args.get(0));
+        }
+        return args.get(index);
+    }
+
+    private static void checkArgs(List<String> args, int size) {
+        if (args.size() != size) {
+            throw RespException.wrongArgs(args.get(0));
+        }
+    }
+
+    static long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new RespException(RespException.NOT_INTEGER);
+        }
+    }
+
+    private static double parseDouble(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new RespException(RespException.NOT_FLOAT);
+        }
+    }
+
+    private static String formatDouble(double value) {
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+
+    static String sha1(String script) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(script.getBytes(StandardCharsets.ISO_8859_1));
+            StringBuilder hex = new StringBuilder(40);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.dw.study.benchmark.standin;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @Author dw
+ * @ClassName StandInDataStoreTest
+ * @Description Redis 替身的列表命令与 Redis 行为一致
+ * @Date 2026/10/20 09:30
+ * @Version 1.0
+ */
+class StandInDataStoreTest {
+
+    private final StandInDataStore store = new StandInDataStore((channel, message) -> 0);
+
+    @Test
+    void rpoplpushRotatesSingleElementListOntoItself() {
+        store.call("RPUSH", "queue", "only");
+
+        assertThat(store.call("RPOPLPUSH", "queue", "queue")).isEqualTo("only");
+        assertThat(store.call("LRANGE", "queue", "0", "-1")).isEqualTo(Collections.singletonList("only"));
+    }
+
+    @Test
+    void rpoplpushRotatesListOntoItself() {
+        store.call("RPUSH", "queue", "a", "b", "c");
+
+        assertThat(store.call("RPOPLPUSH", "queue", "queue")).isEqualTo("c");
+        assertThat(store.call("LRANGE", "queue", "0", "-1")).isEqualTo(Arrays.asList("c", "a", "b"));
+    }
+
+    @Test
+    void rpoplpushMovesLastElementAndDeletesEmptySource() {
+        store.call("RPUSH", "source", "a");
+
+        assertThat(store.call("RPOPLPUSH", "source", "destination")).isEqualTo("a");
+        assertThat(store.call("EXISTS", "source")).isEqualTo(0L);
+        assertThat(store.call("LRANGE", "destination", "0", "-1")).isEqualTo(Collections.singletonList("a"));
+    }
+
+    @Test
+    void rpoplpushToWrongTypeKeepsSource() {
+        store.call("RPUSH", "source", "a");
+        store.call("SET", "destination", "string");
+
+        assertThatThrownBy(() -> store.call("RPOPLPUSH", "source", "destination")).isInstanceOf(RespException.class);
+        assertThat(store.call("LLEN", "source")).isEqualTo(1L);
+    }
+}
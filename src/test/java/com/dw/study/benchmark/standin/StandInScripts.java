@@ -0,0 +1,346 @@
+package com.dw.study.benchmark.standin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Author dw
+ * @ClassName StandInScripts
+ * @Description Redis 替身支持的 Lua 脚本：替身没有 Lua 解释器，按脚本原文（忽略空白字符）匹配到等价的 Java 实现。
+ * 只注册了 Redisson 3.10.1 分布式锁（RedissonLock、读写锁、RPermitExpirableSemaphore）内部使用的脚本，升级 Redisson 时需要同步修改；
+ * 项目 resources/lua 下的脚本不在这里模拟，只在真实 Redis 上测试（见 LuaScriptsTest），压测时使用 --server=embedded
+ * @Date 2026/10/19 15:40
+ * @Version 1.0
+ */
+public class StandInScripts {
+
+    /**
+     * 脚本的 Java 实现，keys/argv 对应 Lua 中的 KEYS/ARGV（下标从0开始）
+     */
+    @FunctionalInterface
+    public interface Script {
+        Object execute(StandInDataStore store, List<String> keys, List<String> argv);
+    }
+
+    private final Map<String, Script> scripts = new HashMap<>();
+
+    public StandInScripts() {
+        // RedissonLock#tryLockInnerAsync
+        register("if (redis.call('exists', KEYS[1]) == 0) then redis.call('hset', KEYS[1], ARGV[2], 1); "
+                        + "redis.call('pexpire', KEYS[1], ARGV[1]); return nil; end; "
+                        + "if (redis.call('hexists', KEYS[1], ARGV[2]) == 1) then redis.call('hincrby', KEYS[1], ARGV[2], 1); "
+                        + "redis.call('pexpire', KEYS[1], ARGV[1]); return nil; end; return redis.call('pttl', KEYS[1]);",
+                (store, keys, argv) -> {
+                    if (isZero(store.call("EXISTS", keys.get(0)))) {
+                        store.call("HSET", keys.get(0), argv.get(1), "1");
+                        store.call("PEXPIRE", keys.get(0), argv.get(0));
+                        return null;
+                    }
+                    if (!isZero(store.call("HEXISTS", keys.get(0), argv.get(1)))) {
+                        store.call("HINCRBY", keys.get(0), argv.get(1), "1");
+                        store.call("PEXPIRE", keys.get(0), argv.get(0));
+                        return null;
+                    }
+                    return store.call("PTTL", keys.get(0));
+                });
+        // RedissonLock#renewExpirationAsync
+        register("if (redis.call('hexists', KEYS[1], ARGV[2]) == 1) then redis.call('pexpire', KEYS[1], ARGV[1]); return 1; end; return 0;",
+                (store, keys, argv) -> {
+                    if (!isZero(store.call("HEXISTS", keys.get(0), argv.get(1)))) {
+                        store.call("PEXPIRE", keys.get(0), argv.get(0));
+                        return 1L;
+                    }
+                    return 0L;
+                });
+        // RedissonLock#forceUnlockAsync
+        register("if (redis.call('del', KEYS[1]) == 1) then redis.call('publish', KEYS[2], ARGV[1]); return 1 else return 0 end",
+                (store, keys, argv) -> {
+                    if (!isZero(store.call("DEL", keys.get(0)))) {
+                        store.call("PUBLISH", keys.get(1), argv.get(0));
+                        return 1L;
+                    }
+                    return 0L;
+                });
+        // RedissonLock#unlockInnerAsync
+        register("if (redis.call('exists', KEYS[1]) == 0) then redis.call('publish', KEYS[2], ARGV[1]); return 1; end;"
+                        + "if (redis.call('hexists', KEYS[1], ARGV[3]) == 0) then return nil;end; "
+                        + "local counter = redis.call('hincrby', KEYS[1], ARGV[3], -1); "
+                        + "if (counter > 0) then redis.call('pexpire', KEYS[1], ARGV[2]); return 0; "
+                        + "else redis.call('del', KEYS[1]); redis.call('publish', KEYS[2], ARGV[1]); return 1; end; return nil;",
+                (store, keys, argv) -> {
+                    if (isZero(store.call("EXISTS", keys.get(0)))) {
+                        store.call("PUBLISH", keys.get(1), argv.get(0));
+                        return 1L;
+                    }
+                    if (isZero(store.call("HEXISTS", keys.get(0), argv.get(2)))) {
+                        return null;
+                    }
+                    long counter = (Long) store.call("HINCRBY", keys.get(0), argv.get(2), "-1");
+                    if (counter > 0) {
+                        store.call("PEXPIRE", keys.get(0), argv.get(1));
+                        return 0L;
+                    }
+                    store.call("DEL", keys.get(0));
+                    store.call("PUBLISH", keys.get(1), argv.get(0));
+                    return 1L;
+                });
+        // RedissonReadLock#tryLockInnerAsync
+        register("local mode = redis.call('hget', KEYS[1], 'mode'); if (mode == false) then redis.call('hset', KEYS[1], 'mode', 'read'); "
+                        + "redis.call('hset', KEYS[1], ARGV[2], 1); redis.call('set', KEYS[2] .. ':1', 1); redis.call('pexpire', KEYS[2] .. ':1', ARGV[1]); "
+                        + "redis.call('pexpire', KEYS[1], ARGV[1]); return nil; end; "
+                        + "if (mode == 'read') or (mode == 'write' and redis.call('hexists', KEYS[1], ARGV[3]) == 1) then "
+                        + "local ind = redis.call('hincrby', KEYS[1], ARGV[2], 1); local key = KEYS[2] .. ':' .. ind;redis.call('set', key, 1); "
+                        + "redis.call('pexpire', key, ARGV[1]); redis.call('pexpire', KEYS[1], ARGV[1]); return nil; end;return redis.call('pttl', KEYS[1]);",
+                (store, keys, argv) -> {
+                    Object mode = store.call("HGET", keys.get(0), "mode");
+                    if (mode == null) {
+                        store.call("HSET", keys.get(0), "mode", "read");
+                        store.call("HSET", keys.get(0), argv.get(1), "1");
+                        store.call("SET", keys.get(1) + ":1", "1", "PX", argv.get(0));
+                        store.call("PEXPIRE", keys.get(0), argv.get(0));
+                        return null;
+                    }
+                    if ("read".equals(mode) || ("write".equals(mode) && !isZero(store.call("HEXISTS", keys.get(0), argv.get(2))))) {
+                        Object index = store.call("HINCRBY", keys.get(0), argv.get(1), "1");
+                        store.call("SET", keys.get(1) + ":" + index, "1", "PX", argv.get(0));
+                        store.call("PEXPIRE", keys.get(0), argv.get(0));
+                        return null;
+                    }
+                    return store.call("PTTL", keys.get(0));
+                });
+        // RedissonReadLock#renewExpirationAsync
+        register("local counter = redis.call('hget', KEYS[1], ARGV[2]); if (counter ~= false) then redis.call('pexpire', KEYS[1], ARGV[1]); "
+                        + "if (redis.call('hlen', KEYS[1]) > 1) then local keys = redis.call('hkeys', KEYS[1]); for n, key in ipairs(keys) do "
+                        + "counter = tonumber(redis.call('hget', KEYS[1], key)); if type(counter) == 'number' then for i=counter, 1, -1 do "
+                        + "redis.call('pexpire', KEYS[2] .. ':' .. key .. ':rwlock_timeout:' .. i, ARGV[1]); end; end; end; end; return 1; end; return 0;",
+                (store, keys, argv) -> {
+                    if (store.call("HGET", keys.get(0), argv.get(1)) == null) {
+                        return 0L;
+                    }
+                    store.call("PEXPIRE", keys.get(0), argv.get(0));
+                    for (Map.Entry<String, Long> reader : readers(store, keys.get(0)).entrySet()) {
+                        for (long i = reader.getValue(); i >= 1; i--) {
+                            store.call("PEXPIRE", keys.get(1) + ":" + reader.getKey() + ":rwlock_timeout:" + i, argv.get(0));
+                        }
+                    }
+                    return 1L;
+                });
+        // RedissonReadLock#unlockInnerAsync
+        register("local mode = redis.call('hget', KEYS[1], 'mode'); if (mode == false) then redis.call('publish', KEYS[2], ARGV[1]); return 1; end; "
+                        + "local lockExists = redis.call('hexists', KEYS[1], ARGV[2]); if (lockExists == 0) then return nil;end; "
+                        + "local counter = redis.call('hincrby', KEYS[1], ARGV[2], -1); if (counter == 0) then redis.call('hdel', KEYS[1], ARGV[2]); end;"
+                        + "redis.call('del', KEYS[3] .. ':' .. (counter+1)); if (redis.call('hlen', KEYS[1]) > 1) then local maxRemainTime = -3; "
+                        + "local keys = redis.call('hkeys', KEYS[1]); for n, key in ipairs(keys) do counter = tonumber(redis.call('hget', KEYS[1], key)); "
+                        + "if type(counter) == 'number' then for i=counter, 1, -1 do "
+                        + "local remainTime = redis.call('pttl', KEYS[4] .. ':' .. key .. ':rwlock_timeout:' .. i); "
+                        + "maxRemainTime = math.max(remainTime, maxRemainTime);end; end; end; "
+                        + "if maxRemainTime > 0 then redis.call('pexpire', KEYS[1], maxRemainTime); return 0; end;if mode == 'write' then return 0;end; end; "
+                        + "redis.call('del', KEYS[1]); redis.call('publish', KEYS[2], ARGV[1]); return 1;",
+                (store, keys, argv) -> {
+                    Object mode = store.call("HGET", keys.get(0), "mode");
+                    if (mode == null) {
+                        store.call("PUBLISH", keys.get(1), argv.get(0));
+                        return 1L;
+                    }
+                    if (isZero(store.call("HEXISTS", keys.get(0), argv.get(1)))) {
+                        return null;
+                    }
+                    long counter = (Long) store.call("HINCRBY", keys.get(0), argv.get(1), "-1");
+                    if (counter == 0) {
+                        store.call("HDEL", keys.get(0), argv.get(1));
+                    }
+                    store.call("DEL", keys.get(2) + ":" + (counter + 1));
+                    if ((Long) store.call("HLEN", keys.get(0)) > 1) {
+                        long maxRemainTime = -3;
+                        for (Map.Entry<String, Long> reader : readers(store, keys.get(0)).entrySet()) {
+                            for (long i = reader.getValue(); i >= 1; i--) {
+                                long remainTime = (Long) store.call("PTTL", keys.get(3) + ":" + reader.getKey() + ":rwlock_timeout:" + i);
+                                maxRemainTime = Math.max(remainTime, maxRemainTime);
+                            }
+                        }
+                        if (maxRemainTime > 0) {
+                            store.call("PEXPIRE", keys.get(0), String.valueOf(maxRemainTime));
+                            return 0L;
+                        }
+                        if ("write".equals(mode)) {
+                            return 0L;
+                        }
+                    }
+                    store.call("DEL", keys.get(0));
+                    store.call("PUBLISH", keys.get(1), argv.get(0));
+                    return 1L;
+                });
+        // RedissonWriteLock#tryLockInnerAsync
+        register("local mode = redis.call('hget', KEYS[1], 'mode'); if (mode == false) then redis.call('hset', KEYS[1], 'mode', 'write'); "
+                        + "redis.call('hset', KEYS[1], ARGV[2], 1); redis.call('pexpire', KEYS[1], ARGV[1]); return nil; end; "
+                        + "if (mode == 'write') then if (redis.call('hexists', KEYS[1], ARGV[2]) == 1) then redis.call('hincrby', KEYS[1], ARGV[2], 1); "
+                        + "local currentExpire = redis.call('pttl', KEYS[1]); redis.call('pexpire', KEYS[1], currentExpire + ARGV[1]); return nil; end; end;"
+                        + "return redis.call('pttl', KEYS[1]);",
+                (store, keys, argv) -> {
+                    Object mode = store.call("HGET", keys.get(0), "mode");
+                    if (mode == null) {
+                        store.call("HSET", keys.get(0), "mode", "write");
+                        store.call("HSET", keys.get(0), argv.get(1), "1");
+                        store.call("PEXPIRE", keys.get(0), argv.get(0));
+                        return null;
+                    }
+                    if ("write".equals(mode) && !isZero(store.call("HEXISTS", keys.get(0), argv.get(1)))) {
+                        store.call("HINCRBY", keys.get(0), argv.get(1), "1");
+                        long currentExpire = (Long) store.call("PTTL", keys.get(0));
+                        store.call("PEXPIRE", keys.get(0), String.valueOf(currentExpire + StandInDataStore.parseLong(argv.get(0))));
+                        return null;
+                    }
+                    return store.call("PTTL", keys.get(0));
+                });
+        // RedissonWriteLock#unlockInnerAsync
+        register("local mode = redis.call('hget', KEYS[1], 'mode'); if (mode == false) then redis.call('publish', KEYS[2], ARGV[1]); return 1; end;"
+                        + "if (mode == 'write') then local lockExists = redis.call('hexists', KEYS[1], ARGV[3]); if (lockExists == 0) then return nil;"
+                        + "else local counter = redis.call('hincrby', KEYS[1], ARGV[3], -1); if (counter > 0) then redis.call('pexpire', KEYS[1], ARGV[2]); "
+                        + "return 0; else redis.call('hdel', KEYS[1], ARGV[3]); if (redis.call('hlen', KEYS[1]) == 1) then redis.call('del', KEYS[1]); "
+                        + "redis.call('publish', KEYS[2], ARGV[1]); else redis.call('hset', KEYS[1], 'mode', 'read'); end; return 1; end; end; end; return nil;",
+                (store, keys, argv) -> {
+                    Object mode = store.call("HGET", keys.get(0), "mode");
+                    if (mode == null) {
+                        store.call("PUBLISH", keys.get(1), argv.get(0));
+                        return 1L;
+                    }
+                    if (!"write".equals(mode) || isZero(store.call("HEXISTS", keys.get(0), argv.get(2)))) {
+                        return null;
+                    }
+                    long counter = (Long) store.call("HINCRBY", keys.get(0), argv.get(2), "-1");
+                    if (counter > 0) {
+                        store.call("PEXPIRE", keys.get(0), argv.get(1));
+                        return 0L;
+                    }
+                    store.call("HDEL", keys.get(0), argv.get(2));
+                    if ((Long) store.call("HLEN", keys.get(0)) == 1) {
+                        store.call("DEL", keys.get(0));
+                        store.call("PUBLISH", keys.get(1), argv.get(0));
+                    } else {
+                        store.call("HSET", keys.get(0), "mode", "read");
+                    }
+                    return 1L;
+                });
+        // RedissonPermitExpirableSemaphore#tryAcquireAsync
+        register("local expiredIds = redis.call('zrangebyscore', KEYS[2], 0, ARGV[4], 'limit', 0, ARGV[1]); if #expiredIds > 0 then "
+                        + "redis.call('zrem', KEYS[2], unpack(expiredIds)); local value = redis.call('incrby', KEYS[1], #expiredIds); "
+                        + "if tonumber(value) > 0 then redis.call('publish', KEYS[3], value); end;end; local value = redis.call('get', KEYS[1]); "
+                        + "if (value ~= false and tonumber(value) >= tonumber(ARGV[1])) then redis.call('decrby', KEYS[1], ARGV[1]); "
+                        + "redis.call('zadd', KEYS[2], ARGV[2], ARGV[3]); return ARGV[3]; end; local v = redis.call('zrange', KEYS[2], 0, 0, 'WITHSCORES'); "
+                        + "if v[1] ~= nil and v[2] ~= ARGV[5] then return ':' .. tostring(v[2]); end return nil;",
+                (store, keys, argv) -> {
+                    releaseExpiredPermits(store, keys.get(0), keys.get(1), keys.get(2), argv.get(3), argv.get(0));
+                    Object value = store.call("GET", keys.get(0));
+                    if (value != null && StandInDataStore.parseLong((String) value) >= StandInDataStore.parseLong(argv.get(0))) {
+                        store.call("DECRBY", keys.get(0), argv.get(0));
+                        store.call("ZADD", keys.get(1), argv.get(1), argv.get(2));
+                        return argv.get(2);
+                    }
+                    List<?> first = (List<?>) store.call("ZRANGE", keys.get(1), "0", "0", "WITHSCORES");
+                    if (!first.isEmpty() && !first.get(1).equals(argv.get(4))) {
+                        return ":" + first.get(1);
+                    }
+                    return null;
+                });
+        // RedissonPermitExpirableSemaphore#releaseAsync
+        register("local removed = redis.call('zrem', KEYS[3], ARGV[1]);if tonumber(removed) ~= 1 then return 0;end;"
+                        + "local value = redis.call('incrby', KEYS[1], ARGV[2]); redis.call('publish', KEYS[2], value); return 1;",
+                (store, keys, argv) -> {
+                    if (isZero(store.call("ZREM", keys.get(2), argv.get(0)))) {
+                        return 0L;
+                    }
+                    Object value = store.call("INCRBY", keys.get(0), argv.get(1));
+                    store.call("PUBLISH", keys.get(1), String.valueOf(value));
+                    return 1L;
+                });
+        // RedissonPermitExpirableSemaphore#availablePermitsAsync
+        register("local expiredIds = redis.call('zrangebyscore', KEYS[2], 0, ARGV[1], 'limit', 0, -1); if #expiredIds > 0 then "
+                        + "redis.call('zrem', KEYS[2], unpack(expiredIds)); local value = redis.call('incrby', KEYS[1], #expiredIds); "
+                        + "if tonumber(value) > 0 then redis.call('publish', KEYS[3], value); end;return value; end; "
+                        + "local ret = redis.call('get', KEYS[1]); return ret == false and 0 or ret;",
+                (store, keys, argv) -> {
+                    releaseExpiredPermits(store, keys.get(0), keys.get(1), keys.get(2), argv.get(0), "-1");
+                    Object value = store.call("GET", keys.get(0));
+                    return value == null ? 0L : StandInDataStore.parseLong((String) value);
+                });
+        // RedissonPermitExpirableSemaphore#trySetPermitsAsync
+        register("local value = redis.call('get', KEYS[1]); if (value == false or value == 0) then redis.call('set', KEYS[1], ARGV[1]); "
+                        + "redis.call('publish', KEYS[2], ARGV[1]); return 1;end;return 0;",
+                (store, keys, argv) -> {
+                    if (store.call("GET", keys.get(0)) != null) {
+                        return 0L;
+                    }
+                    store.call("SET", keys.get(0), argv.get(0));
+                    store.call("PUBLISH", keys.get(1), argv.get(0));
+                    return 1L;
+                });
+    }
+
+    /**
+     * 注册脚本实现
+     *
+     * @param script         Lua脚本原文
+     * @param implementation 等价的Java实现
+     */
+    public void register(String script, Script implementation) {
+        scripts.put(normalize(script), implementation);
+    }
+
+    /**
+     * 按脚本原文查找实现
+     *
+     * @param script
+     * @return 未注册时返回null
+     */
+    public Script find(String script) {
+        return scripts.get(normalize(script));
+    }
+
+    private static String normalize(String script) {
+        return script.replaceAll("\\s+", "");
+    }
+
+    /**
+     * 读写锁hash中的读锁持有者及其重入次数（跳过 mode 等非数字的field）
+     */
+    private static Map<String, Long> readers(StandInDataStore store, String key) {
+        Map<String, Long> readers = new LinkedHashMap<>();
+        for (Object field : (List<?>) store.call("HKEYS", key)) {
+            Object counter = store.call("HGET", key, (String) field);
+            try {
+                readers.put((String) field, StandInDataStore.parseLong((String) counter));
+            } catch (RuntimeException e) {
+                // tonumber 返回 nil 的field
+            }
+        }
+        return readers;
+    }
+
+    /**
+     * 归还到期的许可：从超时zset中移除到期的许可id并加回许可数
+     */
+    private static void releaseExpiredPermits(StandInDataStore store, String name, String timeoutName, String channel, String now, String limit) {
+        List<?> expired = (List<?>) store.call("ZRANGEBYSCORE", timeoutName, "0", now, "LIMIT", "0", limit);
+        if (expired.isEmpty()) {
+            return;
+        }
+        List<String> zrem = new ArrayList<>();
+        zrem.add("ZREM");
+        zrem.add(timeoutName);
+        for (Object id : expired) {
+            zrem.add((String) id);
+        }
+        store.call(zrem.toArray(new String[0]));
+        long value = (Long) store.call("INCRBY", name, String.valueOf(expired.size()));
+        if (value > 0) {
+            store.call("PUBLISH", channel, String.valueOf(value));
+        }
+    }
+
+    private static boolean isZero(Object reply) {
+        return reply instanceof Number && ((Number) reply).longValue() == 0;
+    }
+}
@@ -0,0 +1,191 @@
+package com.dw.study.benchmark.standin;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * @Author dw
+ * @ClassName StandInSortedSet
+ * @Description 压测用 Redis 替身的 ZSET 类型：成员 -> 分数，加上按（分数, 成员）排序的索引，
+ * 由 {@link StandInDataStore} 在命令锁内调用
+ * @Date 2026/10/19 18:05
+ * @Version 1.0
+ */
+final class StandInSortedSet {
+
+    private final Map<String, Double> scores = new HashMap<>();
+
+    private final TreeSet<Member> ordered = new TreeSet<>();
+
+    int size() {
+        return scores.size();
+    }
+
+    Double score(String member) {
+        return scores.get(member);
+    }
+
+    /**
+     * 设置分数
+     *
+     * @return true表示新增成员
+     */
+    boolean put(String member, double score) {
+        Double old = scores.put(member, score);
+        if (old != null) {
+            ordered.remove(new Member(old, member));
+        }
+        ordered.add(new Member(score, member));
+        return old == null;
+    }
+
+    boolean remove(String member) {
+        Double old = scores.remove(member);
+        if (old == null) {
+            return false;
+        }
+        ordered.remove(new Member(old, member));
+        return true;
+    }
+
+    /**
+     * 成员的排名（从0开始），不存在时返回null
+     */
+    Long rank(String member, boolean reverse) {
+        Double score = scores.get(member);
+        if (score == null) {
+            return null;
+        }
+        long rank = ordered.headSet(new Member(score, member), false).size();
+        return reverse ? scores.size() - 1 - rank : rank;
+    }
+
+    /**
+     * 按排名取成员，start/stop 支持负数下标
+     */
+    List<Member> byRank(long start, long stop, boolean reverse) {
+        int size = scores.size();
+        long from = start < 0 ? Math.max(0, size + start) : start;
+        long to = Math.min(size - 1, stop < 0 ? size + stop : stop);
+        if (from > to || from >= size) {
+            return Collections.emptyList();
+        }
+        List<Member> result = new ArrayList<>((int) (to - from + 1));
+        Iterator<Member> iterator = reverse ? ordered.descendingIterator() : ordered.iterator();
+        for (int i = 0; iterator.hasNext() && i <= to; i++) {
+            Member member = iterator.next();
+            if (i >= from) {
+                result.add(member);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按分数区间取成员
+     *
+     * @param offset LIMIT 的偏移量
+     * @param count  LIMIT 的个数，负数表示不限制
+     */
+    List<Member> byScore(String min, String max, boolean reverse, long offset, long count) {
+        double low = parseBound(min);
+        double high = parseBound(max);
+        boolean lowExclusive = min.startsWith("(");
+        boolean highExclusive = max.startsWith("(");
+        if (low > high) {
+            return Collections.emptyList();
+        }
+        NavigableSet<Member> range = ordered.subSet(new Member(low, null), true, new Member(high, Member.MAX_MEMBER), true);
+        Iterator<Member> iterator = reverse ? range.descendingIterator() : range.iterator();
+        List<Member> result = new ArrayList<>();
+        long skipped = 0;
+        while (iterator.hasNext() && (count < 0 || result.size() < count)) {
+            Member member = iterator.next();
+            if ((lowExclusive && member.score == low) || (highExclusive && member.score == high)) {
+                continue;
+            }
+            if (skipped++ < offset) {
+                continue;
+            }
+            result.add(member);
+        }
+        return result;
+    }
+
+    static double parseBound(String value) {
+        String number = value.startsWith("(") ? value.substring(1) : value;
+        return parseScore(number);
+    }
+
+    static double parseScore(String value) {
+        switch (value.toLowerCase()) {
+            case "-inf":
+                return Double.NEGATIVE_INFINITY;
+            case "+inf":
+            case "inf":
+                return Double.POSITIVE_INFINITY;
+            default:
+                try {
+                    return Double.parseDouble(value);
+                } catch (NumberFormatException e) {
+                    throw new RespException("ERR min or max is not a float");
+                }
+        }
+    }
+
+    static String formatScore(double score) {
+        if (Double.isInfinite(score)) {
+            return score > 0 ? "inf" : "-inf";
+        }
+        return BigDecimal.valueOf(score).stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * 排序索引中的一项：先按分数，再按成员字典序
+     */
+    static final class Member implements Comparable<Member> {
+
+        /**
+         * 比任何成员都大的哨兵，用于分数区间的上界
+         */
+        private static final String MAX_MEMBER = "\uffff\uffff";
+
+        final double score;
+
+        final String member;
+
+        private Member(double score, String member) {
+            this.score = score;
+            this.member = member;
+        }
+
+        @Override
+        public int compareTo(Member other) {
+            int byScore = Double.compare(score, other.score);
+            if (byScore != 0) {
+                return byScore;
+            }
+            if (member == null || other.member == null) {
+                return member == null ? (other.member == null ? 0 : -1) : 1;
+            }
+            return member.compareTo(other.member);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Member && compareTo((Member) other) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Double.hashCode(score) * 31 + (member == null ? 0 : member.hashCode());
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package com.dw.study.benchmark.standin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * @Author dw
+ * @ClassName StandInStream
+ * @Description 压测用 Redis 替身的 Stream 类型（XADD、XRANGE、XTRIM、XGROUP、XREADGROUP、XACK、XPENDING、XCLAIM），
+ * 由 {@link StandInDataStore} 在命令锁内调用，回复格式与 Redis 6.0 一致
+ * @Date 2026/10/19 17:40
+ * @Version 1.0
+ */
+final class StandInStream {
+
+    private final TreeMap<StreamId, List<String>> entries = new TreeMap<>();
+
+    private final Map<String, Group> groups = new LinkedHashMap<>();
+
+    private StreamId lastId = new StreamId(0, 0);
+
+    /**
+     * XADD key [NOMKSTREAM] [MAXLEN [~|=] count] *|id field value [field value ...]
+     */
+    Object add(List<String> args) {
+        int i = 2;
+        long maxLength = -1;
+        while (i < args.size()) {
+            String option = args.get(i).toUpperCase();
+            if ("NOMKSTREAM".equals(option)) {
+                i++;
+            } else if ("MAXLEN".equals(option)) {
+                i = skipTrimStrategy(args, i + 1);
+                maxLength = StandInDataStore.parseLong(arg(args, i++));
+            } else {
+                break;
+            }
+        }
+        String requested = arg(args, i++);
+        if (args.size() == i || (args.size() - i) % 2 != 0) {
+            throw RespException.wrongArgs("XADD");
+        }
+        StreamId id;
+        if ("*".equals(requested)) {
+            long now = System.currentTimeMillis();
+            id = now > lastId.ms ? new StreamId(now, 0) : new StreamId(lastId.ms, lastId.seq + 1);
+        } else {
+            id = StreamId.parse(requested, 0);
+            if (id.compareTo(lastId) <= 0) {
+                throw new RespException("ERR The ID specified in XADD is equal or smaller than the target stream top item");
+            }
+        }
+        entries.put(id, new ArrayList<>(args.subList(i, args.size())));
+        lastId = id;
+        if (maxLength >= 0) {
+            trimTo(maxLength);
+        }
+        return id.toString();
+    }
+
+    long length() {
+        return entries.size();
+    }
+
+    /**
+     * XRANGE/XREVRANGE key start end [COUNT count]
+     */
+    Object range(List<String> args, boolean reverse) {
+        StreamId start = parseBound(arg(args, reverse ? 3 : 2), true);
+        StreamId end = parseBound(arg(args, reverse ? 2 : 3), false);
+        long count = args.size() > 5 && "COUNT".equalsIgnoreCase(args.get(4)) ? StandInDataStore.parseLong(args.get(5)) : Long.MAX_VALUE;
+        if (start.compareTo(end) > 0) {
+            return Collections.emptyList();
+        }
+        NavigableMap<StreamId, List<String>> range = entries.subMap(start, true, end, true);
+        if (reverse) {
+            range = range.descendingMap();
+        }
+        List<Object> reply = new ArrayList<>();
+        for (Map.Entry<StreamId, List<String>> entry : range.entrySet()) {
+            if (reply.size() >= count) {
+                break;
+            }
+            reply.add(entryReply(entry.getKey(), entry.getValue()));
+        }
+        return reply;
+    }
+
+    /**
+     * XTRIM key MAXLEN [~|=] count
+     */
+    long trim(List<String> args) {
+        if (!"MAXLEN".equalsIgnoreCase(arg(args, 2))) {
+            throw new RespException(RespException.SYNTAX);
+        }
+        int i = skipTrimStrategy(args, 3);
+        return trimTo(StandInDataStore.parseLong(arg(args, i)));
+    }
+
+    long delete(List<String> args) {
+        long removed = 0;
+        for (String id : args.subList(2, args.size())) {
+            removed += entries.remove(StreamId.parse(id, 0)) != null ? 1 : 0;
+        }
+        return removed;
+    }
+
+    /**
+     * XGROUP CREATE|DESTROY|CREATECONSUMER|DELCONSUMER|SETID
+     */
+    Object group(List<String> args) {
+        String sub = arg(args, 1).toUpperCase();
+        String name = arg(args, 3);
+        switch (sub) {
+            case "CREATE": {
+                if (groups.containsKey(name)) {
+                    throw new RespException("BUSYGROUP Consumer Group name already exists");
+                }
+                String id = arg(args, 4);
+                groups.put(name, new Group("$".equals(id) ? lastId : StreamId.parse(id, 0)));
+                return RespWriter.OK;
+            }
+            case "SETID": {
+                String id = arg(args, 4);
+                group(args.get(2), name).lastDelivered = "$".equals(id) ? lastId : StreamId.parse(id, 0);
+                return RespWriter.OK;
+            }
+            case "DESTROY":
+                return groups.remove(name) != null ? 1L : 0L;
+            case "CREATECONSUMER":
+                return group(args.get(2), name).consumers.add(arg(args, 4)) ? 1L : 0L;
+            case "DELCONSUMER": {
+                Group group = group(args.get(2), name);
+                String consumer = arg(args, 4);
+                long pending = group.pending.values().stream().filter(p -> p.consumer.equals(consumer)).count();
+                group.pending.values().removeIf(p -> p.consumer.equals(consumer));
+                group.consumers.remove(consumer);
+                return pending;
+            }
+            default:
+                throw new RespException(RespException.SYNTAX);
+        }
+    }
+
+    /**
+     * XREADGROUP 中的一个 stream：id 为 > 时读取新消息并加入待确认列表，否则读取该消费者待确认的消息
+     *
+     * @return 消息列表，没有消息时为空列表
+     */
+    List<Object> readGroup(String key, String groupName, String consumer, String id, long count, boolean noAck) {
+        Group group = groups.get(groupName);
+        if (group == null) {
+            throw new RespException("NOGROUP No such key '" + key + "' or consumer group '" + groupName + "' in XREADGROUP with GROUP option");
+        }
+        group.consumers.add(consumer);
+        List<Object> reply = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        if (">".equals(id)) {
+            for (Map.Entry<StreamId, List<String>> entry : entries.tailMap(group.lastDelivered, false).entrySet()) {
+                if (reply.size() >= count) {
+                    break;
+                }
+                group.lastDelivered = entry.getKey();
+                if (!noAck) {
+                    group.pending.put(entry.getKey(), new Pending(consumer, now));
+                }
+                reply.add(entryReply(entry.getKey(), entry.getValue()));
+            }
+            return reply;
+        }
+        for (Map.Entry<StreamId, Pending> pending : group.pending.tailMap(StreamId.parse(id, 0), false).entrySet()) {
+            if (reply.size() >= count) {
+                break;
+            }
+            if (pending.getValue().consumer.equals(consumer)) {
+                reply.add(entryReply(pending.getKey(), entries.get(pending.getKey())));
+            }
+        }
+        return reply;
+    }
+
+    /**
+     * XACK key group id [id ...]
+     */
+    long ack(List<String> args) {
+        Group group = groups.get(arg(args, 2));
+        if (group == null) {
+            return 0L;
+        }
+        long acked = 0;
+        for (String id : args.subList(3, args.size())) {
+            acked += group.pending.remove(StreamId.parse(id, 0)) != null ? 1 : 0;
+        }
+        return acked;
+    }
+
+    /**
+     * XPENDING key group [[IDLE min-idle-time] start end count [consumer]]
+     */
+    Object pending(List<String> args) {
+        Group group = group(arg(args, 1), arg(args, 2));
+        if (args.size() == 3) {
+            if (group.pending.isEmpty()) {
+                return Arrays.asList(0L, null, null, RespWriter.NULL_ARRAY);
+            }
+            Map<String, Long> perConsumer = new LinkedHashMap<>();
+            for (Pending pending : group.pending.values()) {
+                perConsumer.merge(pending.consumer, 1L, Long::sum);
+            }
+            List<Object> consumers = new ArrayList<>();
+            for (Map.Entry<String, Long> entry : perConsumer.entrySet()) {
+                consumers.add(Arrays.<Object>asList(entry.getKey(), String.valueOf(entry.getValue())));
+            }
+            return Arrays.asList((long) group.pending.size(), group.pending.firstKey().toString(),
+                    group.pending.lastKey().toString(), consumers);
+        }
+        int i = 3;
+        long minIdle = 0;
+        if ("IDLE".equalsIgnoreCase(args.get(i))) {
+            minIdle = StandInDataStore.parseLong(arg(args, i + 1));
+            i += 2;
+        }
+        StreamId start = parseBound(arg(args, i), true);
+        StreamId end = parseBound(arg(args, i + 1), false);
+        long count = StandInDataStore.parseLong(arg(args, i + 2));
+        String consumer = args.size() > i + 3 ? args.get(i + 3) : null;
+        List<Object> reply = new ArrayList<>();
+        if (start.compareTo(end) > 0) {
+            return reply;
+        }
+        long now = System.currentTimeMillis();
+        for (Map.Entry<StreamId, Pending> entry : group.pending.subMap(start, true, end, true).entrySet()) {
+            if (reply.size() >= count) {
+                break;
+            }
+            Pending pending = entry.getValue();
+            long idle = now - pending.deliveredAt;
+            if ((consumer == null || consumer.equals(pending.consumer)) && idle >= minIdle) {
+                reply.add(Arrays.<Object>asList(entry.getKey().toString(), pending.consumer, idle, pending.deliveries));
+            }
+        }
+        return reply;
+    }
+
+    /**
+     * XCLAIM key group consumer min-idle-time id [id ...] [IDLE ms] [TIME ms] [RETRYCOUNT count] [FORCE] [JUSTID]
+     */
+    Object claim(List<String> args) {
+        Group group = group(arg(args, 1), arg(args, 2));
+        String consumer = arg(args, 3);
+        long minIdle = StandInDataStore.parseLong(arg(args, 4));
+        List<StreamId> ids = new ArrayList<>();
+        int i = 5;
+        while (i < args.size() && Character.isDigit(args.get(i).charAt(0))) {
+            ids.add(StreamId.parse(args.get(i++), 0));
+        }
+        long now = System.currentTimeMillis();
+        long deliveredAt = now;
+        Long retryCount = null;
+        boolean force = false;
+        boolean justId = false;
+        for (; i < args.size(); i++) {
+            String option = args.get(i).toUpperCase();
+            switch (option) {
+                case "IDLE":
+                    deliveredAt = now - StandInDataStore.parseLong(arg(args, ++i));
+                    break;
+                case "TIME":
+                    deliveredAt = StandInDataStore.parseLong(arg(args, ++i));
+                    break;
+                case "RETRYCOUNT":
+                    retryCount = StandInDataStore.parseLong(arg(args, ++i));
+                    break;
+                case "FORCE":
+                    force = true;
+                    break;
+                case "JUSTID":
+                    justId = true;
+                    break;
+                case "LASTID":
+                    i++;
+                    break;
+                default:
+                    throw new RespException(RespException.SYNTAX);
+            }
+        }
+        group.consumers.add(consumer);
+        List<Object> reply = new ArrayList<>();
+        for (StreamId id : ids) {
+            Pending pending = group.pending.get(id);
+            if (pending == null) {
+                if (!force || !entries.containsKey(id)) {
+                    continue;
+                }
+                pending = new Pending(consumer, now);
+                pending.deliveries = 0;
+                group.pending.put(id, pending);
+            } else if (now - pending.deliveredAt < minIdle) {
+                continue;
+            }
+            List<String> fields = entries.get(id);
+            if (fields == null) {
+                // 消息已被删除或裁剪，从待确认列表中移除
+                group.pending.remove(id);
+                continue;
+            }
+            pending.consumer = consumer;
+            pending.deliveredAt = deliveredAt;
+            if (retryCount != null) {
+                pending.deliveries = retryCount;
+            } else if (!justId) {
+                pending.deliveries++;
+            }
+            reply.add(justId ? id.toString() : entryReply(id, fields));
+        }
+        return reply;
+    }
+
+    private Group group(String key, String name) {
+        Group group = groups.get(name);
+        if (group == null) {
+            throw new RespException("NOGROUP No such key '" + key + "' or consumer group '" + name + "'");
+        }
+        return group;
+    }
+
+    private long trimTo(long maxLength) {
+        long removed = 0;
+        while (entries.size() > maxLength) {
+            entries.pollFirstEntry();
+            removed++;
+        }
+        return removed;
+    }
+
+    private static int skipTrimStrategy(List<String> args, int index) {
+        String strategy = arg(args, index);
+        return "~".equals(strategy) || "=".equals(strategy) ? index + 1 : index;
+    }
+
+    private static StreamId parseBound(String value, boolean start) {
+        if ("-".equals(value)) {
+            return new StreamId(0, 0);
+        }
+        if ("+".equals(value)) {
+            return new StreamId(Long.MAX_VALUE, Long.MAX_VALUE);
+        }
+        if (value.startsWith("(")) {
+            StreamId id = StreamId.parse(value.substring(1), start ? 0 : Long.MAX_VALUE);
+            return start ? new StreamId(id.ms, id.seq + 1) : new StreamId(id.ms, id.seq - 1);
+        }
+        return StreamId.parse(value, start ? 0 : Long.MAX_VALUE);
+    }
+
+    private static List<Object> entryReply(StreamId id, List<String> fields) {
+        return Arrays.asList(id.toString(), fields == null ? null : new ArrayList<Object>(fields));
+    }
+
+    private static String arg(List<String> args, int index) {
+        if (index >= args.size()) {
+            throw RespException.wrongArgs(args.get(0));
+        }
+        return args.get(index);
+    }
+
+    /**
+     * 消费者组
+     */
+    private static final class Group {
+
+        private StreamId lastDelivered;
+
+        private final TreeMap<StreamId, Pending> pending = new TreeMap<>();
+
+        private final Set<String> consumers = new LinkedHashSet<>();
+
+        private Group(StreamId lastDelivered) {
+            this.lastDelivered = lastDelivered;
+        }
+    }
+
+    /**
+     * 待确认消息
+     */
+    private static final class Pending {
+
+        private String consumer;
+
+        private long deliveredAt;
+
+        private long deliveries = 1;
+
+        private Pending(String consumer, long deliveredAt) {
+            this.consumer = consumer;
+            this.deliveredAt = deliveredAt;
+        }
+    }
+
+    /**
+     * 消息ID：毫秒时间戳-序号
+     */
+    private static final class StreamId implements Comparable<StreamId> {
+
+        private final long ms;
+
+        private final long seq;
+
+        private StreamId(long ms, long seq) {
+            this.ms = ms;
+            this.seq = seq;
+        }
+
+        private static StreamId parse(String value, long defaultSeq) {
+            try {
+                int dash = value.indexOf('-');
+                if (dash < 0) {
+                    return new StreamId(Long.parseLong(value), defaultSeq);
+                }
+                return new StreamId(Long.parseLong(value.substring(0, dash)), Long.parseLong(value.substring(dash + 1)));
+            } catch (NumberFormatException e) {
+                throw new RespException("ERR Invalid stream ID specified as stream command argument");
+            }
+        }
+
+        @Override
+        public int compareTo(StreamId other) {
+            int byMs = Long.compare(ms, other.ms);
+            return byMs != 0 ? byMs : Long.compare(seq, other.seq);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof StreamId && compareTo((StreamId) other) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(ms) * 31 + Long.hashCode(seq);
+        }
+
+        @Override
+        public String toString() {
+            return ms + "-" + seq;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.dw.study.cache;
+
+import com.dw.study.support.RedisIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.Base64Utils;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * @Author dw
+ * @ClassName CachePolicyRegistryTest
+ * @Description 重新加载缓存策略时保留命令行参数等覆盖的值，只替换重新读取的配置文件；没有配置 reload-location 或文件不存在时报错；
+ * 重新加载的管理端点需要 ADMIN 账号
+ * @Date 2026/10/20 11:40
+ * @Version 1.0
+ */
+class CachePolicyRegistryTest extends RedisIntegrationTest {
+
+    /**
+     * 与 SpringBoot 加载 classpath:application.yml 时的属性源名称一致
+     */
+    private static final String APPLICATION_YML = "Config resource 'class path resource [application.yml]' via location 'optional:classpath:/'";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void reloadKeepsOverridesFromTheEnvironment() throws IOException {
+        StandardEnvironment environment = environment(Duration.ofSeconds(42), "classpath:application.yml");
+        CachePolicyRegistry registry = registry(environment);
+
+        Map<String, CachePolicy> policies = registry.reload();
+
+        assertThat(policies.get("cacheName1").getTtl()).isEqualTo(Duration.ofSeconds(42));
+        assertThat(policies.get("cacheName2").getTtl()).isEqualTo(Duration.ofSeconds(400));
+    }
+
+    @Test
+    void reloadFailsWithoutAReloadLocation() throws IOException {
+        CachePolicyRegistry registry = registry(environment(Duration.ofSeconds(42), null));
+        Map<String, CachePolicy> before = registry.getPolicies();
+
+        assertThatThrownBy(registry::reload).isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("redis.cache.reload-location");
+
+        assertThat(registry.getPolicies()).isSameAs(before);
+    }
+
+    @Test
+    void reloadFailsWhenTheFileIsMissing() throws IOException {
+        String missing = "file:" + tempDir.resolve("missing.yml").toAbsolutePath();
+        CachePolicyRegistry registry = registry(environment(Duration.ofSeconds(42), missing));
+
+        assertThatThrownBy(registry::reload).isInstanceOf(FileNotFoundException.class);
+    }
+
+    @Test
+    void reloadedExternalFileOverridesPackagedFileButNotCommandLine() throws IOException {
+        Path external = tempDir.resolve("application.yml");
+        Files.write(external, ("redis:\n  cache:\n    policies:\n      cacheName2:\n        ttl: 999s\n"
+                + "      cacheName9:\n        ttl: 9s\n").getBytes(StandardCharsets.UTF_8));
+        StandardEnvironment environment = environment(Duration.ofSeconds(42), "file:" + external.toAbsolutePath());
+        CachePolicyRegistry registry = registry(environment);
+        assertThat(registry.getPolicies()).doesNotContainKey("cacheName9");
+
+        Map<String, CachePolicy> policies = registry.reload();
+
+        assertThat(policies.get("cacheName1").getTtl()).isEqualTo(Duration.ofSeconds(42));
+        assertThat(policies.get("cacheName2").getTtl()).isEqualTo(Duration.ofSeconds(999));
+        assertThat(policies.get("cacheName3").getTtl()).isEqualTo(Duration.ofSeconds(500));
+        assertThat(policies.get("cacheName9").getTtl()).isEqualTo(Duration.ofSeconds(9));
+    }
+
+    @Test
+    void reloadEndpointRequiresAdmin() throws Exception {
+        mockMvc.perform(post("/actuator/cachepolicies")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/cachepolicies")).andExpect(status().isUnauthorized());
+
+        mockMvc.perform(post("/actuator/cachepolicies").header(HttpHeaders.AUTHORIZATION, adminAuthorization()))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * 命令行参数覆盖 cacheName1 的过期时间，其余来自 classpath:application.yml
+     */
+    private static StandardEnvironment environment(Duration cacheName1Ttl, String reloadLocation) throws IOException {
+        StandardEnvironment environment = new StandardEnvironment();
+        Map<String, Object> commandLine = new HashMap<>();
+        commandLine.put("redis.cache.policies.cacheName1.ttl", cacheName1Ttl.getSeconds() + "s");
+        if (reloadLocation != null) {
+            commandLine.put("redis.cache.reload-location", reloadLocation);
+        }
+        environment.getPropertySources().addFirst(new MapPropertySource("commandLineArgs", commandLine));
+        for (PropertySource<?> source : new YamlPropertySourceLoader().load(APPLICATION_YML, new ClassPathResource("application.yml"))) {
+            environment.getPropertySources().addLast(source);
+        }
+        return environment;
+    }
+
+    private static CachePolicyRegistry registry(StandardEnvironment environment) {
+        CachePolicyProperties properties = Binder.get(environment).bind("redis.cache", CachePolicyProperties.class).get();
+        return new CachePolicyRegistry(properties, new DefaultResourceLoader(), environment);
+    }
+
+    private static String adminAuthorization() {
+        return "Basic " + Base64Utils.encodeToString(("admin:" + ADMIN_PASSWORD).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,119 @@
+package com.dw.study.delay;
+
+import com.dw.study.support.RedisIntegrationTest;
+import com.dw.study.utils.RedisScriptRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @Author dw
+ * @ClassName RedisDelayQueueTest
+ * @Description delay_queue_claim.lua 在真实 Redis 上的领取：只领取到期任务、租约到期后重新领取、超过 unpack 上限的大批量领取
+ * @Date 2026/10/20 11:50
+ * @Version 1.0
+ */
+class RedisDelayQueueTest extends RedisIntegrationTest {
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisScriptRegistry scriptRegistry;
+
+    private DelayQueueProperties properties;
+
+    private RedisDelayQueue delayQueue;
+
+    private String queue;
+
+    @BeforeEach
+    void setUp() {
+        properties = new DelayQueueProperties();
+        properties.setPollInterval(Duration.ofMillis(10));
+        delayQueue = new RedisDelayQueue(stringRedisTemplate, properties, scriptRegistry);
+        queue = "test-" + System.nanoTime();
+    }
+
+    @AfterEach
+    void tearDown() {
+        delayQueue.destroy();
+        stringRedisTemplate.delete(Collections.singletonList("delay:{" + queue + "}"));
+        stringRedisTemplate.delete(Collections.singletonList("delay:{" + queue + "}:processing"));
+    }
+
+    @Test
+    void claimTakesOnlyDueJobsOnce() {
+        long now = System.currentTimeMillis();
+        delayQueue.scheduleAt(queue, "due", now - 1000);
+        delayQueue.schedule(queue, "later", Duration.ofHours(1));
+
+        assertThat(delayQueue.claim(queue, 10)).containsExactly("due");
+        assertThat(delayQueue.claim(queue, 10)).isEmpty();
+        assertThat(delayQueue.size(queue)).isEqualTo(1);
+
+        delayQueue.ack(queue, Collections.singletonList("due"));
+        assertThat(stringRedisTemplate.opsForZSet().zCard("delay:{" + queue + "}:processing")).isZero();
+    }
+
+    @Test
+    void jobWithExpiredLeaseIsClaimedAgain() throws InterruptedException {
+        properties.setVisibilityTimeout(Duration.ofMillis(1));
+        delayQueue.scheduleAt(queue, "job", System.currentTimeMillis() - 1000);
+
+        assertThat(delayQueue.claim(queue, 10)).containsExactly("job");
+        Thread.sleep(10);
+
+        assertThat(delayQueue.claim(queue, 10)).containsExactly("job");
+    }
+
+    @Test
+    void largeBatchIsClaimedInOneCall() {
+        int count = 20000;
+        long due = System.currentTimeMillis() - 1000;
+        Map<String, Long> jobs = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            jobs.put("job-" + i, due);
+        }
+        delayQueue.scheduleAll(queue, jobs);
+
+        List<String> claimed = delayQueue.claim(queue, count);
+
+        assertThat(claimed).hasSize(count);
+        assertThat(new HashSet<>(claimed)).isEqualTo(jobs.keySet());
+        assertThat(delayQueue.size(queue)).isZero();
+        assertThat(stringRedisTemplate.opsForZSet().zCard("delay:{" + queue + "}:processing")).isEqualTo(count);
+    }
+
+    @Test
+    void subscribedHandlerReceivesDueJobsAndAcksThem() throws InterruptedException {
+        List<String> handled = new CopyOnWriteArrayList<>();
+        delayQueue.subscribe(queue, (q, batch) -> handled.addAll(batch));
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            delayQueue.schedule(queue, "job-" + i, Duration.ofMillis(20));
+            expected.add("job-" + i);
+        }
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (handled.size() < expected.size() || stringRedisTemplate.opsForZSet().zCard("delay:{" + queue + "}:processing") > 0) {
+            assertThat(System.currentTimeMillis()).as("等待任务执行超时").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+        assertThat(new ArrayList<>(handled)).containsExactlyInAnyOrderElementsOf(expected);
+    }
+}
@@ -0,0 +1,157 @@
+package com.dw.study.geo;
+
+import com.dw.study.support.RedisIntegrationTest;
+import com.dw.study.utils.RedisUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.geo.Circle;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @Author dw
+ * @ClassName GeoRadiusCacheTest
+ * @Description 附近坐标查询缓存：本地过滤超集得到的结果与直接 GEORADIUS 一致，写入坐标后缓存失效，
+ * 过期的缓存和没有缓存的key被清理。
+ * 使用 Lettuce 连接：Redisson 3.10.1 的连接无法解析带 WITHCOORD 的 GEORADIUS 结果
+ * @Date 2026/10/20 12:40
+ * @Version 1.0
+ */
+@TestPropertySource(properties = "redis.client.type=lettuce_shared")
+class GeoRadiusCacheTest extends RedisIntegrationTest {
+
+    private static final double LONGITUDE = 116.405285;
+
+    private static final double LATITUDE = 39.904989;
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private final String key = "test:geo:" + System.nanoTime();
+
+    @AfterEach
+    void tearDown() {
+        redisUtils.del(key);
+    }
+
+    @Test
+    void cachedResultsMatchDirectQueries() {
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            redisUtils.geoAdd(key, LONGITUDE + (random.nextDouble() - 0.5) * 0.06,
+                    LATITUDE + (random.nextDouble() - 0.5) * 0.04, "member-" + i);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            double longitude = LONGITUDE + (random.nextDouble() - 0.5) * 0.02;
+            double latitude = LATITUDE + (random.nextDouble() - 0.5) * 0.02;
+            int distance = 50 + random.nextInt(1500);
+            int count = i % 2 == 0 ? 0 : 10;
+
+            GeoResults<RedisGeoCommands.GeoLocation<Object>> cached =
+                    redisUtils.geoGetCoordinatesWithinRange(key, longitude, latitude, distance, count);
+
+            assertThat(names(cached)).as("中心(%s, %s) 半径%dm", longitude, latitude, distance)
+                    .isEqualTo(names(direct(longitude, latitude, distance, count)));
+        }
+    }
+
+    @Test
+    void writeInvalidatesCachedResults() {
+        redisUtils.geoAdd(key, LONGITUDE, LATITUDE, "a");
+        assertThat(names(redisUtils.geoGetCoordinatesWithinRange(key, LONGITUDE, LATITUDE, 100, 0))).containsExactly("a");
+
+        redisUtils.geoAdd(key, LONGITUDE + 0.0001, LATITUDE, "b");
+        assertThat(names(redisUtils.geoGetCoordinatesWithinRange(key, LONGITUDE, LATITUDE, 100, 0))).containsExactly("a", "b");
+
+        // 成员移动到很远的位置
+        redisUtils.geoAdd(key, LONGITUDE + 1, LATITUDE, "a");
+        assertThat(names(redisUtils.geoGetCoordinatesWithinRange(key, LONGITUDE, LATITUDE, 100, 0))).containsExactly("b");
+
+        redisUtils.del(key);
+        assertThat(names(redisUtils.geoGetCoordinatesWithinRange(key, LONGITUDE, LATITUDE, 100, 0))).isEmpty();
+    }
+
+    @Test
+    void invalidatedKeysAreRemoved() {
+        GeoRadiusCache cache = new GeoRadiusCache(new GeoRadiusCacheProperties(), new SimpleMeterRegistry());
+        cache.radius("key1", LONGITUDE, LATITUDE, 100, 0, fixedResult(new AtomicInteger()));
+        cache.radius("key2", LONGITUDE, LATITUDE, 100, 0, fixedResult(new AtomicInteger()));
+        assertThat(cache.size()).isEqualTo(2);
+
+        cache.invalidate("key1");
+        cache.invalidate("key2", Collections.singletonList(new Point(LONGITUDE, LATITUDE)), Collections.emptyList());
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void expiredEntriesAndTheirKeysAreSwept() throws InterruptedException {
+        GeoRadiusCacheProperties properties = new GeoRadiusCacheProperties();
+        properties.setTtl(Duration.ofMillis(500));
+        GeoRadiusCache cache = new GeoRadiusCache(properties, new SimpleMeterRegistry());
+        AtomicInteger queries = new AtomicInteger();
+        for (int i = 0; i < 100; i++) {
+            cache.radius("key" + i, LONGITUDE, LATITUDE, 100, 0, fixedResult(queries));
+        }
+        assertThat(cache.size()).isEqualTo(100);
+        cache.radius("key0", LONGITUDE, LATITUDE, 100, 0, fixedResult(queries));
+        assertThat(queries.get()).as("未过期时命中缓存").isEqualTo(100);
+
+        Thread.sleep(properties.getTtl().toMillis() * 2);
+        cache.radius("other", LONGITUDE, LATITUDE, 100, 0, fixedResult(queries));
+
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    private GeoResults<RedisGeoCommands.GeoLocation<Object>> direct(double longitude, double latitude, int distance, int count) {
+        RedisGeoCommands.GeoRadiusCommandArgs args = RedisGeoCommands.GeoRadiusCommandArgs
+                .newGeoRadiusArgs().includeDistance().sortAscending();
+        if (count > 0) {
+            args.limit(count);
+        }
+        return redisTemplate.opsForGeo().radius(key,
+                new Circle(new Point(longitude, latitude), new Distance(distance, RedisGeoCommands.DistanceUnit.METERS)), args);
+    }
+
+    private static List<Object> names(GeoResults<RedisGeoCommands.GeoLocation<Object>> results) {
+        List<Object> names = new ArrayList<>();
+        for (GeoResult<RedisGeoCommands.GeoLocation<Object>> result : results) {
+            names.add(result.getContent().getName());
+        }
+        return names;
+    }
+
+    /**
+     * 不访问Redis的查询：中心点上的一个坐标
+     */
+    private static BiFunction<Circle, RedisGeoCommands.GeoRadiusCommandArgs, GeoResults<RedisGeoCommands.GeoLocation<Object>>> fixedResult(
+            AtomicInteger queries) {
+        return (circle, args) -> {
+            queries.incrementAndGet();
+            RedisGeoCommands.GeoLocation<Object> location = new RedisGeoCommands.GeoLocation<>("member", circle.getCenter());
+            return new GeoResults<>(Collections.singletonList(
+                    new GeoResult<>(location, new Distance(0, RedisGeoCommands.DistanceUnit.METERS))));
+        };
+    }
+}
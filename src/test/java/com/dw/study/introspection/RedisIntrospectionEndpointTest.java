@@ -0,0 +1,116 @@
+package com.dw.study.introspection;
+
+import com.dw.study.support.RedisIntegrationTest;
+import com.dw.study.utils.RedisClusterBatchExecutor;
+import com.dw.study.utils.RedisScriptRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.Base64Utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * @Author dw
+ * @ClassName RedisIntrospectionEndpointTest
+ * @Description 服务端检查的管理端点需要 ADMIN 账号；报告中不包含慢日志参数和完整的大key名；手动执行有最小间隔
+ * @Date 2026/10/20 11:10
+ * @Version 1.0
+ */
+class RedisIntrospectionEndpointTest extends RedisIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisScriptRegistry scriptRegistry;
+
+    @Autowired
+    private RedisClusterBatchExecutor clusterBatchExecutor;
+
+    @Test
+    void endpointRequiresAdmin() throws Exception {
+        mockMvc.perform(get("/actuator/redisintrospection")).andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/actuator/redisintrospection")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/redisintrospection").header(HttpHeaders.AUTHORIZATION, basic("admin", "wrong")))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(get("/actuator/redisintrospection").header(HttpHeaders.AUTHORIZATION, basic("admin", ADMIN_PASSWORD)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+    }
+
+    @Test
+    void reportHidesSlowlogArgumentsAndKeyNames() {
+        String key = "test:introspection:secret-customer-42";
+        stringRedisTemplate.opsForValue().set(key, "secret-value-0123456789");
+        RedisIntrospectionService service = service(Duration.ZERO);
+
+        setSlowlogThreshold("0");
+        IntrospectionReport report;
+        try {
+            stringRedisTemplate.opsForValue().get(key);
+            report = service.runOnDemand();
+        } finally {
+            setSlowlogThreshold("10000");
+        }
+
+        assertThat(report.getSlowlog()).isNotEmpty();
+        assertThat(report.getSlowlog()).allSatisfy(entry -> assertThat(entry.getCommand()).doesNotContain("secret"));
+        assertThat(report.getSlowlog()).anySatisfy(entry -> assertThat(entry.getCommand()).isEqualTo("GET <1个参数>"));
+        assertThat(report.getBigKeys()).isNotEmpty();
+        assertThat(report.getBigKeys()).allSatisfy(bigKey -> assertThat(bigKey.getKey()).doesNotContain("secret"));
+        assertThat(report.getBigKeys()).anySatisfy(bigKey -> assertThat(bigKey.getKey()).matches("test:\\*#[0-9a-f]{8}"));
+    }
+
+    @Test
+    void onDemandRunsAreRateLimited() {
+        RedisIntrospectionService service = service(Duration.ofMinutes(1));
+
+        IntrospectionReport first = service.runOnDemand();
+        IntrospectionReport second = service.runOnDemand();
+
+        assertThat(first).isNotNull();
+        assertThat(second).isSameAs(first);
+        assertThat(service.run()).isNotSameAs(first);
+    }
+
+    /**
+     * 不定时执行、所有key都算作大key的检查
+     */
+    private RedisIntrospectionService service(Duration minRunInterval) {
+        RedisIntrospectionProperties properties = new RedisIntrospectionProperties();
+        properties.setEnabled(false);
+        properties.setPause(Duration.ZERO);
+        properties.setBigKeyThreshold(1);
+        properties.setMaxBigKeys(10000);
+        properties.setMaxKeys(10000);
+        properties.setMinRunInterval(minRunInterval);
+        return new RedisIntrospectionService(stringRedisTemplate, scriptRegistry, clusterBatchExecutor, properties,
+                new SimpleMeterRegistry());
+    }
+
+    private void setSlowlogThreshold(String micros) {
+        stringRedisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().setConfig("slowlog-log-slower-than", micros);
+            return null;
+        });
+    }
+
+    private static String basic(String user, String password) {
+        return "Basic " + Base64Utils.encodeToString((user + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+}
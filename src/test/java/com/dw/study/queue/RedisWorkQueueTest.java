@@ -0,0 +1,164 @@
+package com.dw.study.queue;
+
+import com.dw.study.support.RedisIntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @Author dw
+ * @ClassName RedisWorkQueueTest
+ * @Description 可靠工作队列在真实 Redis 上的消费：一次取出一批元素、处理成功后确认、处理失败放回队列，
+ * 心跳过期的消费者的处理中元素被放回队列，处理耗时超过可见性超时的批次因定时心跳不会被重复投递
+ * @Date 2026/10/20 13:40
+ * @Version 1.0
+ */
+class RedisWorkQueueTest extends RedisIntegrationTest {
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private RedisWorkQueueProperties properties;
+
+    private RedisWorkQueue workQueue;
+
+    private String queue;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RedisWorkQueueProperties();
+        properties.setBatchSize(10);
+        properties.setBlockTimeout(Duration.ofSeconds(1));
+        properties.setVisibilityTimeout(Duration.ofSeconds(2));
+        properties.setHeartbeatInterval(Duration.ofMillis(200));
+        properties.setReaperInterval(Duration.ofMillis(200));
+        workQueue = new RedisWorkQueue(stringRedisTemplate, properties);
+        queue = "test-" + System.nanoTime();
+    }
+
+    @AfterEach
+    void tearDown() {
+        workQueue.destroy();
+        Set<String> keys = stringRedisTemplate.keys("queue:{" + queue + "}*");
+        if (keys != null && !keys.isEmpty()) {
+            stringRedisTemplate.delete(keys);
+        }
+    }
+
+    @Test
+    void claimsABatchAndAcknowledgesIt() throws InterruptedException {
+        List<String> payloads = payloads(25);
+        workQueue.pushAll(queue, payloads);
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        CountDownLatch handled = new CountDownLatch(payloads.size());
+
+        workQueue.subscribe(queue, (name, batch) -> {
+            batches.add(new ArrayList<>(batch));
+            batch.forEach(payload -> handled.countDown());
+        }, 1);
+
+        assertThat(handled.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(batches.get(0)).as("队列非空时一次取出 batchSize 个").hasSize(10);
+        List<String> consumed = new ArrayList<>();
+        batches.forEach(consumed::addAll);
+        assertThat(consumed).containsExactlyElementsOf(payloads);
+        await(() -> processingSize() == 0);
+        assertThat(workQueue.size(queue)).isZero();
+    }
+
+    @Test
+    void failedBatchIsDeliveredAgain() throws InterruptedException {
+        workQueue.push(queue, "job");
+        List<String> deliveries = new CopyOnWriteArrayList<>();
+        CountDownLatch succeeded = new CountDownLatch(1);
+
+        workQueue.subscribe(queue, (name, batch) -> {
+            deliveries.addAll(batch);
+            if (deliveries.size() == 1) {
+                throw new IllegalStateException("第一次处理失败");
+            }
+            succeeded.countDown();
+        }, 1);
+
+        assertThat(succeeded.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(deliveries).containsExactly("job", "job");
+        await(() -> processingSize() == 0);
+    }
+
+    @Test
+    void reaperRequeuesWorkOfADeadConsumer() {
+        String processingKey = "queue:{" + queue + "}:processing:dead-1";
+        stringRedisTemplate.opsForList().leftPushAll(processingKey, "a", "b");
+        stringRedisTemplate.opsForSet().add("queue:{" + queue + "}:consumers", "dead-1");
+
+        assertThat(workQueue.requeueExpired(queue)).isEqualTo(2);
+
+        assertThat(stringRedisTemplate.opsForList().range("queue:{" + queue + "}", 0, -1)).containsExactlyInAnyOrder("a", "b");
+        assertThat(stringRedisTemplate.hasKey(processingKey)).isFalse();
+        assertThat(stringRedisTemplate.opsForSet().members("queue:{" + queue + "}:consumers")).isEmpty();
+        assertThat(workQueue.requeueExpired(queue)).isZero();
+    }
+
+    @Test
+    void longRunningBatchKeepsItsHeartbeat() throws InterruptedException {
+        workQueue.push(queue, "slow");
+        List<String> deliveries = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        long handleMillis = properties.getVisibilityTimeout().toMillis() * 2;
+
+        workQueue.subscribe(queue, (name, batch) -> {
+            deliveries.addAll(batch);
+            Thread.sleep(handleMillis);
+            done.countDown();
+        }, 1);
+
+        await(() -> !deliveries.isEmpty());
+        assertThat(done.await(handleMillis + 5000, TimeUnit.MILLISECONDS)).isTrue();
+        // 处理期间定时任务一直在检查，元素没有被放回队列
+        assertThat(workQueue.requeueExpired(queue)).isZero();
+        assertThat(workQueue.size(queue)).isZero();
+        assertThat(deliveries).containsExactly("slow");
+    }
+
+    private static List<String> payloads(int count) {
+        String[] payloads = new String[count];
+        for (int i = 0; i < count; i++) {
+            payloads[i] = "job-" + i;
+        }
+        return Arrays.asList(payloads);
+    }
+
+    private long processingSize() {
+        Set<String> consumers = stringRedisTemplate.opsForSet().members("queue:{" + queue + "}:consumers");
+        long size = 0;
+        if (consumers != null) {
+            for (String consumer : consumers) {
+                Long length = stringRedisTemplate.opsForList().size("queue:{" + queue + "}:processing:" + consumer);
+                size += length == null ? 0 : length;
+            }
+        }
+        return size;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("等待条件超时").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
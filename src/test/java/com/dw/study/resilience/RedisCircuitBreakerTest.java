@@ -0,0 +1,164 @@
+package com.dw.study.resilience;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @Author dw
+ * @ClassName RedisCircuitBreakerTest
+ * @Description 熔断器的状态转换：失败率达到阈值后 OPEN，熔断时间过后 HALF_OPEN，试探调用全部成功回到 CLOSED、任意一次失败重新 OPEN；
+ * 以及 releasePermission 归还半开状态的试探名额
+ * @Date 2026/10/20 12:10
+ * @Version 1.0
+ */
+class RedisCircuitBreakerTest {
+
+    private RedisResilienceProperties properties;
+
+    private RedisCircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RedisResilienceProperties();
+        properties.setSlidingWindowSize(10);
+        properties.setMinimumCalls(4);
+        properties.setFailureRateThreshold(50);
+        properties.setOpenDuration(Duration.ofMillis(50));
+        properties.setHalfOpenCalls(2);
+        circuitBreaker = new RedisCircuitBreaker(properties);
+    }
+
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        for (int i = 0; i < 3; i++) {
+            call(false);
+        }
+
+        assertThat(circuitBreaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void opensWhenFailureRateReachesThreshold() {
+        call(true);
+        call(true);
+        call(true);
+        assertThat(circuitBreaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+
+        call(false);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+        call(true);
+        assertThat(circuitBreaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+    }
+
+    @Test
+    void oldOutcomesLeaveTheSlidingWindow() {
+        for (int i = 0; i < 4; i++) {
+            call(true);
+        }
+        open();
+        closeAfterHalfOpen();
+        // 窗口已清空：10次成功后的4次失败只占 4/10
+        for (int i = 0; i < 10; i++) {
+            call(false);
+        }
+        for (int i = 0; i < 4; i++) {
+            call(true);
+        }
+
+        assertThat(circuitBreaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void halfOpenClosesAfterAllTrialCallsSucceed() throws InterruptedException {
+        open();
+        Thread.sleep(properties.getOpenDuration().toMillis() + 10);
+
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        assertThat(circuitBreaker.getState()).isEqualTo(RedisCircuitBreaker.State.HALF_OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        assertThat(circuitBreaker.tryAcquirePermission()).as("试探名额已用完").isFalse();
+
+        circuitBreaker.onSuccess();
+        assertThat(circuitBreaker.getState()).isEqualTo(RedisCircuitBreaker.State.HALF_OPEN);
+        circuitBreaker.onSuccess();
+
+        assertThat(circuitBreaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+    }
+
+    @Test
+    void halfOpenReopensOnAnyFailure() throws InterruptedException {
+        open();
+        Thread.sleep(properties.getOpenDuration().toMillis() + 10);
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        circuitBreaker.onSuccess();
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+
+        circuitBreaker.onFailure();
+
+        assertThat(circuitBreaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+    }
+
+    @Test
+    void releasedPermissionReturnsTheTrialSlot() throws InterruptedException {
+        open();
+        Thread.sleep(properties.getOpenDuration().toMillis() + 10);
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+
+        // 舱壁已满等原因没有访问Redis，试探名额归还后其他调用可以继续试探
+        circuitBreaker.releasePermission();
+
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+        assertThat(circuitBreaker.getState()).isEqualTo(RedisCircuitBreaker.State.HALF_OPEN);
+    }
+
+    @Test
+    void releasePermissionWhileClosedDoesNotRecordAnOutcome() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+            circuitBreaker.releasePermission();
+        }
+        call(true);
+        call(true);
+        call(true);
+
+        assertThat(circuitBreaker.getState()).as("release 不计入窗口，3次调用未达到最少调用数").isEqualTo(RedisCircuitBreaker.State.CLOSED);
+    }
+
+    private void call(boolean failure) {
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        if (failure) {
+            circuitBreaker.onFailure();
+        } else {
+            circuitBreaker.onSuccess();
+        }
+    }
+
+    private void open() {
+        while (circuitBreaker.getState() != RedisCircuitBreaker.State.OPEN) {
+            call(true);
+        }
+    }
+
+    private void closeAfterHalfOpen() {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!circuitBreaker.tryAcquirePermission()) {
+            assertThat(System.currentTimeMillis()).as("等待熔断结束超时").isLessThan(deadline);
+            Thread.yield();
+        }
+        circuitBreaker.onSuccess();
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        circuitBreaker.onSuccess();
+        assertThat(circuitBreaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+    }
+}
@@ -0,0 +1,181 @@
+package com.dw.study.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @Author dw
+ * @ClassName RedisGuardTest
+ * @Description 容错层的截止时间、舱壁和熔断：超时的调用立即抛出 QueryTimeoutException 且继续占用舱壁，
+ * 舱壁已满时拒绝调用，超时和连接失败打开熔断器，命令本身的错误不计入失败率。
+ * 调用由测试控制（不访问Redis）
+ * @Date 2026/10/20 12:20
+ * @Version 1.0
+ */
+class RedisGuardTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private RedisResilienceProperties properties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RedisGuard redisGuard;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RedisResilienceProperties();
+        properties.setEnabled(true);
+        properties.setDeadline(Duration.ofMillis(50));
+        properties.setBatchDeadline(Duration.ofMillis(200));
+        properties.setMaxConcurrentCalls(1);
+        properties.setBulkheadWait(Duration.ofMillis(10));
+        properties.setSlidingWindowSize(4);
+        properties.setMinimumCalls(2);
+        properties.setOpenDuration(Duration.ofMinutes(1));
+        meterRegistry = new SimpleMeterRegistry();
+        redisGuard = new RedisGuard(properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        redisGuard.destroy();
+    }
+
+    @Test
+    void callPastItsDeadlineThrowsQueryTimeout() {
+        long start = System.nanoTime();
+
+        assertThatThrownBy(() -> redisGuard.execute(false, this::blockUntilReleased))
+                .isInstanceOf(QueryTimeoutException.class)
+                .hasMessageContaining("50ms");
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(meterRegistry.get("redis.guard.timeouts").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void withDeadlineOverridesTheConfiguredDeadline() {
+        assertThat(redisGuard.currentDeadline(false)).isEqualTo(Duration.ofMillis(50));
+        assertThat(redisGuard.currentDeadline(true)).isEqualTo(Duration.ofMillis(200));
+
+        String result = redisGuard.withDeadline(Duration.ofSeconds(5), () -> {
+            assertThat(redisGuard.currentDeadline(false)).isEqualTo(Duration.ofSeconds(5));
+            return redisGuard.execute(false, () -> {
+                sleep(100);
+                return "slow";
+            });
+        });
+
+        assertThat(result).isEqualTo("slow");
+        assertThat(redisGuard.currentDeadline(false)).isEqualTo(Duration.ofMillis(50));
+    }
+
+    @Test
+    void fullBulkheadRejectsTheCall() throws Exception {
+        properties.setDeadline(Duration.ofSeconds(5));
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> redisGuard.execute(false, () -> {
+            started.countDown();
+            return blockUntilReleased();
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> redisGuard.execute(false, calls::incrementAndGet))
+                .isInstanceOf(RedisUnavailableException.class);
+
+        assertThat(calls.get()).isZero();
+        assertThat(meterRegistry.get("redis.guard.rejected").tag("reason", "bulkhead_full").counter().count()).isEqualTo(1);
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("released");
+        assertThat(redisGuard.execute(false, calls::incrementAndGet)).isEqualTo(1);
+    }
+
+    @Test
+    void timedOutCallKeepsItsBulkheadSlotUntilRedisReturns() {
+        assertThatThrownBy(() -> redisGuard.execute(false, this::blockUntilReleased))
+                .isInstanceOf(QueryTimeoutException.class);
+
+        // 超时的调用被取消但仍在等待Redis返回（这里忽略中断），舱壁没有空位
+        assertThatThrownBy(() -> redisGuard.execute(false, () -> "next"))
+                .isInstanceOf(RedisUnavailableException.class);
+    }
+
+    @Test
+    void connectionFailuresOpenTheCircuit() {
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> redisGuard.execute(false, () -> {
+                throw new RedisConnectionFailureException("连接失败");
+            })).isInstanceOf(RedisConnectionFailureException.class);
+        }
+
+        assertThat(redisGuard.getCircuitState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+        AtomicInteger calls = new AtomicInteger();
+        assertThatThrownBy(() -> redisGuard.execute(false, calls::incrementAndGet))
+                .isInstanceOf(RedisUnavailableException.class);
+        assertThat(calls.get()).isZero();
+        assertThat(meterRegistry.get("redis.guard.rejected").tag("reason", "circuit_open").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void commandErrorsDoNotOpenTheCircuit() {
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> redisGuard.execute(false, () -> {
+                throw new InvalidDataAccessApiUsageException("WRONGTYPE");
+            })).isInstanceOf(InvalidDataAccessApiUsageException.class);
+        }
+
+        assertThat(redisGuard.getCircuitState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void disabledGuardCallsDirectly() {
+        properties.setEnabled(false);
+        Thread caller = Thread.currentThread();
+
+        assertThat(redisGuard.execute(false, () -> Thread.currentThread() == caller)).isTrue();
+    }
+
+    /**
+     * 模拟一次很慢的 Redis 调用：忽略中断，直到测试放行
+     */
+    private String blockUntilReleased() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                release.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return "released";
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
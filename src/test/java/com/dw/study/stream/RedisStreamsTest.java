@@ -0,0 +1,142 @@
+package com.dw.study.stream;
+
+import com.dw.study.config.RedisClientProperties;
+import com.dw.study.config.RedisConnectionFactoryBuilder;
+import com.dw.study.support.RedisIntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @Author dw
+ * @ClassName RedisStreamsTest
+ * @Description 单分区事件流在真实 Redis 上的消费顺序：失败的一批重试或转入死信流之前，不处理后面的消息。
+ * 测试使用默认的 redisson 客户端，事件流自己切换到 Lettuce 连接；检查结果使用单独的 Lettuce 连接
+ * @Date 2026/10/20 10:20
+ * @Version 1.0
+ */
+class RedisStreamsTest extends RedisIntegrationTest {
+
+    private static final String GROUP = "test";
+
+    @Autowired
+    private RedisProperties redisProperties;
+
+    @Autowired
+    private RedisClientProperties clientProperties;
+
+    @Autowired
+    private StringRedisTemplate redissonTemplate;
+
+    private LettuceConnectionFactory connectionFactory;
+
+    private StringRedisTemplate stringRedisTemplate;
+
+    private RedisStreams streams;
+
+    private String stream;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new RedisConnectionFactoryBuilder(redisProperties).lettuce(false);
+        connectionFactory.afterPropertiesSet();
+        stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+        RedisStreamProperties properties = new RedisStreamProperties();
+        properties.setPartitions(1);
+        properties.setBatchSize(1);
+        properties.setBlockTimeout(Duration.ofMillis(100));
+        properties.setMaxDeliveries(3);
+        properties.setRetryBackoff(Duration.ofMillis(10));
+        streams = new RedisStreams(redissonTemplate, properties, clientProperties, redisProperties);
+        stream = "test-" + System.nanoTime();
+    }
+
+    @AfterEach
+    void tearDown() {
+        streams.destroy();
+        stringRedisTemplate.delete(RedisStreams.streamKey(stream, 0));
+        stringRedisTemplate.delete(RedisStreams.deadLetterKey(stream));
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void failedBatchIsRetriedBeforeLaterEvents() throws Exception {
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger failures = new AtomicInteger();
+        subscribe((s, partition, records) -> {
+            String event = records.get(0).getValue().get("event");
+            if ("1".equals(event) && failures.getAndIncrement() < 2) {
+                throw new IllegalStateException("失败");
+            }
+            handled.add(event);
+        });
+
+        publish("1", "2", "3");
+
+        await(() -> handled.size() == 3);
+        assertThat(handled).containsExactly("1", "2", "3");
+        assertThat(failures.get()).isEqualTo(3);
+        await(() -> streams.pendingCount(stream, GROUP) == 0);
+        assertThat(stringRedisTemplate.opsForStream().size(RedisStreams.deadLetterKey(stream))).isZero();
+    }
+
+    @Test
+    void batchFailingMaxDeliveriesTimesIsDeadLetteredBeforeLaterEvents() throws Exception {
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger attempts = new AtomicInteger();
+        subscribe((s, partition, records) -> {
+            String event = records.get(0).getValue().get("event");
+            if ("1".equals(event)) {
+                attempts.incrementAndGet();
+                throw new IllegalStateException("总是失败");
+            }
+            handled.add(event);
+        });
+
+        publish("1", "2");
+
+        await(() -> handled.size() == 1);
+        assertThat(attempts.get()).isEqualTo(3);
+        List<MapRecord<String, Object, Object>> dead = stringRedisTemplate.opsForStream()
+                .range(RedisStreams.deadLetterKey(stream), Range.unbounded());
+        assertThat(dead).hasSize(1);
+        assertThat(dead.get(0).getValue()).containsEntry("event", "1");
+        await(() -> streams.pendingCount(stream, GROUP) == 0);
+    }
+
+    private void subscribe(StreamBatchHandler handler) throws InterruptedException {
+        streams.subscribe(stream, GROUP, handler);
+        // 消费者组在消费线程中创建，只消费创建之后发布的事件
+        await(() -> Boolean.TRUE.equals(stringRedisTemplate.hasKey(RedisStreams.streamKey(stream, 0)))
+                && !stringRedisTemplate.opsForStream().groups(RedisStreams.streamKey(stream, 0)).isEmpty());
+    }
+
+    private void publish(String... events) {
+        for (String event : events) {
+            streams.publish(stream, "key", Collections.singletonMap("event", event));
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("等待超时").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
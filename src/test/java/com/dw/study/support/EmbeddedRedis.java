@@ -0,0 +1,73 @@
+package com.dw.study.support;
+
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+
+/**
+ * @Author dw
+ * @ClassName EmbeddedRedis
+ * @Description 测试和压测使用的真实 Redis（embedded-redis 附带的 redis-server 6.2），同一个JVM内只启动一个实例，
+ * 监听本机随机端口、不持久化，JVM 退出时停止。项目 resources/lua 下的脚本只在这里验证，不再由替身模拟
+ * @Date 2026/10/20 09:30
+ * @Version 1.0
+ */
+public final class EmbeddedRedis {
+
+    /**
+     * 密码，应用配置了 spring.redis.password 时连接会发送 AUTH，使用时同时设置 spring.redis.password
+     */
+    public static final String PASSWORD = "embedded";
+
+    private static RedisServer server;
+
+    private static int port;
+
+    private EmbeddedRedis() {
+    }
+
+    /**
+     * 启动（只在第一次调用时）并返回端口
+     *
+     * @return
+     */
+    public static synchronized int port() {
+        if (server == null) {
+            start();
+        }
+        return port;
+    }
+
+    private static void start() {
+        try {
+            port = freePort();
+            server = RedisServer.newRedisServer()
+                    .bind("127.0.0.1")
+                    .port(port)
+                    .setting("save \"\"")
+                    .setting("appendonly no")
+                    .setting("requirepass " + PASSWORD)
+                    .build();
+            server.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("启动 embedded Redis 失败", e);
+        }
+        RedisServer started = server;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                started.stop();
+            } catch (IOException e) {
+                // JVM 退出时忽略
+            }
+        }, "embedded-redis-stop"));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+}
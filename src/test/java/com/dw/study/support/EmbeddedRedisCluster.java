@@ -0,0 +1,151 @@
+package com.dw.study.support;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * @Author dw
+ * @ClassName EmbeddedRedisCluster
+ * @Description 测试使用的三主节点 Redis 集群（embedded-redis 附带的 redis-server 6.2），同一个JVM内只启动一次：
+ * 每个节点平均分配 16384 个slot，CLUSTER MEET 互相发现后等待 cluster_state:ok。
+ * 不设置密码、没有从节点，只用于验证按slot/节点分组的批量操作
+ * @Date 2026/10/20 13:10
+ * @Version 1.0
+ */
+public final class EmbeddedRedisCluster {
+
+    private static final int NODES = 3;
+
+    private static final int SLOTS = 16384;
+
+    private static final int BUS_PORT_OFFSET = 10000;
+
+    private static List<Integer> ports;
+
+    private EmbeddedRedisCluster() {
+    }
+
+    /**
+     * 启动（只在第一次调用时）并返回 host:port 形式的节点地址，可直接用于 spring.redis.cluster.nodes
+     *
+     * @return
+     */
+    public static synchronized List<String> nodes() {
+        if (ports == null) {
+            start();
+        }
+        return ports.stream().map(port -> "127.0.0.1:" + port).collect(Collectors.toList());
+    }
+
+    private static void start() {
+        List<Integer> started = new ArrayList<>(NODES);
+        List<RedisServer> servers = new ArrayList<>(NODES);
+        try {
+            Path dir = Files.createTempDirectory("embedded-redis-cluster");
+            for (int i = 0; i < NODES; i++) {
+                int port = freePort();
+                RedisServer server = RedisServer.newRedisServer()
+                        .bind("127.0.0.1")
+                        .port(port)
+                        .setting("save \"\"")
+                        .setting("appendonly no")
+                        .setting("cluster-enabled yes")
+                        .setting("cluster-config-file " + dir.resolve("nodes-" + port + ".conf"))
+                        .setting("cluster-node-timeout 5000")
+                        .build();
+                server.start();
+                servers.add(server);
+                started.add(port);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("启动 embedded Redis 集群失败", e);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (RedisServer server : servers) {
+                try {
+                    server.stop();
+                } catch (IOException e) {
+                    // JVM 退出时忽略
+                }
+            }
+        }, "embedded-redis-cluster-stop"));
+        createCluster(started);
+        ports = Collections.unmodifiableList(started);
+    }
+
+    private static void createCluster(List<Integer> ports) {
+        List<RedisClient> clients = new ArrayList<>(NODES);
+        List<StatefulRedisConnection<String, String>> connections = new ArrayList<>(NODES);
+        try {
+            for (Integer port : ports) {
+                RedisClient client = RedisClient.create(RedisURI.create("127.0.0.1", port));
+                clients.add(client);
+                connections.add(client.connect());
+            }
+            for (int i = 0; i < NODES; i++) {
+                RedisCommands<String, String> commands = connections.get(i).sync();
+                commands.clusterAddSlots(IntStream.range(SLOTS * i / NODES, SLOTS * (i + 1) / NODES).toArray());
+                if (i > 0) {
+                    commands.clusterMeet("127.0.0.1", ports.get(0));
+                }
+            }
+            awaitClusterOk(connections);
+        } finally {
+            connections.forEach(StatefulRedisConnection::close);
+            clients.forEach(RedisClient::shutdown);
+        }
+    }
+
+    private static void awaitClusterOk(List<StatefulRedisConnection<String, String>> connections) {
+        long deadline = System.currentTimeMillis() + 30000;
+        while (!connections.stream().allMatch(connection -> connection.sync().clusterInfo().contains("cluster_state:ok")
+                && connection.sync().clusterNodes().trim().split("\n").length == NODES)) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("等待 embedded Redis 集群就绪超时");
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("等待 embedded Redis 集群就绪被中断", e);
+            }
+        }
+    }
+
+    /**
+     * 集群总线使用 端口+10000，两个端口都需要可用
+     */
+    private static int freePort() throws IOException {
+        while (true) {
+            try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+                int port = socket.getLocalPort();
+                if (port + BUS_PORT_OFFSET <= 65535 && isFree(port + BUS_PORT_OFFSET)) {
+                    return port;
+                }
+            }
+        }
+    }
+
+    private static boolean isFree(int port) {
+        try (ServerSocket ignored = new ServerSocket(port, 1, InetAddress.getLoopbackAddress())) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.dw.study.support;
+
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * @Author dw
+ * @ClassName RedisIntegrationTest
+ * @Description 连接 {@link EmbeddedRedis} 的集成测试基类，所有子类使用同样的配置，共用一个缓存的 Spring 容器。
+ * 子类之间不清空数据，各测试使用自己前缀的key。缓存策略的 reload-location 没有默认值，测试中重新读取 classpath 下的配置文件
+ * @Date 2026/10/20 09:30
+ * @Version 1.0
+ */
+@SpringBootTest(properties = {"redis.introspection.enabled=false", "redis.warmup.fail-on-error=true",
+        "redis.cache.reload-location=classpath:application.yml",
+        "spring.security.user.password=" + RedisIntegrationTest.ADMIN_PASSWORD})
+@AutoConfigureMockMvc
+public abstract class RedisIntegrationTest {
+
+    /**
+     * 管理端点 ADMIN 账号的密码
+     */
+    protected static final String ADMIN_PASSWORD = "admin-test";
+
+    @DynamicPropertySource
+    static void redisProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.redis.host", () -> "127.0.0.1");
+        registry.add("spring.redis.port", EmbeddedRedis::port);
+        registry.add("spring.redis.password", () -> EmbeddedRedis.PASSWORD);
+    }
+}
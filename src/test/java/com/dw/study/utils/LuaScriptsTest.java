@@ -0,0 +1,225 @@
+package com.dw.study.utils;
+
+import com.dw.study.support.RedisIntegrationTest;
+import lombok.Data;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.BitFieldSubCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @Author dw
+ * @ClassName LuaScriptsTest
+ * @Description 在真实 Redis 上执行 resources/lua 下的脚本（通过 RedisUtils、RedisHashMapper 或 RedisScriptRegistry，与应用中的调用方式一致），
+ * 修改脚本后由这里发现行为变化；multi_lock、delay_queue_claim 分别见 RedisLockUtilTest、RedisDelayQueueTest
+ * @Date 2026/10/20 09:30
+ * @Version 1.0
+ */
+class LuaScriptsTest extends RedisIntegrationTest {
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    @Autowired
+    private RedisScriptRegistry scriptRegistry;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisHashMapper hashMapper;
+
+    @Test
+    void getAndSetReturnsOldValueAndSetsExpiry() {
+        String key = "test:lua:getAndSet";
+        redisUtils.set(key, "old");
+
+        assertThat(redisUtils.getAndSet(key, "new", 100)).isEqualTo("old");
+        assertThat(redisUtils.get(key)).isEqualTo("new");
+        assertThat(ttl(key)).isBetween(1L, 100L);
+        assertThat(redisUtils.getAndSet(key, "newer", 0)).isEqualTo("new");
+        assertThat(ttl(key)).isEqualTo(-1L);
+    }
+
+    @Test
+    void getAndExpireRefreshesExpiryOnlyForExistingKey() {
+        String key = "test:lua:getAndExpire";
+        redisUtils.set(key, "value");
+
+        assertThat(redisUtils.getAndExpire(key, 100)).isEqualTo("value");
+        assertThat(ttl(key)).isBetween(1L, 100L);
+        assertThat(redisUtils.getAndExpire(key + ":missing", 100)).isNull();
+        assertThat(redisUtils.hasKey(key + ":missing")).isFalse();
+    }
+
+    @Test
+    void compareAndDeleteOnlyDeletesExpectedValue() {
+        String key = "test:lua:compareAndDelete";
+        redisUtils.set(key, "mine");
+
+        assertThat(redisUtils.compareAndDelete(key, "theirs")).isFalse();
+        assertThat(redisUtils.hasKey(key)).isTrue();
+        assertThat(redisUtils.compareAndDelete(key, "mine")).isTrue();
+        assertThat(redisUtils.hasKey(key)).isFalse();
+    }
+
+    @Test
+    void setIfVersionMatchesIncrementsVersion() {
+        String key = "test:lua:versioned";
+
+        assertThat(redisUtils.setIfVersionMatches(key, 0, "v1", 0)).isEqualTo(1);
+        assertThat(redisUtils.setIfVersionMatches(key, 0, "stale", 0)).isEqualTo(-1);
+        assertThat(redisUtils.setIfVersionMatches(key, 1, "v2", 100)).isEqualTo(2);
+        RedisUtils.VersionedValue current = redisUtils.getVersioned(key);
+        assertThat(current.getVersion()).isEqualTo(2);
+        assertThat(current.getValue()).isEqualTo("v2");
+        assertThat(ttl(key)).isBetween(1L, 100L);
+    }
+
+    @Test
+    void cappedListPushKeepsNewestEntries() {
+        String key = "test:lua:capped";
+
+        assertThat(redisUtils.listAddInHeadCapped(key, 3, 0, "a", "b")).isEqualTo(2);
+        assertThat(redisUtils.listAddInHeadCapped(key, 3, 100, "c", "d")).isEqualTo(3);
+        assertThat(redisUtils.listGetByRange(key, 0, -1)).containsExactly("d", "c", "b");
+        assertThat(ttl(key)).isBetween(1L, 100L);
+    }
+
+    @Test
+    void bitFieldRunsSubCommands() {
+        String key = "test:lua:bitfield";
+        BitFieldSubCommands incr = BitFieldSubCommands.create()
+                .incr(BitFieldSubCommands.BitFieldType.UINT_16).valueAt(BitFieldSubCommands.Offset.offset(3).multipliedByTypeLength()).by(5)
+                .get(BitFieldSubCommands.BitFieldType.UINT_16).valueAt(BitFieldSubCommands.Offset.offset(3).multipliedByTypeLength());
+
+        assertThat(redisUtils.bitField(key, incr)).containsExactly(5L, 5L);
+        assertThat(redisUtils.bitField(key, incr)).containsExactly(10L, 10L);
+    }
+
+    @Test
+    void bitopAndCountCountsCommonBitsAndDeletesTheScratchKey() {
+        String tag = "test:lua:{bitop}:";
+        stringRedisTemplate.opsForValue().setBit(tag + "a", 1, true);
+        stringRedisTemplate.opsForValue().setBit(tag + "a", 5, true);
+        stringRedisTemplate.opsForValue().setBit(tag + "a", 9, true);
+        stringRedisTemplate.opsForValue().setBit(tag + "b", 5, true);
+        stringRedisTemplate.opsForValue().setBit(tag + "b", 9, true);
+        stringRedisTemplate.opsForValue().setBit(tag + "b", 20, true);
+
+        Long count = stringRedisTemplate.execute(scriptRegistry.get("bitop_and_count", Long.class),
+                Arrays.asList(tag + "result", tag + "a", tag + "b"));
+
+        assertThat(count).isEqualTo(2L);
+        assertThat(stringRedisTemplate.hasKey(tag + "result")).isFalse();
+        assertThat(stringRedisTemplate.execute(scriptRegistry.get("bitop_and_count", Long.class),
+                Arrays.asList(tag + "result", tag + "a", tag + "missing"))).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getWithTtlReturnsValueAndPttl() {
+        String key = "test:lua:withTtl";
+        stringRedisTemplate.opsForValue().set(key, "cached", Duration.ofSeconds(100));
+
+        List<Object> result = stringRedisTemplate.execute(scriptRegistry.get("get_with_ttl", List.class), Collections.singletonList(key));
+        assertThat(result.get(0)).isEqualTo("cached");
+        assertThat((Long) result.get(1)).isBetween(1L, 100_000L);
+
+        List<Object> missing = stringRedisTemplate.execute(scriptRegistry.get("get_with_ttl", List.class), Collections.singletonList(key + ":missing"));
+        assertThat(missing).containsExactly(null, -2L);
+    }
+
+    @Test
+    void hashWriteSetsDeletesAndExpiresTogether() {
+        String key = "test:lua:hashWrite";
+        Profile profile = new Profile();
+        profile.setNickname("dw");
+        profile.setAge(18);
+
+        assertThat(hashMapper.put(key, profile, 100)).isTrue();
+        assertThat(stringRedisTemplate.opsForHash().entries(key)).containsOnlyKeys("nickname", "age");
+        assertThat(ttl(key)).isBetween(1L, 100L);
+
+        profile.setNickname("new");
+        profile.setAge(null);
+        assertThat(hashMapper.putFields(key, profile, "nickname", "age")).isTrue();
+        assertThat(stringRedisTemplate.opsForHash().entries(key)).containsOnlyKeys("nickname");
+        assertThat(hashMapper.get(key, Profile.class).getNickname()).isEqualTo("new");
+    }
+
+    @Test
+    void hashPutDeletesFieldsThatAreNowNull() {
+        String key = "test:lua:hashPut";
+        Profile profile = new Profile();
+        profile.setNickname("dw");
+        profile.setAge(18);
+        assertThat(hashMapper.put(key, profile)).isTrue();
+
+        profile.setAge(null);
+        assertThat(hashMapper.put(key, profile)).isTrue();
+
+        assertThat(stringRedisTemplate.opsForHash().entries(key)).containsOnlyKeys("nickname");
+        assertThat(hashMapper.get(key, Profile.class)).isEqualTo(profile);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void keyStatsReturnsTypeTtlAndMemory() {
+        String key = "test:lua:stats";
+        stringRedisTemplate.opsForHash().put(key, "field", "value");
+
+        List<Object> stats = stringRedisTemplate.execute(scriptRegistry.get("key_stats", List.class),
+                Arrays.asList(key, key + ":missing"), "5");
+        List<Object> existing = (List<Object>) stats.get(0);
+        assertThat(existing.get(0)).isEqualTo("hash");
+        assertThat(existing.get(1)).isEqualTo(-1L);
+        assertThat((Long) existing.get(2)).isPositive();
+        assertThat((List<Object>) stats.get(1)).containsExactly("none", -2L, -1L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void slowlogTailReturnsNewestEntries() {
+        setSlowlogThreshold("0");
+        try {
+            stringRedisTemplate.opsForValue().get("test:lua:slowlog");
+            List<Object> entries = stringRedisTemplate.execute(scriptRegistry.get("slowlog_tail", List.class),
+                    Collections.singletonList("test:lua:slowlog"), "2");
+            assertThat(entries).hasSize(2);
+            assertThat((List<Object>) entries.get(0)).hasSizeGreaterThanOrEqualTo(4);
+        } finally {
+            setSlowlogThreshold("10000");
+        }
+    }
+
+    private void setSlowlogThreshold(String micros) {
+        stringRedisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().setConfig("slowlog-log-slower-than", micros);
+            return null;
+        });
+    }
+
+    /**
+     * 剩余过期时间（秒），直接使用 TTL 命令：Redisson 的连接把没有过期时间时的 -1 毫秒换算为 0 秒
+     */
+    private long ttl(String key) {
+        return stringRedisTemplate.getExpire(key);
+    }
+
+    @Data
+    public static class Profile {
+
+        private String nickname;
+
+        private Integer age;
+    }
+}
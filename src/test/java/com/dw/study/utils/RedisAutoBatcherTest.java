@@ -0,0 +1,113 @@
+package com.dw.study.utils;
+
+import com.dw.study.config.AutoBatchProperties;
+import com.dw.study.resilience.RedisGuard;
+import com.dw.study.resilience.RedisResilienceProperties;
+import com.dw.study.support.RedisIntegrationTest;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @Author dw
+ * @ClassName RedisAutoBatcherTest
+ * @Description 自动批量在真实 Redis 上的合并结果、关闭时提交的调用，以及等待结果的截止时间
+ * @Date 2026/10/20 10:40
+ * @Version 1.0
+ */
+class RedisAutoBatcherTest extends RedisIntegrationTest {
+
+    private static final String PREFIX = "test:autoBatch:";
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private RedisReadRouter redisReadRouter;
+
+    @Autowired
+    private RedisClusterBatchExecutor clusterBatchExecutor;
+
+    @Autowired
+    private RedisGuard redisGuard;
+
+    @Autowired
+    private RedisResilienceProperties resilienceProperties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RedisAutoBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        AutoBatchProperties properties = new AutoBatchProperties();
+        properties.setEnabled(true);
+        properties.setWindow(Duration.ofMillis(20));
+        properties.setThreads(1);
+        meterRegistry = new SimpleMeterRegistry();
+        batcher = new RedisAutoBatcher(properties, redisTemplate, redisReadRouter, clusterBatchExecutor,
+                redisGuard, resilienceProperties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        batcher.destroy();
+    }
+
+    @Test
+    void callsSubmittedTogetherAreSentAsOneBatchInOrder() {
+        redisTemplate.opsForHash().put(PREFIX + "hash", "field", "hashValue");
+        List<CompletableFuture<Object>> sets = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            sets.add(batcher.set(PREFIX + i, "value" + i, 100));
+        }
+        List<CompletableFuture<Object>> gets = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            gets.add(batcher.get(PREFIX + i));
+        }
+        CompletableFuture<Object> hashGet = batcher.hashGet(PREFIX + "hash", "field");
+        CompletableFuture<Object> missing = batcher.get(PREFIX + "missing");
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(batcher.await(sets.get(i))).isEqualTo(Boolean.TRUE);
+            assertThat(batcher.await(gets.get(i))).isEqualTo("value" + i);
+        }
+        assertThat(batcher.await(hashGet)).isEqualTo("hashValue");
+        assertThat(batcher.await(missing)).isNull();
+        DistributionSummary batchSize = meterRegistry.get("redis.auto.batch.size").summary();
+        assertThat(batchSize.max()).isGreaterThan(1);
+        assertThat(batchSize.totalAmount()).isEqualTo(12);
+    }
+
+    @Test
+    void callSubmittedAfterShutdownIsExecutedDirectly() throws InterruptedException {
+        batcher.destroy();
+
+        assertThat(batcher.await(batcher.set(PREFIX + "afterShutdown", "value", 100))).isEqualTo(Boolean.TRUE);
+        assertThat(batcher.await(batcher.get(PREFIX + "afterShutdown"))).isEqualTo("value");
+        assertThat(meterRegistry.get("redis.auto.batch.direct").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void awaitGivesUpAfterCallerDeadline() {
+        CompletableFuture<Object> neverCompleted = new CompletableFuture<>();
+        long start = System.nanoTime();
+
+        assertThatThrownBy(() -> redisGuard.withDeadline(Duration.ofMillis(50), () -> batcher.await(neverCompleted)))
+                .isInstanceOf(QueryTimeoutException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+    }
+}
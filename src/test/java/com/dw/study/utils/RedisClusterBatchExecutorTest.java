@@ -0,0 +1,229 @@
+package com.dw.study.utils;
+
+import com.dw.study.config.RedisConfig;
+import com.dw.study.support.EmbeddedRedisCluster;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @Author dw
+ * @ClassName RedisClusterBatchExecutorTest
+ * @Description 在三节点的 embedded Redis 集群上验证按slot分组的批量操作：每个slot只发送一条多key命令，
+ * 结果按原始key顺序合并，跨slot的 multiSetIfAbsent 被拒绝，空输入直接返回
+ * @Date 2026/10/20 13:20
+ * @Version 1.0
+ */
+class RedisClusterBatchExecutorTest {
+
+    private static LettuceConnectionFactory connectionFactory;
+
+    private static RedisTemplate<String, Object> redisTemplate;
+
+    private static RedisClusterBatchExecutor executor;
+
+    private final String prefix = "test:cluster:" + System.nanoTime() + ":";
+
+    private final List<String> written = new ArrayList<>();
+
+    @BeforeAll
+    static void startCluster() {
+        List<String> nodes = EmbeddedRedisCluster.nodes();
+        connectionFactory = new LettuceConnectionFactory(new RedisClusterConfiguration(nodes));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = RedisConfig.createRedisTemplate(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+        RedisProperties redisProperties = new RedisProperties();
+        redisProperties.setCluster(new RedisProperties.Cluster());
+        redisProperties.getCluster().setNodes(nodes);
+        executor = new RedisClusterBatchExecutor(redisProperties);
+    }
+
+    @AfterAll
+    static void stop() {
+        executor.destroy();
+        connectionFactory.destroy();
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String key : written) {
+            redisTemplate.delete(key);
+        }
+    }
+
+    @Test
+    void multiGetMergesResultsInTheOriginalOrder() {
+        List<String> keys = keys(60);
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            // 每隔几个key留一个不存在的，确认空值也落在原来的位置
+            if (i % 5 != 0) {
+                values.put(keys.get(i), "value-" + i);
+            }
+        }
+        executor.multiSet(redisTemplate, values);
+        List<String> shuffled = new ArrayList<>(keys);
+        Collections.shuffle(shuffled);
+
+        List<Object> results = executor.multiGet(redisTemplate, shuffled);
+
+        assertThat(results).hasSize(shuffled.size());
+        for (int i = 0; i < shuffled.size(); i++) {
+            assertThat(results.get(i)).as(shuffled.get(i)).isEqualTo(values.get(shuffled.get(i)));
+        }
+    }
+
+    @Test
+    void sendsOneCommandPerSlot() {
+        List<String> keys = keys(40);
+        Set<Integer> slots = new HashSet<>();
+        for (String key : keys) {
+            slots.add(ClusterSlotHashUtil.calculateSlot(key));
+        }
+        assertThat(slots.size()).as("测试数据需要同时包含同slot和跨slot的key").isBetween(2, keys.size() - 1);
+        resetCommandStats();
+
+        executor.multiGet(redisTemplate, keys);
+
+        assertThat(commandCalls("mget")).isEqualTo(slots.size());
+        assertThat(commandCalls("get")).isZero();
+    }
+
+    @Test
+    void multiSetAndDeleteSpanEveryNode() {
+        List<String> keys = keys(30);
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (String key : keys) {
+            values.put(key, key);
+        }
+        executor.multiSet(redisTemplate, values);
+        Map<RedisClusterNode, Integer> perNode = new HashMap<>();
+        try (RedisClusterConnection connection = connectionFactory.getClusterConnection()) {
+            for (String key : keys) {
+                assertThat(redisTemplate.opsForValue().get(key)).isEqualTo(key);
+                perNode.merge(connection.clusterGetNodeForKey(key.getBytes()), 1, Integer::sum);
+            }
+        }
+        assertThat(perNode).as("key分布在所有节点上").hasSize(EmbeddedRedisCluster.nodes().size());
+
+        List<String> withMissing = new ArrayList<>(keys);
+        withMissing.add(prefix + "missing");
+
+        assertThat(executor.delete(redisTemplate, withMissing)).isEqualTo(keys.size());
+        assertThat(executor.multiGet(redisTemplate, keys)).containsOnlyNulls();
+    }
+
+    @Test
+    void multiSetIfAbsentRejectsKeysInDifferentSlots() {
+        Map<String, Object> crossSlot = new LinkedHashMap<>();
+        crossSlot.put(prefix + "a", "a");
+        crossSlot.put(prefix + "b", "b");
+        assertThat(ClusterSlotHashUtil.isSameSlotForAllKeys(toBytes(crossSlot.keySet()))).isFalse();
+        written.addAll(crossSlot.keySet());
+
+        assertThatThrownBy(() -> executor.multiSetIfAbsent(redisTemplate, crossSlot))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(redisTemplate.opsForValue().get(prefix + "a")).as("跨slot时一个key都不写入").isNull();
+        assertThat(redisTemplate.opsForValue().get(prefix + "b")).isNull();
+    }
+
+    @Test
+    void multiSetIfAbsentWithinOneSlotIsAllOrNothing() {
+        String tag = "{" + prefix + "tag}:";
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put(tag + "a", "a");
+        first.put(tag + "b", "b");
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put(tag + "b", "other");
+        second.put(tag + "c", "c");
+        written.addAll(first.keySet());
+        written.addAll(second.keySet());
+
+        assertThat(executor.multiSetIfAbsent(redisTemplate, first)).isTrue();
+        assertThat(executor.multiSetIfAbsent(redisTemplate, second)).isFalse();
+
+        assertThat(redisTemplate.opsForValue().get(tag + "b")).isEqualTo("b");
+        assertThat(redisTemplate.opsForValue().get(tag + "c")).isNull();
+    }
+
+    @Test
+    void emptyInputReturnsWithoutCallingRedis() {
+        resetCommandStats();
+
+        assertThat(executor.multiGet(redisTemplate, Collections.emptyList())).isEmpty();
+        executor.multiSet(redisTemplate, Collections.emptyMap());
+        assertThat(executor.delete(redisTemplate, Collections.emptyList())).isZero();
+        assertThat(executor.multiSetIfAbsent(redisTemplate, Collections.emptyMap())).isTrue();
+
+        assertThat(commandCalls("mget") + commandCalls("mset") + commandCalls("del") + commandCalls("msetnx")).isZero();
+    }
+
+    /**
+     * 一半普通key（分散在各个slot），一半使用同一个hash tag（同一个slot）
+     */
+    private List<String> keys(int count) {
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(i % 2 == 0 ? prefix + i : "{" + prefix + "same}:" + i);
+        }
+        written.addAll(keys);
+        return keys;
+    }
+
+    private static void resetCommandStats() {
+        try (RedisClusterConnection connection = connectionFactory.getClusterConnection()) {
+            for (RedisClusterNode node : connection.clusterGetNodes()) {
+                connection.resetConfigStats(node);
+            }
+        }
+    }
+
+    /**
+     * 所有节点上某个命令的调用次数（INFO commandstats）
+     */
+    private static long commandCalls(String command) {
+        long calls = 0;
+        try (RedisClusterConnection connection = connectionFactory.getClusterConnection()) {
+            for (RedisClusterNode node : connection.clusterGetNodes()) {
+                Properties stats = connection.info(node, "commandstats");
+                String stat = stats.getProperty("cmdstat_" + command);
+                if (stat != null) {
+                    calls += Long.parseLong(stat.substring(stat.indexOf("calls=") + 6, stat.indexOf(',')));
+                }
+            }
+        }
+        return calls;
+    }
+
+    private static byte[][] toBytes(Set<String> keys) {
+        byte[][] bytes = new byte[keys.size()][];
+        int i = 0;
+        for (String key : keys) {
+            bytes[i++] = key.getBytes();
+        }
+        return bytes;
+    }
+}
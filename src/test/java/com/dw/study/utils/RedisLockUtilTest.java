@@ -0,0 +1,112 @@
+package com.dw.study.utils;
+
+import com.dw.study.support.RedisIntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @Author dw
+ * @ClassName RedisLockUtilTest
+ * @Description tryLockAll（lua/multi_lock.lua）在真实 Redis 上的批量加锁：要么全部获取、要么一个都不持有，
+ * 与单个key的 RLock 互斥，获取到的锁可以由 RLock 识别和释放
+ * @Date 2026/10/20 12:30
+ * @Version 1.0
+ */
+class RedisLockUtilTest extends RedisIntegrationTest {
+
+    @Autowired
+    private RedisLockUtil redisLockUtil;
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private final ExecutorService otherThread = Executors.newSingleThreadExecutor();
+
+    private final String prefix = "test:lock:" + System.nanoTime() + ":";
+
+    private final List<String> keys = Arrays.asList(prefix + "c", prefix + "a", prefix + "b");
+
+    @AfterEach
+    void tearDown() {
+        otherThread.shutdownNow();
+        stringRedisTemplate.delete(keys);
+    }
+
+    @Test
+    void acquiresEveryLockWithTheLeaseTime() {
+        assertThat(redisLockUtil.tryLockAll(keys, TimeUnit.MILLISECONDS, 0, 30000)).isTrue();
+
+        for (String key : keys) {
+            RLock lock = redissonClient.getLock(key);
+            assertThat(lock.isHeldByCurrentThread()).isTrue();
+            assertThat(stringRedisTemplate.getExpire(key, TimeUnit.MILLISECONDS)).isBetween(1L, 30000L);
+        }
+        assertThat(inOtherThread(() -> redisLockUtil.tryLockAll(keys, TimeUnit.MILLISECONDS, 0, 30000))).isFalse();
+
+        redisLockUtil.unlockAll(keys);
+        assertThat(keys).noneMatch(stringRedisTemplate::hasKey);
+    }
+
+    @Test
+    void lockHeldByAnotherThreadLeavesNoLockBehind() {
+        String held = prefix + "b";
+        assertThat(inOtherThread(() -> redisLockUtil.tryLock(held, TimeUnit.MILLISECONDS, 0, 30000))).isTrue();
+
+        assertThat(redisLockUtil.tryLockAll(keys, TimeUnit.MILLISECONDS, 50, 30000)).isFalse();
+
+        assertThat(stringRedisTemplate.hasKey(prefix + "a")).isFalse();
+        assertThat(stringRedisTemplate.hasKey(prefix + "c")).isFalse();
+        assertThat(redissonClient.getLock(held).isHeldByCurrentThread()).isFalse();
+    }
+
+    @Test
+    void waitsForALockThatExpires() {
+        String held = prefix + "a";
+        assertThat(inOtherThread(() -> redisLockUtil.tryLock(held, TimeUnit.MILLISECONDS, 0, 100))).isTrue();
+
+        assertThat(redisLockUtil.tryLockAll(keys, TimeUnit.MILLISECONDS, 5000, 30000)).isTrue();
+
+        assertThat(redissonClient.getLock(held).isHeldByCurrentThread()).isTrue();
+        redisLockUtil.unlockAll(keys);
+    }
+
+    @Test
+    void isReentrantForTheSameThread() {
+        assertThat(redisLockUtil.tryLock(prefix + "a", TimeUnit.MILLISECONDS, 0, 30000)).isTrue();
+
+        assertThat(redisLockUtil.tryLockAll(keys, TimeUnit.MILLISECONDS, 0, 30000)).isTrue();
+
+        redisLockUtil.unlockAll(keys);
+        assertThat(redissonClient.getLock(prefix + "a").isHeldByCurrentThread()).as("单个key的锁还持有一次").isTrue();
+        redisLockUtil.unlock(prefix + "a");
+        assertThat(keys).noneMatch(stringRedisTemplate::hasKey);
+    }
+
+    @Test
+    void requiresALeaseTime() {
+        assertThatThrownBy(() -> redisLockUtil.tryLockAll(keys, TimeUnit.MILLISECONDS, 0, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private boolean inOtherThread(Supplier<Boolean> action) {
+        return CompletableFuture.supplyAsync(action, otherThread).join();
+    }
+}
@@ -0,0 +1,214 @@
+package com.dw.study.utils;
+
+import com.dw.study.config.SingleFlightProperties;
+import com.dw.study.resilience.RedisGuard;
+import com.dw.study.resilience.RedisResilienceProperties;
+import com.dw.study.support.RedisIntegrationTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @Author dw
+ * @ClassName RedisSingleFlightTest
+ * @Description 并发读合并：加入进行中的读、forget 之后开始新的读、加入的调用方按自己的截止时间放弃等待、
+ * 开启 defensive-copy 时每个调用方拿到各自的副本。
+ * 读操作由测试控制（不访问Redis），第一个调用方在单独的线程中阻塞，直到测试放行
+ * @Date 2026/10/20 10:50
+ * @Version 1.0
+ */
+class RedisSingleFlightTest extends RedisIntegrationTest {
+
+    @Autowired
+    private RedisReadRouter redisReadRouter;
+
+    @Autowired
+    private RedisGuard redisGuard;
+
+    @Autowired
+    private RedisResilienceProperties resilienceProperties;
+
+    private final ExecutorService leaderThread = Executors.newSingleThreadExecutor();
+
+    private final CountDownLatch leaderStarted = new CountDownLatch(1);
+
+    private final CountDownLatch releaseLeader = new CountDownLatch(1);
+
+    private final AtomicInteger reads = new AtomicInteger();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RedisSingleFlight singleFlight;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new RedisSingleFlight(new SingleFlightProperties(), meterRegistry, redisReadRouter,
+                redisGuard, resilienceProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseLeader.countDown();
+        leaderThread.shutdownNow();
+    }
+
+    @Test
+    void concurrentReadJoinsTheFlightInProgress() throws Exception {
+        CompletableFuture<String> leader = startLeader("key");
+
+        CompletableFuture<String> joiner = CompletableFuture.supplyAsync(() -> singleFlight.execute("get", "key", this::read));
+        awaitJoined(1);
+        releaseLeader.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("value1");
+        assertThat(joiner.get(5, TimeUnit.SECONDS)).isEqualTo("value1");
+        assertThat(reads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void readAfterForgetStartsItsOwnFlight() throws Exception {
+        CompletableFuture<String> leader = startLeader("key");
+
+        singleFlight.forget("key");
+        assertThat(singleFlight.execute("get", "key", () -> "afterWrite")).isEqualTo("afterWrite");
+        assertThat(singleFlight.execute("get", "other", () -> "other")).isEqualTo("other");
+        releaseLeader.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("value1");
+        assertThat(meterRegistry.find("redis.single.flight.joined").counter()).isNull();
+    }
+
+    @Test
+    void joinerGivesUpAfterItsOwnDeadline() throws Exception {
+        CompletableFuture<String> leader = startLeader("key");
+        long start = System.nanoTime();
+
+        assertThatThrownBy(() -> redisGuard.withDeadline(Duration.ofMillis(50),
+                () -> singleFlight.execute("get", "key", this::read)))
+                .isInstanceOf(QueryTimeoutException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+
+        releaseLeader.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("value1");
+        assertThat(reads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void joinerReceivesTheLeadersException() throws Exception {
+        CompletableFuture<String> leader = new CompletableFuture<>();
+        leaderThread.execute(() -> {
+            try {
+                leader.complete(singleFlight.execute("get", "failing", () -> {
+                    leaderStarted.countDown();
+                    awaitRelease();
+                    throw new QueryTimeoutException("第一个调用方超时");
+                }));
+            } catch (RuntimeException e) {
+                leader.completeExceptionally(e);
+            }
+        });
+        assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<String> joiner = CompletableFuture.supplyAsync(() -> singleFlight.execute("get", "failing", this::read));
+        awaitJoined(1);
+        releaseLeader.countDown();
+
+        assertThatThrownBy(() -> joiner.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(QueryTimeoutException.class)
+                .hasMessageContaining("第一个调用方超时");
+        assertThat(reads.get()).isZero();
+    }
+
+    @Test
+    void leaderMutatingItsResultDoesNotAffectJoinersCopies() throws Exception {
+        SingleFlightProperties properties = new SingleFlightProperties();
+        properties.setDefensiveCopy(true);
+        singleFlight = new RedisSingleFlight(properties, meterRegistry, redisReadRouter, redisGuard, resilienceProperties);
+        Map<String, Object> original = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            original.put("field" + i, "value" + i);
+        }
+        CompletableFuture<Map<String, Object>> leader = new CompletableFuture<>();
+        leaderThread.execute(() -> {
+            Map<String, Object> result = singleFlight.execute("hgetall", "key", () -> {
+                leaderStarted.countDown();
+                awaitRelease();
+                return original;
+            });
+            // 第一个调用方拿到结果后立即修改，加入合并的调用方此时正在复制
+            for (int i = 0; i < 1000; i++) {
+                result.remove("field" + i);
+                result.put("mutated" + i, i);
+            }
+            leader.complete(result);
+        });
+        assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        ExecutorService joinerThreads = Executors.newFixedThreadPool(4);
+        List<Future<Map<String, Object>>> joiners = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            joiners.add(joinerThreads.submit(() -> singleFlight.execute("hgetall", "key", () -> new HashMap<String, Object>())));
+        }
+        awaitJoined(4);
+        releaseLeader.countDown();
+
+        Map<String, Object> leaderResult = leader.get(5, TimeUnit.SECONDS);
+        assertThat(leaderResult).isNotSameAs(original);
+        assertThat(original).hasSize(1000).containsEntry("field0", "value0");
+        for (Future<Map<String, Object>> joiner : joiners) {
+            Map<String, Object> joinerResult = joiner.get(5, TimeUnit.SECONDS);
+            assertThat(joinerResult).isNotSameAs(original).isNotSameAs(leaderResult).isEqualTo(original);
+        }
+        joinerThreads.shutdown();
+    }
+
+    private CompletableFuture<String> startLeader(String key) throws InterruptedException {
+        CompletableFuture<String> leader = new CompletableFuture<>();
+        leaderThread.execute(() -> leader.complete(singleFlight.execute("get", key, () -> {
+            leaderStarted.countDown();
+            awaitRelease();
+            return read();
+        })));
+        assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        return leader;
+    }
+
+    private String read() {
+        return "value" + reads.incrementAndGet();
+    }
+
+    private void awaitRelease() {
+        try {
+            releaseLeader.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitJoined(long joined) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.find("redis.single.flight.joined").counter() == null
+                || meterRegistry.find("redis.single.flight.joined").counter().count() < joined) {
+            assertThat(System.currentTimeMillis()).as("等待加入合并超时").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.dw.study.utils;
+
+import com.dw.study.support.RedisIntegrationTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @Author dw
+ * @ClassName RedisUtilsOptimisticUpdateTest
+ * @Description RedisUtils.updateVersioned 在真实 Redis 上的乐观更新：版本号递增、放弃更新、并发冲突时不丢失更新，以及监控指标的前缀
+ * @Date 2026/10/20 11:30
+ * @Version 1.0
+ */
+class RedisUtilsOptimisticUpdateTest extends RedisIntegrationTest {
+
+    private static final String PREFIX = "test:versioned:";
+
+    @Autowired
+    private RedisUtils redisUtils;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void updateCreatesAndIncrementsVersion() {
+        String key = PREFIX + "create";
+        redisUtils.del(key);
+
+        RedisUtils.VersionedValue first = redisUtils.updateVersioned(key, value -> value == null ? 1 : (Integer) value + 1, 100);
+        RedisUtils.VersionedValue second = redisUtils.updateVersioned(key, value -> (Integer) value + 1, 100);
+
+        assertThat(first.getVersion()).isEqualTo(1);
+        assertThat(first.getValue()).isEqualTo(1);
+        assertThat(second.getVersion()).isEqualTo(2);
+        assertThat(redisUtils.getVersioned(key).getValue()).isEqualTo(2);
+    }
+
+    @Test
+    void updateReturningNullAbortsWithoutWriting() {
+        String key = PREFIX + "abort";
+        redisUtils.del(key);
+        redisUtils.updateVersioned(key, value -> "initial", 100);
+
+        RedisUtils.VersionedValue result = redisUtils.updateVersioned(key, value -> null, 100);
+
+        assertThat(result.getVersion()).isEqualTo(1);
+        assertThat(result.getValue()).isEqualTo("initial");
+        assertThat(redisUtils.getVersioned(key).getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentUpdatesAreNotLost() throws Exception {
+        String key = PREFIX + "concurrent";
+        redisUtils.del(key);
+        int threads = 8;
+        int updatesPerThread = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> committed = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            committed.add(executor.submit(() -> {
+                start.await();
+                int count = 0;
+                for (int j = 0; j < updatesPerThread; j++) {
+                    if (redisUtils.updateVersioned(key, value -> value == null ? 1 : (Integer) value + 1, 100) != null) {
+                        count++;
+                    }
+                }
+                return count;
+            }));
+        }
+        start.countDown();
+        int total = 0;
+        for (Future<Integer> future : committed) {
+            total += future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // 重试次数用完的更新返回null，其余每次成功的更新都恰好加1
+        RedisUtils.VersionedValue result = redisUtils.getVersioned(key);
+        assertThat(total).isPositive();
+        assertThat(result.getValue()).isEqualTo(total);
+        assertThat(result.getVersion()).isEqualTo(total);
+    }
+
+    @Test
+    void keyWithoutColonIsCountedUnderConstantPrefix() {
+        String key = "testVersionedWithoutPrefix";
+        redisUtils.del(key);
+
+        redisUtils.updateVersioned(key, value -> "value", 100);
+
+        assertThat(meterRegistry.find("redis.optimistic.update").tag("prefix", "(none)").tag("result", "committed").counter())
+                .isNotNull();
+        assertThat(meterRegistry.find("redis.optimistic.update").tag("prefix", key).counter()).isNull();
+        redisUtils.del(key);
+    }
+}